@@ -17,6 +17,7 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-validation:3.4.3")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa:3.4.3")
     implementation("org.springframework.boot:spring-boot-starter-actuator:3.4.3")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus") // /actuator/prometheus
 
     // OpenAPI (Swagger) for API Documentation
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.5")
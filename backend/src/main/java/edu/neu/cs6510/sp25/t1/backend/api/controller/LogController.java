@@ -0,0 +1,74 @@
+package edu.neu.cs6510.sp25.t1.backend.api.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+import edu.neu.cs6510.sp25.t1.backend.error.ApiError;
+import edu.neu.cs6510.sp25.t1.backend.service.log.ExecutionLogService;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * Controller class for reading the logs of job executions.
+ */
+@RestController
+@RequestMapping("/api/logs")
+@Tag(name = "Log API", description = "Endpoints for reading the logs of running and completed jobs")
+public class LogController {
+
+  /** Upper bound on the lines returned by one request. */
+  static final int MAX_LINES = 10_000;
+
+  private final ExecutionLogService executionLogService;
+
+  /**
+   * Constructor for LogController.
+   *
+   * @param executionLogService ExecutionLogService instance
+   */
+  public LogController(ExecutionLogService executionLogService) {
+    this.executionLogService = executionLogService;
+  }
+
+  /**
+   * Reads the log of a job execution. Without a start line the last lines are returned;
+   * with one, the lines from there on, such as the next line of a previous response.
+   *
+   * @param jobExecutionId The ID of the job execution
+   * @param from           The number of the first line to return, starting at 0
+   * @param lines          The maximum number of lines to return
+   * @return ResponseEntity with the log lines, the job status and the next line
+   */
+  @GetMapping("/job/{jobExecutionId}")
+  @Operation(summary = "Read job log", description = "Returns the last lines of a job log, or the lines from a given line on to page through it or follow a running job.")
+  public ResponseEntity<?> getJobLog(
+          @PathVariable UUID jobExecutionId,
+          @RequestParam(required = false) Long from,
+          @RequestParam(defaultValue = "200") int lines) {
+    if (lines <= 0 || lines > MAX_LINES || (from != null && from < 0)) {
+      return ResponseEntity.badRequest().body(new ApiError(HttpStatus.BAD_REQUEST, "Invalid Request",
+          "lines must be between 1 and " + MAX_LINES + " and from must not be negative"));
+    }
+    try {
+      if (from != null) {
+        return ResponseEntity.ok(executionLogService.read(jobExecutionId, from, lines));
+      }
+      return ResponseEntity.ok(executionLogService.tail(jobExecutionId, lines));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(new ApiError(HttpStatus.NOT_FOUND, "Job execution not found", e.getMessage()));
+    } catch (Exception e) {
+      PipelineLogger.error("Error reading log of job execution {}: {}", jobExecutionId, e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+          .body(new ApiError(HttpStatus.INTERNAL_SERVER_ERROR, "Job log fetch failed", e.getMessage()));
+    }
+  }
+}
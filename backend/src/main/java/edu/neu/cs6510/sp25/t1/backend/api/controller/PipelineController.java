@@ -2,7 +2,10 @@ package edu.neu.cs6510.sp25.t1.backend.api.controller;
 
 import edu.neu.cs6510.sp25.t1.backend.messaging.StageQueuePublisher;
 import edu.neu.cs6510.sp25.t1.backend.service.status.StatusService;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusStreamService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,13 +15,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.context.annotation.Lazy;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 
 import edu.neu.cs6510.sp25.t1.backend.error.ApiError;
 import edu.neu.cs6510.sp25.t1.backend.service.execution.PipelineExecutionService;
+import edu.neu.cs6510.sp25.t1.backend.service.execution.PipelineIntakeService;
 import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
 import edu.neu.cs6510.sp25.t1.common.api.response.PipelineExecutionResponse;
 import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
@@ -39,6 +46,8 @@ public class PipelineController {
   @Lazy
   private final StageQueuePublisher stageQueuePublisher;
   private final StatusService statusService;
+  private final StatusStreamService statusStreamService;
+  private final PipelineIntakeService pipelineIntakeService;
 
   /**
    * Constructor for PipelineController.
@@ -49,14 +58,20 @@ public class PipelineController {
    *                                 queues
    * @param statusService            the service responsible for handling status
    *                                 updates
+   * @param statusStreamService      the service streaming status updates
+   * @param pipelineIntakeService    the service queueing submitted runs
    */
   public PipelineController(
       PipelineExecutionService pipelineExecutionService,
       StageQueuePublisher stageQueuePublisher,
-      StatusService statusService) {
+      StatusService statusService,
+      StatusStreamService statusStreamService,
+      PipelineIntakeService pipelineIntakeService) {
     this.pipelineExecutionService = pipelineExecutionService;
     this.stageQueuePublisher = stageQueuePublisher;
     this.statusService = statusService;
+    this.statusStreamService = statusStreamService;
+    this.pipelineIntakeService = pipelineIntakeService;
   }
 
   /**
@@ -68,7 +83,7 @@ public class PipelineController {
   @PostMapping("/run")
   @Operation(summary = "Trigger pipeline execution", description = "Starts a new pipeline execution.")
   public ResponseEntity<?> runPipeline(@RequestBody PipelineExecutionRequest request) {
-    PipelineLogger.info("Received pipeline execution request for: " + request.getFilePath());
+    PipelineLogger.info("Received pipeline execution request for: {}", request.getFilePath());
 
     try {
       // Validate filePath exists
@@ -79,11 +94,51 @@ public class PipelineController {
       }
 
       Queue<Queue<UUID>> stageQueue = new LinkedList<Queue<UUID>>();
-      PipelineExecutionResponse response = pipelineExecutionService.startPipelineExecution(request, stageQueue);
-      stageQueuePublisher.dispatchStageQueue(stageQueue);
+      Map<UUID, Set<UUID>> jobDependencies = new HashMap<>();
+      PipelineExecutionResponse response = pipelineExecutionService.startPipelineExecution(request, stageQueue,
+          jobDependencies);
+      UUID pipelineExecutionId = UUID.fromString(response.getExecutionId());
+      // cache the run before its first job can report a status
+      statusService.trackRun(pipelineExecutionId);
+      stageQueuePublisher.dispatchStageQueue(pipelineExecutionId, stageQueue, jobDependencies);
       return ResponseEntity.ok(response);
     } catch (Exception e) {
-      PipelineLogger.error("Failed pipeline execution: " + e.getMessage());
+      PipelineLogger.error("Failed pipeline execution: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+          new ApiError(HttpStatus.INTERNAL_SERVER_ERROR, "Pipeline Execution Failed", e.getMessage()));
+    }
+  }
+
+  /**
+   * Submit a pipeline execution without waiting for it to be created.
+   * The response holds the ID of the pending pipeline execution; the repository is fetched
+   * and the execution is created in the background. A submission for a pipeline that already
+   * has a run waiting in the queue returns the ID of that run, which then builds the newer commit.
+   *
+   * @param request PipelineExecutionRequest object
+   * @return ResponseEntity object, 202 with the pending execution or 503 if the intake queue is full
+   */
+  @PostMapping("/submit")
+  @Operation(summary = "Submit pipeline execution", description = "Queues a new pipeline execution and returns its ID before the pipeline definitions are read.")
+  public ResponseEntity<?> submitPipeline(@RequestBody PipelineExecutionRequest request) {
+    PipelineLogger.info("Received pipeline submission for: {}", request.getFilePath());
+
+    if (request.getFilePath() == null || request.getFilePath().isEmpty()) {
+      PipelineLogger.error("Pipeline file path is missing in the request");
+      return ResponseEntity.badRequest().body(
+          new ApiError(HttpStatus.BAD_REQUEST, "Invalid Request", "Pipeline file path is required"));
+    }
+
+    try {
+      Optional<PipelineExecutionResponse> response = pipelineIntakeService.submit(request);
+      if (response.isEmpty()) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(
+            new ApiError(HttpStatus.SERVICE_UNAVAILABLE, "Pipeline Intake Full",
+                "Too many pipeline runs are waiting, retry later"));
+      }
+      return ResponseEntity.accepted().body(response.get());
+    } catch (Exception e) {
+      PipelineLogger.error("Failed pipeline submission: {}", e.getMessage());
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
           new ApiError(HttpStatus.INTERNAL_SERVER_ERROR, "Pipeline Execution Failed", e.getMessage()));
     }
@@ -174,16 +229,76 @@ public class PipelineController {
       }
 
       pipelineName = pipelineFile;
-      PipelineLogger.info("Fetching status for pipeline: " + pipelineName);
+      PipelineLogger.info("Fetching status for pipeline: {}", pipelineName);
 
       // Trigger status service (implementation to be added)
       Map<String, Object> status = statusService.getStatusForPipeline(pipelineName);
 
       return ResponseEntity.ok(status);
     } catch (Exception e) {
-      PipelineLogger.error("Error getting status for pipeline: " + e.getMessage());
+      PipelineLogger.error("Error getting status for pipeline: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+          .body(new ApiError(HttpStatus.INTERNAL_SERVER_ERROR, "Pipeline status fetch failed", e.getMessage()));
+    }
+  }
+
+  /**
+   * Gets the status of a single pipeline execution.
+   *
+   * @param executionId The ID of the pipeline execution
+   * @return ResponseEntity with status info
+   */
+  @GetMapping("/execution/{executionId}")
+  @Operation(summary = "Get pipeline execution status", description = "Retrieves the current status of one pipeline execution.")
+  public ResponseEntity<?> getPipelineExecutionStatus(@PathVariable UUID executionId) {
+    try {
+      return ResponseEntity.ok(statusService.getStatusForExecution(executionId));
+    } catch (IllegalArgumentException e) {
+      PipelineLogger.error("Error getting status for pipeline execution: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(new ApiError(HttpStatus.NOT_FOUND, "Pipeline execution not found", e.getMessage()));
+    } catch (Exception e) {
+      PipelineLogger.error("Error getting status for pipeline execution: {}", e.getMessage());
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
           .body(new ApiError(HttpStatus.INTERNAL_SERVER_ERROR, "Pipeline status fetch failed", e.getMessage()));
     }
   }
+
+  /**
+   * Streams the status of a pipeline execution as server-sent events: a snapshot of the
+   * whole run, then one event per job status change, then a completion event.
+   *
+   * @param executionId The ID of the pipeline execution
+   * @return ResponseEntity with the event stream
+   */
+  @GetMapping("/execution/{executionId}/stream")
+  @Operation(summary = "Stream pipeline execution status", description = "Pushes stage and job status changes of one pipeline execution as server-sent events.")
+  public ResponseEntity<?> streamPipelineExecutionStatus(@PathVariable UUID executionId) {
+    try {
+      return ResponseEntity.ok(statusStreamService.subscribe(executionId));
+    } catch (IllegalArgumentException e) {
+      PipelineLogger.error("Error streaming status for pipeline execution: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON)
+          .body(new ApiError(HttpStatus.NOT_FOUND, "Pipeline execution not found", e.getMessage()));
+    }
+  }
+
+  /**
+   * Streams the status of the latest run of a pipeline as server-sent events.
+   *
+   * @param pipelineFile The name of the pipeline
+   * @return ResponseEntity with the event stream
+   */
+  @GetMapping("/{pipelineFile}/stream")
+  @Operation(summary = "Stream pipeline status", description = "Pushes stage and job status changes of the latest run of a pipeline as server-sent events.")
+  public ResponseEntity<?> streamPipelineStatus(@PathVariable String pipelineFile) {
+    try {
+      PipelineLogger.info("Streaming status for pipeline: {}", pipelineFile);
+      return ResponseEntity.ok(statusStreamService.subscribe(statusService.getLatestExecutionId(pipelineFile)));
+    } catch (IllegalArgumentException e) {
+      PipelineLogger.error("Error streaming status for pipeline: {}", e.getMessage());
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON)
+          .body(new ApiError(HttpStatus.NOT_FOUND, "Pipeline execution not found", e.getMessage()));
+    }
+  }
 }
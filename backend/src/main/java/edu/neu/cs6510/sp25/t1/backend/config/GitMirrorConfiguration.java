@@ -0,0 +1,32 @@
+package edu.neu.cs6510.sp25.t1.backend.config;
+
+import edu.neu.cs6510.sp25.t1.common.utils.GitMirrorCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+
+/**
+ * Configuration of the persistent repository mirrors the pipeline definitions are read from.
+ * Disabling the mirrors makes every run fetch its definitions from the remote.
+ */
+@Configuration
+@ConditionalOnProperty(name = "git.mirror.enabled", havingValue = "true", matchIfMissing = true)
+public class GitMirrorConfiguration {
+
+  /**
+   * Creates the mirror cache.
+   *
+   * @param path    directory holding the mirrors
+   * @param maxSize total size the mirrors may take up
+   * @return the mirror cache
+   */
+  @Bean
+  public GitMirrorCache gitMirrorCache(@Value("${git.mirror.path:/mnt/git-mirrors}") String path,
+      @Value("${git.mirror.max-size:10GB}") DataSize maxSize) {
+    return new GitMirrorCache(new File(path), maxSize.toBytes());
+  }
+}
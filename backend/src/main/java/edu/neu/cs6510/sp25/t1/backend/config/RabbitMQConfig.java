@@ -8,9 +8,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Date;
+
 /**
  * Configuration class for setting up RabbitMQ-related beans.
- * Registers the job queue, RabbitTemplate, and RabbitAdmin to enable messaging and queue management.
+ * Registers the job and job status queues, RabbitTemplate, and RabbitAdmin to enable messaging and queue management.
  */
 @Configuration
 public class RabbitMQConfig {
@@ -19,6 +21,10 @@ public class RabbitMQConfig {
   @Value("${spring.rabbitmq.job-queue}")
   private String jobQueueName;
 
+  /** Name of the RabbitMQ job status queue, injected from application properties. */
+  @Value("${spring.rabbitmq.job-status-queue}")
+  private String jobStatusQueueName;
+
   /**
    * Creates and configures a {@link RabbitAdmin} instance.
    *
@@ -32,13 +38,20 @@ public class RabbitMQConfig {
 
   /**
    * Creates and configures a {@link RabbitTemplate} for publishing messages.
+   * Every message is stamped with its publication time, from which workers measure how
+   * long a job waited in the queue.
    *
    * @param connectionFactory the RabbitMQ connection factory
    * @return a configured RabbitTemplate
    */
   @Bean
   public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
-    return new RabbitTemplate(connectionFactory);
+    RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+    rabbitTemplate.setBeforePublishPostProcessors(message -> {
+      message.getMessageProperties().setTimestamp(new Date());
+      return message;
+    });
+    return rabbitTemplate;
   }
 
   /**
@@ -50,4 +63,14 @@ public class RabbitMQConfig {
   public Queue jobQueue() {
     return new Queue(jobQueueName, true);
   }
+
+  /**
+   * Declares the durable queue on which workers publish job status events.
+   *
+   * @return the configured job status queue
+   */
+  @Bean
+  public Queue jobStatusQueue() {
+    return new Queue(jobStatusQueueName, true);
+  }
 }
@@ -0,0 +1,109 @@
+package edu.neu.cs6510.sp25.t1.backend.database.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Number of job executions in each status, kept on stage and pipeline execution rows so that
+ * their status can be rolled up incrementally on every job transition instead of being
+ * recomputed from all of their jobs.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatusCounts {
+
+  @Column(name = "jobs_pending", columnDefinition = "INT DEFAULT 0")
+  private int pending;
+
+  @Column(name = "jobs_running", columnDefinition = "INT DEFAULT 0")
+  private int running;
+
+  @Column(name = "jobs_succeeded", columnDefinition = "INT DEFAULT 0")
+  private int succeeded;
+
+  @Column(name = "jobs_failed", columnDefinition = "INT DEFAULT 0")
+  private int failed;
+
+  @Column(name = "jobs_canceled", columnDefinition = "INT DEFAULT 0")
+  private int canceled;
+
+  /**
+   * Counts newly created job executions, which start out as pending.
+   *
+   * @param count number of job executions created
+   */
+  public void addPending(int count) {
+    this.pending += count;
+  }
+
+  /**
+   * Returns the change in counts caused by one job execution moving between two statuses.
+   *
+   * @param from previous status of the job execution, or null for a newly created one
+   * @param to   new status of the job execution
+   * @return counts holding -1 for the previous status and +1 for the new one
+   */
+  public static JobStatusCounts transition(ExecutionStatus from, ExecutionStatus to) {
+    JobStatusCounts delta = new JobStatusCounts();
+    if (from != to) {
+      delta.add(from == null ? ExecutionStatus.PENDING : from, -1);
+      delta.add(to, 1);
+    }
+    return delta;
+  }
+
+  /**
+   * Rolls the counts up into the status of the owning execution.
+   *
+   * @return the status, see {@link ExecutionStatus#rollUp(Iterable)}
+   */
+  public ExecutionStatus toStatus() {
+    Set<ExecutionStatus> present = EnumSet.noneOf(ExecutionStatus.class);
+    if (pending > 0) {
+      present.add(ExecutionStatus.PENDING);
+    }
+    if (running > 0) {
+      present.add(ExecutionStatus.RUNNING);
+    }
+    if (succeeded > 0) {
+      present.add(ExecutionStatus.SUCCESS);
+    }
+    if (failed > 0) {
+      present.add(ExecutionStatus.FAILED);
+    }
+    if (canceled > 0) {
+      present.add(ExecutionStatus.CANCELED);
+    }
+    return ExecutionStatus.rollUp(present);
+  }
+
+  /**
+   * Indicates whether all counted job executions have finished.
+   *
+   * @return true if no job execution is pending or running
+   */
+  public boolean isFinished() {
+    return pending <= 0 && running <= 0;
+  }
+
+  private void add(ExecutionStatus status, int delta) {
+    switch (status) {
+      case PENDING -> pending += delta;
+      case RUNNING -> running += delta;
+      case SUCCESS -> succeeded += delta;
+      case FAILED -> failed += delta;
+      case CANCELED -> canceled += delta;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package edu.neu.cs6510.sp25.t1.backend.database.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Index entry of one compressed segment of a job log.
+ * The log text itself lives in the segment file of the job, this row only tells where
+ * the segment starts in that file and which lines it holds.
+ */
+@Entity
+@Table(name = "log_segments", indexes = {
+    @Index(name = "idx_log_segments_job_segment", columnList = "job_execution_id, segment_index")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LogSegmentEntity {
+
+  @Id
+  @GeneratedValue
+  private UUID id;
+
+  /**
+   * The job execution the log belongs to.
+   */
+  @Column(name = "job_execution_id", nullable = false)
+  private UUID jobExecutionId;
+
+  /**
+   * Position of the segment in the log, starting at 0.
+   */
+  @Column(name = "segment_index", nullable = false)
+  private int segmentIndex;
+
+  /**
+   * Number of the first line of the segment in the log, starting at 0.
+   */
+  @Column(name = "first_line", nullable = false)
+  private long firstLine;
+
+  @Column(name = "line_count", nullable = false)
+  private int lineCount;
+
+  /**
+   * Offset of the compressed segment in the segment file.
+   */
+  @Column(name = "byte_offset", nullable = false)
+  private long byteOffset;
+
+  /**
+   * Compressed size of the segment.
+   */
+  @Column(name = "byte_length", nullable = false)
+  private int byteLength;
+
+  /**
+   * Uncompressed size of the segment.
+   */
+  @Column(name = "raw_length", nullable = false)
+  private int rawLength;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  /**
+   * Returns the number of the line following the segment.
+   *
+   * @return the first line of the next segment
+   */
+  public long getEndLine() {
+    return firstLine + lineCount;
+  }
+}
@@ -23,7 +23,8 @@ import lombok.Setter;
 @Entity
 @Table(name = "pipelines", indexes = {
         @Index(name = "idx_pipeline_name", columnList = "name"),
-        @Index(name = "idx_pipeline_repo", columnList = "repository_url")
+        @Index(name = "idx_pipeline_repo", columnList = "repository_url"),
+        @Index(name = "idx_pipeline_definition_hash", columnList = "definition_hash")
 })
 @Getter
 @Setter
@@ -48,6 +49,13 @@ public class PipelineEntity {
   @Column(name = "commit_hash", length = 40)
   private String commitHash;
 
+  /**
+   * SHA-256 of the normalized configuration the stage and job definitions of this pipeline
+   * were created from; null until the definitions are written.
+   */
+  @Column(name = "definition_hash", length = 64)
+  private String definitionHash;
+
   @Column(name = "created_at", updatable = false)
   private Instant createdAt;
 
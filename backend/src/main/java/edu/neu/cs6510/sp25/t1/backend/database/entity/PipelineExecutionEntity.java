@@ -5,6 +5,7 @@ import java.util.UUID;
 
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -46,6 +47,9 @@ public class PipelineExecutionEntity {
   @Column(name = "is_local")
   private boolean isLocal;
 
+  @Column(name = "dag_scheduling", columnDefinition = "BOOLEAN DEFAULT FALSE")
+  private boolean dagScheduling;
+
   @Enumerated(EnumType.STRING)
   @Column(name = "status")
   private ExecutionStatus status;
@@ -56,6 +60,10 @@ public class PipelineExecutionEntity {
   @Column(name = "completion_time")
   private Instant completionTime;
 
+  @Embedded
+  @Builder.Default
+  private JobStatusCounts jobCounts = new JobStatusCounts();
+
   @PrePersist
   protected void onCreate() {
     this.startTime = Instant.now();
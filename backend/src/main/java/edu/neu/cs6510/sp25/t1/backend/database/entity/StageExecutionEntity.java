@@ -7,6 +7,7 @@ import java.util.UUID;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -92,6 +93,13 @@ public class StageExecutionEntity {
   @Column(name = "completion_time")
   private Instant completionTime;
 
+  /**
+   * Number of job executions of this stage in each status.
+   */
+  @Embedded
+  @Builder.Default
+  private JobStatusCounts jobCounts = new JobStatusCounts();
+
   /**
    * List of job executions associated with this stage execution
    */
@@ -0,0 +1,47 @@
+package edu.neu.cs6510.sp25.t1.backend.database.projection;
+
+import java.util.UUID;
+
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+
+/**
+ * One row of the status tree of a pipeline run, as read by a single joined query.
+ * There is one row per job of the pipeline definition; a stage without jobs yields a single
+ * row whose job columns are null. Execution columns are null when the run has no execution
+ * for the stage or job.
+ *
+ * @param pipelineName            name of the pipeline
+ * @param pipelineExecutionId     ID of the pipeline execution
+ * @param pipelineExecutionStatus persisted status of the pipeline execution
+ * @param stageName               name of the stage
+ * @param stageExecutionId        ID of the stage execution, or null
+ * @param stageExecutionStatus    persisted status of the stage execution, or null
+ * @param jobName                 name of the job, or null for a stage without jobs
+ * @param jobExecutionId          ID of the job execution, or null
+ * @param jobExecutionStatus      status of the job execution, or null
+ */
+public record JobStatusRow(
+    String pipelineName,
+    UUID pipelineExecutionId,
+    ExecutionStatus pipelineExecutionStatus,
+    String stageName,
+    UUID stageExecutionId,
+    ExecutionStatus stageExecutionStatus,
+    String jobName,
+    UUID jobExecutionId,
+    ExecutionStatus jobExecutionStatus) {
+
+  /**
+   * Returns a copy of this row with the given statuses.
+   *
+   * @param pipelineStatus status of the pipeline execution
+   * @param stageStatus    status of the stage execution
+   * @param jobStatus      status of the job execution
+   * @return the updated row
+   */
+  public JobStatusRow withStatuses(ExecutionStatus pipelineStatus, ExecutionStatus stageStatus,
+      ExecutionStatus jobStatus) {
+    return new JobStatusRow(pipelineName, pipelineExecutionId, pipelineStatus, stageName, stageExecutionId,
+        stageStatus, jobName, jobExecutionId, jobStatus);
+  }
+}
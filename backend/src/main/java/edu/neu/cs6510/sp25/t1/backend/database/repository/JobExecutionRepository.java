@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,6 +22,8 @@ public interface JobExecutionRepository extends JpaRepository<JobExecutionEntity
 
   List<JobExecutionEntity> findByStageExecution(StageExecutionEntity stageExecution);
 
+  List<JobExecutionEntity> findByStageExecutionIn(Collection<StageExecutionEntity> stageExecutions);
+
   Optional<JobExecutionEntity> findByJobId(UUID jobId);
 
 
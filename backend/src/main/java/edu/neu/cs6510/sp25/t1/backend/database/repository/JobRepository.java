@@ -1,8 +1,10 @@
 package edu.neu.cs6510.sp25.t1.backend.database.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -22,4 +24,23 @@ public interface JobRepository extends JpaRepository<JobEntity, UUID> {
    */
   List<JobEntity> findByStageId(UUID stageId);
 
+  /**
+   * Retrieves all jobs of the given stages in one query, with their dependencies fetched
+   * along so reading them does not cost a query per job.
+   *
+   * @param stageIds The stage IDs.
+   * @return List of job entities.
+   */
+  @EntityGraph(attributePaths = "dependencies")
+  List<JobEntity> findByStageIdIn(Collection<UUID> stageIds);
+
+  /**
+   * Retrieves the given jobs in one query, with their dependencies fetched along.
+   *
+   * @param ids The job IDs.
+   * @return List of job entities.
+   */
+  @EntityGraph(attributePaths = "dependencies")
+  List<JobEntity> findByIdIn(Collection<UUID> ids);
+
 }
@@ -0,0 +1,46 @@
+package edu.neu.cs6510.sp25.t1.backend.database.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.LogSegmentEntity;
+
+/**
+ * Repository for the index of compressed job log segments.
+ */
+@Repository
+public interface LogSegmentRepository extends JpaRepository<LogSegmentEntity, UUID> {
+
+  /**
+   * Saves a segment in a transaction of its own: readers look for the lines of a sealed
+   * segment in the index as soon as they are gone from the head file.
+   *
+   * @param segment the segment
+   * @return the saved segment
+   */
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  <S extends LogSegmentEntity> S save(S segment);
+
+  /**
+   * Finds the segments of a job log.
+   *
+   * @param jobExecutionId the job execution ID
+   * @return the segments, oldest first
+   */
+  List<LogSegmentEntity> findByJobExecutionIdOrderBySegmentIndexAsc(UUID jobExecutionId);
+
+  /**
+   * Finds the latest segment of a job log.
+   *
+   * @param jobExecutionId the job execution ID
+   * @return the latest segment, or empty if none was sealed yet
+   */
+  Optional<LogSegmentEntity> findFirstByJobExecutionIdOrderBySegmentIndexDesc(UUID jobExecutionId);
+}
@@ -1,15 +1,20 @@
 package edu.neu.cs6510.sp25.t1.backend.database.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobStatusCounts;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 
 /**
  * Repository for managing PipelineExecution entities.
@@ -17,6 +22,19 @@ import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
 @Repository
 public interface PipelineExecutionRepository extends JpaRepository<PipelineExecutionEntity, UUID> {
 
+  /** Selects the status tree of a run, see {@link JobStatusRow}; completed by a WHERE clause. */
+  String RUN_STATUS_QUERY = "SELECT new edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow("
+      + "p.name, pe.id, pe.status, s.name, se.id, se.status, j.name, je.id, je.status) "
+      + "FROM PipelineExecutionEntity pe "
+      + "JOIN PipelineEntity p ON pe.pipelineId = p.id "
+      + "JOIN StageEntity s ON s.pipelineId = p.id "
+      + "LEFT JOIN StageExecutionEntity se ON se.stageId = s.id AND se.pipelineExecutionId = pe.id "
+      + "LEFT JOIN JobEntity j ON j.stageId = s.id "
+      + "LEFT JOIN JobExecutionEntity je ON je.jobId = j.id AND je.stageExecution.id = se.id ";
+
+  /** Orders the rows of a run status query by stage execution order. */
+  String RUN_STATUS_ORDER = "ORDER BY s.executionOrder, s.name, j.name";
+
   /**
    * Finds pipeline executions by pipeline ID.
    *
@@ -61,4 +79,68 @@ public interface PipelineExecutionRepository extends JpaRepository<PipelineExecu
    */
   @Query("SELECT p.id FROM PipelineEntity p WHERE p.name = :pipelineName")
   Optional<UUID> findPipelineIdByName(@Param("pipelineName") String pipelineName);
+
+  /**
+   * Reads the status tree of the most recent run of a pipeline in a single query.
+   * Stages and jobs come from the pipeline definition and are left joined with their
+   * executions in that run, so missing executions show up as null columns.
+   *
+   * @param pipelineName the name of the pipeline
+   * @return one row per job, ordered by stage execution order; empty if the pipeline or its run does not exist
+   */
+  @Query(RUN_STATUS_QUERY
+      + "WHERE p.name = :pipelineName AND pe.startTime = "
+      + "(SELECT MAX(latest.startTime) FROM PipelineExecutionEntity latest WHERE latest.pipelineId = p.id) "
+      + RUN_STATUS_ORDER)
+  List<JobStatusRow> findLatestRunStatusByPipelineName(@Param("pipelineName") String pipelineName);
+
+  /**
+   * Reads the status tree of one pipeline execution in a single query.
+   *
+   * @param pipelineExecutionId the pipeline execution ID
+   * @return one row per job, ordered by stage execution order; empty if the execution does not exist
+   */
+  @Query(RUN_STATUS_QUERY + "WHERE pe.id = :pipelineExecutionId " + RUN_STATUS_ORDER)
+  List<JobStatusRow> findRunStatusByPipelineExecutionId(@Param("pipelineExecutionId") UUID pipelineExecutionId);
+
+  /**
+   * Adds to the job counts of a pipeline execution in a single statement, which also locks its
+   * row until the end of the transaction so concurrent job transitions roll up one after another.
+   *
+   * @param id    the pipeline execution ID
+   * @param delta the change of each count
+   * @return the number of updated rows
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE PipelineExecutionEntity pe SET "
+      + "pe.jobCounts.pending = pe.jobCounts.pending + :#{#delta.pending}, "
+      + "pe.jobCounts.running = pe.jobCounts.running + :#{#delta.running}, "
+      + "pe.jobCounts.succeeded = pe.jobCounts.succeeded + :#{#delta.succeeded}, "
+      + "pe.jobCounts.failed = pe.jobCounts.failed + :#{#delta.failed}, "
+      + "pe.jobCounts.canceled = pe.jobCounts.canceled + :#{#delta.canceled} "
+      + "WHERE pe.id = :id")
+  int addJobCounts(@Param("id") UUID id, @Param("delta") JobStatusCounts delta);
+
+  /**
+   * Reads the job counts of a pipeline execution without loading the entity.
+   *
+   * @param id the pipeline execution ID
+   * @return the job counts
+   */
+  @Query("SELECT pe.jobCounts FROM PipelineExecutionEntity pe WHERE pe.id = :id")
+  Optional<JobStatusCounts> findJobCountsById(@Param("id") UUID id);
+
+  /**
+   * Sets the rolled up status and completion time of a pipeline execution.
+   *
+   * @param id             the pipeline execution ID
+   * @param status         the new status
+   * @param completionTime the completion time to record, null while the execution is not finished
+   * @return the number of updated rows
+   */
+  @Modifying
+  @Query("UPDATE PipelineExecutionEntity pe SET pe.status = :status, pe.completionTime = :completionTime "
+      + "WHERE pe.id = :id")
+  int updateRolledUpStatus(@Param("id") UUID id, @Param("status") ExecutionStatus status,
+      @Param("completionTime") Instant completionTime);
 }
@@ -21,4 +21,12 @@ public interface PipelineRepository extends JpaRepository<PipelineEntity, UUID>
    * @return an optional pipeline entity
    */
   Optional<PipelineEntity> findByName(String name);
+
+  /**
+   * Finds the latest pipeline whose definitions were created from the given configuration.
+   *
+   * @param definitionHash the content hash of the normalized pipeline configuration
+   * @return an optional pipeline entity
+   */
+  Optional<PipelineEntity> findFirstByDefinitionHashOrderByCreatedAtDesc(String definitionHash);
 }
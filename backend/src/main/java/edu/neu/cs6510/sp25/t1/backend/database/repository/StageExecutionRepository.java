@@ -1,15 +1,19 @@
 package edu.neu.cs6510.sp25.t1.backend.database.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobStatusCounts;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 
 /**
  * Repository for managing StageExecution entities.
@@ -62,4 +66,44 @@ public interface StageExecutionRepository extends JpaRepository<StageExecutionEn
   @Query("SELECT se FROM StageExecutionEntity se JOIN StageEntity s ON se.stageId = s.id WHERE se.pipelineExecutionId = :pipelineExecutionId AND s.name = :stageName ORDER BY se.startTime DESC")
   List<StageExecutionEntity> findByPipelineExecutionIdAndStageNameOrderByStartTimeDesc(@Param("pipelineExecutionId") UUID pipelineExecutionId, @Param("stageName") String stageName);
 
+  /**
+   * Adds to the job counts of a stage execution in a single statement, which also locks its
+   * row until the end of the transaction so concurrent job transitions roll up one after another.
+   *
+   * @param id    the stage execution ID
+   * @param delta the change of each count
+   * @return the number of updated rows
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE StageExecutionEntity se SET "
+      + "se.jobCounts.pending = se.jobCounts.pending + :#{#delta.pending}, "
+      + "se.jobCounts.running = se.jobCounts.running + :#{#delta.running}, "
+      + "se.jobCounts.succeeded = se.jobCounts.succeeded + :#{#delta.succeeded}, "
+      + "se.jobCounts.failed = se.jobCounts.failed + :#{#delta.failed}, "
+      + "se.jobCounts.canceled = se.jobCounts.canceled + :#{#delta.canceled} "
+      + "WHERE se.id = :id")
+  int addJobCounts(@Param("id") UUID id, @Param("delta") JobStatusCounts delta);
+
+  /**
+   * Reads the job counts of a stage execution without loading the entity.
+   *
+   * @param id the stage execution ID
+   * @return the job counts
+   */
+  @Query("SELECT se.jobCounts FROM StageExecutionEntity se WHERE se.id = :id")
+  Optional<JobStatusCounts> findJobCountsById(@Param("id") UUID id);
+
+  /**
+   * Sets the rolled up status and completion time of a stage execution.
+   *
+   * @param id             the stage execution ID
+   * @param status         the new status
+   * @param completionTime the completion time to record, null while the execution is not finished
+   * @return the number of updated rows
+   */
+  @Modifying
+  @Query("UPDATE StageExecutionEntity se SET se.status = :status, se.completionTime = :completionTime "
+      + "WHERE se.id = :id")
+  int updateRolledUpStatus(@Param("id") UUID id, @Param("status") ExecutionStatus status,
+      @Param("completionTime") Instant completionTime);
 }
@@ -0,0 +1,51 @@
+package edu.neu.cs6510.sp25.t1.backend.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import edu.neu.cs6510.sp25.t1.backend.service.status.RunStateCache;
+import edu.neu.cs6510.sp25.t1.common.api.request.JobStatusUpdate;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+
+/**
+ * Consumes job status events published by workers. Every event updates the
+ * {@link RunStateCache} and is forwarded to the {@link StageQueuePublisher}
+ * so that stages are released as soon as they complete.
+ */
+@Component
+@RequiredArgsConstructor
+public class JobStatusListener {
+
+  private final StageQueuePublisher stageQueuePublisher;
+  private final RunStateCache runStateCache;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Receives a JSON encoded {@link JobStatusUpdate} from the job status queue.
+   *
+   * @param message the raw message payload
+   */
+  @RabbitListener(queues = "${spring.rabbitmq.job-status-queue}")
+  public void onJobStatus(String message) {
+    if (message == null || message.isEmpty()) {
+      PipelineLogger.warn("Received empty job status event, ignoring");
+      return;
+    }
+
+    try {
+      JobStatusUpdate update = objectMapper.readValue(message, JobStatusUpdate.class);
+      PipelineLogger.atDebug()
+          .addKeyValue(PipelineLogger.JOB_EXECUTION_ID, update.getJobExecutionId())
+          .log("Received status {} for job execution: {}", update.getStatus(), update.getJobExecutionId());
+      runStateCache.onJobStatus(update.getJobExecutionId(), update.getStatus());
+      stageQueuePublisher.onJobStatus(update.getJobExecutionId(), update.getStatus());
+    } catch (JsonProcessingException e) {
+      PipelineLogger.error("Invalid job status event: {} | {}", message, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,419 @@
+package edu.neu.cs6510.sp25.t1.backend.messaging;
+
+import org.springframework.stereotype.Component;
+
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks outstanding jobs per pipeline execution so that stage gating is done per run.
+ * All pipelines share the same RabbitMQ job queue, but a run only waits for its own
+ * jobs before its next stage is released, so a large fan-out stage of one pipeline
+ * never delays the stage transitions of an unrelated pipeline.
+ *
+ * <p>Within a stage, jobs are released as a DAG: a job is dispatched as soon as all of its
+ * declared dependencies in the same stage have succeeded, and jobs whose dependencies
+ * failed are skipped. Dependencies outside the current stage are already satisfied by
+ * the stage barrier. Pipelines using DAG scheduling register all jobs as a single stage,
+ * so jobs are gated by their dependencies only.
+ *
+ * <p>A completion stays replayable until its follow-up work is confirmed: if dispatching
+ * the released jobs fails and the status event is delivered again, {@link #complete} returns
+ * the work that is still left instead of ignoring the job. Runs this scheduler does not know,
+ * e.g. after a restart, can be put back with {@link #restore} from the stored job statuses.
+ */
+@Component
+public class PipelineJobScheduler {
+
+  /** Active runs keyed by pipeline execution ID. */
+  private final Map<UUID, PipelineRun> runs = new ConcurrentHashMap<>();
+
+  /** Dispatched job execution IDs mapped to the pipeline execution that owns them. */
+  private final Map<UUID, UUID> pipelineExecutionByJobId = new ConcurrentHashMap<>();
+
+  /** Completions whose follow-up work has not been confirmed, keyed by the finished job execution ID. */
+  private final Map<UUID, Completion> unconfirmed = new ConcurrentHashMap<>();
+
+  /**
+   * Registers the stages of a pipeline execution.
+   *
+   * @param pipelineExecutionId ID of the pipeline execution
+   * @param stageQueue          queue of job queues, one per stage in execution order
+   * @param jobDependencies     dependency job execution IDs keyed by job execution ID
+   */
+  public void register(UUID pipelineExecutionId, Queue<Queue<UUID>> stageQueue,
+      Map<UUID, Set<UUID>> jobDependencies) {
+    runs.put(pipelineExecutionId, new PipelineRun(stageQueue, jobDependencies));
+    PipelineLogger.atInfo()
+        .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecutionId)
+        .log("Registered {} stages for pipeline execution: {}", stageQueue.size(), pipelineExecutionId);
+  }
+
+  /**
+   * Moves the given run to its next non-empty stage and returns the jobs of that stage
+   * that have no pending dependencies. Returned jobs are marked as outstanding.
+   * The run is forgotten once no stages remain.
+   *
+   * @param pipelineExecutionId ID of the pipeline execution
+   * @return the job IDs ready to be dispatched, or an empty optional if the run has no stages left
+   */
+  public Optional<Queue<UUID>> nextStage(UUID pipelineExecutionId) {
+    PipelineRun run = runs.get(pipelineExecutionId);
+    if (run == null) {
+      return Optional.empty();
+    }
+
+    Queue<UUID> readyJobs = run.nextStage();
+    if (readyJobs == null) {
+      runs.remove(pipelineExecutionId);
+      return Optional.empty();
+    }
+
+    trackDispatched(pipelineExecutionId, readyJobs);
+    return Optional.of(readyJobs);
+  }
+
+  /**
+   * Marks a job as finished and works out what the owning run can do next. When the job was
+   * the last one of its stage, the run moves on to its next stage and the ready jobs of that
+   * stage are returned as well.
+   * <p>
+   * Until {@link #confirm} is called, completing the same job again returns the part of the
+   * completion not yet reported as done with {@link #handled}.
+   *
+   * @param jobExecutionId ID of the finished job execution
+   * @param status         terminal status reported for the job
+   * @return the progress of the owning run, or an empty optional if the job is unknown
+   */
+  public Optional<Completion> complete(UUID jobExecutionId, ExecutionStatus status) {
+    Completion pending = unconfirmed.get(jobExecutionId);
+    if (pending != null) {
+      return Optional.of(pending);
+    }
+
+    UUID pipelineExecutionId = pipelineExecutionByJobId.get(jobExecutionId);
+    if (pipelineExecutionId == null) {
+      return Optional.empty();
+    }
+
+    PipelineRun run = runs.get(pipelineExecutionId);
+    if (run == null) {
+      pipelineExecutionByJobId.remove(jobExecutionId);
+      return Optional.empty();
+    }
+
+    Completion completion = run.complete(pipelineExecutionId, jobExecutionId, status);
+    pipelineExecutionByJobId.remove(jobExecutionId);
+    if (completion.stageFinished()) {
+      List<UUID> readyJobs = new ArrayList<>(completion.readyJobs());
+      nextStage(pipelineExecutionId).ifPresent(readyJobs::addAll);
+      completion = new Completion(pipelineExecutionId, readyJobs, completion.skippedJobs(), true);
+    } else {
+      trackDispatched(pipelineExecutionId, completion.readyJobs());
+    }
+    unconfirmed.put(jobExecutionId, completion);
+    return Optional.of(completion);
+  }
+
+  /**
+   * Records that a released or skipped job of a completion has been taken care of, so it is
+   * not returned again if the completion is replayed.
+   *
+   * @param jobExecutionId ID of the finished job execution the completion belongs to
+   * @param handledJobId   ID of the dispatched or skipped job execution
+   */
+  public void handled(UUID jobExecutionId, UUID handledJobId) {
+    unconfirmed.computeIfPresent(jobExecutionId, (id, completion) -> completion.without(handledJobId));
+  }
+
+  /**
+   * Records that all follow-up work of a completion is done, so completing the job again is ignored.
+   *
+   * @param jobExecutionId ID of the finished job execution
+   */
+  public void confirm(UUID jobExecutionId) {
+    unconfirmed.remove(jobExecutionId);
+  }
+
+  /**
+   * Checks whether a pipeline execution is being scheduled.
+   *
+   * @param pipelineExecutionId ID of the pipeline execution
+   * @return true if the run has stages or jobs left
+   */
+  public boolean isActive(UUID pipelineExecutionId) {
+    return runs.containsKey(pipelineExecutionId);
+  }
+
+  /**
+   * Puts a run back from the stored statuses of its jobs. Stages whose jobs have all finished
+   * are dropped. If the first remaining stage has a job that left PENDING, it becomes the
+   * current stage: its running jobs, and its pending jobs whose dependencies have succeeded,
+   * are taken to be dispatched; the other pending jobs wait for their dependencies. Otherwise
+   * no stage is current and the first one is released by the next {@link #nextStage} call.
+   *
+   * @param pipelineExecutionId ID of the pipeline execution
+   * @param stages              job execution statuses of every stage, in execution order
+   * @param jobDependencies     dependency job execution IDs keyed by job execution ID
+   */
+  public void restore(UUID pipelineExecutionId, List<Map<UUID, ExecutionStatus>> stages,
+      Map<UUID, Set<UUID>> jobDependencies) {
+    List<Map<UUID, ExecutionStatus>> unfinished = stages.stream()
+        .filter(stage -> stage.values().stream().anyMatch(status -> !status.isTerminal()))
+        .toList();
+    if (unfinished.isEmpty()) {
+      return;
+    }
+
+    Map<UUID, ExecutionStatus> first = unfinished.get(0);
+    boolean started = first.values().stream().anyMatch(status -> status != ExecutionStatus.PENDING);
+    Queue<Queue<UUID>> stageQueue = new LinkedList<>();
+    for (Map<UUID, ExecutionStatus> stage : started ? unfinished.subList(1, unfinished.size()) : unfinished) {
+      stageQueue.add(new LinkedList<>(stage.keySet()));
+    }
+
+    PipelineRun run = new PipelineRun(stageQueue, jobDependencies);
+    if (started) {
+      trackDispatched(pipelineExecutionId, run.resume(first));
+    }
+    runs.put(pipelineExecutionId, run);
+    PipelineLogger.atInfo()
+        .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecutionId)
+        .log("Restored pipeline execution {} with {} unfinished stages", pipelineExecutionId, unfinished.size());
+  }
+
+  /**
+   * Returns the number of outstanding jobs of a pipeline execution's current stage.
+   *
+   * @param pipelineExecutionId ID of the pipeline execution
+   * @return the outstanding job count, or 0 if the run is unknown or finished
+   */
+  public int getOutstandingJobCount(UUID pipelineExecutionId) {
+    PipelineRun run = runs.get(pipelineExecutionId);
+    return run == null ? 0 : run.outstandingCount();
+  }
+
+  /**
+   * Returns a snapshot of outstanding job counts for every active pipeline execution.
+   *
+   * @return map of pipeline execution ID to outstanding job count
+   */
+  public Map<UUID, Integer> getOutstandingJobCounts() {
+    Map<UUID, Integer> counts = new LinkedHashMap<>();
+    runs.forEach((id, run) -> counts.put(id, run.outstandingCount()));
+    return counts;
+  }
+
+  /**
+   * Returns the number of dispatched jobs across all runs that have not reported a terminal status.
+   *
+   * @return the total outstanding job count
+   */
+  public int getOutstandingJobCount() {
+    return pipelineExecutionByJobId.size();
+  }
+
+  /**
+   * Remembers which run owns the given dispatched jobs.
+   *
+   * @param pipelineExecutionId ID of the owning pipeline execution
+   * @param jobIds              dispatched job execution IDs
+   */
+  private void trackDispatched(UUID pipelineExecutionId, Iterable<UUID> jobIds) {
+    for (UUID jobId : jobIds) {
+      pipelineExecutionByJobId.put(jobId, pipelineExecutionId);
+    }
+  }
+
+  /**
+   * Outcome of a job completion for its pipeline run.
+   *
+   * @param pipelineExecutionId ID of the owning pipeline execution
+   * @param readyJobs           jobs whose dependencies are now satisfied and that should be dispatched
+   * @param skippedJobs         jobs that will never run because a dependency did not succeed
+   * @param stageFinished       true if every job of the current stage has finished or been skipped
+   */
+  public record Completion(UUID pipelineExecutionId, List<UUID> readyJobs, List<UUID> skippedJobs,
+      boolean stageFinished) {
+
+    private Completion without(UUID jobId) {
+      return new Completion(pipelineExecutionId,
+          readyJobs.stream().filter(id -> !id.equals(jobId)).toList(),
+          skippedJobs.stream().filter(id -> !id.equals(jobId)).toList(),
+          stageFinished);
+    }
+  }
+
+  /**
+   * Remaining stages of a single pipeline run together with the dependency state of
+   * the stage that is currently executing.
+   */
+  private static final class PipelineRun {
+    private final Queue<Queue<UUID>> stageQueue;
+    private final Map<UUID, Set<UUID>> jobDependencies;
+    private final Set<UUID> stageJobs = new HashSet<>();
+    private final Set<UUID> waitingJobs = new LinkedHashSet<>();
+    private final Set<UUID> outstandingJobs = new HashSet<>();
+    private final Set<UUID> succeededJobs = new HashSet<>();
+    private final Set<UUID> unsuccessfulJobs = new HashSet<>();
+
+    private PipelineRun(Queue<Queue<UUID>> stageQueue, Map<UUID, Set<UUID>> jobDependencies) {
+      this.stageQueue = stageQueue;
+      this.jobDependencies = jobDependencies == null ? Map.of() : jobDependencies;
+    }
+
+    /**
+     * Moves to the next non-empty stage and releases the jobs that do not wait on another job of it.
+     *
+     * @return the ready jobs of the next stage, or null if no stages remain
+     */
+    private synchronized Queue<UUID> nextStage() {
+      while (!stageQueue.isEmpty()) {
+        Queue<UUID> jobQueue = stageQueue.poll();
+        if (jobQueue == null || jobQueue.isEmpty()) {
+          PipelineLogger.warn("Empty job queue found, skipping...");
+          continue;
+        }
+        stageJobs.clear();
+        succeededJobs.clear();
+        unsuccessfulJobs.clear();
+        stageJobs.addAll(jobQueue);
+        waitingJobs.addAll(jobQueue);
+        return new LinkedList<>(releaseReadyJobs());
+      }
+      return null;
+    }
+
+    /**
+     * Makes the given stage current from the stored statuses of its jobs.
+     *
+     * @param statuses job execution statuses of the stage
+     * @return the jobs taken to be dispatched
+     */
+    private synchronized List<UUID> resume(Map<UUID, ExecutionStatus> statuses) {
+      stageJobs.addAll(statuses.keySet());
+      statuses.forEach((jobId, status) -> {
+        if (status == ExecutionStatus.SUCCESS) {
+          succeededJobs.add(jobId);
+        } else if (status.isTerminal()) {
+          unsuccessfulJobs.add(jobId);
+        } else if (status == ExecutionStatus.PENDING) {
+          waitingJobs.add(jobId);
+        } else {
+          outstandingJobs.add(jobId);
+        }
+      });
+      List<UUID> dispatched = new ArrayList<>(outstandingJobs);
+      for (UUID jobId : List.copyOf(waitingJobs)) {
+        if (succeededJobs.containsAll(dependenciesOf(jobId))) {
+          waitingJobs.remove(jobId);
+          outstandingJobs.add(jobId);
+          dispatched.add(jobId);
+        }
+      }
+      return dispatched;
+    }
+
+    /**
+     * Marks a job of the current stage as finished, skips dependents of unsuccessful jobs
+     * and releases the jobs whose dependencies are now satisfied.
+     *
+     * @param pipelineExecutionId ID of the owning pipeline execution
+     * @param jobId               the finished job execution ID
+     * @param status              terminal status of the job
+     * @return the resulting progress of the run
+     */
+    private synchronized Completion complete(UUID pipelineExecutionId, UUID jobId, ExecutionStatus status) {
+      if (!outstandingJobs.remove(jobId)) {
+        return new Completion(pipelineExecutionId, List.of(), List.of(), false);
+      }
+      if (status == ExecutionStatus.SUCCESS) {
+        succeededJobs.add(jobId);
+      } else {
+        unsuccessfulJobs.add(jobId);
+      }
+
+      List<UUID> skippedJobs = skipBlockedJobs();
+      List<UUID> readyJobs = releaseReadyJobs();
+      boolean stageFinished = outstandingJobs.isEmpty() && waitingJobs.isEmpty();
+      return new Completion(pipelineExecutionId, readyJobs, skippedJobs, stageFinished);
+    }
+
+    /**
+     * Removes waiting jobs that depend, directly or transitively, on a job that did not succeed.
+     *
+     * @return the skipped job IDs
+     */
+    private List<UUID> skipBlockedJobs() {
+      List<UUID> skippedJobs = new ArrayList<>();
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (UUID jobId : List.copyOf(waitingJobs)) {
+          for (UUID dependency : dependenciesOf(jobId)) {
+            if (unsuccessfulJobs.contains(dependency)) {
+              waitingJobs.remove(jobId);
+              unsuccessfulJobs.add(jobId);
+              skippedJobs.add(jobId);
+              changed = true;
+              break;
+            }
+          }
+        }
+      }
+      return skippedJobs;
+    }
+
+    /**
+     * Moves every waiting job whose stage-local dependencies have succeeded to the outstanding set.
+     * If nothing is running and nothing can be released, the remaining dependencies can never be
+     * met, so all waiting jobs are released to keep the run from stalling.
+     *
+     * @return the released job IDs
+     */
+    private List<UUID> releaseReadyJobs() {
+      List<UUID> readyJobs = new ArrayList<>();
+      for (UUID jobId : waitingJobs) {
+        if (succeededJobs.containsAll(dependenciesOf(jobId))) {
+          readyJobs.add(jobId);
+        }
+      }
+      if (readyJobs.isEmpty() && outstandingJobs.isEmpty() && !waitingJobs.isEmpty()) {
+        PipelineLogger.warn("Unresolvable job dependencies, releasing remaining jobs: {}", waitingJobs);
+        readyJobs.addAll(waitingJobs);
+      }
+      readyJobs.forEach(waitingJobs::remove);
+      outstandingJobs.addAll(readyJobs);
+      return readyJobs;
+    }
+
+    /**
+     * Returns the dependencies of a job that belong to the current stage.
+     *
+     * @param jobId the job execution ID
+     * @return the stage-local dependency IDs
+     */
+    private Set<UUID> dependenciesOf(UUID jobId) {
+      Set<UUID> dependencies = new HashSet<>(jobDependencies.getOrDefault(jobId, Set.of()));
+      dependencies.retainAll(stageJobs);
+      return dependencies;
+    }
+
+    private synchronized int outstandingCount() {
+      return outstandingJobs.size();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package edu.neu.cs6510.sp25.t1.backend.messaging;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reads what {@link PipelineJobScheduler#restore} needs to put back a run the scheduler does
+ * not know, e.g. because the backend restarted while the run was active.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineRunLoader {
+
+  private final JobExecutionRepository jobExecutionRepository;
+  private final StageExecutionRepository stageExecutionRepository;
+  private final PipelineExecutionRepository pipelineExecutionRepository;
+  private final JobRepository jobRepository;
+
+  /**
+   * Loads the run a reported job belongs to from the stored job statuses.
+   * <p>
+   * The reported job is already stored with its terminal status, but the event reporting it
+   * has not been handled, so the job is loaded as RUNNING to let its completion release what
+   * depends on it. That is skipped if a later stage already started, since the event is then
+   * a stale duplicate.
+   *
+   * @param reportedJobExecutionId ID of the job execution a status event arrived for
+   * @return the run, or an empty optional if the job is unknown
+   */
+  @Transactional(readOnly = true)
+  public Optional<StoredRun> load(UUID reportedJobExecutionId) {
+    Optional<JobExecutionEntity> reported = jobExecutionRepository.findById(reportedJobExecutionId);
+    if (reported.isEmpty() || reported.get().getStageExecution() == null) {
+      return Optional.empty();
+    }
+    UUID pipelineExecutionId = reported.get().getStageExecution().getPipelineExecutionId();
+    boolean dagScheduling = pipelineExecutionRepository.findById(pipelineExecutionId)
+        .map(PipelineExecutionEntity::isDagScheduling)
+        .orElse(false);
+
+    List<StageExecutionEntity> stageExecutions =
+        new ArrayList<>(stageExecutionRepository.findByPipelineExecutionId(pipelineExecutionId));
+    stageExecutions.sort(Comparator.comparingInt(StageExecutionEntity::getExecutionOrder));
+
+    // DAG runs are scheduled as a single stage
+    List<Map<UUID, ExecutionStatus>> stages = new ArrayList<>();
+    Map<UUID, UUID> executionIdByJobId = new HashMap<>();
+    int reportedStage = -1;
+    for (StageExecutionEntity stageExecution : stageExecutions) {
+      if (stages.isEmpty() || !dagScheduling) {
+        stages.add(new LinkedHashMap<>());
+      }
+      Map<UUID, ExecutionStatus> stage = stages.get(stages.size() - 1);
+      for (JobExecutionEntity job : stageExecution.getJobs() == null ? List.<JobExecutionEntity>of()
+          : stageExecution.getJobs()) {
+        stage.put(job.getId(), job.getStatus() == null ? ExecutionStatus.PENDING : job.getStatus());
+        executionIdByJobId.put(job.getJobId(), job.getId());
+        if (job.getId().equals(reportedJobExecutionId)) {
+          reportedStage = stages.size() - 1;
+        }
+      }
+    }
+    if (reportedStage >= 0 && stages.stream().skip(reportedStage + 1L).flatMap(stage -> stage.values().stream())
+        .allMatch(status -> status == ExecutionStatus.PENDING)) {
+      stages.get(reportedStage).put(reportedJobExecutionId, ExecutionStatus.RUNNING);
+    }
+
+    // Translate job definition dependencies into job execution dependencies
+    Map<UUID, Set<UUID>> jobDependencies = new HashMap<>();
+    for (JobEntity job : jobRepository.findByIdIn(executionIdByJobId.keySet())) {
+      if (job.getDependencies() == null || job.getDependencies().isEmpty()) {
+        continue;
+      }
+      Set<UUID> dependencyExecutionIds = new LinkedHashSet<>();
+      for (UUID dependencyJobId : job.getDependencies()) {
+        UUID dependencyExecutionId = executionIdByJobId.get(dependencyJobId);
+        if (dependencyExecutionId != null) {
+          dependencyExecutionIds.add(dependencyExecutionId);
+        }
+      }
+      jobDependencies.put(executionIdByJobId.get(job.getId()), dependencyExecutionIds);
+    }
+    return Optional.of(new StoredRun(pipelineExecutionId, stages, jobDependencies));
+  }
+
+  /**
+   * A run as stored.
+   *
+   * @param pipelineExecutionId ID of the pipeline execution
+   * @param stages              job execution statuses of every stage, in execution order
+   * @param jobDependencies     dependency job execution IDs keyed by job execution ID
+   */
+  public record StoredRun(UUID pipelineExecutionId, List<Map<UUID, ExecutionStatus>> stages,
+      Map<UUID, Set<UUID>> jobDependencies) {
+  }
+}
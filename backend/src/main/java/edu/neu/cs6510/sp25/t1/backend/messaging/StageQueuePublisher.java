@@ -4,106 +4,183 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.rabbit.core.RabbitAdmin;
-import org.springframework.amqp.core.QueueInformation;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.backend.service.status.RunStateCache;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusRollupService;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
 
+import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Component responsible for dispatching stages of jobs to RabbitMQ.
  * Each stage is represented as a queue of job UUIDs, and stages are dispatched sequentially.
- * This component waits for the RabbitMQ job queue to be empty before dispatching the next stage.
+ * The next stage of a pipeline execution is released as soon as every job of its current
+ * stage has reported a terminal status; gating is tracked per run by {@link PipelineJobScheduler}.
+ * Inside a stage, a job is dispatched as soon as its declared dependencies have succeeded, and
+ * jobs that depend on a failed job are marked as canceled without being dispatched.
+ * Skipped jobs go through the {@link StatusRollupService} like any reported job, so their
+ * stage and pipeline execution statuses stay up to date, and are applied to the
+ * {@link RunStateCache} since no worker reports them.
+ * <p>
+ * A completion is confirmed to the scheduler only once its jobs have been canceled or sent,
+ * so a status event that fails half way can be delivered again and finishes the remaining
+ * work. An event for a run the scheduler does not know restores the run from the stored job
+ * statuses first.
  */
 @Component
 @RequiredArgsConstructor
 public class StageQueuePublisher {
 
   private final RabbitTemplate rabbitTemplate;
-  private final RabbitAdmin rabbitAdmin;
+  private final PipelineJobScheduler pipelineJobScheduler;
+  private final JobExecutionRepository jobExecutionRepository;
+  private final StatusRollupService statusRollupService;
+  private final RunStateCache runStateCache;
+  private final JobMetrics jobMetrics;
+  private final PipelineRunLoader pipelineRunLoader;
 
   @Value("${spring.rabbitmq.job-queue}")
   private String jobQueueName;
 
-  private static final long POLL_INTERVAL_MS = 1000; // Time between polling RabbitMQ for emptiness
-
   /**
-   * Starts processing the stageQueue and sending job UUIDs to RabbitMQ.
+   * Starts processing the stageQueue by sending the ready jobs of the first non-empty stage.
+   * Remaining jobs and subsequent stages are dispatched from {@link #onJobStatus(UUID, ExecutionStatus)}.
+   * @param pipelineExecutionId ID of the pipeline execution the stages belong to
    * @param stageQueue Queue of job queues (Queue<Queue<UUID>>)
+   * @param jobDependencies dependency job execution IDs keyed by job execution ID
    */
-  @Async
-  public void dispatchStageQueue(Queue<Queue<UUID>> stageQueue) {
-    PipelineLogger.info("Starting StageQueuePublisher...");
+  public void dispatchStageQueue(UUID pipelineExecutionId, Queue<Queue<UUID>> stageQueue,
+      Map<UUID, Set<UUID>> jobDependencies) {
+    PipelineLogger.atInfo()
+        .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecutionId)
+        .log("Starting StageQueuePublisher for pipeline execution: {}", pipelineExecutionId);
+    pipelineJobScheduler.register(pipelineExecutionId, stageQueue, jobDependencies);
+    dispatchNextStage(pipelineExecutionId);
+  }
 
-    while (!stageQueue.isEmpty()) {
-      Queue<UUID> currentJobQueue = stageQueue.poll();
+  /**
+   * Handles a job status transition reported by a worker.
+   * Jobs whose dependencies are now satisfied are dispatched, dependents of a job that did
+   * not succeed are canceled, and once the last job of a stage has finished the next stage
+   * of the owning pipeline execution is dispatched.
+   *
+   * @param jobExecutionId UUID of the job execution whose status changed
+   * @param status         the new status of the job execution
+   */
+  public void onJobStatus(UUID jobExecutionId, ExecutionStatus status) {
+    if (jobExecutionId == null || status == null || !status.isTerminal()) {
+      return;
+    }
 
-      if (currentJobQueue == null || currentJobQueue.isEmpty()) {
-        PipelineLogger.warn("Empty job queue found, skipping...");
-        continue;
+    Optional<PipelineJobScheduler.Completion> completion = pipelineJobScheduler.complete(jobExecutionId, status);
+    if (completion.isEmpty()) {
+      completion = restoreRun(jobExecutionId, status);
+      if (completion.isEmpty()) {
+        return;
       }
+    }
 
-      // Wait until RabbitMQ job queue is empty
-      PipelineLogger.info("Waiting for RabbitMQ job queue to become empty...");
-      waitForRabbitQueueEmpty();
-
-      // Send each job UUID to RabbitMQ
-      PipelineLogger.info("Dispatching jobs to RabbitMQ...");
-      for (UUID jobId : currentJobQueue) {
-        sendJobToRabbitMq(jobId);
-      }
+    PipelineJobScheduler.Completion progress = completion.get();
+    for (UUID skippedJobId : progress.skippedJobs()) {
+      cancelSkippedJob(skippedJobId);
+      pipelineJobScheduler.handled(jobExecutionId, skippedJobId);
+    }
+    if (progress.stageFinished()) {
+      PipelineLogger.atInfo()
+          .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, progress.pipelineExecutionId())
+          .log("All jobs of the current stage finished for pipeline execution {}. Releasing next stage...",
+              progress.pipelineExecutionId());
+    }
+    for (UUID readyJobId : progress.readyJobs()) {
+      sendJobToRabbitMq(readyJobId);
+      pipelineJobScheduler.handled(jobExecutionId, readyJobId);
+    }
+    pipelineJobScheduler.confirm(jobExecutionId);
+  }
 
-      PipelineLogger.info("Finished dispatching jobs for one stage.");
+  /**
+   * Restores the run of a job the scheduler does not know from the stored job statuses and
+   * completes the job in it. Nothing is restored for a run the scheduler is still tracking,
+   * the event is then a duplicate.
+   *
+   * @param jobExecutionId UUID of the job execution whose status changed
+   * @param status         the new status of the job execution
+   * @return the progress of the restored run, or an empty optional if there is nothing to do
+   */
+  private Optional<PipelineJobScheduler.Completion> restoreRun(UUID jobExecutionId, ExecutionStatus status) {
+    Optional<PipelineRunLoader.StoredRun> stored = pipelineRunLoader.load(jobExecutionId);
+    if (stored.isEmpty() || pipelineJobScheduler.isActive(stored.get().pipelineExecutionId())) {
+      return Optional.empty();
     }
 
-    PipelineLogger.info("All stages processed and dispatched.");
+    UUID pipelineExecutionId = stored.get().pipelineExecutionId();
+    pipelineJobScheduler.restore(pipelineExecutionId, stored.get().stages(), stored.get().jobDependencies());
+    Optional<PipelineJobScheduler.Completion> completion = pipelineJobScheduler.complete(jobExecutionId, status);
+    if (completion.isEmpty() && pipelineJobScheduler.getOutstandingJobCount(pipelineExecutionId) == 0) {
+      // the run stopped between two stages
+      dispatchNextStage(pipelineExecutionId);
+    }
+    return completion;
   }
 
   /**
-   * Sends a job UUID to the configured RabbitMQ job queue.
+   * Marks a job execution that will never run because one of its dependencies failed as canceled.
    *
-   * @param jobId UUID of the job to dispatch
+   * @param jobExecutionId UUID of the skipped job execution
    */
-  private void sendJobToRabbitMq(UUID jobId) {
-    String message = jobId.toString();
-    rabbitTemplate.convertAndSend(jobQueueName, message);
-    PipelineLogger.info("Sent job UUID to RabbitMQ: " + message);
+  private void cancelSkippedJob(UUID jobExecutionId) {
+    PipelineLogger.atWarn()
+        .addKeyValue(PipelineLogger.JOB_EXECUTION_ID, jobExecutionId)
+        .log("Skipping job {} because a dependency did not succeed", jobExecutionId);
+    jobExecutionRepository.findById(jobExecutionId)
+        .ifPresent(jobExecution -> statusRollupService.transition(jobExecution, ExecutionStatus.CANCELED));
+    runStateCache.onJobStatus(jobExecutionId, ExecutionStatus.CANCELED);
   }
 
   /**
-   * Polls RabbitMQ until the job queue becomes empty.
-   * Throws an exception if the queue is not found or the thread is interrupted.
+   * Dispatches the next non-empty stage of the given pipeline execution.
+   * Jobs are registered as outstanding before being sent so that a fast completion
+   * event can never arrive for a job the scheduler does not know about yet.
+   *
+   * @param pipelineExecutionId ID of the pipeline execution to advance
    */
-  private void waitForRabbitQueueEmpty() {
-    while (true) {
-      QueueInformation queueInfo = rabbitAdmin.getQueueInfo(jobQueueName);
-
-      if (queueInfo == null) {
-        PipelineLogger.error("RabbitMQ queue not found: " + jobQueueName);
-        throw new IllegalStateException("RabbitMQ queue not found: " + jobQueueName);
-      }
-
-      int messageCount = queueInfo.getMessageCount();
+  private void dispatchNextStage(UUID pipelineExecutionId) {
+    Optional<Queue<UUID>> currentJobQueue = pipelineJobScheduler.nextStage(pipelineExecutionId);
+    if (currentJobQueue.isEmpty()) {
+      PipelineLogger.atInfo()
+          .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecutionId)
+          .log("All stages processed and dispatched for pipeline execution: {}", pipelineExecutionId);
+      return;
+    }
 
-      PipelineLogger.info("RabbitMQ job queue message count: " + messageCount);
+    // Send each job UUID to RabbitMQ
+    PipelineLogger.info("Dispatching jobs to RabbitMQ...");
+    for (UUID jobId : currentJobQueue.get()) {
+      sendJobToRabbitMq(jobId);
+    }
 
-      if (messageCount == 0) {
-        PipelineLogger.info("RabbitMQ job queue is empty. Proceeding...");
-        break;
-      }
+    PipelineLogger.info("Finished dispatching jobs for one stage.");
+  }
 
-      try {
-        TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MS);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        PipelineLogger.error("Interrupted while waiting for RabbitMQ queue to become empty.");
-        throw new RuntimeException("Interrupted while waiting for RabbitMQ queue to become empty.", e);
-      }
-    }
+  /**
+   * Sends a job UUID to the configured RabbitMQ job queue.
+   *
+   * @param jobId UUID of the job to dispatch
+   */
+  private void sendJobToRabbitMq(UUID jobId) {
+    String message = jobId.toString();
+    rabbitTemplate.convertAndSend(jobQueueName, message);
+    jobMetrics.jobDispatched();
+    PipelineLogger.atInfo()
+        .addKeyValue(PipelineLogger.JOB_EXECUTION_ID, message)
+        .log("Sent job UUID to RabbitMQ: {}", message);
   }
 }
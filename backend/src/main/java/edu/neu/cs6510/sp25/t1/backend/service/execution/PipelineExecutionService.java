@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 
 
@@ -45,14 +46,33 @@ public class PipelineExecutionService {
    *
    * @param request request containing pipeline details and YAML file path
    * @param stageQueue queue of stages to be executed
+   * @param jobDependencies map filled with the dependency job execution IDs of every job execution
    * @return response containing pipeline execution ID and status
    */
   @Transactional(rollbackFor = Exception.class)
-  public PipelineExecutionResponse startPipelineExecution(PipelineExecutionRequest request, Queue<Queue<UUID>> stageQueue) {
-    PipelineLogger.info("Received pipeline execution request for: " + request.getFilePath());
+  public PipelineExecutionResponse startPipelineExecution(PipelineExecutionRequest request, Queue<Queue<UUID>> stageQueue,
+      Map<UUID, Set<UUID>> jobDependencies) {
+    return startPipelineExecution(request, null, stageQueue, jobDependencies);
+  }
+
+  /**
+   * Starts a pipeline execution that was accepted earlier with
+   * {@link #acceptPipelineExecution(PipelineExecutionRequest)}: the definitions are read and
+   * the stage and job executions are created for the existing pipeline execution.
+   *
+   * @param request             request containing pipeline details and YAML file path
+   * @param pipelineExecutionId ID of the accepted pipeline execution, or null to create a new one
+   * @param stageQueue          queue of stages to be executed
+   * @param jobDependencies     map filled with the dependency job execution IDs of every job execution
+   * @return response containing pipeline execution ID and status
+   */
+  @Transactional(rollbackFor = Exception.class)
+  public PipelineExecutionResponse startPipelineExecution(PipelineExecutionRequest request, UUID pipelineExecutionId,
+      Queue<Queue<UUID>> stageQueue, Map<UUID, Set<UUID>> jobDependencies) {
+    PipelineLogger.info("Received pipeline execution request for: {}", request.getFilePath());
 
     try {
-      // step 0: use volume to clone the repo then pass the volume file path to step 1
+      // step 0: fetch the pipeline definitions of the repo into the volume, then pass the file path to step 1
       ClonedPipelineInfo info = gitPipelineService.cloneRepoAndLocatePipelineFile(request);
 
       // Step 1: Resolve and validate the pipeline file path
@@ -62,13 +82,14 @@ public class PipelineExecutionService {
       String rootPath = request.getFilePath();
 //      String rootPath = PathUtil.extractPipelineRootDirectoryAsString(resolvedPath);
 
-      // Step 2: Parse and validate the pipeline YAML configuration
-      Map<String, Object> pipelineConfig = yamlConfigurationService.parseAndValidatePipelineYaml(resolvedPath.toString());
+      // Step 2: Parse and validate the pipeline YAML configuration, unless cached for this commit
+      Map<String, Object> pipelineConfig = yamlConfigurationService.parseAndValidatePipelineYaml(request,
+          resolvedPath.toString());
 
       // Step 3: Create or get pipeline entity
       PipelineLogger.info("Step 1: Creating or getting pipeline entity");
       UUID pipelineId = pipelineDefinitionService.createOrGetPipelineEntity(request, pipelineConfig);
-      PipelineLogger.info("Pipeline entity created/retrieved with ID: " + pipelineId);
+      PipelineLogger.info("Pipeline entity created/retrieved with ID: {}", pipelineId);
 
       // Step 4: Create pipeline stages and jobs
       PipelineLogger.info("Step 2: Creating pipeline stages and jobs");
@@ -76,32 +97,60 @@ public class PipelineExecutionService {
 
       // Step 5: Create and save the pipeline execution entity
       PipelineLogger.info("Step 3: Creating pipeline execution entity");
-      PipelineExecutionEntity pipelineExecution = pipelineExecutionCreationService.createPipelineExecution(request, pipelineId);
-      pipelineExecution = pipelineExecutionCreationService.savePipelineExecution(pipelineExecution);
-      PipelineLogger.info("Pipeline execution saved with ID: " + pipelineExecution.getId());
+      PipelineExecutionEntity pipelineExecution;
+      if (pipelineExecutionId == null) {
+        pipelineExecution = pipelineExecutionCreationService.createPipelineExecution(request, pipelineId);
+        pipelineExecution = pipelineExecutionCreationService.savePipelineExecution(pipelineExecution);
+      } else {
+        pipelineExecution = pipelineExecutionCreationService.attachPipelineExecution(pipelineExecutionId, request,
+            pipelineId);
+      }
+      PipelineLogger.info("Pipeline execution saved with ID: {}", pipelineExecution.getId());
 
       // Step 6: Create and save stage executions with their jobs
       PipelineLogger.info("Step 4: Creating stage executions and job executions");
-      pipelineExecutionCreationService.createAndSaveStageExecutions(pipelineExecution.getId(), pipelineConfig, stageQueue);
+      pipelineExecutionCreationService.createAndSaveStageExecutions(pipelineExecution, pipelineConfig, stageQueue,
+          jobDependencies);
 
-      // Step 7: Verify entities were properly saved
-      PipelineLogger.info("Step 5: Verifying entities were properly saved");
-      pipelineExecutionCreationService.verifyEntitiesSaved(pipelineId, pipelineExecution.getId());
-
-      // Step 8: delete the folder
-      File clonedFolder = new File("/mnt/pipeline", info.getUuid().toString());
+      // Step 7: delete the folder
+      File clonedFolder = new File(GitPipelineService.MOUNT_BASE_PATH, info.getUuid().toString());
       try {
         FileUtils.deleteDirectory(clonedFolder); // org.apache.commons.io.FileUtils
-        PipelineLogger.info("Cleaned up cloned repo: " + clonedFolder.getAbsolutePath());
+        PipelineLogger.info("Cleaned up cloned repo: {}", clonedFolder.getAbsolutePath());
       } catch (IOException e) {
-        PipelineLogger.warn("Failed to clean up cloned repo: " + e.getMessage());
+        PipelineLogger.warn("Failed to clean up cloned repo: {}", e.getMessage());
       }
 
       return new PipelineExecutionResponse(pipelineExecution.getId().toString(), "PENDING");
     } catch (Exception e) {
-      PipelineLogger.error("Failed to start pipeline execution: " + e.getMessage() + " | " + e);
+      PipelineLogger.error("Failed to start pipeline execution: {}", e.getMessage(), e);
       throw new RuntimeException("Pipeline execution failed: " + e.getMessage());
     }
   }
 
+  /**
+   * Records a submitted run as a pending pipeline execution without reading its definitions,
+   * so that its ID can be returned before the repository is fetched. The execution is bound
+   * to its pipeline by {@link #startPipelineExecution(PipelineExecutionRequest, UUID, Queue, Map)}.
+   *
+   * @param request request containing pipeline details and YAML file path
+   * @return response containing the pipeline execution ID and status
+   */
+  @Transactional
+  public PipelineExecutionResponse acceptPipelineExecution(PipelineExecutionRequest request) {
+    PipelineExecutionEntity pipelineExecution = pipelineExecutionCreationService.savePipelineExecution(
+        pipelineExecutionCreationService.createPipelineExecution(request, null));
+    PipelineLogger.info("Accepted pipeline execution {} for: {}", pipelineExecution.getId(), request.getFilePath());
+    return new PipelineExecutionResponse(pipelineExecution.getId().toString(), "PENDING");
+  }
+
+  /**
+   * Marks an accepted pipeline execution as failed when it could not be started.
+   *
+   * @param pipelineExecutionId the ID of the pipeline execution
+   */
+  @Transactional
+  public void failPipelineExecution(UUID pipelineExecutionId) {
+    pipelineExecutionCreationService.failPipelineExecution(pipelineExecutionId);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+package edu.neu.cs6510.sp25.t1.backend.service.execution;
+
+import edu.neu.cs6510.sp25.t1.backend.messaging.StageQueuePublisher;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusService;
+import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
+import edu.neu.cs6510.sp25.t1.common.api.response.PipelineExecutionResponse;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accepts pipeline runs without waiting for their definitions to be read.
+ * <p>
+ * A submitted run is recorded right away as a pending pipeline execution and its ID is
+ * returned; fetching the repository, parsing the YAML, writing the definitions and creating
+ * the execution tree happen later on a small pool of intake threads, which also bounds the
+ * database connections held by run creation.
+ * <p>
+ * The intake queue is bounded: once it holds {@code pipeline.intake.capacity} runs that
+ * have not started, further submissions are refused so the caller can retry later.
+ * Submissions are coalesced: a run of the same repository, branch and pipeline file that
+ * is still waiting in the queue takes over the newer request, so a burst of pushes starts
+ * one run at the latest commit instead of one run per push.
+ * <p>
+ * Runs still waiting when the service shuts down are marked as failed, so no pending
+ * execution is left behind that nothing will ever start.
+ */
+@Service
+public class PipelineIntakeService {
+  private final PipelineExecutionService pipelineExecutionService;
+  private final StatusService statusService;
+  private final StageQueuePublisher stageQueuePublisher;
+  private final Executor executor;
+  private final ExecutorService ownedExecutor;
+
+  /** Free slots of the intake queue. */
+  private final Semaphore capacity;
+  private final int maxQueued;
+
+  /** Runs that have not started yet, keyed by {@link #coalescingKey(PipelineExecutionRequest)}. */
+  private final Map<String, Submission> waiting = new ConcurrentHashMap<>();
+  /** Every run that has not started yet, including ones not coalesced into. */
+  private final Set<Submission> notStarted = ConcurrentHashMap.newKeySet();
+
+  private final AtomicInteger coalesced = new AtomicInteger();
+  private final AtomicInteger rejected = new AtomicInteger();
+
+  /**
+   * Creates the service with its own pool of intake threads.
+   *
+   * @param pipelineExecutionService the service creating the runs
+   * @param statusService            the service tracking the status of started runs
+   * @param stageQueuePublisher      the publisher dispatching the jobs of started runs
+   * @param capacity                 how many runs may wait in the intake queue
+   * @param workers                  how many runs are created concurrently
+   */
+  @Autowired
+  public PipelineIntakeService(PipelineExecutionService pipelineExecutionService, StatusService statusService,
+      StageQueuePublisher stageQueuePublisher,
+      @Value("${pipeline.intake.capacity:100}") int capacity,
+      @Value("${pipeline.intake.workers:2}") int workers) {
+    this(pipelineExecutionService, statusService, stageQueuePublisher, capacity,
+        Executors.newFixedThreadPool(workers, runnable -> {
+          Thread thread = new Thread(runnable, "pipeline-intake");
+          thread.setDaemon(true);
+          return thread;
+        }));
+  }
+
+  /**
+   * Creates the service running the queued runs on the given executor.
+   *
+   * @param pipelineExecutionService the service creating the runs
+   * @param statusService            the service tracking the status of started runs
+   * @param stageQueuePublisher      the publisher dispatching the jobs of started runs
+   * @param capacity                 how many runs may wait in the intake queue
+   * @param executor                 the executor the runs are created on
+   */
+  PipelineIntakeService(PipelineExecutionService pipelineExecutionService, StatusService statusService,
+      StageQueuePublisher stageQueuePublisher, int capacity, Executor executor) {
+    this.pipelineExecutionService = pipelineExecutionService;
+    this.statusService = statusService;
+    this.stageQueuePublisher = stageQueuePublisher;
+    this.capacity = new Semaphore(capacity);
+    this.maxQueued = capacity;
+    this.executor = executor;
+    this.ownedExecutor = executor instanceof ExecutorService service ? service : null;
+  }
+
+  /**
+   * Submits a pipeline run. The run is either coalesced into a waiting run of the same
+   * pipeline, whose ID is returned, or recorded as a new pending pipeline execution.
+   *
+   * @param request the pipeline execution request
+   * @return the ID and status of the pipeline execution, or empty if the intake queue is full
+   */
+  public Optional<PipelineExecutionResponse> submit(PipelineExecutionRequest request) {
+    String key = coalescingKey(request);
+    Submission queued = waiting.get(key);
+    if (queued != null && queued.replace(request)) {
+      coalesced.incrementAndGet();
+      PipelineLogger.info("Coalesced pipeline run of {} into queued execution {}",
+          request.getRepo(), queued.pipelineExecutionId);
+      return Optional.of(new PipelineExecutionResponse(queued.pipelineExecutionId.toString(), "PENDING"));
+    }
+
+    if (!capacity.tryAcquire()) {
+      rejected.incrementAndGet();
+      PipelineLogger.warn("Pipeline intake queue is full, refusing run of {}", request.getRepo());
+      return Optional.empty();
+    }
+
+    Submission submission = null;
+    try {
+      PipelineExecutionResponse response = pipelineExecutionService.acceptPipelineExecution(request);
+      submission = new Submission(key, UUID.fromString(response.getExecutionId()), request);
+      // a run submitted concurrently for the same pipeline keeps its own slot
+      waiting.putIfAbsent(key, submission);
+      notStarted.add(submission);
+      Submission accepted = submission;
+      executor.execute(() -> start(accepted));
+      return Optional.of(response);
+    } catch (RuntimeException e) {
+      if (submission != null) {
+        // recorded but never queued, e.g. because the service is shutting down
+        waiting.remove(key, submission);
+        if (notStarted.remove(submission) && submission.abandon()) {
+          fail(submission.pipelineExecutionId);
+        }
+      }
+      capacity.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of runs waiting in the intake queue.
+   *
+   * @return the queued run count
+   */
+  public int getQueuedCount() {
+    return maxQueued - capacity.availablePermits();
+  }
+
+  /**
+   * Returns the number of submissions that were merged into a waiting run.
+   *
+   * @return the coalesced submission count
+   */
+  public int getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  /**
+   * Returns the number of submissions refused because the intake queue was full.
+   *
+   * @return the rejected submission count
+   */
+  public int getRejectedCount() {
+    return rejected.get();
+  }
+
+  /**
+   * Stops the intake threads and marks the runs that have not started as failed.
+   */
+  @PreDestroy
+  public void shutdown() {
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdownNow();
+    }
+    for (Submission submission : List.copyOf(notStarted)) {
+      notStarted.remove(submission);
+      waiting.remove(submission.key, submission);
+      if (submission.abandon()) {
+        PipelineLogger.warn("Shutting down before queued pipeline execution {} started",
+            submission.pipelineExecutionId);
+        fail(submission.pipelineExecutionId);
+      }
+    }
+  }
+
+  /**
+   * Creates a queued run and dispatches its first jobs. A run that cannot be created is
+   * marked as failed.
+   *
+   * @param submission the queued run
+   */
+  private void start(Submission submission) {
+    PipelineExecutionRequest request = submission.take();
+    if (request == null) {
+      // abandoned on shutdown
+      return;
+    }
+    notStarted.remove(submission);
+    waiting.remove(submission.key, submission);
+    capacity.release();
+
+    UUID pipelineExecutionId = submission.pipelineExecutionId;
+    Queue<Queue<UUID>> stageQueue = new LinkedList<>();
+    Map<UUID, Set<UUID>> jobDependencies = new HashMap<>();
+    try {
+      pipelineExecutionService.startPipelineExecution(request, pipelineExecutionId, stageQueue, jobDependencies);
+    } catch (RuntimeException e) {
+      PipelineLogger.error("Failed to start queued pipeline execution {}: {}", pipelineExecutionId, e.getMessage());
+      fail(pipelineExecutionId);
+      return;
+    }
+    // cache the run before its first job can report a status
+    statusService.trackRun(pipelineExecutionId);
+    stageQueuePublisher.dispatchStageQueue(pipelineExecutionId, stageQueue, jobDependencies);
+  }
+
+  private void fail(UUID pipelineExecutionId) {
+    try {
+      pipelineExecutionService.failPipelineExecution(pipelineExecutionId);
+    } catch (RuntimeException failure) {
+      PipelineLogger.error("Failed to mark pipeline execution {} as failed: {}",
+          pipelineExecutionId, failure.getMessage());
+    }
+  }
+
+  /**
+   * Identifies the pipeline a run belongs to: runs of the same repository, branch and
+   * pipeline file may be coalesced.
+   */
+  static String coalescingKey(PipelineExecutionRequest request) {
+    return request.getRepo() + "\n" + request.getBranch() + "\n" + request.getFilePath();
+  }
+
+  /**
+   * A run waiting in the intake queue. Its request can be replaced until it starts.
+   */
+  private static final class Submission {
+    private final String key;
+    private final UUID pipelineExecutionId;
+    private PipelineExecutionRequest request;
+    private boolean started;
+
+    Submission(String key, UUID pipelineExecutionId, PipelineExecutionRequest request) {
+      this.key = key;
+      this.pipelineExecutionId = pipelineExecutionId;
+      this.request = request;
+    }
+
+    /**
+     * Replaces the request of the run if it has not started.
+     *
+     * @return true if the request was replaced
+     */
+    synchronized boolean replace(PipelineExecutionRequest newer) {
+      if (started) {
+        return false;
+      }
+      request = newer;
+      return true;
+    }
+
+    /**
+     * Marks the run as started and returns its latest request.
+     *
+     * @return the request, or null if the run was abandoned
+     */
+    synchronized PipelineExecutionRequest take() {
+      if (started) {
+        return null;
+      }
+      started = true;
+      return request;
+    }
+
+    /**
+     * Marks the run as started without starting it.
+     *
+     * @return true if the run had not started
+     */
+    synchronized boolean abandon() {
+      if (started) {
+        return false;
+      }
+      started = true;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package edu.neu.cs6510.sp25.t1.backend.service.log;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.common.api.response.JobLogResponse;
+
+/**
+ * Reads the logs of job executions stored by the workers.
+ * <p>
+ * Workers store the output of a running job every few moments, so the same reads serve
+ * running and completed jobs: a client tails the latest lines once, then follows the job
+ * by reading on from the returned next line until the job reaches a final status.
+ * The status is read before the lines: a worker stores the whole log of a job before
+ * its final status, so lines read along with a final status are complete.
+ */
+@Service
+public class ExecutionLogService {
+
+  private final LogSegmentStore logSegmentStore;
+  private final JobExecutionRepository jobExecutionRepository;
+
+  /**
+   * Constructor for ExecutionLogService.
+   *
+   * @param logSegmentStore        store of the job logs
+   * @param jobExecutionRepository job execution repository
+   */
+  public ExecutionLogService(LogSegmentStore logSegmentStore, JobExecutionRepository jobExecutionRepository) {
+    this.logSegmentStore = logSegmentStore;
+    this.jobExecutionRepository = jobExecutionRepository;
+  }
+
+  /**
+   * Returns the last lines of the log of a job execution.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param lines          the maximum number of lines to return
+   * @return the last lines and the line to follow the log from
+   * @throws IllegalArgumentException if the job execution does not exist
+   * @throws IOException              if the log cannot be read
+   */
+  public JobLogResponse tail(UUID jobExecutionId, int lines) throws IOException {
+    JobExecutionEntity jobExecution = findJobExecution(jobExecutionId);
+    return toResponse(jobExecution, logSegmentStore.tail(jobExecutionId, lines));
+  }
+
+  /**
+   * Returns a range of lines of the log of a job execution.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param fromLine       the number of the first line to return, starting at 0
+   * @param lines          the maximum number of lines to return
+   * @return the lines and the line to continue from
+   * @throws IllegalArgumentException if the job execution does not exist
+   * @throws IOException              if the log cannot be read
+   */
+  public JobLogResponse read(UUID jobExecutionId, long fromLine, int lines) throws IOException {
+    JobExecutionEntity jobExecution = findJobExecution(jobExecutionId);
+    return toResponse(jobExecution, logSegmentStore.read(jobExecutionId, fromLine, lines));
+  }
+
+  private JobExecutionEntity findJobExecution(UUID jobExecutionId) {
+    return jobExecutionRepository.findById(jobExecutionId)
+        .orElseThrow(() -> new IllegalArgumentException("Job execution not found: " + jobExecutionId));
+  }
+
+  private JobLogResponse toResponse(JobExecutionEntity jobExecution, LogSegmentStore.LogLines lines) {
+    return new JobLogResponse(jobExecution.getId().toString(), jobExecution.getStatus().name(),
+        lines.firstLine(), lines.nextLine(), lines.totalLines(), lines.lines());
+  }
+}
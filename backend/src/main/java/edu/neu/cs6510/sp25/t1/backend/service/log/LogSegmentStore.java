@@ -0,0 +1,363 @@
+package edu.neu.cs6510.sp25.t1.backend.service.log;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.LogSegmentEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.LogSegmentRepository;
+
+/**
+ * Stores job logs as gzip compressed segments on the filesystem, indexed in the database.
+ * <p>
+ * Lines of a running job are appended to an uncompressed head file. Once the head holds
+ * {@code logs.store.segment-size} bytes, or when the job finishes, it is sealed: compressed
+ * as one gzip member appended to the segment file of the job, and recorded in
+ * {@link LogSegmentRepository} with its byte offset and line numbers. A range of lines is
+ * read by decompressing only the segments holding it, so tailing a log of many megabytes
+ * reads its last segment and head. The segment file is a valid gzip file as a whole.
+ * <p>
+ * Per job, under {@code <path>/<first two characters of the job execution ID>/}:
+ * <ul>
+ *   <li>{@code <job execution ID>.log.gz}: the sealed segments</li>
+ *   <li>{@code <job execution ID>.<first line>.head}: the lines that are not sealed yet</li>
+ * </ul>
+ * The head is named after its first line, so a reader never mistakes the head that
+ * follows a newly sealed segment for the one it replaced. Workers write the logs and the
+ * backend reads them, both need the same directory.
+ */
+@Service
+public class LogSegmentStore {
+
+  static final String SEGMENTS_SUFFIX = ".log.gz";
+  static final String HEAD_SUFFIX = ".head";
+
+  /** Reads of a log that keep racing with seals give up on the head after this. */
+  private static final int SNAPSHOT_ATTEMPTS = 5;
+
+  private final LogSegmentRepository logSegmentRepository;
+  private final Path root;
+  private final long segmentSize;
+
+  /** Heads written by this process. */
+  private final Map<UUID, Head> heads = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the store.
+   *
+   * @param logSegmentRepository index of the sealed segments
+   * @param path                 directory holding the logs
+   * @param segmentSize          uncompressed size at which a head is sealed
+   */
+  @Autowired
+  public LogSegmentStore(LogSegmentRepository logSegmentRepository,
+      @Value("${logs.store.path:/var/cicd/logs}") String path,
+      @Value("${logs.store.segment-size:1MB}") DataSize segmentSize) {
+    this(logSegmentRepository, Paths.get(path), segmentSize.toBytes());
+  }
+
+  /**
+   * Creates the store.
+   *
+   * @param logSegmentRepository index of the sealed segments
+   * @param root                 directory holding the logs
+   * @param segmentSize          uncompressed size in bytes at which a head is sealed
+   */
+  LogSegmentStore(LogSegmentRepository logSegmentRepository, Path root, long segmentSize) {
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Log segment size must be positive");
+    }
+    this.logSegmentRepository = logSegmentRepository;
+    this.root = root;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Appends lines to the log of a job, sealing the head once it is large enough.
+   * Appends to the same job must not run concurrently.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param text           the lines, each terminated by a newline
+   * @throws IOException if the lines cannot be written
+   */
+  public void append(UUID jobExecutionId, String text) throws IOException {
+    if (text.isEmpty()) {
+      return;
+    }
+    Head head = heads.get(jobExecutionId);
+    if (head == null) {
+      head = openHead(jobExecutionId);
+      heads.put(jobExecutionId, head);
+    }
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    Path headFile = headFile(jobExecutionId, head.firstLine);
+    Files.createDirectories(headFile.getParent());
+    Files.write(headFile, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    head.size += bytes.length;
+    if (head.size >= segmentSize) {
+      seal(jobExecutionId, head);
+    }
+  }
+
+  /**
+   * Seals the remaining lines of a finished job.
+   *
+   * @param jobExecutionId the job execution ID
+   * @throws IOException if the lines cannot be sealed
+   */
+  public void finish(UUID jobExecutionId) throws IOException {
+    Head head = heads.remove(jobExecutionId);
+    if (head == null) {
+      head = openHead(jobExecutionId);
+    }
+    if (head.size > 0) {
+      seal(jobExecutionId, head);
+    }
+  }
+
+  /**
+   * Reads a range of lines of a job log.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param fromLine       the number of the first line to read, starting at 0
+   * @param maxLines       the maximum number of lines to read
+   * @return the lines read
+   * @throws IOException if the log cannot be read
+   */
+  public LogLines read(UUID jobExecutionId, long fromLine, int maxLines) throws IOException {
+    return read(jobExecutionId, snapshot(jobExecutionId), Math.max(0, fromLine), maxLines);
+  }
+
+  /**
+   * Reads the last lines of a job log.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param lines          the maximum number of lines to read
+   * @return the lines read
+   * @throws IOException if the log cannot be read
+   */
+  public LogLines tail(UUID jobExecutionId, int lines) throws IOException {
+    Snapshot snapshot = snapshot(jobExecutionId);
+    return read(jobExecutionId, snapshot, Math.max(0, snapshot.totalLines() - lines), lines);
+  }
+
+  /**
+   * Compresses the head into a new segment, records it in the index, then drops the head.
+   */
+  private void seal(UUID jobExecutionId, Head head) throws IOException {
+    Path headFile = headFile(jobExecutionId, head.firstLine);
+    byte[] raw = Files.readAllBytes(headFile);
+    int lineCount = countLines(raw);
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(raw);
+    }
+    long offset;
+    try (FileChannel channel = FileChannel.open(segmentsFile(jobExecutionId), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      // past the bytes of a seal that failed before it was indexed, if any
+      offset = channel.size();
+      ByteBuffer buffer = ByteBuffer.wrap(compressed.toByteArray());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+
+    logSegmentRepository.save(LogSegmentEntity.builder()
+        .jobExecutionId(jobExecutionId)
+        .segmentIndex(head.nextSegment)
+        .firstLine(head.firstLine)
+        .lineCount(lineCount)
+        .byteOffset(offset)
+        .byteLength(compressed.size())
+        .rawLength(raw.length)
+        .createdAt(Instant.now())
+        .build());
+    Files.deleteIfExists(headFile);
+
+    head.nextSegment++;
+    head.firstLine += lineCount;
+    head.size = 0;
+  }
+
+  /**
+   * Picks up where the log of a job stands, which may have been written before a restart.
+   */
+  private Head openHead(UUID jobExecutionId) throws IOException {
+    Optional<LogSegmentEntity> last = logSegmentRepository.findFirstByJobExecutionIdOrderBySegmentIndexDesc(
+        jobExecutionId);
+    Head head = new Head();
+    head.nextSegment = last.map(segment -> segment.getSegmentIndex() + 1).orElse(0);
+    head.firstLine = last.map(LogSegmentEntity::getEndLine).orElse(0L);
+    Path headFile = headFile(jobExecutionId, head.firstLine);
+    head.size = Files.exists(headFile) ? Files.size(headFile) : 0;
+    return head;
+  }
+
+  /**
+   * Reads the index and the matching head of a log. A head that disappears while it is
+   * looked up was sealed meanwhile, the index is read again to find its segment.
+   */
+  private Snapshot snapshot(UUID jobExecutionId) throws IOException {
+    List<LogSegmentEntity> segments = List.of();
+    long headFirstLine = 0;
+    for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+      segments = logSegmentRepository.findByJobExecutionIdOrderBySegmentIndexAsc(jobExecutionId);
+      headFirstLine = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).getEndLine();
+      try {
+        return new Snapshot(segments, headFirstLine,
+            completeLines(Files.readAllBytes(headFile(jobExecutionId, headFirstLine))));
+      } catch (NoSuchFileException e) {
+        long endLine = logSegmentRepository.findFirstByJobExecutionIdOrderBySegmentIndexDesc(jobExecutionId)
+            .map(LogSegmentEntity::getEndLine).orElse(0L);
+        if (endLine == headFirstLine) {
+          // no head, the log is sealed or empty
+          return new Snapshot(segments, headFirstLine, List.of());
+        }
+      }
+    }
+    return new Snapshot(segments, headFirstLine, List.of());
+  }
+
+  private LogLines read(UUID jobExecutionId, Snapshot snapshot, long fromLine, int maxLines) throws IOException {
+    List<String> lines = new ArrayList<>();
+    long line = fromLine;
+    for (LogSegmentEntity segment : snapshot.segments()) {
+      if (lines.size() >= maxLines) {
+        break;
+      }
+      if (segment.getEndLine() <= line) {
+        continue;
+      }
+      line = take(readSegment(jobExecutionId, segment), segment.getFirstLine(), line, maxLines, lines);
+    }
+    if (lines.size() < maxLines) {
+      take(snapshot.headLines(), snapshot.headFirstLine(), line, maxLines, lines);
+    }
+    return new LogLines(fromLine, lines, snapshot.totalLines());
+  }
+
+  /**
+   * Adds the lines of a segment or head from a given line on.
+   *
+   * @return the number of the line following the last one added
+   */
+  private long take(List<String> source, long sourceFirstLine, long fromLine, int maxLines, List<String> lines) {
+    int index = (int) Math.max(0, fromLine - sourceFirstLine);
+    while (index < source.size() && lines.size() < maxLines) {
+      lines.add(source.get(index++));
+    }
+    return sourceFirstLine + index;
+  }
+
+  private List<String> readSegment(UUID jobExecutionId, LogSegmentEntity segment) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(segment.getByteLength());
+    try (FileChannel channel = FileChannel.open(segmentsFile(jobExecutionId), StandardOpenOption.READ)) {
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, segment.getByteOffset() + buffer.position()) < 0) {
+          throw new EOFException("Log segment " + segment.getSegmentIndex() + " of job execution "
+              + jobExecutionId + " is truncated");
+        }
+      }
+    }
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(buffer.array()))) {
+      return completeLines(in.readAllBytes());
+    }
+  }
+
+  /**
+   * Splits bytes into lines, leaving out an unfinished last line that is still being written.
+   */
+  private static List<String> completeLines(byte[] bytes) {
+    int end = bytes.length;
+    while (end > 0 && bytes[end - 1] != '\n') {
+      end--;
+    }
+    if (end == 0) {
+      return List.of();
+    }
+    String text = new String(bytes, 0, end - 1, StandardCharsets.UTF_8);
+    return Arrays.asList(text.split("\n", -1));
+  }
+
+  private static int countLines(byte[] bytes) {
+    int lines = 0;
+    for (byte b : bytes) {
+      if (b == '\n') {
+        lines++;
+      }
+    }
+    return lines;
+  }
+
+  private Path directory(UUID jobExecutionId) {
+    return root.resolve(jobExecutionId.toString().substring(0, 2));
+  }
+
+  Path segmentsFile(UUID jobExecutionId) {
+    return directory(jobExecutionId).resolve(jobExecutionId + SEGMENTS_SUFFIX);
+  }
+
+  Path headFile(UUID jobExecutionId, long firstLine) {
+    return directory(jobExecutionId).resolve(jobExecutionId + "." + firstLine + HEAD_SUFFIX);
+  }
+
+  /** Write position of a log in this process. */
+  private static final class Head {
+    private int nextSegment;
+    private long firstLine;
+    private long size;
+  }
+
+  private record Snapshot(List<LogSegmentEntity> segments, long headFirstLine, List<String> headLines) {
+    long totalLines() {
+      return headFirstLine + headLines.size();
+    }
+  }
+
+  /**
+   * Consecutive lines of a job log.
+   *
+   * @param firstLine  the number of the first line, starting at 0
+   * @param lines      the lines
+   * @param totalLines the number of lines in the log when it was read
+   */
+  public record LogLines(long firstLine, List<String> lines, long totalLines) {
+
+    /**
+     * Returns the number of the line following the lines read, to continue reading from.
+     *
+     * @return the next line number
+     */
+    public long nextLine() {
+      return firstLine + lines.size();
+    }
+  }
+}
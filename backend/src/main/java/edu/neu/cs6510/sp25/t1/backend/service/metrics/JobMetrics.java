@@ -0,0 +1,274 @@
+package edu.neu.cs6510.sp25.t1.backend.service.metrics;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.StageEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.StageRepository;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Records the metrics of the job lifecycle, from dispatch to the end of the pipeline run.
+ * <p>
+ * Meters are tagged by the name of the pipeline and stage and, where there is one, by the
+ * resulting status, never by execution IDs, so their number stays bounded. The names of
+ * recently seen stage and pipeline executions are kept in memory, so tagging a job costs a
+ * lookup only for the first job of a stage. Used by the backend when it dispatches jobs and
+ * by the worker as jobs run; with the Prometheus registry on the classpath the meters are
+ * scraped from {@code /actuator/prometheus}.
+ */
+@Service
+public class JobMetrics {
+  static final String METRIC_PREFIX = "cicd";
+  static final String UNKNOWN = "unknown";
+
+  /** Maximum number of stage and pipeline executions whose names are kept. */
+  private static final int MAX_CACHED_NAMES = 1024;
+
+  private final MeterRegistry registry;
+  private final StageExecutionRepository stageExecutionRepository;
+  private final StageRepository stageRepository;
+  private final PipelineExecutionRepository pipelineExecutionRepository;
+  private final PipelineRepository pipelineRepository;
+  private final Counter dispatchedJobs;
+
+  /** Pipeline and stage tags keyed by stage execution ID. */
+  private final Map<UUID, Tags> stageTags = lruMap();
+  /** Pipeline names keyed by pipeline execution ID. */
+  private final Map<UUID, String> pipelineNames = lruMap();
+
+  /**
+   * Creates the metrics.
+   *
+   * @param registry                    the registry the meters are registered with
+   * @param stageExecutionRepository    repository resolving stage executions
+   * @param stageRepository             repository resolving stage names
+   * @param pipelineExecutionRepository repository resolving pipeline executions
+   * @param pipelineRepository          repository resolving pipeline names
+   */
+  public JobMetrics(MeterRegistry registry, StageExecutionRepository stageExecutionRepository,
+      StageRepository stageRepository, PipelineExecutionRepository pipelineExecutionRepository,
+      PipelineRepository pipelineRepository) {
+    this.registry = registry;
+    this.stageExecutionRepository = stageExecutionRepository;
+    this.stageRepository = stageRepository;
+    this.pipelineExecutionRepository = pipelineExecutionRepository;
+    this.pipelineRepository = pipelineRepository;
+    this.dispatchedJobs = Counter.builder(METRIC_PREFIX + ".jobs.dispatched")
+        .description("Jobs published to the job queue")
+        .register(registry);
+  }
+
+  /**
+   * Counts a job published to the job queue.
+   */
+  public void jobDispatched() {
+    dispatchedJobs.increment();
+  }
+
+  /**
+   * Records how long a job waited in the job queue, from its publication by the backend
+   * until a worker consumed it.
+   *
+   * @param stageExecutionId the stage execution of the job
+   * @param wait             the time spent in the queue
+   */
+  public void recordQueueWait(UUID stageExecutionId, Duration wait) {
+    timer("job.queue.wait", "Time jobs spent in the job queue", stageTags(stageExecutionId))
+        .record(wait.isNegative() ? Duration.ZERO : wait);
+  }
+
+  /**
+   * Records how long it took to make the image of a job available.
+   *
+   * @param stageExecutionId the stage execution of the job
+   * @param duration         the time spent pulling or resolving the image
+   */
+  public void recordImagePull(UUID stageExecutionId, Duration duration) {
+    timer("job.image.pull", "Time spent making job images available", stageTags(stageExecutionId))
+        .record(duration);
+  }
+
+  /**
+   * Records a checkout of the pipeline repository into its volume.
+   *
+   * @param pipelineName the name of the pipeline
+   * @param duration     the time the checkout took
+   * @param succeeded    whether the checkout succeeded
+   */
+  public void recordClone(String pipelineName, Duration duration, boolean succeeded) {
+    ExecutionStatus status = succeeded ? ExecutionStatus.SUCCESS : ExecutionStatus.FAILED;
+    timer("job.clone", "Time spent checking out pipeline repositories",
+        Tags.of("pipeline", orUnknown(pipelineName), "status", status.name()))
+        .record(duration);
+  }
+
+  /**
+   * Counts a checkout skipped because the volume was already at the requested commit.
+   *
+   * @param pipelineName the name of the pipeline
+   */
+  public void cloneReused(String pipelineName) {
+    Counter.builder(METRIC_PREFIX + ".job.clone.reused")
+        .description("Checkouts skipped because the volume was up to date")
+        .tag("pipeline", orUnknown(pipelineName))
+        .register(registry)
+        .increment();
+  }
+
+  /**
+   * Records how long the container of a job ran.
+   *
+   * @param stageExecutionId the stage execution of the job
+   * @param status           the status the job ended with
+   * @param duration         the time from the start of the container until it exited
+   */
+  public void recordContainerRun(UUID stageExecutionId, ExecutionStatus status, Duration duration) {
+    timer("job.container.run", "Time job containers ran",
+        stageTags(stageExecutionId).and("status", status.name()))
+        .record(duration);
+  }
+
+  /**
+   * Records how long it took to store and publish a status reported for a job.
+   *
+   * @param stageExecutionId the stage execution of the job
+   * @param status           the reported status
+   * @param duration         the time the update took
+   */
+  public void recordStatusUpdate(UUID stageExecutionId, ExecutionStatus status, Duration duration) {
+    timer("job.status.update", "Time spent storing and publishing job status updates",
+        stageTags(stageExecutionId).and("status", status.name()))
+        .record(duration);
+  }
+
+  /**
+   * Counts a job moving to a new status.
+   *
+   * @param stageExecutionId the stage execution of the job
+   * @param status           the new status
+   */
+  public void jobTransition(UUID stageExecutionId, ExecutionStatus status) {
+    Counter.builder(METRIC_PREFIX + ".job.transitions")
+        .description("Job status transitions")
+        .tags(stageTags(stageExecutionId).and("status", status.name()))
+        .register(registry)
+        .increment();
+  }
+
+  /**
+   * Records the duration of a finished pipeline run.
+   *
+   * @param pipelineExecutionId the pipeline execution
+   * @param status              the status the run ended with
+   * @param duration            the time from the start of the run until its last job finished
+   */
+  public void recordPipelineDuration(UUID pipelineExecutionId, ExecutionStatus status, Duration duration) {
+    timer("pipeline.duration", "End-to-end duration of pipeline runs",
+        Tags.of("pipeline", pipelineName(pipelineExecutionId), "status", status.name()))
+        .record(duration);
+  }
+
+  private Timer timer(String name, String description, Tags tags) {
+    return Timer.builder(METRIC_PREFIX + "." + name)
+        .description(description)
+        .tags(tags)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  /**
+   * Returns the pipeline and stage tags of a stage execution.
+   */
+  Tags stageTags(UUID stageExecutionId) {
+    if (stageExecutionId == null) {
+      return Tags.of("pipeline", UNKNOWN, "stage", UNKNOWN);
+    }
+    synchronized (stageTags) {
+      Tags cached = stageTags.get(stageExecutionId);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    Optional<StageExecutionEntity> stageExecution;
+    String stageName;
+    try {
+      stageExecution = stageExecutionRepository.findById(stageExecutionId);
+      stageName = stageExecution
+          .flatMap(execution -> stageRepository.findById(execution.getStageId()))
+          .map(StageEntity::getName)
+          .orElse(UNKNOWN);
+    } catch (RuntimeException e) {
+      // metrics never fail the job, the lookup is retried by the next job of the stage
+      return Tags.of("pipeline", UNKNOWN, "stage", UNKNOWN);
+    }
+    if (stageExecution.isEmpty()) {
+      return Tags.of("pipeline", UNKNOWN, "stage", UNKNOWN);
+    }
+    Tags tags = Tags.of("pipeline", pipelineName(stageExecution.get().getPipelineExecutionId()),
+        "stage", orUnknown(stageName));
+    synchronized (stageTags) {
+      stageTags.put(stageExecutionId, tags);
+    }
+    return tags;
+  }
+
+  /**
+   * Returns the name of the pipeline of a pipeline execution.
+   */
+  String pipelineName(UUID pipelineExecutionId) {
+    if (pipelineExecutionId == null) {
+      return UNKNOWN;
+    }
+    synchronized (pipelineNames) {
+      String cached = pipelineNames.get(pipelineExecutionId);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    String name;
+    try {
+      name = pipelineExecutionRepository.findById(pipelineExecutionId)
+          .map(PipelineExecutionEntity::getPipelineId)
+          .flatMap(pipelineRepository::findById)
+          .map(PipelineEntity::getName)
+          .orElse(null);
+    } catch (RuntimeException e) {
+      return UNKNOWN;
+    }
+    if (name == null || name.isBlank()) {
+      return UNKNOWN;
+    }
+    synchronized (pipelineNames) {
+      pipelineNames.put(pipelineExecutionId, name);
+    }
+    return name;
+  }
+
+  private static String orUnknown(String name) {
+    return name == null || name.isBlank() ? UNKNOWN : name;
+  }
+
+  private static <V> Map<UUID, V> lruMap() {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, V> eldest) {
+        return size() > MAX_CACHED_NAMES;
+      }
+    };
+  }
+}
@@ -2,55 +2,274 @@ package edu.neu.cs6510.sp25.t1.backend.service.pipeline;
 
 import edu.neu.cs6510.sp25.t1.backend.info.ClonedPipelineInfo;
 import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
-import edu.neu.cs6510.sp25.t1.common.utils.GitCloneUtil;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+import edu.neu.cs6510.sp25.t1.common.utils.GitMirrorCache;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.AmbiguousObjectException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
- * Service for cloning a Git repository and locating the pipeline definition file.
+ * Service for fetching the pipeline definition file of a Git repository.
  * The service assumes the pipeline YAML is inside a `.pipelines/` directory at the root.
+ * <p>
+ * Only the definitions are read: the `.pipelines/*.yaml` blobs are read straight from a Git
+ * object database, without a checkout, and the selected file is the only file written to the
+ * pipeline directory. When a {@link GitMirrorCache} is configured the persistent mirror of the
+ * repository is used, so a run only fetches what changed since the last one. Otherwise the
+ * requested commit, or the tip of the requested branch, is fetched with depth 1 into a temporary
+ * bare repository, which is deleted once it has been read.
+ * <p>
+ * A run naming a commit always reads that commit, and fails if the repository does not hold it.
  */
 @Service
 public class GitPipelineService {
+  /** Directory holding one subdirectory per fetched pipeline definition. */
+  public static final String MOUNT_BASE_PATH = "/mnt/pipeline";
+
+  private static final String PIPELINES_DIR = ".pipelines";
+  private static final String FETCHED_REF = "refs/pipeline/source";
+  private static final String SOURCE_DIR = "source.git";
+
+  private final File mountBaseDir;
+  private final GitMirrorCache mirrorCache;
+
+  /**
+   * Creates the service writing to {@link #MOUNT_BASE_PATH}.
+   *
+   * @param mirrorCache the shared repository mirrors, if enabled
+   */
+  @Autowired
+  public GitPipelineService(Optional<GitMirrorCache> mirrorCache) {
+    this(new File(MOUNT_BASE_PATH), mirrorCache.orElse(null));
+  }
+
   /**
-   * Clones the Git repository defined in the request and returns the absolute path
-   * to the first YAML pipeline file found in the `.pipelines` directory.
+   * Creates the service writing to the given directory.
+   *
+   * @param mountBaseDir the directory holding the fetched pipeline definitions
+   * @param mirrorCache  the shared repository mirrors, or null to fetch from the remote every time
+   */
+  GitPipelineService(File mountBaseDir, GitMirrorCache mirrorCache) {
+    this.mountBaseDir = mountBaseDir;
+    this.mirrorCache = mirrorCache;
+  }
+
+  /**
+   * Fetches the pipeline definitions of the Git repository defined in the request and
+   * returns the absolute path to the pipeline YAML file. If the request names a file in
+   * the `.pipelines` directory that file is used, otherwise the first one by name.
    *
    * @param request the pipeline execution request containing the repo URL and optional branch
-   * @return a {@link ClonedPipelineInfo} containing the YAML path and UUID of the clone
-   * @throws Exception if cloning fails or if no pipeline file is found
+   * @return a {@link ClonedPipelineInfo} containing the YAML path and UUID of the fetch
+   * @throws Exception if fetching fails or if no pipeline file is found
    */
   public ClonedPipelineInfo cloneRepoAndLocatePipelineFile(PipelineExecutionRequest request) throws Exception {
-    String mountBasePath = "/mnt/pipeline";
     UUID uuid = UUID.randomUUID();
-    File cloneDir = new File(mountBasePath, uuid.toString());
+    File pipelineDir = new File(mountBaseDir, uuid.toString());
 
+    boolean read = false;
+    try {
+      ClonedPipelineInfo info = mirrorCache != null
+          ? readFromMirror(request, pipelineDir, uuid)
+          : readFromShallowFetch(request, pipelineDir, uuid);
+      read = true;
+      return info;
+    } finally {
+      // the pipeline file is removed by the caller once it has been read
+      FileUtils.deleteQuietly(read ? new File(pipelineDir, SOURCE_DIR) : pipelineDir);
+    }
+  }
+
+  /**
+   * Reads the pipeline definitions from the shared mirror of the repository, at the requested
+   * commit or else the tip of the requested branch. If the mirror cannot be updated, falls back
+   * to a shallow fetch from the remote.
+   */
+  private ClonedPipelineInfo readFromMirror(PipelineExecutionRequest request, File pipelineDir, UUID uuid)
+      throws Exception {
     String repo = request.getRepo();
-    String branch = request.getBranch();
+    long start = System.currentTimeMillis();
+    GitMirrorCache.Mirror mirror;
+    try {
+      mirror = mirrorCache.acquire(repo, request.getCommitHash());
+    } catch (IOException | GitAPIException e) {
+      PipelineLogger.warn("Mirror of {} unavailable, fetching from the remote: {}", repo, e.getMessage());
+      return readFromShallowFetch(request, pipelineDir, uuid);
+    }
 
-    File clonedRepo;
-    if (branch != null && !branch.isEmpty()) {
-      clonedRepo = GitCloneUtil.cloneRepository(repo, cloneDir, branch);
-    } else {
-      clonedRepo = GitCloneUtil.cloneRepository(repo, cloneDir);
+    try (mirror; Repository repository = mirror.openRepository()) {
+      String commitHash = requestedCommit(request);
+      ObjectId commitId;
+      if (commitHash != null) {
+        commitId = resolveCommit(repository, commitHash);
+        if (commitId == null) {
+          throw new IOException("Commit not found in " + repo + ": " + commitHash);
+        }
+      } else {
+        String ref = branchRef(request);
+        commitId = repository.resolve(ref);
+        if (commitId == null) {
+          throw new IOException("Ref not found in " + repo + ": " + ref);
+        }
+      }
+      return readPipelineFile(repository, commitId, request, pipelineDir, uuid, start);
     }
+  }
 
-    File pipelinesDir = new File(clonedRepo, ".pipelines");
-    if (!pipelinesDir.exists() || !pipelinesDir.isDirectory()) {
-      throw new IOException("'.pipelines' directory not found: " + pipelinesDir.getAbsolutePath());
+  /**
+   * Fetches the requested commit, or the tip of the requested branch, with depth 1 into a
+   * temporary bare repository inside the pipeline directory and reads the pipeline definitions
+   * from it. An abbreviated commit cannot be fetched by itself, so it is only found if it is the
+   * tip of the branch.
+   */
+  private ClonedPipelineInfo readFromShallowFetch(PipelineExecutionRequest request, File pipelineDir, UUID uuid)
+      throws Exception {
+    File gitDir = new File(pipelineDir, SOURCE_DIR);
+    String repo = request.getRepo();
+    String commitHash = requestedCommit(request);
+    String source = commitHash != null && ObjectId.isId(commitHash) ? commitHash : branchRef(request);
+
+    try (Git git = Git.init().setBare(true).setGitDir(gitDir).setDirectory(gitDir).call()) {
+      Repository repository = git.getRepository();
+      long start = System.currentTimeMillis();
+      git.fetch()
+          .setRemote(repo)
+          .setRefSpecs(new RefSpec("+" + source + ":" + FETCHED_REF))
+          .setDepth(1)
+          .setTagOpt(TagOpt.NO_TAGS)
+          .call();
+
+      ObjectId commitId = commitHash != null
+          ? resolveCommit(repository, commitHash)
+          : repository.resolve(FETCHED_REF);
+      if (commitId == null) {
+        throw new IOException(commitHash != null
+            ? "Commit not found in " + repo + ": " + commitHash
+            : "Ref not found in " + repo + ": " + source);
+      }
+      return readPipelineFile(repository, commitId, request, pipelineDir, uuid, start);
     }
+  }
 
-    File[] yamlFiles = pipelinesDir.listFiles((dir, name) ->
-        name.toLowerCase().endsWith(".yaml") || name.toLowerCase().endsWith(".yml")
-    );
+  /**
+   * Writes the selected `.pipelines` YAML file of a commit to the pipeline directory.
+   */
+  private ClonedPipelineInfo readPipelineFile(Repository repository, ObjectId commitId,
+      PipelineExecutionRequest request, File pipelineDir, UUID uuid, long start) throws IOException {
+    String repo = request.getRepo();
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      RevCommit commit = revWalk.parseCommit(commitId);
+      List<String> yamlFiles = new ArrayList<>();
+      ObjectId selected = null;
+      String selectedName = null;
+      String requestedName = requestedFileName(request);
+
+      try (TreeWalk dirWalk = TreeWalk.forPath(repository, PIPELINES_DIR, commit.getTree())) {
+        if (dirWalk == null || dirWalk.getFileMode(0) != FileMode.TREE) {
+          throw new IOException("'" + PIPELINES_DIR + "' directory not found in " + repo + " at " + commit.getName());
+        }
+        try (TreeWalk fileWalk = new TreeWalk(repository)) {
+          fileWalk.addTree(dirWalk.getObjectId(0));
+          while (fileWalk.next()) {
+            String name = fileWalk.getNameString();
+            if ((fileWalk.getRawMode(0) & FileMode.TYPE_MASK) != FileMode.TYPE_FILE || !isYaml(name)) {
+              continue;
+            }
+            yamlFiles.add(name);
+            if (selected == null || name.equals(requestedName)) {
+              selected = fileWalk.getObjectId(0);
+              selectedName = name;
+            }
+          }
+        }
+      }
+
+      if (selected == null) {
+        throw new IOException("No YAML file found in: " + PIPELINES_DIR + " of " + repo + " at " + commit.getName());
+      }
+
+      File yamlFile = new File(new File(pipelineDir, PIPELINES_DIR), selectedName);
+      Files.createDirectories(yamlFile.getParentFile().toPath());
+      try (OutputStream out = Files.newOutputStream(yamlFile.toPath())) {
+        repository.open(selected, Constants.OBJ_BLOB).copyTo(out);
+      }
+      PipelineLogger.info("Read {}/{} of {} from {} at {} in {} ms",
+          PIPELINES_DIR, selectedName, yamlFiles, repo, commit.getName(), System.currentTimeMillis() - start);
+      return new ClonedPipelineInfo(yamlFile.getAbsolutePath(), uuid);
+    }
+  }
+
+  /**
+   * Returns the commit named in the request, if any.
+   *
+   * @param request the pipeline execution request
+   * @return the trimmed commit hash, or null if the request names no commit
+   */
+  private String requestedCommit(PipelineExecutionRequest request) {
+    String commitHash = request.getCommitHash();
+    return commitHash == null || commitHash.isBlank() ? null : commitHash.trim();
+  }
 
-    if (yamlFiles == null || yamlFiles.length == 0) {
-      throw new IOException("No YAML file found in: " + pipelinesDir.getAbsolutePath());
+  /**
+   * Resolves a commit in the repository.
+   *
+   * @return the commit ID, or null if the repository does not hold it
+   */
+  private ObjectId resolveCommit(Repository repository, String commitHash) throws IOException {
+    try {
+      return repository.resolve(commitHash + "^{commit}");
+    } catch (MissingObjectException | AmbiguousObjectException | RevisionSyntaxException e) {
+      return null;
     }
+  }
+
+  private String branchRef(PipelineExecutionRequest request) {
+    String branch = request.getBranch();
+    return branch != null && !branch.isEmpty() ? Constants.R_HEADS + branch : Constants.HEAD;
+  }
+
+  /**
+   * Returns the file name of the pipeline file named in the request, if any.
+   *
+   * @param request the pipeline execution request
+   * @return the file name, or null if the request names no file
+   */
+  private String requestedFileName(PipelineExecutionRequest request) {
+    String filePath = request.getFilePath();
+    if (filePath == null || filePath.isBlank()) {
+      return null;
+    }
+    Path fileName = Paths.get(filePath).getFileName();
+    return fileName == null ? null : fileName.toString();
+  }
 
-    return new ClonedPipelineInfo(yamlFiles[0].getAbsolutePath(), uuid);
+  private boolean isYaml(String name) {
+    String lowerCase = name.toLowerCase();
+    return lowerCase.endsWith(".yaml") || lowerCase.endsWith(".yml");
   }
 }
@@ -1,11 +1,20 @@
 package edu.neu.cs6510.sp25.t1.backend.service.pipeline;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,10 +32,19 @@ import lombok.RequiredArgsConstructor;
 /**
  * Service responsible for creating and managing pipeline definition entities.
  * This includes pipelines, stages, and jobs.
+ * <p>
+ * Definitions are content addressed: a pipeline remembers the hash of the normalized
+ * configuration its stages and jobs were created from, and a run with an identical
+ * configuration reuses that pipeline and its definitions without writing anything.
+ * Definitions are only written for a configuration that has not been seen before.
  */
 @Service
 @RequiredArgsConstructor
 public class PipelineDefinitionService {
+  /** Serializes configurations with sorted map keys, so equal configurations hash equally. */
+  private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+      .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
   private final PipelineRepository pipelineRepository;
   private final StageRepository stageRepository;
   private final JobRepository jobRepository;
@@ -42,18 +60,18 @@ public class PipelineDefinitionService {
   @Transactional
   public UUID createOrGetPipelineEntity(PipelineExecutionRequest request, Map<String, Object> pipelineConfig) {
     // Debug log the request
-    PipelineLogger.info("createOrGetPipelineEntity called with pipelineId: " + request.getPipelineId());
-    PipelineLogger.info("Repo: " + request.getRepo() + ", Branch: " + request.getBranch());
-    PipelineLogger.info("CommitHash: " + request.getCommitHash() + ", FilePath: " + request.getFilePath());
+    PipelineLogger.info("createOrGetPipelineEntity called with pipelineId: {}", request.getPipelineId());
+    PipelineLogger.info("Repo: {}, Branch: {}", request.getRepo(), request.getBranch());
+    PipelineLogger.info("CommitHash: {}, FilePath: {}", request.getCommitHash(), request.getFilePath());
 
     // Check if a pipeline ID was provided in the request
     if (request.getPipelineId() != null) {
       // Check if the pipeline exists in the database
       if (pipelineRepository.existsById(request.getPipelineId())) {
-        PipelineLogger.info("Using existing pipeline with ID: " + request.getPipelineId());
+        PipelineLogger.info("Using existing pipeline with ID: {}", request.getPipelineId());
         return request.getPipelineId();
       } else {
-        PipelineLogger.info("Pipeline ID provided but not found in database: " + request.getPipelineId());
+        PipelineLogger.info("Pipeline ID provided but not found in database: {}", request.getPipelineId());
       }
     } else {
       PipelineLogger.info("No pipeline ID provided in request, will create new entity");
@@ -64,10 +82,20 @@ public class PipelineDefinitionService {
     String repoUrl = extractRepositoryUrl(request, pipelineConfig);
     String branch = extractBranch(request, pipelineConfig);
 
-    PipelineLogger.info("Building pipeline entity with name: " + name);
-    PipelineLogger.info("Repository URL: " + repoUrl);
-    PipelineLogger.info("Branch: " + branch);
-    PipelineLogger.info("Commit Hash: " + request.getCommitHash());
+    // Reuse the pipeline whose definitions were created from the same configuration
+    String definitionHash = computeDefinitionHash(pipelineConfig, repoUrl, branch, request.getFilePath());
+    if (definitionHash != null) {
+      Optional<PipelineEntity> existing = pipelineRepository.findFirstByDefinitionHashOrderByCreatedAtDesc(definitionHash);
+      if (existing.isPresent()) {
+        PipelineLogger.info("Pipeline definition unchanged, reusing pipeline with ID: {}", existing.get().getId());
+        return existing.get().getId();
+      }
+    }
+
+    PipelineLogger.info("Building pipeline entity with name: {}", name);
+    PipelineLogger.info("Repository URL: {}", repoUrl);
+    PipelineLogger.info("Branch: {}", branch);
+    PipelineLogger.info("Commit Hash: {}", request.getCommitHash());
 
     // Create and save pipeline entity
     PipelineEntity pipeline = PipelineEntity.builder()
@@ -82,12 +110,12 @@ public class PipelineDefinitionService {
 
       // Verify the save by retrieving it
       if (pipelineRepository.existsById(pipeline.getId())) {
-        PipelineLogger.info("Successfully created and verified pipeline entity with ID: " + pipeline.getId());
+        PipelineLogger.info("Successfully created and verified pipeline entity with ID: {}", pipeline.getId());
       } else {
-        PipelineLogger.error("Failed to verify pipeline entity was saved: " + pipeline.getId());
+        PipelineLogger.error("Failed to verify pipeline entity was saved: {}", pipeline.getId());
       }
     } catch (Exception e) {
-      PipelineLogger.error("Error saving pipeline entity: " + e.getMessage());
+      PipelineLogger.error("Error saving pipeline entity: {}", e.getMessage());
       throw e;
     }
 
@@ -95,7 +123,8 @@ public class PipelineDefinitionService {
   }
 
   /**
-   * Creates stage and job entities based on pipeline configuration.
+   * Creates stage and job entities based on pipeline configuration. Nothing is written if the
+   * definitions of the pipeline were already created from the same configuration.
    *
    * @param pipelineId     the pipeline ID
    * @param pipelineConfig the parsed pipeline configuration
@@ -103,16 +132,23 @@ public class PipelineDefinitionService {
    */
   @Transactional
   public void createPipelineDefinition(UUID pipelineId, Map<String, Object> pipelineConfig, String rootPath) {
-    PipelineLogger.info("Creating stage and job definitions for pipeline: " + pipelineId);
+    PipelineLogger.info("Creating stage and job definitions for pipeline: {}", pipelineId);
 
     // Verify the pipeline exists first
     PipelineEntity pipeline = pipelineRepository.findById(pipelineId)
         .orElseThrow(() -> {
-          PipelineLogger.error("Pipeline not found with ID: " + pipelineId);
+          PipelineLogger.error("Pipeline not found with ID: {}", pipelineId);
           return new RuntimeException("Pipeline not found: " + pipelineId);
         });
 
-    PipelineLogger.info("Found pipeline entity with ID: " + pipelineId + ", name: " + pipeline.getName());
+    PipelineLogger.info("Found pipeline entity with ID: {}, name: {}", pipelineId, pipeline.getName());
+
+    String definitionHash = computeDefinitionHash(pipelineConfig, pipeline.getRepositoryUrl(), pipeline.getBranch(),
+        rootPath);
+    if (definitionHash != null && definitionHash.equals(pipeline.getDefinitionHash())) {
+      PipelineLogger.info("Stage and job definitions are up to date for pipeline: {}", pipelineId);
+      return;
+    }
 
     boolean usingTopLevelJobs = pipelineConfig.containsKey("jobs");
 
@@ -125,6 +161,35 @@ public class PipelineDefinitionService {
       PipelineLogger.info("Using nested stage-jobs format");
       createPipelineDefinitionWithNestedJobs(pipelineId, pipelineConfig);
     }
+
+    // Set once the definitions exist, so only complete definitions are ever reused
+    pipeline.setDefinitionHash(definitionHash);
+  }
+
+  /**
+   * Computes the content hash identifying a pipeline definition: the SHA-256 of the
+   * configuration serialized with sorted keys, together with the pipeline properties and the
+   * job root path that end up in the definition rows.
+   *
+   * @param pipelineConfig the parsed pipeline configuration
+   * @param repoUrl        the repository URL of the pipeline
+   * @param branch         the branch of the pipeline
+   * @param rootPath       the root path for job scripts
+   * @return the hex encoded hash, or null if the configuration cannot be serialized
+   */
+  String computeDefinitionHash(Map<String, Object> pipelineConfig, String repoUrl, String branch, String rootPath) {
+    Map<String, Object> definition = new LinkedHashMap<>();
+    definition.put("config", pipelineConfig);
+    definition.put("repositoryUrl", repoUrl);
+    definition.put("branch", branch);
+    definition.put("rootPath", rootPath);
+    try {
+      byte[] canonical = CANONICAL_MAPPER.writeValueAsString(definition).getBytes(StandardCharsets.UTF_8);
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+    } catch (JsonProcessingException | NoSuchAlgorithmException | RuntimeException e) {
+      PipelineLogger.warn("Cannot hash pipeline configuration, definitions will not be reused: {}", e.getMessage());
+      return null;
+    }
   }
 
   /**
@@ -145,7 +210,7 @@ public class PipelineDefinitionService {
       throw new RuntimeException("Pipeline must contain at least one valid stage.");
     }
 
-    PipelineLogger.info("Found " + stageNames.size() + " stages in pipeline configuration");
+    PipelineLogger.info("Found {} stages in pipeline configuration", stageNames.size());
 
     // Create stage entities for each stage name
     Map<String, UUID> stageNameToIdMap = new HashMap<>();
@@ -163,19 +228,24 @@ public class PipelineDefinitionService {
       return;
     }
 
-    PipelineLogger.info("Found " + jobs.size() + " jobs in pipeline configuration");
+    PipelineLogger.info("Found {} jobs in pipeline configuration", jobs.size());
 
     // Create job entities for each job
+    Map<String, JobEntity> jobsByName = new HashMap<>();
     for (Map<String, Object> jobConfig : jobs) {
       String stageName = (String) jobConfig.get("stage");
       if (stageName == null || !stageNameToIdMap.containsKey(stageName)) {
-        PipelineLogger.error("Job references unknown stage: " + stageName);
+        PipelineLogger.error("Job references unknown stage: {}", stageName);
         throw new RuntimeException("Job references unknown stage: " + stageName);
       }
 
       UUID stageId = stageNameToIdMap.get(stageName);
-      createJobFromConfig(stageId, jobConfig, rootPath);
+      JobEntity job = createJobFromConfig(stageId, jobConfig, rootPath);
+      jobsByName.put((String) jobConfig.get("name"), job);
     }
+
+    // Job names are unique across the pipeline, so dependencies may point into other stages
+    linkJobDependencies(jobs, jobsByName);
   }
 
   /**
@@ -193,7 +263,7 @@ public class PipelineDefinitionService {
       throw new RuntimeException("Pipeline must contain at least one valid stage.");
     }
 
-    PipelineLogger.info("Found " + stages.size() + " stages in pipeline configuration");
+    PipelineLogger.info("Found {} stages in pipeline configuration", stages.size());
 
     for (int order = 0; order < stages.size(); order++) {
       Map<String, Object> stageConfig = stages.get(order);
@@ -263,7 +333,7 @@ public class PipelineDefinitionService {
    */
   @Transactional
   private UUID createStageEntity(UUID pipelineId, String stageName, int order) {
-    PipelineLogger.info("Creating stage with name: " + stageName + ", order: " + order);
+    PipelineLogger.info("Creating stage with name: {}, order: {}", stageName, order);
 
     // Create and save the stage entity
     StageEntity stage = StageEntity.builder()
@@ -278,14 +348,14 @@ public class PipelineDefinitionService {
 
       // Verify the stage was saved
       if (stageRepository.existsById(stage.getId())) {
-        PipelineLogger.info("Successfully created stage with ID: " + stage.getId());
+        PipelineLogger.info("Successfully created stage with ID: {}", stage.getId());
       } else {
-        PipelineLogger.error("Failed to verify stage was saved: " + stage.getId());
+        PipelineLogger.error("Failed to verify stage was saved: {}", stage.getId());
       }
 
       return stage.getId();
     } catch (Exception e) {
-      PipelineLogger.error("Error saving stage entity: " + e.getMessage());
+      PipelineLogger.error("Error saving stage entity: {}", e.getMessage());
       throw e;
     }
   }
@@ -296,12 +366,12 @@ public class PipelineDefinitionService {
    * @param stageId   the stage ID
    * @param jobConfig the job configuration
    * @param rootPath  the root path for job scripts
-   * @return the job ID
+   * @return the saved job entity
    */
   @Transactional
-  private UUID createJobFromConfig(UUID stageId, Map<String, Object> jobConfig, String rootPath) {
+  private JobEntity createJobFromConfig(UUID stageId, Map<String, Object> jobConfig, String rootPath) {
     String jobName = (String) jobConfig.get("name");
-    PipelineLogger.info("Creating job with name: " + jobName + " for stage: " + stageId);
+    PipelineLogger.info("Creating job with name: {} for stage: {}", jobName, stageId);
 
     // Get docker image (support both "image" and "dockerImage" properties)
     String dockerImage = null;
@@ -342,17 +412,17 @@ public class PipelineDefinitionService {
 
       // Verify the job was saved
       if (jobRepository.existsById(job.getId())) {
-        PipelineLogger.info("Successfully created job with ID: " + job.getId());
+        PipelineLogger.info("Successfully created job with ID: {}", job.getId());
       } else {
-        PipelineLogger.error("Failed to verify job was saved: " + job.getId());
+        PipelineLogger.error("Failed to verify job was saved: {}", job.getId());
       }
 
       // Handle job scripts if present
       saveJobScripts(job.getId(), jobConfig);
 
-      return job.getId();
+      return job;
     } catch (Exception e) {
-      PipelineLogger.error("Error saving job entity: " + e.getMessage() + " | " + e);
+      PipelineLogger.error("Error saving job entity: {}", e.getMessage(), e);
       throw e;
     }
   }
@@ -388,7 +458,7 @@ public class PipelineDefinitionService {
   private void createStageWithJobs(UUID pipelineId, Map<String, Object> stageConfig, int order) {
     String stageName = (String) stageConfig.get("name");
 
-    PipelineLogger.info("Creating stage with name: " + stageName + ", order: " + order);
+    PipelineLogger.info("Creating stage with name: {}, order: {}", stageName, order);
 
     // Create and save the stage entity
     StageEntity stage = StageEntity.builder()
@@ -403,15 +473,15 @@ public class PipelineDefinitionService {
 
       // Verify the stage was saved
       if (stageRepository.existsById(stage.getId())) {
-        PipelineLogger.info("Successfully created stage with ID: " + stage.getId());
+        PipelineLogger.info("Successfully created stage with ID: {}", stage.getId());
       } else {
-        PipelineLogger.error("Failed to verify stage was saved: " + stage.getId());
+        PipelineLogger.error("Failed to verify stage was saved: {}", stage.getId());
       }
 
       // Create and save job entities for this stage
       createJobDefinitions(stage.getId(), stageConfig);
     } catch (Exception e) {
-      PipelineLogger.error("Error saving stage entity: " + e.getMessage());
+      PipelineLogger.error("Error saving stage entity: {}", e.getMessage());
       throw e;
     }
   }
@@ -427,24 +497,29 @@ public class PipelineDefinitionService {
     // Verify the stage exists first
     StageEntity stage = stageRepository.findById(stageId)
         .orElseThrow(() -> {
-          PipelineLogger.error("Stage not found with ID: " + stageId);
+          PipelineLogger.error("Stage not found with ID: {}", stageId);
           return new RuntimeException("Stage not found: " + stageId);
         });
 
-    PipelineLogger.info("Found stage entity with ID: " + stageId + ", name: " + stage.getName());
+    PipelineLogger.info("Found stage entity with ID: {}, name: {}", stageId, stage.getName());
 
     List<Map<String, Object>> jobsConfig = (List<Map<String, Object>>) stageConfig.get("jobs");
 
     if (jobsConfig == null || jobsConfig.isEmpty()) {
-      PipelineLogger.warn("No jobs defined in YAML for stage: " + stageId);
+      PipelineLogger.warn("No jobs defined in YAML for stage: {}", stageId);
       return;
     }
 
-    PipelineLogger.info("Found " + jobsConfig.size() + " jobs in stage configuration");
+    PipelineLogger.info("Found {} jobs in stage configuration", jobsConfig.size());
 
+    Map<String, JobEntity> jobsByName = new HashMap<>();
     for (Map<String, Object> jobConfig : jobsConfig) {
-      createJob(stageId, jobConfig);
+      JobEntity job = createJob(stageId, jobConfig);
+      jobsByName.put((String) jobConfig.get("name"), job);
     }
+
+    // In the nested format dependencies are validated per stage
+    linkJobDependencies(jobsConfig, jobsByName);
   }
 
   /**
@@ -452,11 +527,12 @@ public class PipelineDefinitionService {
    *
    * @param stageId   the stage ID
    * @param jobConfig the job configuration
+   * @return the saved job entity
    */
   @Transactional
-  private void createJob(UUID stageId, Map<String, Object> jobConfig) {
+  private JobEntity createJob(UUID stageId, Map<String, Object> jobConfig) {
     String jobName = (String) jobConfig.get("name");
-    PipelineLogger.info("Creating job with name: " + jobName + " for stage: " + stageId);
+    PipelineLogger.info("Creating job with name: {} for stage: {}", jobName, stageId);
 
     String dockerImage = extractDockerImage(jobConfig);
     boolean allowFailure = extractAllowFailure(jobConfig);
@@ -480,19 +556,75 @@ public class PipelineDefinitionService {
 
       // Verify the job was saved
       if (jobRepository.existsById(job.getId())) {
-        PipelineLogger.info("Successfully created job with ID: " + job.getId());
+        PipelineLogger.info("Successfully created job with ID: {}", job.getId());
       } else {
-        PipelineLogger.error("Failed to verify job was saved: " + job.getId());
+        PipelineLogger.error("Failed to verify job was saved: {}", job.getId());
       }
 
       // Handle job scripts if present
       saveJobScripts(job.getId(), jobConfig);
+
+      return job;
     } catch (Exception e) {
-      PipelineLogger.error("Error saving job entity: " + e.getMessage() + " | " + e);
+      PipelineLogger.error("Error saving job entity: {}", e.getMessage(), e);
       throw e;
     }
   }
 
+  /**
+   * Resolves the declared dependency names of each job to job IDs and stores them in
+   * the job_dependencies table. The job entities are already managed, so the collection
+   * is written when the surrounding transaction flushes.
+   *
+   * @param jobConfigs the job configurations
+   * @param jobsByName saved job entities keyed by job name
+   */
+  private void linkJobDependencies(List<Map<String, Object>> jobConfigs, Map<String, JobEntity> jobsByName) {
+    for (Map<String, Object> jobConfig : jobConfigs) {
+      List<String> dependencyNames = extractDependencyNames(jobConfig);
+      if (dependencyNames.isEmpty()) {
+        continue;
+      }
+
+      JobEntity job = jobsByName.get((String) jobConfig.get("name"));
+      if (job == null) {
+        continue;
+      }
+
+      List<UUID> dependencyIds = new ArrayList<>();
+      for (String dependencyName : dependencyNames) {
+        JobEntity dependency = jobsByName.get(dependencyName);
+        if (dependency == null) {
+          PipelineLogger.warn("Job {} depends on unknown job: {}", job.getName(), dependencyName);
+          continue;
+        }
+        dependencyIds.add(dependency.getId());
+      }
+
+      job.setDependencies(dependencyIds);
+      PipelineLogger.info("Job {} depends on: {}", job.getName(), dependencyNames);
+    }
+  }
+
+  /**
+   * Extract dependency names from job configuration.
+   *
+   * @param jobConfig the job configuration
+   * @return the names of the jobs this job depends on
+   */
+  private List<String> extractDependencyNames(Map<String, Object> jobConfig) {
+    Object dependencies = jobConfig.get("dependencies");
+    if (dependencies instanceof String) {
+      return List.of((String) dependencies);
+    } else if (dependencies instanceof List) {
+      return ((List<?>) dependencies).stream()
+          .filter(d -> d instanceof String)
+          .map(d -> (String) d)
+          .toList();
+    }
+    return List.of();
+  }
+
   /**
    * Extract docker image from job configuration.
    *
@@ -535,7 +667,7 @@ public class PipelineDefinitionService {
   @SuppressWarnings("unchecked")
   private void saveJobScripts(UUID jobId, Map<String, Object> jobConfig) {
     if (!jobConfig.containsKey("script")) {
-      PipelineLogger.warn("No scripts defined for job: " + jobId);
+      PipelineLogger.warn("No scripts defined for job: {}", jobId);
       return;
     }
 
@@ -543,8 +675,8 @@ public class PipelineDefinitionService {
     if (scriptObj instanceof String) {
       // Single script line
       String script = (String) scriptObj;
-      PipelineLogger.info("Adding script to job " + jobId + ": " +
-          (script.length() > 30 ? script.substring(0, 30) + "..." : script));
+      PipelineLogger.info("Adding script to job {}: {}",
+          jobId, script.length() > 30 ? script.substring(0, 30) + "..." : script);
       jobScriptRepository.saveScript(jobId, script);
     } else if (scriptObj instanceof List) {
       // Multiple script lines
@@ -553,7 +685,7 @@ public class PipelineDefinitionService {
           .map(s -> (String) s)
           .toList();
 
-      PipelineLogger.info("Adding " + scripts.size() + " script lines to job " + jobId);
+      PipelineLogger.info("Adding {} script lines to job {}", scripts.size(), jobId);
       for (String script : scripts) {
         jobScriptRepository.saveScript(jobId, script);
       }
@@ -1,11 +1,18 @@
 package edu.neu.cs6510.sp25.t1.backend.service.pipeline;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,10 +22,8 @@ import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.StageEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.StageRepository;
 import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
@@ -35,11 +40,15 @@ import lombok.RequiredArgsConstructor;
 public class PipelineExecutionCreationService {
   private final PipelineExecutionRepository pipelineExecutionRepository;
   private final StageExecutionRepository stageExecutionRepository;
-  private final JobExecutionRepository jobExecutionRepository;
-  private final PipelineRepository pipelineRepository;
   private final StageRepository stageRepository;
   private final JobRepository jobRepository;
 
+  /** Pipeline-level YAML key that selects how jobs are released. */
+  public static final String SCHEDULING_KEY = "scheduling";
+
+  /** Scheduling mode that lets jobs start across stage boundaries once their dependencies succeed. */
+  public static final String DAG_SCHEDULING = "dag";
+
   /**
    * Creates a new pipeline execution entity.
    *
@@ -58,7 +67,8 @@ public class PipelineExecutionCreationService {
   }
 
   /**
-   * Saves a pipeline execution to the database.
+   * Saves a pipeline execution. The row is written together with its stage and job executions
+   * when the transaction flushes; its ID is assigned right away.
    *
    * @param pipelineExecution the pipeline execution entity to save
    * @return the saved pipeline execution entity
@@ -66,219 +76,208 @@ public class PipelineExecutionCreationService {
   @Transactional
   public PipelineExecutionEntity savePipelineExecution(PipelineExecutionEntity pipelineExecution) {
     try {
-      pipelineExecution = pipelineExecutionRepository.saveAndFlush(pipelineExecution); // Save and flush in one operation
-      PipelineLogger.info("Successfully saved pipeline execution: " + pipelineExecution.getId());
-
-      // Verify the save was successful
-      PipelineExecutionEntity savedEntity = pipelineExecutionRepository.findById(pipelineExecution.getId())
-              .orElseThrow(() -> new RuntimeException("Failed to verify pipeline execution was saved"));
-      PipelineLogger.info("Verified pipeline execution exists in database: " + savedEntity.getId());
-
+      pipelineExecution = pipelineExecutionRepository.save(pipelineExecution);
+      PipelineLogger.atInfo()
+          .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecution.getId())
+          .log("Saved pipeline execution: {}", pipelineExecution.getId());
       return pipelineExecution;
     } catch (Exception e) {
-      PipelineLogger.error("Error saving pipeline execution: " + e.getMessage());
+      PipelineLogger.error("Error saving pipeline execution: {}", e.getMessage());
       throw new RuntimeException("Failed to save pipeline execution: " + e.getMessage(), e);
     }
   }
 
+  /**
+   * Binds an accepted pipeline execution to its pipeline once the definitions have been read.
+   * The commit is taken from the request, which may be newer than the one it was accepted with.
+   *
+   * @param pipelineExecutionId the ID of the accepted pipeline execution
+   * @param request             the pipeline execution request
+   * @param pipelineId          the ID of the pipeline entity
+   * @return the updated pipeline execution entity
+   * @throws IllegalArgumentException if the pipeline execution is not found
+   */
+  @Transactional
+  public PipelineExecutionEntity attachPipelineExecution(UUID pipelineExecutionId, PipelineExecutionRequest request,
+      UUID pipelineId) {
+    PipelineExecutionEntity pipelineExecution = pipelineExecutionRepository.findById(pipelineExecutionId)
+        .orElseThrow(() -> new IllegalArgumentException("PipelineExecution not found: " + pipelineExecutionId));
+    pipelineExecution.setPipelineId(pipelineId);
+    pipelineExecution.setCommitHash(request.getCommitHash());
+    pipelineExecution.setLocal(request.isLocal());
+    PipelineLogger.atInfo()
+        .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecutionId)
+        .log("Attached pipeline execution {} to pipeline: {}", pipelineExecutionId, pipelineId);
+    return pipelineExecution;
+  }
+
+  /**
+   * Marks a pipeline execution as failed.
+   *
+   * @param pipelineExecutionId the ID of the pipeline execution
+   */
+  @Transactional
+  public void failPipelineExecution(UUID pipelineExecutionId) {
+    pipelineExecutionRepository.updateRolledUpStatus(pipelineExecutionId, ExecutionStatus.FAILED, Instant.now());
+  }
+
   /**
    * Creates and saves stage execution entities based on the pipeline YAML configuration.
+   * Each stage becomes one job group in the stage queue. When the pipeline opts into
+   * {@code scheduling: dag}, all jobs are placed in a single group so that a job is only
+   * gated by its declared dependencies instead of the stage barrier.
+   * <p>
+   * The stage and job definitions are read with one query each, and the whole execution
+   * tree is built in memory and persisted in a single flush, so its rows are inserted in
+   * JDBC batches (see {@code hibernate.jdbc.batch_size}) instead of one round trip each.
    *
-   * @param pipelineExecutionId ID of the pipeline execution
-   * @param pipelineConfig      Parsed pipeline configuration
-   * @param stageQueue          Queue to store job UUIDs for each stage execution
+   * @param pipelineExecution the saved pipeline execution
+   * @param pipelineConfig    Parsed pipeline configuration
+   * @param stageQueue        Queue to store job UUIDs for each stage execution
+   * @param jobDependencies   Map filled with the dependency job execution IDs of every job execution
    */
   @Transactional
   public void createAndSaveStageExecutions(
-      UUID pipelineExecutionId,
+      PipelineExecutionEntity pipelineExecution,
       Map<String, Object> pipelineConfig,
-      Queue<Queue<UUID>> stageQueue) {
-//    // Determine if we're using top-level jobs or nested stages format
-//    boolean usingTopLevelJobs = pipelineConfig.containsKey("jobs");
-    
-    // Get pipeline execution to retrieve pipelineId
-    PipelineExecutionEntity pipelineExecution = pipelineExecutionRepository.findById(pipelineExecutionId)
-            .orElseThrow(() -> new RuntimeException("Pipeline execution not found: " + pipelineExecutionId));
-    
+      Queue<Queue<UUID>> stageQueue,
+      Map<UUID, Set<UUID>> jobDependencies) {
+    UUID pipelineExecutionId = pipelineExecution.getId();
+
     // Get all stages for this pipeline
-    List<StageEntity> pipelineStages = stageRepository.findByPipelineId(pipelineExecution.getPipelineId());
+    List<StageEntity> pipelineStages = new ArrayList<>(stageRepository.findByPipelineId(pipelineExecution.getPipelineId()));
     if (pipelineStages.isEmpty()) {
-      PipelineLogger.error("No stage definitions found for pipeline: " + pipelineExecution.getPipelineId());
+      PipelineLogger.error("No stage definitions found for pipeline: {}", pipelineExecution.getPipelineId());
       throw new RuntimeException("Pipeline stage definitions not found");
     }
-    
-    // Ensure all stage entities are flushed to the database
-    stageRepository.flush();
-    
-    int stagesCount = pipelineStages.size();
-    PipelineLogger.info("Creating " + stagesCount + " stage executions for pipeline: " + pipelineExecutionId);
-    
+    pipelineStages.sort(Comparator.comparingInt(StageEntity::getExecutionOrder));
+
+    // Get the jobs of all stages at once
+    Map<UUID, List<JobEntity>> jobsByStageId = jobRepository
+        .findByStageIdIn(pipelineStages.stream().map(StageEntity::getId).toList()).stream()
+        .collect(Collectors.groupingBy(JobEntity::getStageId, LinkedHashMap::new, Collectors.toList()));
+
+    PipelineLogger.info("Creating {} stage executions for pipeline: {}", pipelineStages.size(), pipelineExecutionId);
     String commitHash = pipelineExecution.getCommitHash();
     boolean isLocal = pipelineExecution.isLocal();
-    PipelineLogger.info("Using commit hash: " + commitHash + " and isLocal: " + isLocal);
+    PipelineLogger.info("Using commit hash: {} and isLocal: {}", commitHash, isLocal);
 
-    // Create stage executions for all stages
-//    for (int order = 0; order < stagesCount; order++) {
-//      createStageExecution(pipelineExecutionId, pipelineStages, order, commitHash, isLocal);
-//    }
-    for (int order = 0; order < stagesCount; order++) {
-      Queue<UUID> jobQueue = createStageExecution(pipelineExecutionId, pipelineStages, order, commitHash, isLocal);
-      stageQueue.add(jobQueue);
+    // Build the execution tree; job executions are persisted through their stage execution
+    List<StageExecutionEntity> stageExecutions = new ArrayList<>();
+    Map<UUID, List<UUID>> dependenciesByJobId = new HashMap<>();
+    for (StageEntity stage : pipelineStages) {
+      stageExecutions.add(buildStageExecution(pipelineExecutionId, stage, commitHash, isLocal,
+          jobsByStageId.getOrDefault(stage.getId(), List.of()), dependenciesByJobId));
     }
-  }
-  
-  /**
-   * Create a stage execution entity.
-   *
-   * @param pipelineExecutionId the pipeline execution ID
-   * @param pipelineStages the list of stage entities
-   * @param order the execution order
-   * @param commitHash the commit hash
-   * @param isLocal whether the execution is local
-   * 
-   * @return a queue of job UUIDs associated with the created stage execution
-   */
-  @Transactional
-  private Queue<UUID> createStageExecution(UUID pipelineExecutionId, List<StageEntity> pipelineStages, int order,
-      String commitHash, boolean isLocal) {
 
-    Queue<UUID> jobQueue = new LinkedList<>();
-
-    // Find the matching stage entity for this order
-    int finalOrder = order;
-    StageEntity matchingStage = pipelineStages.stream()
-            .filter(stage -> stage.getExecutionOrder() == finalOrder)
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("Stage definition not found for order: " + finalOrder));
-    
-    // Create the stage execution entity
-    StageExecutionEntity stageExecution = StageExecutionEntity.builder()
-            .pipelineExecutionId(pipelineExecutionId)
-            .stageId(matchingStage.getId())  // Use actual stage ID 
-            .executionOrder(order)
-            .commitHash(commitHash)  // Use commit hash from pipeline execution
-            .isLocal(isLocal)        // Use isLocal from pipeline execution
-            .status(ExecutionStatus.PENDING)
-            .startTime(Instant.now())
-            .build();
+    // Every job starts out pending; the counts are rolled up as jobs report their status.
+    // Set before the flush, so they are written together with the tree.
+    pipelineExecution.getJobCounts().addPending(stageExecutions.stream().mapToInt(stage -> stage.getJobs().size()).sum());
+    boolean dagScheduling = isDagScheduling(pipelineConfig);
+    pipelineExecution.setDagScheduling(dagScheduling);
 
     try {
-      // Save the stage execution
-      stageExecution = stageExecutionRepository.saveAndFlush(stageExecution);
-      PipelineLogger.info("Saved stage execution with ID: " + stageExecution.getId() + " for stage: " + matchingStage.getId());
-
-      // Make sure all jobs for this stage are already created
-      jobRepository.flush();
-      
-      // Extract and create job executions
-      List<JobExecutionEntity> jobs = createJobExecutions(matchingStage.getId(), stageExecution);
-
-      // Save job executions
-      if (!jobs.isEmpty()) {
-        PipelineLogger.info("Saving " + jobs.size() + " jobs for stage: " + stageExecution.getId());
-        jobs = jobExecutionRepository.saveAll(jobs).stream().toList();
-        jobExecutionRepository.flush();
-
-        PipelineLogger.info("Saved stage execution: " + stageExecution.getId() + " with " + jobs.size() + " jobs.");
-
-        // add to queue
-        jobs.forEach(jobExecution -> jobQueue.add(jobExecution.getId()));
-        PipelineLogger.info("Collected job UUIDs for stage execution " + stageExecution.getId() + ": " + jobQueue);
-      } else {
-        PipelineLogger.warn("No jobs defined for stage: " + stageExecution.getId());
-      }
+      stageExecutions = stageExecutionRepository.saveAll(stageExecutions);
+      stageExecutionRepository.flush();
     } catch (Exception e) {
-      PipelineLogger.error("Error saving stage execution: " + e.getMessage() + " | " + e);
+      PipelineLogger.error("Error saving stage executions: {}", e.getMessage(), e);
       throw e;
     }
 
-    return jobQueue;
+    Map<UUID, JobExecutionEntity> executionsByJobId = new HashMap<>();
+    Queue<UUID> dagQueue = new LinkedList<>();
+    for (StageExecutionEntity stageExecution : stageExecutions) {
+      Queue<UUID> jobQueue = new LinkedList<>();
+      for (JobExecutionEntity jobExecution : stageExecution.getJobs()) {
+        jobQueue.add(jobExecution.getId());
+        executionsByJobId.put(jobExecution.getJobId(), jobExecution);
+      }
+      if (jobQueue.isEmpty()) {
+        PipelineLogger.atWarn()
+            .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecutionId)
+            .addKeyValue(PipelineLogger.STAGE_EXECUTION_ID, stageExecution.getId())
+            .log("No jobs defined for stage: {}", stageExecution.getId());
+      }
+      if (dagScheduling) {
+        dagQueue.addAll(jobQueue);
+      } else {
+        stageQueue.add(jobQueue);
+      }
+    }
+    PipelineLogger.atInfo()
+        .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, pipelineExecutionId)
+        .log("Saved {} stage executions with {} jobs for pipeline execution: {}",
+            stageExecutions.size(), executionsByJobId.size(), pipelineExecutionId);
+    if (dagScheduling) {
+      PipelineLogger.info("DAG scheduling enabled, releasing {} jobs by dependency only", dagQueue.size());
+      stageQueue.add(dagQueue);
+    }
+    // Translate job definition dependencies into job execution dependencies
+    dependenciesByJobId.forEach((jobId, dependencyJobIds) -> {
+      Set<UUID> dependencyExecutionIds = new LinkedHashSet<>();
+      for (UUID dependencyJobId : dependencyJobIds) {
+        JobExecutionEntity dependency = executionsByJobId.get(dependencyJobId);
+        if (dependency != null) {
+          dependencyExecutionIds.add(dependency.getId());
+        }
+      }
+      if (!dependencyExecutionIds.isEmpty()) {
+        jobDependencies.put(executionsByJobId.get(jobId).getId(), dependencyExecutionIds);
+      }
+    });
   }
 
   /**
-   * Creates job execution entities for a stage.
+   * Checks whether the pipeline opted into dependency-only scheduling.
    *
-   * @param stageId       ID of the stage entity
-   * @param stageExecution stage execution entity
-   * @return list of job execution entities
+   * @param pipelineConfig the parsed pipeline configuration
+   * @return true if jobs may be released across stage boundaries
    */
-  @Transactional
-  private List<JobExecutionEntity> createJobExecutions(UUID stageId, StageExecutionEntity stageExecution) {
-    // Get all jobs for this stage
-    List<JobEntity> stageJobs = jobRepository.findByStageId(stageId);
-    
-    if (stageJobs.isEmpty()) {
-      PipelineLogger.warn("No job definitions found for stage: " + stageId);
-      return List.of();
-    }
-
-    // Create job executions by ensuring job entities are saved first
-    return stageJobs.stream().map(job -> {
-      if (job.getId() == null) {
-        PipelineLogger.info("Saving job entity before creating execution for job: " + job.getName());
-        job = jobRepository.saveAndFlush(job);
-      } else {
-        if (!jobRepository.existsById(job.getId())) {
-          PipelineLogger.warn("Job entity does not exist in database, saving it now: " + job.getId());
-          job = jobRepository.saveAndFlush(job);
-        }
-      }
-
-      return JobExecutionEntity.builder()
-              .stageExecution(stageExecution)
-              .jobId(job.getId())  // Use actual job ID
-              .commitHash(stageExecution.getCommitHash())
-              .isLocal(stageExecution.isLocal())
-              .allowFailure(job.isAllowFailure())
-              .status(ExecutionStatus.PENDING)
-              .startTime(Instant.now())
-              .build();
-    }).collect(java.util.stream.Collectors.toList());
+  private boolean isDagScheduling(Map<String, Object> pipelineConfig) {
+    return pipelineConfig != null
+        && DAG_SCHEDULING.equalsIgnoreCase(String.valueOf(pipelineConfig.get(SCHEDULING_KEY)));
   }
 
   /**
-   * Verify all entities were saved correctly.
+   * Builds a stage execution entity together with the job executions of its jobs.
    *
-   * @param pipelineId the pipeline ID
    * @param pipelineExecutionId the pipeline execution ID
+   * @param stage the stage definition
+   * @param commitHash the commit hash
+   * @param isLocal whether the execution is local
+   * @param stageJobs the job definitions of the stage
+   * @param dependenciesByJobId map filled with the declared dependency job IDs keyed by job ID
+   * @return the unsaved stage execution holding its job executions
    */
-  public void verifyEntitiesSaved(UUID pipelineId, UUID pipelineExecutionId) {
-    try {
-      // Check pipeline exists
-      if (!pipelineRepository.existsById(pipelineId)) {
-        PipelineLogger.error("Pipeline entity was not saved correctly: " + pipelineId);
-      } else {
-        PipelineLogger.info("Successfully verified pipeline entity: " + pipelineId);
-      }
-
-      // Check pipeline execution exists
-      if (!pipelineExecutionRepository.existsById(pipelineExecutionId)) {
-        PipelineLogger.error("Pipeline execution entity was not saved correctly: " + pipelineExecutionId);
-      } else {
-        PipelineLogger.info("Successfully verified pipeline execution entity: " + pipelineExecutionId);
-      }
-
-      // Check stages exist
-      List<StageEntity> stages = stageRepository.findByPipelineId(pipelineId);
-      PipelineLogger.info("Found " + stages.size() + " stages for pipeline: " + pipelineId);
+  private StageExecutionEntity buildStageExecution(UUID pipelineExecutionId, StageEntity stage, String commitHash,
+      boolean isLocal, List<JobEntity> stageJobs, Map<UUID, List<UUID>> dependenciesByJobId) {
+    StageExecutionEntity stageExecution = StageExecutionEntity.builder()
+            .pipelineExecutionId(pipelineExecutionId)
+            .stageId(stage.getId())
+            .executionOrder(stage.getExecutionOrder())
+            .commitHash(commitHash)  // Use commit hash from pipeline execution
+            .isLocal(isLocal)        // Use isLocal from pipeline execution
+            .status(ExecutionStatus.PENDING)
+            .startTime(Instant.now())
+            .build();
 
-      // Check jobs exist for each stage
-      for (StageEntity stage : stages) {
-        List<JobEntity> jobs = jobRepository.findByStageId(stage.getId());
-        PipelineLogger.info("Found " + jobs.size() + " jobs for stage: " + stage.getId());
-      }
-      
-      // Check stage executions exist
-      List<StageExecutionEntity> stageExecutions = stageExecutionRepository.findByPipelineExecutionId(pipelineExecutionId);
-      PipelineLogger.info("Found " + stageExecutions.size() + " stage executions for pipeline execution: " + pipelineExecutionId);
-      
-      // Check job executions exist for each stage execution
-      for (StageExecutionEntity stageExecution : stageExecutions) {
-        List<JobExecutionEntity> jobExecutions = jobExecutionRepository.findByStageExecution(stageExecution);
-        PipelineLogger.info("Found " + jobExecutions.size() + " job executions for stage execution: " + stageExecution.getId());
+    List<JobExecutionEntity> jobs = new ArrayList<>();
+    for (JobEntity job : stageJobs) {
+      if (job.getDependencies() != null && !job.getDependencies().isEmpty()) {
+        dependenciesByJobId.put(job.getId(), job.getDependencies());
       }
-    } catch (Exception e) {
-      PipelineLogger.error("Error verifying saved entities: " + e.getMessage());
+      jobs.add(JobExecutionEntity.builder()
+              .stageExecution(stageExecution)
+              .jobId(job.getId())
+              .commitHash(commitHash)
+              .isLocal(isLocal)
+              .allowFailure(job.isAllowFailure())
+              .status(ExecutionStatus.PENDING)
+              .startTime(Instant.now())
+              .build());
     }
+    stageExecution.setJobs(jobs);
+    stageExecution.getJobCounts().addPending(jobs.size());
+    return stageExecution;
   }
-}
\ No newline at end of file
+}
@@ -3,21 +3,59 @@ package edu.neu.cs6510.sp25.t1.backend.service.pipeline;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import edu.neu.cs6510.sp25.t1.backend.utils.YamlPipelineUtils;
+import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
 import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Service responsible for handling YAML configuration files for pipelines.
  * This includes resolving file paths, reading YAML files, and validating their contents.
+ * <p>
+ * Validated configurations are kept in a bounded LRU cache keyed by repository URL, commit
+ * hash and pipeline file path, so retries and re-runs of the same commit skip parsing and
+ * validation. Runs without a commit hash read a moving branch and are never cached. The
+ * cache reports its hits, misses, evictions and size as {@code pipeline.yaml.cache.*} metrics.
  */
 @Service
-@RequiredArgsConstructor
-public class YamlConfigurationService {
+public class YamlConfigurationService implements MeterBinder {
+  private static final String METRIC_PREFIX = "pipeline.yaml.cache";
+
+  private final int maxEntries;
+  private final Map<CacheKey, Map<String, Object>> cache;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates the service.
+   *
+   * @param maxEntries the maximum number of cached configurations, 0 disables the cache
+   */
+  public YamlConfigurationService(@Value("${pipeline.yaml-cache.max-entries:256}") int maxEntries) {
+    this.maxEntries = maxEntries;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<CacheKey, Map<String, Object>> eldest) {
+        if (size() > YamlConfigurationService.this.maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
 
   /**
    * Resolves and validates the pipeline file path.
@@ -35,16 +73,16 @@ public class YamlConfigurationService {
       resolvedPath = Paths.get(System.getProperty("user.dir")).resolve(filePath).normalize();
     }
     
-    PipelineLogger.info("Corrected pipeline file path: " + resolvedPath.toAbsolutePath());
+    PipelineLogger.info("Corrected pipeline file path: {}", resolvedPath.toAbsolutePath());
     
     // Validate file exists and is readable
     if (!Files.exists(resolvedPath)) {
-      PipelineLogger.error("Pipeline configuration file not found: " + resolvedPath.toAbsolutePath());
+      PipelineLogger.error("Pipeline configuration file not found: {}", resolvedPath.toAbsolutePath());
       throw new IllegalArgumentException("Pipeline configuration file not found: " + resolvedPath.toAbsolutePath());
     }
     
     if (!Files.isReadable(resolvedPath)) {
-      PipelineLogger.error("Pipeline configuration file is not readable: " + resolvedPath.toAbsolutePath());
+      PipelineLogger.error("Pipeline configuration file is not readable: {}", resolvedPath.toAbsolutePath());
       throw new IllegalArgumentException("Pipeline configuration file is not readable: " + resolvedPath.toAbsolutePath());
     }
     
@@ -65,11 +103,111 @@ public class YamlConfigurationService {
       PipelineLogger.info("Successfully read pipeline YAML. Now validating...");
       YamlPipelineUtils.validatePipelineConfig(pipelineConfig);
 
-      PipelineLogger.info("YAML validation completed for: " + pipelinePath);
+      PipelineLogger.info("YAML validation completed for: {}", pipelinePath);
       return pipelineConfig;
     } catch (Exception e) {
-      PipelineLogger.error("ERROR reading pipeline YAML: " + e.getMessage());
+      PipelineLogger.error("ERROR reading pipeline YAML: {}", e.getMessage());
       throw new RuntimeException("YAML parsing failed: " + e.getMessage(), e);
     }
   }
+
+  /**
+   * Returns the validated pipeline configuration of a run, parsing and validating the YAML
+   * only if the configuration of the same repository, commit and file is not cached.
+   * The returned configuration is shared between runs and must not be modified.
+   *
+   * @param request      the pipeline execution request
+   * @param pipelinePath the path to the pipeline YAML file
+   * @return the parsed pipeline configuration
+   */
+  public Map<String, Object> parseAndValidatePipelineYaml(PipelineExecutionRequest request, String pipelinePath) {
+    CacheKey key = cacheKey(request);
+    if (key == null) {
+      return parseAndValidatePipelineYaml(pipelinePath);
+    }
+
+    Map<String, Object> cached;
+    synchronized (cache) {
+      cached = cache.get(key);
+    }
+    if (cached != null) {
+      hits.incrementAndGet();
+      PipelineLogger.info("Using cached pipeline configuration for {} at {}", key.filePath(), key.commitHash());
+      return cached;
+    }
+    misses.incrementAndGet();
+
+    // Invalid configurations throw and are not cached
+    Map<String, Object> pipelineConfig = Collections.unmodifiableMap(parseAndValidatePipelineYaml(pipelinePath));
+    synchronized (cache) {
+      cache.put(key, pipelineConfig);
+    }
+    return pipelineConfig;
+  }
+
+  /**
+   * Returns the number of cache lookups answered from the cache.
+   *
+   * @return the hit count
+   */
+  public long getCacheHits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of cache lookups that had to parse the YAML.
+   *
+   * @return the miss count
+   */
+  public long getCacheMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of cached configurations.
+   *
+   * @return the cache size
+   */
+  public int getCacheSize() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder(METRIC_PREFIX + ".gets", hits, AtomicLong::get)
+        .tag("result", "hit")
+        .description("Pipeline configuration lookups answered from the cache")
+        .register(registry);
+    FunctionCounter.builder(METRIC_PREFIX + ".gets", misses, AtomicLong::get)
+        .tag("result", "miss")
+        .description("Pipeline configuration lookups that parsed the YAML")
+        .register(registry);
+    FunctionCounter.builder(METRIC_PREFIX + ".evictions", evictions, AtomicLong::get)
+        .description("Pipeline configurations evicted from the cache")
+        .register(registry);
+    Gauge.builder(METRIC_PREFIX + ".size", this, YamlConfigurationService::getCacheSize)
+        .description("Number of cached pipeline configurations")
+        .register(registry);
+  }
+
+  /**
+   * Builds the cache key of a run.
+   *
+   * @param request the pipeline execution request
+   * @return the key, or null if the run does not pin a commit or the cache is disabled
+   */
+  private CacheKey cacheKey(PipelineExecutionRequest request) {
+    if (maxEntries <= 0 || request == null || request.getCommitHash() == null || request.getCommitHash().isBlank()) {
+      return null;
+    }
+    return new CacheKey(request.getRepo(), request.getCommitHash(), request.getFilePath());
+  }
+
+  /**
+   * Identifies the pipeline file of a repository at one commit.
+   */
+  private record CacheKey(String repo, String commitHash, String filePath) {
+  }
 }
\ No newline at end of file
@@ -3,14 +3,24 @@ package edu.neu.cs6510.sp25.t1.backend.service.report;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
 import edu.neu.cs6510.sp25.t1.common.dto.JobReportDTO;
@@ -28,6 +38,7 @@ public class ReportService {
   private final PipelineExecutionRepository pipelineExecutionRepository;
   private final StageExecutionRepository stageExecutionRepository;
   private final JobExecutionRepository jobExecutionRepository;
+  private final JobRepository jobRepository;
 
   /**
    * Constructor for **ReportService**.
@@ -35,13 +46,16 @@ public class ReportService {
    * @param pipelineExecutionRepository pipeline execution repository
    * @param stageExecutionRepository    stage execution repository
    * @param jobExecutionRepository      job execution repository
+   * @param jobRepository               job repository, used to look up job names and dependencies
    */
   public ReportService(PipelineExecutionRepository pipelineExecutionRepository,
       StageExecutionRepository stageExecutionRepository,
-      JobExecutionRepository jobExecutionRepository) {
+      JobExecutionRepository jobExecutionRepository,
+      JobRepository jobRepository) {
     this.pipelineExecutionRepository = pipelineExecutionRepository;
     this.stageExecutionRepository = stageExecutionRepository;
     this.jobExecutionRepository = jobExecutionRepository;
+    this.jobRepository = jobRepository;
   }
 
   /**
@@ -78,9 +92,9 @@ public class ReportService {
           .map(this::createStageReport)
           .collect(Collectors.toList());
 
-      ExecutionStatus pipelineStatus = calculatePipelineStatus(stages);
+      ExecutionStatus pipelineStatus = resolvePipelineStatus(exec, stages);
 
-      return new PipelineReportDTO(
+      PipelineReportDTO report = new PipelineReportDTO(
           exec.getId(),
           fetchedPipelineName,
           exec.getRunNumber(),
@@ -89,6 +103,8 @@ public class ReportService {
           exec.getStartTime(),
           exec.getCompletionTime(),
           stageReports);
+      report.setCriticalPath(calculateCriticalPath(exec, stages));
+      return report;
     }).collect(Collectors.toList());
   }
 
@@ -113,9 +129,9 @@ public class ReportService {
         .map(this::createStageReport)
         .collect(Collectors.toList());
 
-    ExecutionStatus pipelineStatus = calculatePipelineStatus(stages);
+    ExecutionStatus pipelineStatus = resolvePipelineStatus(pipelineExecution, stages);
 
-    return new PipelineReportDTO(
+    PipelineReportDTO report = new PipelineReportDTO(
         pipelineExecution.getId(),
         pipelineName,
         pipelineExecution.getRunNumber(),
@@ -124,6 +140,8 @@ public class ReportService {
         pipelineExecution.getStartTime(),
         pipelineExecution.getCompletionTime(),
         stageReports);
+    report.setCriticalPath(calculateCriticalPath(pipelineExecution, stages));
+    return report;
   }
 
   /**
@@ -352,6 +370,90 @@ public class ReportService {
         jobReports);
   }
 
+  /**
+   * Calculate the critical path of a pipeline run, i.e. the chain of jobs that determined
+   * when the run finished. Starting from the job that completed last, each step goes back
+   * to the job that finished most recently before the current job started, chosen among
+   * its declared dependencies and, unless the run used DAG scheduling, the jobs of earlier
+   * stages. Jobs without both a start and a completion time are ignored. The job executions
+   * and job definitions are read with one query each.
+   *
+   * @param pipelineExecution the pipeline run
+   * @param stages            stage executions of the pipeline run
+   * @return job names on the critical path in execution order, empty if nothing has finished
+   */
+  private List<String> calculateCriticalPath(PipelineExecutionEntity pipelineExecution,
+      List<StageExecutionEntity> stages) {
+    if (stages.isEmpty()) {
+      return List.of();
+    }
+    Map<UUID, Integer> stageOrderByStageExecutionId = new HashMap<>();
+    for (StageExecutionEntity stage : stages) {
+      stageOrderByStageExecutionId.put(stage.getId(), stage.getExecutionOrder());
+    }
+
+    Map<UUID, JobExecutionEntity> executionsByJobId = new HashMap<>();
+    Map<UUID, Integer> stageOrderByJobId = new HashMap<>();
+    for (JobExecutionEntity job : jobExecutionRepository.findByStageExecutionIn(stages)) {
+      if (job.getStartTime() != null && job.getCompletionTime() != null) {
+        executionsByJobId.put(job.getJobId(), job);
+        stageOrderByJobId.put(job.getJobId(),
+            stageOrderByStageExecutionId.getOrDefault(job.getStageExecution().getId(), 0));
+      }
+    }
+    if (executionsByJobId.isEmpty()) {
+      return List.of();
+    }
+
+    Map<UUID, JobEntity> jobsById = jobRepository.findByIdIn(executionsByJobId.keySet()).stream()
+        .collect(Collectors.toMap(JobEntity::getId, job -> job));
+    boolean dagScheduling = pipelineExecution.isDagScheduling();
+
+    JobExecutionEntity current = executionsByJobId.values().stream()
+        .max(Comparator.comparing(JobExecutionEntity::getCompletionTime))
+        .orElse(null);
+
+    List<String> criticalPath = new ArrayList<>();
+    Set<UUID> visited = new HashSet<>();
+    while (current != null && visited.add(current.getJobId())) {
+      UUID currentJobId = current.getJobId();
+      JobEntity job = jobsById.get(currentJobId);
+      criticalPath.add(job != null && job.getName() != null ? job.getName() : "Unknown Job");
+
+      Instant startedAt = current.getStartTime();
+      int stageOrder = stageOrderByJobId.get(currentJobId);
+      List<UUID> dependencies = job != null && job.getDependencies() != null ? job.getDependencies() : List.of();
+
+      current = executionsByJobId.entrySet().stream()
+          .filter(entry -> dependencies.contains(entry.getKey())
+              || (!dagScheduling && stageOrderByJobId.get(entry.getKey()) < stageOrder))
+          .map(Map.Entry::getValue)
+          .filter(candidate -> !candidate.getCompletionTime().isAfter(startedAt))
+          .max(Comparator.comparing(JobExecutionEntity::getCompletionTime))
+          .orElse(null);
+    }
+
+    Collections.reverse(criticalPath);
+    return criticalPath;
+  }
+
+  /**
+   * Returns the status of a pipeline execution. The status is rolled up incrementally as its
+   * jobs change status, so it is read as persisted; only executions without a status are
+   * calculated from their stages.
+   *
+   * @param pipelineExecution the pipeline execution
+   * @param stages            stage execution entities of the pipeline execution
+   * @return pipeline status
+   */
+  private ExecutionStatus resolvePipelineStatus(PipelineExecutionEntity pipelineExecution,
+      List<StageExecutionEntity> stages) {
+    if (pipelineExecution.getStatus() != null) {
+      return pipelineExecution.getStatus();
+    }
+    return calculatePipelineStatus(stages);
+  }
+
   /**
    * Calculate the pipeline status based on the statuses of its stages.
    *
@@ -0,0 +1,348 @@
+package edu.neu.cs6510.sp25.t1.backend.service.status;
+
+import edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the status tree of recent pipeline runs in memory, so status queries for active
+ * runs are answered without touching the database.
+ *
+ * <p>A run is registered with its rows as soon as its executions are created, before any
+ * job is dispatched, so no job status event can be missed. Job status events then update
+ * the job rows, and stage and pipeline statuses are rolled up in memory with
+ * {@link ExecutionStatus#rollUp(Iterable)}, matching what {@link StatusRollupService}
+ * persists. Once every job of a run is finished the run is kept for the configured
+ * retention and then evicted; later queries fall back to the database. A run that is not
+ * finished is evicted once it has not changed for the idle timeout, so runs whose last
+ * events were lost, e.g. across a backend restart, do not stay cached forever.
+ *
+ * <p>Runs are looked up by pipeline execution ID, and the latest run of each pipeline by
+ * pipeline name. Every applied job status change is passed to the registered
+ * {@link Listener}s as the updated row of the job, which carries the new stage and
+ * pipeline statuses as well.
+ */
+@Component
+public class RunStateCache {
+
+  /** Cached runs keyed by pipeline execution ID. */
+  private final Map<UUID, RunState> runs = new ConcurrentHashMap<>();
+
+  /** Latest registered run keyed by pipeline name. */
+  private final Map<String, UUID> latestRunByPipeline = new ConcurrentHashMap<>();
+
+  /** Job execution IDs mapped to the pipeline execution that owns them. */
+  private final Map<UUID, UUID> runByJobExecution = new ConcurrentHashMap<>();
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  private final Duration retention;
+  private final Duration idleTimeout;
+  private final Clock clock;
+
+  /**
+   * Creates the cache.
+   *
+   * @param retention   how long a finished run stays cached
+   * @param idleTimeout how long an unfinished run stays cached without any change
+   */
+  @Autowired
+  public RunStateCache(@Value("${status.run-cache.retention:PT5M}") Duration retention,
+      @Value("${status.run-cache.idle-timeout:PT1H}") Duration idleTimeout) {
+    this(retention, idleTimeout, Clock.systemUTC());
+  }
+
+  /**
+   * Creates the cache with the given clock.
+   *
+   * @param retention   how long a finished run stays cached
+   * @param idleTimeout how long an unfinished run stays cached without any change
+   * @param clock       clock used to time the retention and the idle timeout
+   */
+  RunStateCache(Duration retention, Duration idleTimeout, Clock clock) {
+    this.retention = retention;
+    this.idleTimeout = idleTimeout;
+    this.clock = clock;
+  }
+
+  /**
+   * Caches the status tree of a run and makes it the latest run of its pipeline.
+   *
+   * @param rows the rows of the run, as returned by the run status queries
+   */
+  public void register(List<JobStatusRow> rows) {
+    put(rows, true);
+  }
+
+  /**
+   * Caches the status tree of an existing run, e.g. one that is watched after a restart,
+   * without making it the latest run of its pipeline. A run that is already cached is kept.
+   *
+   * @param rows the rows of the run, as returned by the run status queries
+   */
+  public void load(List<JobStatusRow> rows) {
+    if (!rows.isEmpty() && !runs.containsKey(rows.get(0).pipelineExecutionId())) {
+      put(rows, false);
+    }
+  }
+
+  /**
+   * Registers a listener for job status changes applied to cached runs.
+   *
+   * @param listener the listener
+   */
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Tells whether every job of a cached run has finished.
+   *
+   * @param pipelineExecutionId the pipeline execution ID
+   * @return true if the run is cached and finished
+   */
+  public boolean isFinished(UUID pipelineExecutionId) {
+    RunState run = runs.get(pipelineExecutionId);
+    return run != null && run.completedAt != null;
+  }
+
+  private void put(List<JobStatusRow> rows, boolean latest) {
+    evictExpired();
+    if (rows.isEmpty()) {
+      return;
+    }
+    JobStatusRow first = rows.get(0);
+    UUID pipelineExecutionId = first.pipelineExecutionId();
+    RunState run = new RunState(first.pipelineName(), List.copyOf(rows));
+    run.updatedAt = clock.instant();
+    run.completedAt = run.isFinished() ? run.updatedAt : null;
+
+    runs.put(pipelineExecutionId, run);
+    // an earlier run of the pipeline stays cached until it is finished and expired
+    if (latest) {
+      latestRunByPipeline.put(first.pipelineName(), pipelineExecutionId);
+    }
+    for (JobStatusRow row : rows) {
+      if (row.jobExecutionId() != null) {
+        runByJobExecution.put(row.jobExecutionId(), pipelineExecutionId);
+      }
+    }
+    PipelineLogger.debug("Cached status of pipeline execution {} with {} rows", pipelineExecutionId, rows.size());
+  }
+
+  /**
+   * Returns the cached rows of the latest run of a pipeline.
+   *
+   * @param pipelineName the name of the pipeline
+   * @return the rows, or an empty optional if the run is not cached
+   */
+  public Optional<List<JobStatusRow>> getLatestRun(String pipelineName) {
+    UUID pipelineExecutionId = latestRunByPipeline.get(pipelineName);
+    return pipelineExecutionId == null ? Optional.empty() : getRun(pipelineExecutionId);
+  }
+
+  /**
+   * Returns the cached rows of a run.
+   *
+   * @param pipelineExecutionId the pipeline execution ID
+   * @return the rows, or an empty optional if the run is not cached
+   */
+  public Optional<List<JobStatusRow>> getRun(UUID pipelineExecutionId) {
+    RunState run = runs.get(pipelineExecutionId);
+    if (run == null) {
+      return Optional.empty();
+    }
+    if (isExpired(run, clock.instant())) {
+      remove(pipelineExecutionId);
+      return Optional.empty();
+    }
+    return Optional.of(run.rows);
+  }
+
+  /**
+   * Applies a job status change to the cached run owning the job and notifies the listeners.
+   * A job that already finished is never moved back to an unfinished status,
+   * so a late RUNNING event cannot undo its result.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param status         the new status of the job
+   * @return the ID of the updated pipeline execution, or an empty optional if the job is not cached
+   */
+  public Optional<UUID> onJobStatus(UUID jobExecutionId, ExecutionStatus status) {
+    evictExpired();
+    if (jobExecutionId == null || status == null) {
+      return Optional.empty();
+    }
+    UUID pipelineExecutionId = runByJobExecution.get(jobExecutionId);
+    RunState run = pipelineExecutionId == null ? null : runs.get(pipelineExecutionId);
+    if (run == null) {
+      return Optional.empty();
+    }
+    // listeners are notified under the lock, so they see the changes of a run in order
+    synchronized (run) {
+      JobStatusRow changed = run.apply(jobExecutionId, status);
+      if (changed == null) {
+        return Optional.empty();
+      }
+      run.updatedAt = clock.instant();
+      if (run.completedAt == null && run.isFinished()) {
+        run.completedAt = run.updatedAt;
+      }
+      boolean finished = run.completedAt != null;
+      for (Listener listener : listeners) {
+        try {
+          listener.onJobStatus(changed, finished);
+        } catch (RuntimeException e) {
+          PipelineLogger.warn("Run state listener failed: {}", e.getMessage());
+        }
+      }
+    }
+    return Optional.of(pipelineExecutionId);
+  }
+
+  /**
+   * Drops the finished runs whose retention has passed and the unfinished runs that have been
+   * idle for longer than the idle timeout.
+   */
+  public void evictExpired() {
+    Instant now = clock.instant();
+    for (Map.Entry<UUID, RunState> entry : runs.entrySet()) {
+      if (isExpired(entry.getValue(), now)) {
+        remove(entry.getKey());
+      }
+    }
+  }
+
+  /**
+   * Returns the number of cached runs.
+   *
+   * @return the cached run count
+   */
+  public int size() {
+    return runs.size();
+  }
+
+  private boolean isExpired(RunState run, Instant now) {
+    Instant completedAt = run.completedAt;
+    if (completedAt != null) {
+      return !completedAt.plus(retention).isAfter(now);
+    }
+    return !run.updatedAt.plus(idleTimeout).isAfter(now);
+  }
+
+  private void remove(UUID pipelineExecutionId) {
+    RunState run = runs.remove(pipelineExecutionId);
+    if (run == null) {
+      return;
+    }
+    latestRunByPipeline.remove(run.pipelineName, pipelineExecutionId);
+    for (JobStatusRow row : run.rows) {
+      if (row.jobExecutionId() != null) {
+        runByJobExecution.remove(row.jobExecutionId(), pipelineExecutionId);
+      }
+    }
+  }
+
+  /**
+   * Status tree of one run. The rows are replaced as a whole on every change,
+   * so readers always see a consistent snapshot without locking.
+   */
+  private static final class RunState {
+    private final String pipelineName;
+    private volatile List<JobStatusRow> rows;
+    private volatile Instant completedAt;
+    private volatile Instant updatedAt;
+
+    RunState(String pipelineName, List<JobStatusRow> rows) {
+      this.pipelineName = pipelineName;
+      this.rows = rows;
+    }
+
+    /**
+     * Sets the status of a job and rolls it up into its stage and the pipeline.
+     *
+     * @return the updated row of the job, or null if nothing changed
+     */
+    JobStatusRow apply(UUID jobExecutionId, ExecutionStatus status) {
+      List<ExecutionStatus> jobStatuses = new ArrayList<>();
+      Map<UUID, List<ExecutionStatus>> jobStatusesByStage = new HashMap<>();
+      boolean changed = false;
+      for (JobStatusRow row : rows) {
+        ExecutionStatus jobStatus = row.jobExecutionStatus();
+        if (jobExecutionId.equals(row.jobExecutionId())) {
+          if (jobStatus == status || (jobStatus != null && jobStatus.isTerminal() && !status.isTerminal())) {
+            return null;
+          }
+          jobStatus = status;
+          changed = true;
+        }
+        if (row.jobExecutionId() != null) {
+          jobStatuses.add(jobStatus);
+          jobStatusesByStage.computeIfAbsent(row.stageExecutionId(), id -> new ArrayList<>()).add(jobStatus);
+        }
+      }
+      if (!changed) {
+        return null;
+      }
+
+      JobStatusRow changedRow = null;
+      ExecutionStatus pipelineStatus = ExecutionStatus.rollUp(jobStatuses);
+      List<JobStatusRow> updated = new ArrayList<>(rows.size());
+      for (JobStatusRow row : rows) {
+        List<ExecutionStatus> stageJobs = jobStatusesByStage.get(row.stageExecutionId());
+        // stages without jobs keep their persisted status
+        ExecutionStatus stageStatus = stageJobs == null ? row.stageExecutionStatus() : ExecutionStatus.rollUp(stageJobs);
+        ExecutionStatus jobStatus = jobExecutionId.equals(row.jobExecutionId()) ? status : row.jobExecutionStatus();
+        JobStatusRow updatedRow = row.withStatuses(pipelineStatus, stageStatus, jobStatus);
+        if (jobExecutionId.equals(row.jobExecutionId())) {
+          changedRow = updatedRow;
+        }
+        updated.add(updatedRow);
+      }
+      rows = List.copyOf(updated);
+      return changedRow;
+    }
+
+    boolean isFinished() {
+      for (JobStatusRow row : rows) {
+        if (row.jobExecutionId() != null
+            && (row.jobExecutionStatus() == null || !row.jobExecutionStatus().isTerminal())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Receives the job status changes applied to cached runs.
+   */
+  @FunctionalInterface
+  public interface Listener {
+
+    /**
+     * Called after a job status change was applied, in the order the changes of a run were applied.
+     * Called under the lock of the run on the thread consuming job status events, so it must
+     * not block.
+     *
+     * @param row      the updated row of the job, with the new stage and pipeline statuses
+     * @param finished whether every job of the run has finished
+     */
+    void onJobStatus(JobStatusRow row, boolean finished);
+  }
+}
@@ -0,0 +1,88 @@
+package edu.neu.cs6510.sp25.t1.backend.service.status;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobStatusCounts;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Write side of the execution status: applies job status transitions and rolls them up
+ * into the owning stage and pipeline executions incrementally.
+ * <p>
+ * Stage and pipeline execution rows keep a count of their jobs per status. A transition
+ * moves one job between two counts with a single update statement per row, and the status
+ * of the row is derived from its counts. Rows are always updated stage first, then pipeline,
+ * and stay locked until the transaction ends, so concurrent transitions never lose a count.
+ * Used by the worker when a job reports its status and by the backend when it skips a job.
+ * Transitions are counted in {@link JobMetrics}, which also records the duration of a
+ * pipeline execution once its last job has finished.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatusRollupService {
+  private final JobExecutionRepository jobExecutionRepository;
+  private final StageExecutionRepository stageExecutionRepository;
+  private final PipelineExecutionRepository pipelineExecutionRepository;
+  private final JobMetrics jobMetrics;
+
+  /**
+   * Moves a job execution to a new status and updates the counts and statuses of its
+   * stage and pipeline executions. The completion time of a stage or pipeline execution
+   * is recorded by the transition that finishes its last job.
+   *
+   * @param jobExecution the job execution to update
+   * @param status       the new status of the job execution
+   */
+  @Transactional
+  public void transition(JobExecutionEntity jobExecution, ExecutionStatus status) {
+    ExecutionStatus previous = jobExecution.getStatus();
+    jobExecution.updateState(status);
+    jobExecutionRepository.save(jobExecution);
+
+    StageExecutionEntity stageExecution = jobExecution.getStageExecution();
+    if (previous == status || stageExecution == null) {
+      return;
+    }
+
+    jobMetrics.jobTransition(stageExecution.getId(), status);
+    JobStatusCounts delta = JobStatusCounts.transition(previous, status);
+    Instant now = Instant.now();
+
+    UUID stageExecutionId = stageExecution.getId();
+    stageExecutionRepository.addJobCounts(stageExecutionId, delta);
+    stageExecutionRepository.findJobCountsById(stageExecutionId).ifPresent(counts -> {
+      stageExecutionRepository.updateRolledUpStatus(stageExecutionId, counts.toStatus(),
+          counts.isFinished() ? now : null);
+    });
+
+    UUID pipelineExecutionId = stageExecution.getPipelineExecutionId();
+    pipelineExecutionRepository.addJobCounts(pipelineExecutionId, delta);
+    pipelineExecutionRepository.findJobCountsById(pipelineExecutionId).ifPresent(counts -> {
+      pipelineExecutionRepository.updateRolledUpStatus(pipelineExecutionId, counts.toStatus(),
+          counts.isFinished() ? now : null);
+      // a job that was already done cannot finish the run a second time
+      if (counts.isFinished() && (previous == null || !previous.isTerminal())) {
+        recordPipelineDuration(pipelineExecutionId, counts.toStatus(), now);
+      }
+    });
+  }
+
+  private void recordPipelineDuration(UUID pipelineExecutionId, ExecutionStatus status, Instant completionTime) {
+    pipelineExecutionRepository.findById(pipelineExecutionId)
+        .map(PipelineExecutionEntity::getStartTime)
+        .ifPresent(startTime -> jobMetrics.recordPipelineDuration(pipelineExecutionId, status,
+            Duration.between(startTime, completionTime)));
+  }
+}
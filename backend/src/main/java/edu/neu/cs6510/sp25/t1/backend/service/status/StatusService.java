@@ -1,17 +1,9 @@
 package edu.neu.cs6510.sp25.t1.backend.service.status;
 
-import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.StageEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.JobEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.StageRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
 import org.springframework.stereotype.Service;
@@ -28,21 +20,27 @@ import java.util.UUID;
  * including its stages and jobs. This class aggregates the status hierarchy
  * from jobs to stages to the overall pipeline level.
  * <p>
- * It interacts with repositories to query the latest execution states and updates
- * them if any discrepancies are found between computed and persisted values.
+ * The whole status tree of the latest run is read with one joined projection query
+ * and grouped in memory. Reading the status never writes: stage and pipeline statuses
+ * are rolled up incrementally by {@link StatusRollupService} whenever a job changes status,
+ * so they are read as persisted instead of being recomputed from the jobs.
+ * <p>
+ * Runs started by this backend are tracked in the {@link RunStateCache}, which is kept up
+ * to date from job status events; their status is served from memory without any query.
+ * The database is only read for runs that are not cached, e.g. after a restart. The read
+ * methods deliberately open no transaction of their own, so a cache hit does not even
+ * borrow a connection; each fallback query runs in the repository's read-only transaction.
  * <p>
  * Pipeline status resolution logic:
  * - If all jobs in a stage are successful, the stage is marked as SUCCESS.
  * - If any job fails, the stage and pipeline are marked accordingly.
- * - The most severe status among jobs determines the stage's and pipeline's status.
+ * - The most severe status among jobs determines the stage's and pipeline's status,
+ *   see {@link ExecutionStatus#rollUp(Iterable)}.
  * <p>
  * Dependencies:
  * - {@link PipelineRepository}
  * - {@link PipelineExecutionRepository}
- * - {@link StageRepository}
- * - {@link StageExecutionRepository}
- * - {@link JobRepository}
- * - {@link JobExecutionRepository}
+ * - {@link RunStateCache}
  *
  * Author: Mingtianfang Li
  */
@@ -50,38 +48,71 @@ import java.util.UUID;
 public class StatusService {
   private final PipelineRepository pipelineRepository;
   private final PipelineExecutionRepository pipelineExecutionRepository;
-  private final StageRepository stageRepository;
-  private final StageExecutionRepository stageExecutionRepository;
-  private final JobRepository jobRepository;
-  private final JobExecutionRepository jobExecutionRepository;
+  private final RunStateCache runStateCache;
 
   public StatusService(PipelineRepository pipelineRepository,
       PipelineExecutionRepository pipelineExecutionRepository,
-      StageRepository stageRepository,
-      StageExecutionRepository stageExecutionRepository,
-      JobRepository jobRepository,
-      JobExecutionRepository jobExecutionRepository) {
+      RunStateCache runStateCache) {
     this.pipelineRepository = pipelineRepository;
     this.pipelineExecutionRepository = pipelineExecutionRepository;
-    this.stageRepository = stageRepository;
-    this.stageExecutionRepository = stageExecutionRepository;
-    this.jobRepository = jobRepository;
-    this.jobExecutionRepository = jobExecutionRepository;
+    this.runStateCache = runStateCache;
   }
 
+  /**
+   * Loads the status tree of a newly created run into the {@link RunStateCache}.
+   * Must be called before the jobs of the run are dispatched, so that no status
+   * event of the run arrives before it is cached.
+   *
+   * @param pipelineExecutionId the ID of the new pipeline execution
+   */
+  public void trackRun(UUID pipelineExecutionId) {
+    runStateCache.register(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId));
+  }
+
+  /**
+   * Makes sure an existing run is held by the {@link RunStateCache}, so that its job status
+   * events are applied, e.g. when the run is watched after the backend restarted.
+   *
+   * @param pipelineExecutionId the ID of the pipeline execution
+   */
+  public void loadRun(UUID pipelineExecutionId) {
+    if (runStateCache.getRun(pipelineExecutionId).isEmpty()) {
+      runStateCache.load(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId));
+    }
+  }
+
+  /**
+   * Returns the ID of the most recent run of a pipeline.
+   *
+   * @param pipelineName the name of the pipeline
+   * @return the pipeline execution ID
+   * @throws IllegalArgumentException if the pipeline has no run
+   */
+  public UUID getLatestExecutionId(String pipelineName) {
+    Optional<List<JobStatusRow>> cached = runStateCache.getLatestRun(pipelineName);
+    if (cached.isPresent() && !cached.get().isEmpty()) {
+      return cached.get().get(0).pipelineExecutionId();
+    }
+    return pipelineExecutionRepository.findByPipelineNameOrderByStartTimeDesc(pipelineName).stream()
+        .findFirst()
+        .map(PipelineExecutionEntity::getId)
+        .orElseThrow(() -> {
+          PipelineLogger.error("PipelineExecution not found: {}", pipelineName);
+          return new IllegalArgumentException("PipelineExecution not found: " + pipelineName);
+        });
+  }
 
   /**
    * Retrieves the most recent execution status of the given pipeline.
    * <p>
-   * The method performs the following:
-   * 1. Finds the pipeline by name.
-   * 2. Retrieves the most recent pipeline execution.
-   * 3. Iterates through each stage:
-   *    - Retrieves its execution entity.
-   *    - Aggregates the job execution statuses.
-   *    - Determines and updates the stage execution status.
-   * 4. Aggregates all stage statuses to determine the pipeline status.
-   * 5. Updates and persists the pipeline execution status if necessary.
+   * A run held by the {@link RunStateCache} is served from memory. Otherwise the method
+   * performs the following:
+   * 1. Reads the stages and jobs of the latest run with their executions in one query.
+   * 2. Groups the rows by stage, taking the rolled up stage statuses from their executions.
+   * 3. Takes the rolled up pipeline status from the pipeline execution.
+   * <p>
+   * Only when the query returns nothing are the pipeline and its run looked up,
+   * to tell a missing pipeline from a missing run.
    *
    * @param pipelineName the name of the pipeline whose status should be retrieved
    * @return a map containing:
@@ -99,116 +130,132 @@ public class StatusService {
    * @throws IllegalArgumentException if pipeline, stage, or job execution data is not found
    */
   public Map<String, Object> getStatusForPipeline(String pipelineName) {
-    Map<String, Object> result = new LinkedHashMap<>();
-
-    Optional<PipelineEntity> pipelineOpt = pipelineRepository.findByName(pipelineName);
-    if (pipelineOpt.isEmpty()) {
-      PipelineLogger.error("Pipeline not found: " + pipelineName);
-      throw new IllegalArgumentException("Pipeline not found: " + pipelineName);
+    Optional<List<JobStatusRow>> cached = runStateCache.getLatestRun(pipelineName);
+    if (cached.isPresent()) {
+      return toStatus(pipelineName, cached.get());
     }
 
-    UUID pipelineId = pipelineOpt.get().getId();
-
-    // Fetch the latest execution for this pipeline
-    Optional<PipelineExecutionEntity> executionOpt = pipelineExecutionRepository
-        .findByPipelineId(pipelineId);
-
-    if (executionOpt.isEmpty()) {
-      PipelineLogger.error("PipelineExecution not found: " + pipelineName);
-      throw new IllegalArgumentException("PipelineExecution not found: " + pipelineName);
+    List<JobStatusRow> rows = pipelineExecutionRepository.findLatestRunStatusByPipelineName(pipelineName);
+    if (rows.isEmpty()) {
+      checkRunExists(pipelineName);
     }
-    // retrieve pipeline execution ID for look up the status and set status
-    UUID pipelineExecutionId = executionOpt.get().getId();
-
-    List<StageEntity> stages = stageRepository.findByPipelineId(pipelineId);
-
-    // put pipelineName
-    result.put("pipeline", pipelineName);
-    // create List<Map<String, Object>> for all stages
-    List<Map<String, Object>> stageResults = new ArrayList<>();
+    return toStatus(pipelineName, rows);
+  }
 
-    // sum of the pipeline status
-    ExecutionStatus sumOfPipelineStatus = ExecutionStatus.SUCCESS;
+  /**
+   * Retrieves the status of one pipeline execution, served from the {@link RunStateCache}
+   * while the run is cached.
+   *
+   * @param pipelineExecutionId the ID of the pipeline execution
+   * @return a map in the same format as {@link #getStatusForPipeline(String)}
+   * @throws IllegalArgumentException if the pipeline execution or its stage or job executions are not found
+   */
+  public Map<String, Object> getStatusForExecution(UUID pipelineExecutionId) {
+    List<JobStatusRow> rows = runStateCache.getRun(pipelineExecutionId)
+        .orElseGet(() -> pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId));
+    if (rows.isEmpty()) {
+      // a submitted run is not bound to its pipeline until its definitions have been read
+      return pipelineExecutionRepository.findById(pipelineExecutionId)
+          .filter(pipelineExecution -> pipelineExecution.getPipelineId() == null)
+          .map(this::toQueuedStatus)
+          .orElseThrow(() -> {
+            PipelineLogger.error("PipelineExecution not found: {}", pipelineExecutionId);
+            return new IllegalArgumentException("PipelineExecution not found: " + pipelineExecutionId);
+          });
+    }
+    return toStatus(rows.get(0).pipelineName(), rows);
+  }
 
-    // look for each stage
-    for (StageEntity stage : stages) {
-      // Linked hash Map for each stage
-      Map<String, Object> stageResult = new LinkedHashMap<>();
+  /**
+   * Builds the status map of a submitted run whose pipeline is not known yet: it is pending
+   * while queued, or failed if it could not be created.
+   *
+   * @param pipelineExecution the pipeline execution
+   * @return the status map, without stages
+   */
+  private Map<String, Object> toQueuedStatus(PipelineExecutionEntity pipelineExecution) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("pipeline", null);
+    result.put("pipelineStatus", pipelineExecution.getStatus());
+    result.put("stageResult", List.of());
+    return result;
+  }
 
-      UUID stageID = stage.getId();
-      Optional<StageExecutionEntity> stageExecution = stageExecutionRepository
-          .findByStageIdAndPipelineExecutionId(
-              stageID,
-              pipelineExecutionId);
-      // put stage Name
-      stageResult.put("stage", stage.getName());
-
-      List<JobEntity> jobs = jobRepository.findByStageId(stageID);
-      if (stageExecution.isPresent()) {
-        // put stage Execution ID
-        stageResult.put("stageExecution", stageExecution.get().getId());
-      } else {
-        PipelineLogger.error("StageExecution not found: " + pipelineName);
+  /**
+   * Groups the status rows of a run into the status map.
+   *
+   * @param pipelineName the name of the pipeline
+   * @param rows         the rows of the run, ordered by stage
+   * @return the status map
+   * @throws IllegalArgumentException if a stage or job execution is missing
+   */
+  private Map<String, Object> toStatus(String pipelineName, List<JobStatusRow> rows) {
+    // group the rows by stage execution, keeping the stage order of the query
+    Map<UUID, StageStatus> stages = new LinkedHashMap<>();
+    for (JobStatusRow row : rows) {
+      if (row.stageExecutionId() == null) {
+        PipelineLogger.error("StageExecution not found: {}", pipelineName);
         throw new IllegalArgumentException("StageExecution not found: " + pipelineName);
       }
-      ExecutionStatus sumOfStatus = ExecutionStatus.SUCCESS;
-
-      // use List<Map<String, Object>> to save all jobs
-      List<Map<String, Object>> jobResults = new ArrayList<>();
-
-      for (JobEntity job : jobs) {
-        // create Linked Hash Map for each Job
-        Map<String, Object> jobResult = new LinkedHashMap<>();
-
-        // put job Name
-        jobResult.put("job", job.getName());
-
-        UUID jobID = job.getId();
-        Optional<JobExecutionEntity> jobExecute = jobExecutionRepository.findByJobId(jobID);
-        ExecutionStatus jobStatus;
-        if (jobExecute.isPresent()) {
-          jobStatus = jobExecute.get().getStatus();
-          // put job Execution ID
-          jobResult.put("jobExecution", jobExecute.get().getId());
-          // put Job Status
-          jobResult.put("jobExecutionStatus", jobStatus);
-
-        } else {
-          PipelineLogger.error("JobExecution not found: " + pipelineName);
-          throw new IllegalArgumentException("JobExecution not found: " + pipelineName);
-        }
-        if (!jobStatus.equals(ExecutionStatus.SUCCESS)) {
-          sumOfStatus = jobStatus;
-        }
-        jobResults.add(jobResult);
+      StageStatus stage = stages.computeIfAbsent(row.stageExecutionId(),
+          id -> new StageStatus(row.stageName(), id, row.stageExecutionStatus(), new ArrayList<>()));
+
+      // a stage without jobs yields one row without a job
+      if (row.jobName() == null) {
+        continue;
       }
-      // sum all job status and put to the map
-      stageResult.put("stageExecutionStatus", sumOfStatus);
-      // put all jobResult to the map
-      stageResult.put("jobs", jobResults);
-      // update Stage Execution
-      if (!sumOfStatus.equals(stageExecution.get().getStatus())) {
-        stageExecution.get().updateState(sumOfStatus);
+      if (row.jobExecutionId() == null) {
+        PipelineLogger.error("JobExecution not found: {}", pipelineName);
+        throw new IllegalArgumentException("JobExecution not found: " + pipelineName);
       }
 
-      if (!sumOfStatus.equals(sumOfPipelineStatus)) {
-        sumOfPipelineStatus = sumOfStatus;
-      }
+      Map<String, Object> jobResult = new LinkedHashMap<>();
+      jobResult.put("job", row.jobName());
+      jobResult.put("jobExecution", row.jobExecutionId());
+      jobResult.put("jobExecutionStatus", row.jobExecutionStatus());
+      stage.jobs().add(jobResult);
+    }
+
+    List<Map<String, Object>> stageResults = new ArrayList<>();
+    for (StageStatus stage : stages.values()) {
+      Map<String, Object> stageResult = new LinkedHashMap<>();
+      stageResult.put("stage", stage.name());
+      stageResult.put("stageExecution", stage.stageExecutionId());
+      stageResult.put("stageExecutionStatus", stage.status());
+      stageResult.put("jobs", stage.jobs());
       stageResults.add(stageResult);
-      // save and flush the stage repository
-      stageExecutionRepository.saveAndFlush(stageExecution.get());
     }
 
-    // put all stage Result to the pipeline Map
-    result.put("pipelineStatus", sumOfPipelineStatus);
-    // put all stage result to the map
+    // a run without stages has nothing to wait for
+    ExecutionStatus pipelineStatus = rows.isEmpty() ? ExecutionStatus.SUCCESS : rows.get(0).pipelineExecutionStatus();
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("pipeline", pipelineName);
+    result.put("pipelineStatus", pipelineStatus);
     result.put("stageResult", stageResults);
+    return result;
+  }
 
-    // save to pipeline repo
-    executionOpt.get().setStatus(sumOfPipelineStatus);
-    // save and flush the pipeline execution repository
-    pipelineExecutionRepository.saveAndFlush(executionOpt.get());
+  /**
+   * Throws the matching error if the pipeline or its latest run does not exist.
+   *
+   * @param pipelineName the name of the pipeline
+   * @throws IllegalArgumentException if the pipeline or its run is not found
+   */
+  private void checkRunExists(String pipelineName) {
+    if (pipelineRepository.findByName(pipelineName).isEmpty()) {
+      PipelineLogger.error("Pipeline not found: {}", pipelineName);
+      throw new IllegalArgumentException("Pipeline not found: " + pipelineName);
+    }
+    if (pipelineExecutionRepository.findByPipelineNameOrderByStartTimeDesc(pipelineName).isEmpty()) {
+      PipelineLogger.error("PipelineExecution not found: {}", pipelineName);
+      throw new IllegalArgumentException("PipelineExecution not found: " + pipelineName);
+    }
+  }
 
-    return result;
+  /**
+   * Jobs of one stage collected from the status rows.
+   */
+  private record StageStatus(String name, UUID stageExecutionId, ExecutionStatus status,
+      List<Map<String, Object>> jobs) {
   }
 }
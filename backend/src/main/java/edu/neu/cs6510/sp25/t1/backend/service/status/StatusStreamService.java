@@ -0,0 +1,320 @@
+package edu.neu.cs6510.sp25.t1.backend.service.status;
+
+import edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Streams the status of a pipeline execution to clients as server-sent events.
+ * <p>
+ * A subscriber first receives a {@code snapshot} event holding the full status map, in the
+ * format of {@link StatusService#getStatusForExecution(UUID)}. After that every job status
+ * change applied to the {@link RunStateCache} is pushed as a {@code job} event holding the
+ * updated {@link JobStatusRow}, i.e. the new job, stage and pipeline statuses. Once every job
+ * of the run has finished a {@code complete} event with the final pipeline status is sent
+ * and the stream is closed.
+ * <p>
+ * Job status changes are applied on the thread consuming the job status events, under the
+ * lock of their run, so they are only queued per stream there. Each stream is written by a
+ * virtual thread of its own while it has queued events, so a slow client holds up neither the
+ * consumer nor the other streams. A stream whose queue overflows is closed; the client can
+ * subscribe again for a fresh snapshot.
+ * <p>
+ * Events carry states rather than increments, so a change that is both part of the snapshot
+ * and pushed afterwards is harmless.
+ */
+@Service
+public class StatusStreamService {
+  static final String SNAPSHOT_EVENT = "snapshot";
+  static final String JOB_EVENT = "job";
+  static final String COMPLETE_EVENT = "complete";
+
+  private final StatusService statusService;
+  private final RunStateCache runStateCache;
+  private final long timeoutMillis;
+  private final int queueSize;
+  private final Executor sender;
+  private final ExecutorService ownedSender;
+
+  /** Open streams keyed by pipeline execution ID. */
+  private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the service and subscribes it to the run state cache.
+   *
+   * @param statusService the service reading the status of a run
+   * @param runStateCache the cache the job status changes are taken from
+   * @param timeout       how long a stream may stay open
+   * @param queueSize     how many events may wait for a stream before it is closed
+   */
+  @Autowired
+  public StatusStreamService(StatusService statusService, RunStateCache runStateCache,
+      @Value("${status.stream.timeout:PT30M}") Duration timeout,
+      @Value("${status.stream.queue-size:256}") int queueSize) {
+    this(statusService, runStateCache, timeout, queueSize,
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("status-stream-", 0).factory()));
+  }
+
+  /**
+   * Creates the service writing the streams on the given executor.
+   *
+   * @param statusService the service reading the status of a run
+   * @param runStateCache the cache the job status changes are taken from
+   * @param timeout       how long a stream may stay open
+   * @param queueSize     how many events may wait for a stream before it is closed
+   * @param sender        the executor the streams are written on
+   */
+  StatusStreamService(StatusService statusService, RunStateCache runStateCache, Duration timeout,
+      int queueSize, Executor sender) {
+    this.statusService = statusService;
+    this.runStateCache = runStateCache;
+    this.timeoutMillis = timeout.toMillis();
+    this.queueSize = queueSize;
+    this.sender = sender;
+    this.ownedSender = sender instanceof ExecutorService service ? service : null;
+    runStateCache.addListener(this::onJobStatus);
+  }
+
+  /**
+   * Opens a status stream for a pipeline execution.
+   *
+   * @param pipelineExecutionId the ID of the pipeline execution
+   * @return the emitter of the stream
+   * @throws IllegalArgumentException if the pipeline execution is not found
+   */
+  public SseEmitter subscribe(UUID pipelineExecutionId) {
+    statusService.loadRun(pipelineExecutionId);
+
+    SseEmitter emitter = createEmitter(timeoutMillis);
+    Subscriber subscriber = new Subscriber(pipelineExecutionId, emitter);
+    emitter.onCompletion(subscriber::close);
+    emitter.onTimeout(subscriber::close);
+    emitter.onError(error -> subscriber.close());
+
+    // job events are queued from now on and sent after the snapshot
+    subscribers.computeIfAbsent(pipelineExecutionId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    Map<String, Object> snapshot;
+    try {
+      snapshot = statusService.getStatusForExecution(pipelineExecutionId);
+    } catch (RuntimeException e) {
+      subscriber.close();
+      throw e;
+    }
+    // a run that is not cached gets no further events
+    boolean complete = runStateCache.isFinished(pipelineExecutionId)
+        || runStateCache.getRun(pipelineExecutionId).isEmpty();
+    subscriber.start(snapshot, complete);
+    PipelineLogger.debug("Opened status stream for pipeline execution: {}", pipelineExecutionId);
+    return emitter;
+  }
+
+  /**
+   * Creates the emitter of a new stream.
+   *
+   * @param timeout how long the stream may stay open, in milliseconds
+   * @return the emitter
+   */
+  SseEmitter createEmitter(long timeout) {
+    return new SseEmitter(timeout);
+  }
+
+  /**
+   * Returns the number of open streams of a pipeline execution.
+   *
+   * @param pipelineExecutionId the ID of the pipeline execution
+   * @return the open stream count
+   */
+  public int getSubscriberCount(UUID pipelineExecutionId) {
+    Set<Subscriber> streams = subscribers.get(pipelineExecutionId);
+    return streams == null ? 0 : streams.size();
+  }
+
+  /**
+   * Stops writing the streams.
+   */
+  @PreDestroy
+  public void shutdown() {
+    if (ownedSender != null) {
+      ownedSender.shutdownNow();
+    }
+  }
+
+  /**
+   * Queues a job status change for the streams of its run. Called under the lock of the run,
+   * so nothing is written to the clients here.
+   *
+   * @param row      the updated row of the job
+   * @param finished whether every job of the run has finished
+   */
+  private void onJobStatus(JobStatusRow row, boolean finished) {
+    Set<Subscriber> streams = subscribers.get(row.pipelineExecutionId());
+    if (streams == null) {
+      return;
+    }
+    for (Subscriber subscriber : streams) {
+      subscriber.offer(new Event(JOB_EVENT, row), finished ? completeEvent(row.pipelineExecutionStatus()) : null);
+    }
+  }
+
+  private static Event completeEvent(Object pipelineStatus) {
+    return new Event(COMPLETE_EVENT, Collections.singletonMap("pipelineStatus", pipelineStatus));
+  }
+
+  /**
+   * One event waiting to be sent.
+   */
+  private record Event(String name, Object data) {
+  }
+
+  /**
+   * An open stream and the events waiting to be written to it. At most one sender task
+   * drains the queue at a time, so the events of a stream are written in order.
+   */
+  private final class Subscriber {
+    private final UUID pipelineExecutionId;
+    private final SseEmitter emitter;
+
+    // guarded by this
+    private final Deque<Event> events = new ArrayDeque<>();
+    private boolean started;
+    private boolean draining;
+    private boolean overflowed;
+    private boolean closed;
+
+    Subscriber(UUID pipelineExecutionId, SseEmitter emitter) {
+      this.pipelineExecutionId = pipelineExecutionId;
+      this.emitter = emitter;
+    }
+
+    /**
+     * Puts the snapshot in front of the job events queued while it was read and starts sending.
+     */
+    synchronized void start(Map<String, Object> snapshot, boolean complete) {
+      events.addFirst(new Event(SNAPSHOT_EVENT, snapshot));
+      if (complete) {
+        events.addLast(completeEvent(snapshot.get("pipelineStatus")));
+      }
+      started = true;
+      scheduleDrain();
+    }
+
+    /**
+     * Queues the events of one job status change without blocking.
+     */
+    synchronized void offer(Event event, Event complete) {
+      if (closed) {
+        return;
+      }
+      int needed = complete == null ? 1 : 2;
+      if (events.size() + needed > queueSize) {
+        overflowed = true;
+      } else {
+        events.addLast(event);
+        if (complete != null) {
+          events.addLast(complete);
+        }
+      }
+      if (started) {
+        scheduleDrain();
+      }
+    }
+
+    private void scheduleDrain() {
+      if (draining || closed) {
+        return;
+      }
+      draining = true;
+      try {
+        sender.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        // shutting down
+        draining = false;
+        close();
+      }
+    }
+
+    private void drain() {
+      while (true) {
+        Event event;
+        synchronized (this) {
+          if (closed) {
+            draining = false;
+            return;
+          }
+          if (overflowed) {
+            draining = false;
+            drop(new IllegalStateException("Too many events waiting, the client is not keeping up"));
+            return;
+          }
+          event = events.poll();
+          if (event == null) {
+            draining = false;
+            return;
+          }
+        }
+        if (!send(event)) {
+          return;
+        }
+        if (COMPLETE_EVENT.equals(event.name())) {
+          close();
+          emitter.complete();
+          return;
+        }
+      }
+    }
+
+    /**
+     * Sends one event; a stream that cannot be written to is dropped.
+     *
+     * @return true if the event was sent
+     */
+    private boolean send(Event event) {
+      try {
+        emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+        return true;
+      } catch (IOException | IllegalStateException e) {
+        drop(e);
+        return false;
+      }
+    }
+
+    private void drop(Exception cause) {
+      PipelineLogger.debug("Dropping status stream of pipeline execution {}: {}", pipelineExecutionId,
+          cause.getMessage());
+      close();
+      emitter.completeWithError(cause);
+    }
+
+    /**
+     * Stops queueing events and removes the stream from its run.
+     */
+    void close() {
+      synchronized (this) {
+        closed = true;
+        events.clear();
+      }
+      subscribers.computeIfPresent(pipelineExecutionId, (id, streams) -> {
+        streams.remove(this);
+        return streams.isEmpty() ? null : streams;
+      });
+    }
+  }
+}
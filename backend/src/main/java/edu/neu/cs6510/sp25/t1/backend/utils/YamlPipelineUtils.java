@@ -32,6 +32,8 @@ public class YamlPipelineUtils {
   private static final String IMAGE_KEY = "image";
   private static final String ALLOW_FAILURE_KEY = "allow_failure";
   private static final String DEPENDENCIES_KEY = "dependencies";
+  private static final String SCHEDULING_KEY = "scheduling";
+  private static final Set<String> SCHEDULING_MODES = Set.of("stage", "dag");
 
 
   /**
@@ -46,15 +48,15 @@ public class YamlPipelineUtils {
     Path path = Paths.get(filePath).isAbsolute()
             ? Paths.get(filePath)
             : Paths.get(System.getProperty("user.dir")).resolve(filePath).normalize();
-    PipelineLogger.info("Checking pipeline file: " + path);
+    PipelineLogger.info("Checking pipeline file: {}", path);
 
     if (!Files.exists(path)) {
-      PipelineLogger.error("Pipeline configuration file not found: " + path.toAbsolutePath());
+      PipelineLogger.error("Pipeline configuration file not found: {}", path.toAbsolutePath());
       throw new ValidationException(filePath, 1, 1, "Pipeline configuration file not found: " + path.toAbsolutePath());
     }
     
     if (!Files.isReadable(path)) {
-      PipelineLogger.error("Pipeline configuration file is not readable: " + path.toAbsolutePath());
+      PipelineLogger.error("Pipeline configuration file is not readable: {}", path.toAbsolutePath());
       throw new ValidationException(filePath, 1, 1, "Pipeline configuration file is not readable: " + path.toAbsolutePath());
     }
 
@@ -67,10 +69,10 @@ public class YamlPipelineUtils {
         throw new IllegalArgumentException("Pipeline configuration is empty or malformed.");
       }
 
-      PipelineLogger.info("Pipeline configuration successfully loaded from: " + filePath);
+      PipelineLogger.info("Pipeline configuration successfully loaded from: {}", filePath);
       return pipelineConfig;
     } catch (Exception e) {
-      PipelineLogger.error("Error parsing pipeline YAML: " + e.getMessage());
+      PipelineLogger.error("Error parsing pipeline YAML: {}", e.getMessage());
       throw new IOException("Error parsing pipeline YAML: " + e.getMessage(), e);
     }
   }
@@ -92,9 +94,31 @@ public class YamlPipelineUtils {
     // Validate stages
     validateStages(pipelineConfig);
 
+    // Validate the optional scheduling mode
+    validateScheduling(pipelineConfig);
+
     PipelineLogger.info("Pipeline YAML validation successful: Structure is valid.");
   }
 
+  /**
+   * Validates the optional scheduling mode. "stage" (the default) keeps stage barriers,
+   * "dag" lets jobs start across stages as soon as their dependencies succeed.
+   *
+   * @param pipelineConfig The parsed pipeline configuration.
+   * @throws IllegalArgumentException If the scheduling mode is unknown.
+   */
+  private static void validateScheduling(Map<String, Object> pipelineConfig) {
+    if (!pipelineConfig.containsKey(SCHEDULING_KEY)) {
+      return;
+    }
+
+    Object scheduling = pipelineConfig.get(SCHEDULING_KEY);
+    if (!(scheduling instanceof String) || !SCHEDULING_MODES.contains(((String) scheduling).toLowerCase())) {
+      PipelineLogger.error("Invalid pipeline.yaml: 'scheduling' must be one of {}.", SCHEDULING_MODES);
+      throw new IllegalArgumentException("Invalid pipeline.yaml: 'scheduling' must be one of " + SCHEDULING_MODES + ".");
+    }
+  }
+
   /**
    * Validates the stages section of the pipeline configuration.
    * Supports both nested format (stages with jobs) and top-level format (separate stages and jobs lists).
@@ -164,30 +188,30 @@ public class YamlPipelineUtils {
         // Map with name field
         Map<String, Object> stageMap = (Map<String, Object>) stageObj;
         if (!stageMap.containsKey(NAME_KEY)) {
-          PipelineLogger.error("Invalid pipeline.yaml: Stage at index " + i + " is missing 'name' field.");
+          PipelineLogger.error("Invalid pipeline.yaml: Stage at index {} is missing 'name' field.", i);
           throw new IllegalArgumentException("Invalid pipeline.yaml: Stage at index " + i + " is missing 'name' field.");
         }
         stageName = (String) stageMap.get(NAME_KEY);
       } else {
-        PipelineLogger.error("Invalid pipeline.yaml: Stage at index " + i + " must be a string or map.");
+        PipelineLogger.error("Invalid pipeline.yaml: Stage at index {} must be a string or map.", i);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Stage at index " + i + " must be a string or map.");
       }
       
       if (stageName == null || stageName.trim().isEmpty()) {
-        PipelineLogger.error("Invalid pipeline.yaml: Stage at index " + i + " has empty name.");
+        PipelineLogger.error("Invalid pipeline.yaml: Stage at index {} has empty name.", i);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Stage at index " + i + " has empty name.");
       }
       
       // Check for duplicate stage names
       if (stageNames.contains(stageName)) {
-        PipelineLogger.error("Invalid pipeline.yaml: Duplicate stage name '" + stageName + "'.");
+        PipelineLogger.error("Invalid pipeline.yaml: Duplicate stage name '{}'.", stageName);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Duplicate stage name '" + stageName + "'.");
       }
       
       stageNames.add(stageName);
     }
     
-    PipelineLogger.info("Validated " + stageNames.size() + " stages in top-level format");
+    PipelineLogger.info("Validated {} stages in top-level format", stageNames.size());
   }
   
   /**
@@ -262,31 +286,31 @@ public class YamlPipelineUtils {
   private static void validateTopLevelJob(Map<String, Object> job, int index, Set<String> stageNames) {
     // Check for name
     if (!job.containsKey(NAME_KEY)) {
-      PipelineLogger.error("Invalid pipeline.yaml: Job at index " + index + " is missing 'name' field.");
+      PipelineLogger.error("Invalid pipeline.yaml: Job at index {} is missing 'name' field.", index);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Job at index " + index + " is missing 'name' field.");
     }
     
     String jobName = (String) job.get(NAME_KEY);
     if (jobName == null || jobName.trim().isEmpty()) {
-      PipelineLogger.error("Invalid pipeline.yaml: Job at index " + index + " has empty name.");
+      PipelineLogger.error("Invalid pipeline.yaml: Job at index {} has empty name.", index);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Job at index " + index + " has empty name.");
     }
     
     // Check for stage reference
     if (!job.containsKey("stage")) {
-      PipelineLogger.error("Invalid pipeline.yaml: Job '" + jobName + "' is missing 'stage' field.");
+      PipelineLogger.error("Invalid pipeline.yaml: Job '{}' is missing 'stage' field.", jobName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Job '" + jobName + "' is missing 'stage' field.");
     }
     
     String stageName = (String) job.get("stage");
     if (stageName == null || stageName.trim().isEmpty()) {
-      PipelineLogger.error("Invalid pipeline.yaml: Job '" + jobName + "' has empty stage reference.");
+      PipelineLogger.error("Invalid pipeline.yaml: Job '{}' has empty stage reference.", jobName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Job '" + jobName + "' has empty stage reference.");
     }
     
     // Check if stage exists
     if (!stageNames.contains(stageName)) {
-      PipelineLogger.error("Invalid pipeline.yaml: Job '" + jobName + "' references non-existent stage '" + stageName + "'.");
+      PipelineLogger.error("Invalid pipeline.yaml: Job '{}' references non-existent stage '{}'.", jobName, stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Job '" + jobName + "' references non-existent stage '" + stageName + "'.");
     }
     
@@ -325,19 +349,19 @@ public class YamlPipelineUtils {
    */
   private static void validateNestedStage(Map<String, Object> stage, int index) {
     if (!stage.containsKey(NAME_KEY)) {
-      PipelineLogger.error("Invalid pipeline.yaml: Stage at index " + index + " is missing 'name' field.");
+      PipelineLogger.error("Invalid pipeline.yaml: Stage at index {} is missing 'name' field.", index);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Stage at index " + index + " is missing 'name' field.");
     }
     
     String stageName = (String) stage.get(NAME_KEY);
     if (stageName == null || stageName.trim().isEmpty()) {
-      PipelineLogger.error("Invalid pipeline.yaml: Stage at index " + index + " has empty name.");
+      PipelineLogger.error("Invalid pipeline.yaml: Stage at index {} has empty name.", index);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Stage at index " + index + " has empty name.");
     }
     
     // Check if jobs exist and are well-formed
     if (!stage.containsKey(JOBS_KEY)) {
-      PipelineLogger.error("Invalid pipeline.yaml: Stage '" + stageName + "' is missing 'jobs' field.");
+      PipelineLogger.error("Invalid pipeline.yaml: Stage '{}' is missing 'jobs' field.", stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Stage '" + stageName + "' is missing 'jobs' field.");
     }
     
@@ -355,14 +379,14 @@ public class YamlPipelineUtils {
   private static void validateNestedJobs(Map<String, Object> stage, String stageName) {
     Object jobsObj = stage.get(JOBS_KEY);
     if (!(jobsObj instanceof List<?>)) {
-      PipelineLogger.error("Invalid pipeline.yaml: Jobs in stage '" + stageName + "' must be a list.");
+      PipelineLogger.error("Invalid pipeline.yaml: Jobs in stage '{}' must be a list.", stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Jobs in stage '" + stageName + "' must be a list.");
     }
     
     List<Map<String, Object>> jobs = new ArrayList<>();
     for (Object jobObj : (List<?>) jobsObj) {
       if (!(jobObj instanceof Map)) {
-        PipelineLogger.error("Invalid pipeline.yaml: Each job in stage '" + stageName + "' must be a map.");
+        PipelineLogger.error("Invalid pipeline.yaml: Each job in stage '{}' must be a map.", stageName);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Each job in stage '" + stageName + "' must be a map.");
       }
       jobs.add((Map<String, Object>) jobObj);
@@ -392,11 +416,13 @@ public class YamlPipelineUtils {
     } else if (allowFailure instanceof String) {
       String allowFailureStr = (String) allowFailure;
       if (!allowFailureStr.equalsIgnoreCase("true") && !allowFailureStr.equalsIgnoreCase("false")) {
-        PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be 'true' or 'false'.");
+        PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '{}' in stage '{}' must be 'true' or 'false'.",
+            jobName, stageName);
         throw new IllegalArgumentException("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be 'true' or 'false'.");
       }
     } else {
-      PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be a boolean or string.");
+      PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '{}' in stage '{}' must be a boolean or string.",
+          jobName, stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be a boolean or string.");
     }
   }
@@ -413,8 +439,8 @@ public class YamlPipelineUtils {
     for (int i = 0; i < jobs.size(); i++) {
       String name = (String) jobs.get(i).get(NAME_KEY);
       if (jobNames.containsKey(name)) {
-        PipelineLogger.error("Invalid pipeline.yaml: Duplicate job name '" + name + "' at indices " 
-            + jobNames.get(name) + " and " + i);
+        PipelineLogger.error("Invalid pipeline.yaml: Duplicate job name '{}' at indices {} and {}",
+            name, jobNames.get(name), i);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Duplicate job name '" + name + "'.");
       }
       jobNames.put(name, i);
@@ -433,8 +459,8 @@ public class YamlPipelineUtils {
     for (int i = 0; i < stages.size(); i++) {
       String name = (String) stages.get(i).get(NAME_KEY);
       if (stageNames.containsKey(name)) {
-        PipelineLogger.error("Invalid pipeline.yaml: Duplicate stage name '" + name + "' at indices " 
-            + stageNames.get(name) + " and " + i);
+        PipelineLogger.error("Invalid pipeline.yaml: Duplicate stage name '{}' at indices {} and {}",
+            name, stageNames.get(name), i);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Duplicate stage name '" + name + "'.");
       }
       stageNames.put(name, i);
@@ -452,14 +478,14 @@ public class YamlPipelineUtils {
   private static void validateJobs(Map<String, Object> stage, String stageName) {
     Object jobsObj = stage.get(JOBS_KEY);
     if (!(jobsObj instanceof List<?>)) {
-      PipelineLogger.error("Invalid pipeline.yaml: Jobs in stage '" + stageName + "' must be a list.");
+      PipelineLogger.error("Invalid pipeline.yaml: Jobs in stage '{}' must be a list.", stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Jobs in stage '" + stageName + "' must be a list.");
     }
     
     List<Map<String, Object>> jobs = new ArrayList<>();
     for (Object jobObj : (List<?>) jobsObj) {
       if (!(jobObj instanceof Map)) {
-        PipelineLogger.error("Invalid pipeline.yaml: Each job in stage '" + stageName + "' must be a map.");
+        PipelineLogger.error("Invalid pipeline.yaml: Each job in stage '{}' must be a map.", stageName);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Each job in stage '" + stageName + "' must be a map.");
       }
       jobs.add((Map<String, Object>) jobObj);
@@ -487,13 +513,14 @@ public class YamlPipelineUtils {
    */
   private static void validateJob(Map<String, Object> job, String stageName, int index) {
     if (!job.containsKey(NAME_KEY)) {
-      PipelineLogger.error("Invalid pipeline.yaml: Job at index " + index + " in stage '" + stageName + "' is missing 'name' field.");
+      PipelineLogger.error("Invalid pipeline.yaml: Job at index {} in stage '{}' is missing 'name' field.",
+          index, stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Job at index " + index + " in stage '" + stageName + "' is missing 'name' field.");
     }
     
     String jobName = (String) job.get(NAME_KEY);
     if (jobName == null || jobName.trim().isEmpty()) {
-      PipelineLogger.error("Invalid pipeline.yaml: Job at index " + index + " in stage '" + stageName + "' has empty name.");
+      PipelineLogger.error("Invalid pipeline.yaml: Job at index {} in stage '{}' has empty name.", index, stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Job at index " + index + " in stage '" + stageName + "' has empty name.");
     }
     
@@ -511,14 +538,16 @@ public class YamlPipelineUtils {
     if (job.containsKey(ALLOW_FAILURE_KEY)) {
       Object allowFailure = job.get(ALLOW_FAILURE_KEY);
       if (!(allowFailure instanceof Boolean) && !(allowFailure instanceof String)) {
-        PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be a boolean or string.");
+        PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '{}' in stage '{}' must be a boolean or string.",
+            jobName, stageName);
         throw new IllegalArgumentException("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be a boolean or string.");
       }
       
       if (allowFailure instanceof String) {
         String allowFailureStr = (String) allowFailure;
         if (!allowFailureStr.equalsIgnoreCase("true") && !allowFailureStr.equalsIgnoreCase("false")) {
-          PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be 'true' or 'false'.");
+          PipelineLogger.error("Invalid pipeline.yaml: 'allow_failure' for job '{}' in stage '{}' must be 'true' or 'false'.",
+              jobName, stageName);
           throw new IllegalArgumentException("Invalid pipeline.yaml: 'allow_failure' for job '" + jobName + "' in stage '" + stageName + "' must be 'true' or 'false'.");
         }
       }
@@ -542,12 +571,14 @@ public class YamlPipelineUtils {
       List<?> scriptLines = (List<?>) script;
       for (Object line : scriptLines) {
         if (!(line instanceof String)) {
-          PipelineLogger.error("Invalid pipeline.yaml: Script for job '" + jobName + "' in stage '" + stageName + "' must be a string or list of strings.");
+          PipelineLogger.error("Invalid pipeline.yaml: Script for job '{}' in stage '{}' must be a string or list of strings.",
+              jobName, stageName);
           throw new IllegalArgumentException("Invalid pipeline.yaml: Script for job '" + jobName + "' in stage '" + stageName + "' must be a string or list of strings.");
         }
       }
     } else {
-      PipelineLogger.error("Invalid pipeline.yaml: Script for job '" + jobName + "' in stage '" + stageName + "' must be a string or list of strings.");
+      PipelineLogger.error("Invalid pipeline.yaml: Script for job '{}' in stage '{}' must be a string or list of strings.",
+          jobName, stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Script for job '" + jobName + "' in stage '" + stageName + "' must be a string or list of strings.");
     }
   }
@@ -562,14 +593,16 @@ public class YamlPipelineUtils {
    */
   private static void validateDockerImage(String image, String jobName, String stageName) {
     if (image == null || image.trim().isEmpty()) {
-      PipelineLogger.error("Invalid pipeline.yaml: Docker image for job '" + jobName + "' in stage '" + stageName + "' cannot be empty.");
+      PipelineLogger.error("Invalid pipeline.yaml: Docker image for job '{}' in stage '{}' cannot be empty.",
+          jobName, stageName);
       throw new IllegalArgumentException("Invalid pipeline.yaml: Docker image for job '" + jobName + "' in stage '" + stageName + "' cannot be empty.");
     }
     
     // Basic validation - could be enhanced for stricter Docker image name validation
     Pattern dockerImagePattern = Pattern.compile("^[a-zA-Z0-9./\\-_:]+$");
     if (!dockerImagePattern.matcher(image).matches()) {
-      PipelineLogger.warn("Docker image name '" + image + "' for job '" + jobName + "' in stage '" + stageName + "' may not be valid.");
+      PipelineLogger.warn("Docker image name '{}' for job '{}' in stage '{}' may not be valid.",
+          image, jobName, stageName);
     }
   }
   
@@ -586,8 +619,8 @@ public class YamlPipelineUtils {
     for (int i = 0; i < jobs.size(); i++) {
       String name = (String) jobs.get(i).get(NAME_KEY);
       if (jobNames.containsKey(name)) {
-        PipelineLogger.error("Invalid pipeline.yaml: Duplicate job name '" + name + "' in stage '" + stageName + "' at indices " 
-            + jobNames.get(name) + " and " + i);
+        PipelineLogger.error("Invalid pipeline.yaml: Duplicate job name '{}' in stage '{}' at indices {} and {}",
+            name, stageName, jobNames.get(name), i);
         throw new IllegalArgumentException("Invalid pipeline.yaml: Duplicate job name '" + name + "' in stage '" + stageName + "'.");
       }
       jobNames.put(name, i);
@@ -633,24 +666,28 @@ public class YamlPipelineUtils {
             if (dep instanceof String) {
               dependencyList.add((String) dep);
             } else {
-              PipelineLogger.error("Invalid pipeline.yaml: Dependencies for job '" + jobName + "' in stage '" + currentStageName + "' must be a string or list of strings.");
+              PipelineLogger.error("Invalid pipeline.yaml: Dependencies for job '{}' in stage '{}' must be a string or list of strings.",
+                  jobName, currentStageName);
               throw new ClassCastException("Invalid pipeline.yaml: Dependencies for job '" + jobName + "' in stage '" + currentStageName + "' must be a string or list of strings.");
             }
           }
         } else {
-          PipelineLogger.error("Invalid pipeline.yaml: Dependencies for job '" + jobName + "' in stage '" + currentStageName + "' must be a string or list of strings.");
+          PipelineLogger.error("Invalid pipeline.yaml: Dependencies for job '{}' in stage '{}' must be a string or list of strings.",
+              jobName, currentStageName);
           throw new ClassCastException("Invalid pipeline.yaml: Dependencies for job '" + jobName + "' in stage '" + currentStageName + "' must be a string or list of strings.");
         }
 
         // Validate each dependency references an existing job
         for (String dependency : dependencyList) {
           if (!jobNameMap.containsKey(dependency)) {
-            PipelineLogger.error("Invalid pipeline.yaml: Job '" + jobName + "' in stage '" + currentStageName + "' depends on non-existent job '" + dependency + "'.");
+            PipelineLogger.error("Invalid pipeline.yaml: Job '{}' in stage '{}' depends on non-existent job '{}'.",
+                jobName, currentStageName, dependency);
             throw new IllegalArgumentException("Invalid pipeline.yaml: Job '" + jobName + "' in stage '" + currentStageName + "' depends on non-existent job '" + dependency + "'.");
           }
 
           if (dependency.equals(jobName)) {
-            PipelineLogger.error("Invalid pipeline.yaml: Job '" + jobName + "' in stage '" + currentStageName + "' cannot depend on itself.");
+            PipelineLogger.error("Invalid pipeline.yaml: Job '{}' in stage '{}' cannot depend on itself.",
+                jobName, currentStageName);
             throw new IllegalArgumentException("Invalid pipeline.yaml: Job '" + jobName + "' in stage '" + currentStageName + "' cannot depend on itself.");
           }
         }
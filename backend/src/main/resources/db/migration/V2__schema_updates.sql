@@ -0,0 +1,83 @@
+--  This file contains the SQL script to bring a V1 schema up to date with the entities.
+
+-- Accepted runs are stored before their pipeline is known, and CLI runs carry no commit
+ALTER TABLE pipeline_executions ALTER COLUMN pipeline_id DROP NOT NULL;
+ALTER TABLE pipeline_executions ALTER COLUMN commit_hash DROP NOT NULL;
+ALTER TABLE stage_executions ALTER COLUMN commit_hash DROP NOT NULL;
+ALTER TABLE job_executions ALTER COLUMN commit_hash DROP NOT NULL;
+
+-- Hash of the definitions a pipeline was created from, to skip rewriting unchanged ones
+ALTER TABLE pipelines ADD COLUMN IF NOT EXISTS definition_hash VARCHAR(64) DEFAULT NULL;
+
+-- Runs scheduled by job dependencies instead of stage by stage
+ALTER TABLE pipeline_executions ADD COLUMN IF NOT EXISTS dag_scheduling BOOLEAN DEFAULT FALSE;
+
+-- Number of job executions in each status, to roll up stage and pipeline status incrementally
+ALTER TABLE pipeline_executions
+    ADD COLUMN IF NOT EXISTS jobs_pending INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_running INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_succeeded INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_failed INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_canceled INT DEFAULT 0;
+
+ALTER TABLE stage_executions
+    ADD COLUMN IF NOT EXISTS jobs_pending INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_running INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_succeeded INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_failed INT DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS jobs_canceled INT DEFAULT 0;
+
+-- Count the job executions of existing runs
+UPDATE stage_executions se SET
+    jobs_pending = counts.pending,
+    jobs_running = counts.running,
+    jobs_succeeded = counts.succeeded,
+    jobs_failed = counts.failed,
+    jobs_canceled = counts.canceled
+FROM (
+    SELECT stage_execution_id,
+           COUNT(*) FILTER (WHERE status = 'PENDING') AS pending,
+           COUNT(*) FILTER (WHERE status = 'RUNNING') AS running,
+           COUNT(*) FILTER (WHERE status = 'SUCCESS') AS succeeded,
+           COUNT(*) FILTER (WHERE status = 'FAILED') AS failed,
+           COUNT(*) FILTER (WHERE status = 'CANCELED') AS canceled
+    FROM job_executions
+    GROUP BY stage_execution_id
+) counts
+WHERE se.id = counts.stage_execution_id;
+
+UPDATE pipeline_executions pe SET
+    jobs_pending = counts.pending,
+    jobs_running = counts.running,
+    jobs_succeeded = counts.succeeded,
+    jobs_failed = counts.failed,
+    jobs_canceled = counts.canceled
+FROM (
+    SELECT pipeline_execution_id,
+           SUM(jobs_pending) AS pending,
+           SUM(jobs_running) AS running,
+           SUM(jobs_succeeded) AS succeeded,
+           SUM(jobs_failed) AS failed,
+           SUM(jobs_canceled) AS canceled
+    FROM stage_executions
+    GROUP BY pipeline_execution_id
+) counts
+WHERE pe.id = counts.pipeline_execution_id;
+
+-- Table for storing the index of compressed job log segments
+CREATE TABLE IF NOT EXISTS log_segments (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    job_execution_id UUID NOT NULL,
+    segment_index INT NOT NULL,
+    first_line BIGINT NOT NULL,
+    line_count INT NOT NULL,
+    byte_offset BIGINT NOT NULL,
+    byte_length INT NOT NULL,
+    raw_length INT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (job_execution_id) REFERENCES job_executions(id) ON DELETE CASCADE
+    );
+
+-- Indexes for fast retrieval
+CREATE INDEX IF NOT EXISTS idx_pipeline_definition_hash ON pipelines(definition_hash);
+CREATE INDEX IF NOT EXISTS idx_log_segments_job_segment ON log_segments(job_execution_id, segment_index);
@@ -0,0 +1,81 @@
+package edu.neu.cs6510.sp25.t1.backend.api.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import edu.neu.cs6510.sp25.t1.backend.service.log.ExecutionLogService;
+import edu.neu.cs6510.sp25.t1.common.api.response.JobLogResponse;
+
+@ExtendWith(MockitoExtension.class)
+public class LogControllerTest {
+
+  @Mock
+  private ExecutionLogService executionLogService;
+
+  @InjectMocks
+  private LogController logController;
+
+  private final UUID jobExecutionId = UUID.randomUUID();
+
+  @Test
+  public void testGetJobLogReturnsTail() throws Exception {
+    JobLogResponse response = new JobLogResponse(jobExecutionId.toString(), "RUNNING", 9, 10, 10, List.of("line"));
+    when(executionLogService.tail(jobExecutionId, 50)).thenReturn(response);
+
+    ResponseEntity<?> result = logController.getJobLog(jobExecutionId, null, 50);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertSame(response, result.getBody());
+  }
+
+  @Test
+  public void testGetJobLogReadsFromLine() throws Exception {
+    JobLogResponse response = new JobLogResponse(jobExecutionId.toString(), "SUCCESS", 4, 4, 4, List.of());
+    when(executionLogService.read(jobExecutionId, 4, 200)).thenReturn(response);
+
+    ResponseEntity<?> result = logController.getJobLog(jobExecutionId, 4L, 200);
+
+    assertEquals(HttpStatus.OK, result.getStatusCode());
+    assertSame(response, result.getBody());
+  }
+
+  @Test
+  public void testGetJobLogRejectsInvalidRange() {
+    assertEquals(HttpStatus.BAD_REQUEST, logController.getJobLog(jobExecutionId, null, 0).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, logController.getJobLog(jobExecutionId, -1L, 10).getStatusCode());
+    verifyNoInteractions(executionLogService);
+  }
+
+  @Test
+  public void testGetJobLogNotFound() throws Exception {
+    when(executionLogService.tail(jobExecutionId, 200))
+        .thenThrow(new IllegalArgumentException("Job execution not found"));
+
+    ResponseEntity<?> result = logController.getJobLog(jobExecutionId, null, 200);
+
+    assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+  }
+
+  @Test
+  public void testGetJobLogFailure() throws Exception {
+    when(executionLogService.tail(jobExecutionId, 200)).thenThrow(new IOException("segment truncated"));
+
+    ResponseEntity<?> result = logController.getJobLog(jobExecutionId, null, 200);
+
+    assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, result.getStatusCode());
+  }
+}
@@ -3,21 +3,26 @@ package edu.neu.cs6510.sp25.t1.backend.api.controller;
 import edu.neu.cs6510.sp25.t1.backend.error.ApiError;
 import edu.neu.cs6510.sp25.t1.backend.messaging.StageQueuePublisher;
 import edu.neu.cs6510.sp25.t1.backend.service.execution.PipelineExecutionService;
+import edu.neu.cs6510.sp25.t1.backend.service.execution.PipelineIntakeService;
 import edu.neu.cs6510.sp25.t1.backend.service.status.StatusService;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusStreamService;
 import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
 import edu.neu.cs6510.sp25.t1.common.api.response.PipelineExecutionResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -26,6 +31,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -43,6 +49,12 @@ public class PipelineControllerTest {
     @Mock
     private StatusService statusService;
 
+    @Mock
+    private StatusStreamService statusStreamService;
+
+    @Mock
+    private PipelineIntakeService pipelineIntakeService;
+
     @InjectMocks
     private PipelineController pipelineController;
 
@@ -83,9 +95,9 @@ public class PipelineControllerTest {
     @Test
     public void testRunPipeline_Success() {
         // Arrange
-        when(pipelineExecutionService.startPipelineExecution(any(PipelineExecutionRequest.class), any()))
+        when(pipelineExecutionService.startPipelineExecution(any(PipelineExecutionRequest.class), any(), any()))
                 .thenReturn(successResponse);
-        doNothing().when(stageQueuePublisher).dispatchStageQueue(any());
+        doNothing().when(stageQueuePublisher).dispatchStageQueue(any(), any(), any());
 
         // Act
         ResponseEntity<?> response = pipelineController.runPipeline(validRequest);
@@ -95,14 +107,17 @@ public class PipelineControllerTest {
         assertEquals(successResponse, response.getBody());
 
         // Verify the service and publisher were called correctly
-        verify(pipelineExecutionService, times(1)).startPipelineExecution(eq(validRequest), any());
-        verify(stageQueuePublisher, times(1)).dispatchStageQueue(any());
+        verify(pipelineExecutionService, times(1)).startPipelineExecution(eq(validRequest), any(), any());
+        InOrder inOrder = inOrder(statusService, stageQueuePublisher);
+        inOrder.verify(statusService).trackRun(UUID.fromString(successResponse.getExecutionId()));
+        inOrder.verify(stageQueuePublisher, times(1))
+                .dispatchStageQueue(eq(UUID.fromString(successResponse.getExecutionId())), any(), any());
     }
 
     @Test
     public void testRunPipeline_ServiceThrowsException() {
         // Arrange
-        when(pipelineExecutionService.startPipelineExecution(any(PipelineExecutionRequest.class), any()))
+        when(pipelineExecutionService.startPipelineExecution(any(PipelineExecutionRequest.class), any(), any()))
                 .thenThrow(new RuntimeException("Service error"));
 
         // Act
@@ -116,6 +131,29 @@ public class PipelineControllerTest {
         assertEquals("Service error", error.getDetail());
     }
 
+    @Test
+    public void testSubmitPipeline_Accepted() {
+        when(pipelineIntakeService.submit(validRequest)).thenReturn(Optional.of(successResponse));
+
+        ResponseEntity<?> response = pipelineController.submitPipeline(validRequest);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(successResponse, response.getBody());
+        verify(pipelineExecutionService, never()).startPipelineExecution(any(PipelineExecutionRequest.class), any(), any());
+        verify(stageQueuePublisher, never()).dispatchStageQueue(any(), any(), any());
+    }
+
+    @Test
+    public void testSubmitPipeline_IntakeFull() {
+        when(pipelineIntakeService.submit(validRequest)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = pipelineController.submitPipeline(validRequest);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst("Retry-After"));
+        assertTrue(response.getBody() instanceof ApiError);
+    }
+
     @Test
     public void testGetPipelineStatusByFile_Success() {
         // Arrange
@@ -187,4 +225,52 @@ public class PipelineControllerTest {
         // Verify the status service was never called
         verify(statusService, never()).getStatusForPipeline(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetPipelineExecutionStatus_Success() {
+        UUID executionId = UUID.randomUUID();
+        when(statusService.getStatusForExecution(executionId)).thenReturn(statusResponseMap);
+
+        ResponseEntity<?> response = pipelineController.getPipelineExecutionStatus(executionId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(statusResponseMap, response.getBody());
+    }
+
+    @Test
+    public void testGetPipelineExecutionStatus_NotFound() {
+        UUID executionId = UUID.randomUUID();
+        when(statusService.getStatusForExecution(executionId))
+                .thenThrow(new IllegalArgumentException("PipelineExecution not found: " + executionId));
+
+        ResponseEntity<?> response = pipelineController.getPipelineExecutionStatus(executionId);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertTrue(response.getBody() instanceof ApiError);
+    }
+
+    @Test
+    public void testStreamPipelineStatus_SubscribesToLatestRun() {
+        UUID executionId = UUID.randomUUID();
+        SseEmitter emitter = new SseEmitter();
+        when(statusService.getLatestExecutionId("example-pipeline")).thenReturn(executionId);
+        when(statusStreamService.subscribe(executionId)).thenReturn(emitter);
+
+        ResponseEntity<?> response = pipelineController.streamPipelineStatus("example-pipeline");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(emitter, response.getBody());
+    }
+
+    @Test
+    public void testStreamPipelineExecutionStatus_NotFound() {
+        UUID executionId = UUID.randomUUID();
+        when(statusStreamService.subscribe(executionId))
+                .thenThrow(new IllegalArgumentException("PipelineExecution not found: " + executionId));
+
+        ResponseEntity<?> response = pipelineController.streamPipelineExecutionStatus(executionId);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertTrue(response.getBody() instanceof ApiError);
+    }
+}
@@ -27,6 +27,10 @@ class RabbitMQConfigTest {
       var field = RabbitMQConfig.class.getDeclaredField("jobQueueName");
       field.setAccessible(true);
       field.set(config, "test.queue");
+
+      var statusField = RabbitMQConfig.class.getDeclaredField("jobStatusQueueName");
+      statusField.setAccessible(true);
+      statusField.set(config, "test.status.queue");
     } catch (Exception e) {
       throw new RuntimeException("Failed to set jobQueueName via reflection", e);
     }
@@ -40,6 +44,14 @@ class RabbitMQConfigTest {
     assertTrue(queue.isDurable());
   }
 
+  @Test
+  void testJobStatusQueueCreation() {
+    Queue queue = config.jobStatusQueue();
+    assertNotNull(queue);
+    assertEquals("test.status.queue", queue.getName());
+    assertTrue(queue.isDurable());
+  }
+
   @Test
   void testRabbitTemplateCreation() {
     ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
@@ -0,0 +1,49 @@
+package edu.neu.cs6510.sp25.t1.backend.database.entity;
+
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobStatusCountsTest {
+
+  @Test
+  void testTransition_movesOneJob() {
+    JobStatusCounts delta = JobStatusCounts.transition(ExecutionStatus.RUNNING, ExecutionStatus.SUCCESS);
+
+    assertEquals(0, delta.getPending());
+    assertEquals(-1, delta.getRunning());
+    assertEquals(1, delta.getSucceeded());
+  }
+
+  @Test
+  void testTransition_newJobStartsPending() {
+    JobStatusCounts delta = JobStatusCounts.transition(null, ExecutionStatus.RUNNING);
+
+    assertEquals(-1, delta.getPending());
+    assertEquals(1, delta.getRunning());
+  }
+
+  @Test
+  void testTransition_sameStatusChangesNothing() {
+    JobStatusCounts delta = JobStatusCounts.transition(ExecutionStatus.FAILED, ExecutionStatus.FAILED);
+
+    assertEquals(0, delta.getFailed());
+    assertTrue(delta.isFinished());
+  }
+
+  @Test
+  void testToStatus() {
+    JobStatusCounts counts = new JobStatusCounts();
+    counts.addPending(2);
+    assertEquals(ExecutionStatus.PENDING, counts.toStatus());
+    assertFalse(counts.isFinished());
+
+    assertEquals(ExecutionStatus.RUNNING, new JobStatusCounts(1, 0, 1, 0, 0).toStatus());
+    assertEquals(ExecutionStatus.FAILED, new JobStatusCounts(0, 1, 0, 1, 0).toStatus());
+    assertEquals(ExecutionStatus.SUCCESS, new JobStatusCounts(0, 0, 2, 0, 0).toStatus());
+    assertTrue(new JobStatusCounts(0, 0, 1, 0, 1).isFinished());
+  }
+}
@@ -0,0 +1,48 @@
+package edu.neu.cs6510.sp25.t1.backend.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.neu.cs6510.sp25.t1.backend.service.status.RunStateCache;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.UUID;
+
+class JobStatusListenerTest {
+
+  private StageQueuePublisher stageQueuePublisher;
+  private RunStateCache runStateCache;
+  private JobStatusListener listener;
+
+  @BeforeEach
+  void setUp() {
+    stageQueuePublisher = mock(StageQueuePublisher.class);
+    runStateCache = mock(RunStateCache.class);
+    listener = new JobStatusListener(stageQueuePublisher, runStateCache, new ObjectMapper());
+  }
+
+  @Test
+  void testOnJobStatus_forwardsParsedEvent() {
+    UUID jobId = UUID.randomUUID();
+
+    listener.onJobStatus("{\"jobExecutionId\":\"" + jobId + "\",\"status\":\"SUCCESS\",\"logs\":null}");
+
+    verify(runStateCache).onJobStatus(jobId, ExecutionStatus.SUCCESS);
+    verify(stageQueuePublisher).onJobStatus(jobId, ExecutionStatus.SUCCESS);
+  }
+
+  @Test
+  void testOnJobStatus_invalidPayloadIsIgnored() {
+    listener.onJobStatus("not-json");
+    listener.onJobStatus("");
+    listener.onJobStatus(null);
+
+    verifyNoInteractions(stageQueuePublisher, runStateCache);
+  }
+}
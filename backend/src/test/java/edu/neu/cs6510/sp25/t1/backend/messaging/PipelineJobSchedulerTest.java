@@ -0,0 +1,212 @@
+package edu.neu.cs6510.sp25.t1.backend.messaging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+
+class PipelineJobSchedulerTest {
+
+  private PipelineJobScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = new PipelineJobScheduler();
+  }
+
+  @Test
+  void testNextStage_returnsStagesInOrderAndForgetsFinishedRun() {
+    UUID runId = UUID.randomUUID();
+    UUID job1 = UUID.randomUUID();
+    UUID job2 = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stages = new LinkedList<>();
+    stages.add(new LinkedList<>(List.of(job1)));
+    stages.add(new LinkedList<>(List.of(job2)));
+    scheduler.register(runId, stages, Map.of());
+
+    assertEquals(List.of(job1), List.copyOf(scheduler.nextStage(runId).orElseThrow()));
+    PipelineJobScheduler.Completion first = scheduler.complete(job1, ExecutionStatus.SUCCESS).orElseThrow();
+    assertTrue(first.stageFinished());
+    assertEquals(List.of(job2), first.readyJobs());
+    PipelineJobScheduler.Completion second = scheduler.complete(job2, ExecutionStatus.SUCCESS).orElseThrow();
+    assertTrue(second.stageFinished());
+    assertTrue(second.readyJobs().isEmpty());
+
+    assertFalse(scheduler.isActive(runId));
+    assertTrue(scheduler.nextStage(runId).isEmpty());
+    assertTrue(scheduler.getOutstandingJobCounts().isEmpty());
+  }
+
+  @Test
+  void testComplete_onlyReportsLastJobOfStage() {
+    UUID runId = UUID.randomUUID();
+    UUID job1 = UUID.randomUUID();
+    UUID job2 = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stages = new LinkedList<>();
+    stages.add(new LinkedList<>(List.of(job1, job2)));
+    scheduler.register(runId, stages, Map.of());
+    scheduler.nextStage(runId);
+
+    assertFalse(scheduler.complete(job1, ExecutionStatus.SUCCESS).orElseThrow().stageFinished());
+    assertEquals(1, scheduler.getOutstandingJobCount(runId));
+    PipelineJobScheduler.Completion completion = scheduler.complete(job2, ExecutionStatus.FAILED).orElseThrow();
+    assertEquals(runId, completion.pipelineExecutionId());
+    assertTrue(completion.stageFinished());
+
+    // replayed until confirmed
+    assertEquals(completion, scheduler.complete(job2, ExecutionStatus.FAILED).orElseThrow());
+    scheduler.confirm(job2);
+    assertTrue(scheduler.complete(job2, ExecutionStatus.FAILED).isEmpty());
+  }
+
+  @Test
+  void testComplete_replaysOnlyUnhandledJobs() {
+    UUID runId = UUID.randomUUID();
+    UUID build = UUID.randomUUID();
+    UUID test = UUID.randomUUID();
+    UUID lint = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stages = new LinkedList<>();
+    stages.add(new LinkedList<>(List.of(build)));
+    stages.add(new LinkedList<>(List.of(test, lint)));
+    scheduler.register(runId, stages, Map.of());
+    scheduler.nextStage(runId);
+
+    assertEquals(List.of(test, lint), scheduler.complete(build, ExecutionStatus.SUCCESS).orElseThrow().readyJobs());
+    scheduler.handled(build, test);
+
+    // the next stage is not released a second time
+    assertEquals(List.of(lint), scheduler.complete(build, ExecutionStatus.SUCCESS).orElseThrow().readyJobs());
+    assertEquals(2, scheduler.getOutstandingJobCount(runId));
+  }
+
+  @Test
+  void testRestore_resumesCurrentStageFromStoredStatuses() {
+    UUID runId = UUID.randomUUID();
+    UUID compile = UUID.randomUUID();
+    UUID test = UUID.randomUUID();
+    UUID lint = UUID.randomUUID();
+    UUID deploy = UUID.randomUUID();
+
+    Map<UUID, ExecutionStatus> build = new LinkedHashMap<>();
+    build.put(compile, ExecutionStatus.RUNNING);
+    build.put(test, ExecutionStatus.PENDING);
+    build.put(lint, ExecutionStatus.SUCCESS);
+    scheduler.restore(runId, List.of(Map.of(UUID.randomUUID(), ExecutionStatus.SUCCESS), build,
+        Map.of(deploy, ExecutionStatus.PENDING)), Map.of(test, Set.of(compile)));
+
+    assertEquals(1, scheduler.getOutstandingJobCount(runId));
+    assertEquals(List.of(test), scheduler.complete(compile, ExecutionStatus.SUCCESS).orElseThrow().readyJobs());
+    assertEquals(List.of(deploy), scheduler.complete(test, ExecutionStatus.SUCCESS).orElseThrow().readyJobs());
+  }
+
+  @Test
+  void testRestore_finishedRunIsNotRestored() {
+    UUID runId = UUID.randomUUID();
+
+    scheduler.restore(runId, List.of(Map.of(UUID.randomUUID(), ExecutionStatus.SUCCESS)), Map.of());
+
+    assertFalse(scheduler.isActive(runId));
+  }
+
+  @Test
+  void testNextStage_holdsBackJobsWithPendingDependencies() {
+    UUID runId = UUID.randomUUID();
+    UUID compile = UUID.randomUUID();
+    UUID lint = UUID.randomUUID();
+    UUID test = UUID.randomUUID();
+    UUID packageJob = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stages = new LinkedList<>();
+    stages.add(new LinkedList<>(List.of(compile, lint, test, packageJob)));
+    scheduler.register(runId, stages,
+        Map.of(test, Set.of(compile), packageJob, Set.of(compile, test)));
+
+    assertEquals(List.of(compile, lint), List.copyOf(scheduler.nextStage(runId).orElseThrow()));
+
+    PipelineJobScheduler.Completion afterCompile = scheduler.complete(compile, ExecutionStatus.SUCCESS).orElseThrow();
+    assertEquals(List.of(test), afterCompile.readyJobs());
+    assertFalse(afterCompile.stageFinished());
+
+    PipelineJobScheduler.Completion afterTest = scheduler.complete(test, ExecutionStatus.SUCCESS).orElseThrow();
+    assertEquals(List.of(packageJob), afterTest.readyJobs());
+
+    assertFalse(scheduler.complete(packageJob, ExecutionStatus.SUCCESS).orElseThrow().stageFinished());
+    assertTrue(scheduler.complete(lint, ExecutionStatus.SUCCESS).orElseThrow().stageFinished());
+  }
+
+  @Test
+  void testComplete_skipsTransitiveDependentsOfFailedJob() {
+    UUID runId = UUID.randomUUID();
+    UUID compile = UUID.randomUUID();
+    UUID test = UUID.randomUUID();
+    UUID deploy = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stages = new LinkedList<>();
+    stages.add(new LinkedList<>(List.of(compile, test, deploy)));
+    scheduler.register(runId, stages, Map.of(test, Set.of(compile), deploy, Set.of(test)));
+    scheduler.nextStage(runId);
+
+    PipelineJobScheduler.Completion completion = scheduler.complete(compile, ExecutionStatus.FAILED).orElseThrow();
+    assertTrue(completion.readyJobs().isEmpty());
+    assertEquals(List.of(test, deploy), completion.skippedJobs());
+    assertTrue(completion.stageFinished());
+  }
+
+  @Test
+  void testNextStage_dependenciesOutsideStageAreSatisfied() {
+    UUID runId = UUID.randomUUID();
+    UUID build = UUID.randomUUID();
+    UUID test = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stages = new LinkedList<>();
+    stages.add(new LinkedList<>(List.of(build)));
+    stages.add(new LinkedList<>(List.of(test)));
+    scheduler.register(runId, stages, Map.of(test, Set.of(build)));
+
+    scheduler.nextStage(runId);
+    assertEquals(List.of(test), scheduler.complete(build, ExecutionStatus.SUCCESS).orElseThrow().readyJobs());
+  }
+
+  @Test
+  void testOutstandingJobCounts_arePerPipelineExecution() {
+    UUID runA = UUID.randomUUID();
+    UUID runB = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stagesA = new LinkedList<>();
+    stagesA.add(new LinkedList<>(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID())));
+    Queue<Queue<UUID>> stagesB = new LinkedList<>();
+    stagesB.add(new LinkedList<>(List.of(UUID.randomUUID())));
+
+    scheduler.register(runA, stagesA, Map.of());
+    scheduler.register(runB, stagesB, Map.of());
+    scheduler.nextStage(runA);
+    scheduler.nextStage(runB);
+
+    Map<UUID, Integer> counts = scheduler.getOutstandingJobCounts();
+    assertEquals(3, counts.get(runA));
+    assertEquals(1, counts.get(runB));
+    assertEquals(4, scheduler.getOutstandingJobCount());
+  }
+
+  @Test
+  void testUnknownRunAndJobAreIgnored() {
+    assertTrue(scheduler.nextStage(UUID.randomUUID()).isEmpty());
+    assertTrue(scheduler.complete(UUID.randomUUID(), ExecutionStatus.SUCCESS).isEmpty());
+    assertEquals(0, scheduler.getOutstandingJobCount(UUID.randomUUID()));
+  }
+}
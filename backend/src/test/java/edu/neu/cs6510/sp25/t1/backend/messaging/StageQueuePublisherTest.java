@@ -2,22 +2,34 @@ package edu.neu.cs6510.sp25.t1.backend.messaging;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.amqp.core.QueueInformation;
-import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.backend.service.status.RunStateCache;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusRollupService;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.junit.jupiter.api.Assertions.fail;
-import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 
 
@@ -25,15 +37,28 @@ import java.util.UUID;
 class StageQueuePublisherTest {
 
   private RabbitTemplate rabbitTemplate;
-  private RabbitAdmin rabbitAdmin;
+  private JobExecutionRepository jobExecutionRepository;
+  private StatusRollupService statusRollupService;
+  private RunStateCache runStateCache;
+  private JobMetrics jobMetrics;
+  private PipelineRunLoader pipelineRunLoader;
+  private PipelineJobScheduler scheduler;
   private StageQueuePublisher publisher;
+  private UUID pipelineExecutionId;
 
   @BeforeEach
   void setUp() throws Exception {
     rabbitTemplate = mock(RabbitTemplate.class);
-    rabbitAdmin = mock(RabbitAdmin.class);
+    jobExecutionRepository = mock(JobExecutionRepository.class);
+    statusRollupService = mock(StatusRollupService.class);
+    runStateCache = mock(RunStateCache.class);
+    jobMetrics = mock(JobMetrics.class);
+    pipelineRunLoader = mock(PipelineRunLoader.class);
 
-    publisher = new StageQueuePublisher(rabbitTemplate, rabbitAdmin);
+    scheduler = new PipelineJobScheduler();
+    publisher = new StageQueuePublisher(rabbitTemplate, scheduler, jobExecutionRepository, statusRollupService,
+        runStateCache, jobMetrics, pipelineRunLoader);
+    pipelineExecutionId = UUID.randomUUID();
 
     // Use reflection to inject private field
     Field field = StageQueuePublisher.class.getDeclaredField("jobQueueName");
@@ -42,29 +67,99 @@ class StageQueuePublisherTest {
   }
 
   @Test
-  void testDispatchStageQueue_sendsJobsAndWaitsUntilQueueEmpty() {
-    // Arrange
+  void testDispatchStageQueue_sendsOnlyFirstStage() {
     UUID job1 = UUID.randomUUID();
     UUID job2 = UUID.randomUUID();
+    UUID job3 = UUID.randomUUID();
 
-    Queue<UUID> jobQueue = new LinkedList<>();
-    jobQueue.add(job1);
-    jobQueue.add(job2);
+    Queue<Queue<UUID>> stageQueue = new LinkedList<>();
+    stageQueue.add(jobQueue(job1, job2));
+    stageQueue.add(jobQueue(job3));
+
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue, Map.of());
+
+    verify(rabbitTemplate).convertAndSend("job.queue.test", job1.toString());
+    verify(rabbitTemplate).convertAndSend("job.queue.test", job2.toString());
+    verify(rabbitTemplate, never()).convertAndSend("job.queue.test", job3.toString());
+    assertEquals(2, scheduler.getOutstandingJobCount(pipelineExecutionId));
+    verify(jobMetrics, times(2)).jobDispatched();
+  }
+
+  @Test
+  void testOnJobStatus_releasesNextStageWhenLastJobFinishes() {
+    UUID job1 = UUID.randomUUID();
+    UUID job2 = UUID.randomUUID();
+    UUID job3 = UUID.randomUUID();
 
     Queue<Queue<UUID>> stageQueue = new LinkedList<>();
-    stageQueue.add(jobQueue);
+    stageQueue.add(jobQueue(job1, job2));
+    stageQueue.add(jobQueue(job3));
 
-    QueueInformation queueInfo = mock(QueueInformation.class);
-    when(queueInfo.getMessageCount()).thenReturn(1, 1, 0); // simulate queue draining
-    when(rabbitAdmin.getQueueInfo("job.queue.test")).thenReturn(queueInfo);
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue, Map.of());
 
-    // Act
-    publisher.dispatchStageQueue(stageQueue);
+    publisher.onJobStatus(job1, ExecutionStatus.SUCCESS);
+    verify(rabbitTemplate, never()).convertAndSend("job.queue.test", job3.toString());
 
-    // Assert
-    verify(rabbitTemplate).convertAndSend("job.queue.test", job1.toString());
+    publisher.onJobStatus(job2, ExecutionStatus.FAILED);
+    verify(rabbitTemplate).convertAndSend("job.queue.test", job3.toString());
+    assertEquals(1, scheduler.getOutstandingJobCount(pipelineExecutionId));
+
+    publisher.onJobStatus(job3, ExecutionStatus.SUCCESS);
+    assertEquals(0, scheduler.getOutstandingJobCount(pipelineExecutionId));
+  }
+
+  @Test
+  void testOnJobStatus_ignoresNonTerminalAndDuplicateEvents() {
+    UUID job1 = UUID.randomUUID();
+    UUID job2 = UUID.randomUUID();
+
+    Queue<Queue<UUID>> stageQueue = new LinkedList<>();
+    stageQueue.add(jobQueue(job1));
+    stageQueue.add(jobQueue(job2));
+
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue, Map.of());
+
+    publisher.onJobStatus(job1, ExecutionStatus.RUNNING);
+    verify(rabbitTemplate, never()).convertAndSend("job.queue.test", job2.toString());
+
+    publisher.onJobStatus(job1, ExecutionStatus.SUCCESS);
+    publisher.onJobStatus(job1, ExecutionStatus.SUCCESS);
     verify(rabbitTemplate).convertAndSend("job.queue.test", job2.toString());
-    verify(rabbitAdmin, atLeastOnce()).getQueueInfo("job.queue.test");
+  }
+
+  @Test
+  void testOnJobStatus_unknownJobIsIgnored() {
+    publisher.onJobStatus(UUID.randomUUID(), ExecutionStatus.SUCCESS);
+    publisher.onJobStatus(null, ExecutionStatus.SUCCESS);
+
+    verifyNoInteractions(rabbitTemplate);
+  }
+
+  @Test
+  void testOnJobStatus_pipelinesAreGatedIndependently() {
+    UUID otherPipelineExecutionId = UUID.randomUUID();
+    UUID slowJob = UUID.randomUUID();
+    UUID slowNext = UUID.randomUUID();
+    UUID fastJob = UUID.randomUUID();
+    UUID fastNext = UUID.randomUUID();
+
+    Queue<Queue<UUID>> slowStages = new LinkedList<>();
+    slowStages.add(jobQueue(slowJob));
+    slowStages.add(jobQueue(slowNext));
+
+    Queue<Queue<UUID>> fastStages = new LinkedList<>();
+    fastStages.add(jobQueue(fastJob));
+    fastStages.add(jobQueue(fastNext));
+
+    publisher.dispatchStageQueue(pipelineExecutionId, slowStages, Map.of());
+    publisher.dispatchStageQueue(otherPipelineExecutionId, fastStages, Map.of());
+
+    // The second pipeline advances while the first one still has a running job
+    publisher.onJobStatus(fastJob, ExecutionStatus.SUCCESS);
+
+    verify(rabbitTemplate).convertAndSend("job.queue.test", fastNext.toString());
+    verify(rabbitTemplate, never()).convertAndSend("job.queue.test", slowNext.toString());
+    assertEquals(1, scheduler.getOutstandingJobCount(pipelineExecutionId));
   }
 
   @Test
@@ -72,65 +167,141 @@ class StageQueuePublisherTest {
     Queue<Queue<UUID>> stageQueue = new LinkedList<>();
     stageQueue.add(new LinkedList<>()); // empty stage
 
-    publisher.dispatchStageQueue(stageQueue);
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue, Map.of());
 
     verifyNoInteractions(rabbitTemplate);
   }
 
   @Test
-  void testDispatchStageQueue_throwsIfQueueNotFound() {
-    Queue<UUID> jobQueue = new LinkedList<>();
-    jobQueue.add(UUID.randomUUID());
+  void testDispatchStageQueue_skipsEmptyStageBetweenStages() {
+    UUID job1 = UUID.randomUUID();
+    UUID job2 = UUID.randomUUID();
 
     Queue<Queue<UUID>> stageQueue = new LinkedList<>();
-    stageQueue.add(jobQueue);
+    stageQueue.add(jobQueue(job1));
+    stageQueue.add(new LinkedList<>());
+    stageQueue.add(jobQueue(job2));
 
-    when(rabbitAdmin.getQueueInfo("job.queue.test")).thenReturn(null);
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue, Map.of());
+    publisher.onJobStatus(job1, ExecutionStatus.SUCCESS);
 
-    try {
-      publisher.dispatchStageQueue(stageQueue);
-      fail("Expected IllegalStateException to be thrown");
-    } catch (IllegalStateException e) {
-      assertTrue(e.getMessage().contains("RabbitMQ queue not found"));
-    }
+    verify(rabbitTemplate).convertAndSend("job.queue.test", job2.toString());
   }
 
   @Test
-  void testDispatchStageQueue_triggersInterruption() throws Exception {
-    UUID jobId = UUID.randomUUID();
+  void testOnJobStatus_releasesDependentJobOnceDependencySucceeds() {
+    UUID build = UUID.randomUUID();
+    UUID lint = UUID.randomUUID();
+    UUID dockerize = UUID.randomUUID();
 
-    Queue<UUID> jobQueue = new LinkedList<>();
-    jobQueue.add(jobId);
+    Queue<Queue<UUID>> stageQueue = new LinkedList<>();
+    stageQueue.add(jobQueue(build, lint, dockerize));
+
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue, Map.of(dockerize, Set.of(build)));
+
+    verify(rabbitTemplate).convertAndSend("job.queue.test", build.toString());
+    verify(rabbitTemplate).convertAndSend("job.queue.test", lint.toString());
+    verify(rabbitTemplate, never()).convertAndSend("job.queue.test", dockerize.toString());
+
+    // The dependent job starts without waiting for the unrelated lint job
+    publisher.onJobStatus(build, ExecutionStatus.SUCCESS);
+    verify(rabbitTemplate).convertAndSend("job.queue.test", dockerize.toString());
+    assertEquals(2, scheduler.getOutstandingJobCount(pipelineExecutionId));
+  }
+
+  @Test
+  void testOnJobStatus_cancelsDependentsOfFailedJob() {
+    UUID build = UUID.randomUUID();
+    UUID dockerize = UUID.randomUUID();
+    UUID deploy = UUID.randomUUID();
+    UUID report = UUID.randomUUID();
+
+    JobExecutionEntity dockerizeExecution = JobExecutionEntity.builder().id(dockerize).build();
+    JobExecutionEntity deployExecution = JobExecutionEntity.builder().id(deploy).build();
+    when(jobExecutionRepository.findById(dockerize)).thenReturn(Optional.of(dockerizeExecution));
+    when(jobExecutionRepository.findById(deploy)).thenReturn(Optional.of(deployExecution));
 
     Queue<Queue<UUID>> stageQueue = new LinkedList<>();
-    stageQueue.add(jobQueue);
+    stageQueue.add(jobQueue(build, dockerize, deploy));
+    stageQueue.add(jobQueue(report));
+
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue,
+        Map.of(dockerize, Set.of(build), deploy, Set.of(dockerize)));
+
+    publisher.onJobStatus(build, ExecutionStatus.FAILED);
+
+    verify(rabbitTemplate, never()).convertAndSend("job.queue.test", dockerize.toString());
+    verify(rabbitTemplate, never()).convertAndSend("job.queue.test", deploy.toString());
+    verify(statusRollupService).transition(dockerizeExecution, ExecutionStatus.CANCELED);
+    verify(statusRollupService).transition(deployExecution, ExecutionStatus.CANCELED);
+    verify(runStateCache).onJobStatus(dockerize, ExecutionStatus.CANCELED);
 
-    RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
-    RabbitAdmin rabbitAdmin = mock(RabbitAdmin.class);
+    // The stage is finished once its remaining jobs are skipped
+    verify(rabbitTemplate).convertAndSend("job.queue.test", report.toString());
+  }
+
+  @Test
+  void testOnJobStatus_redeliveredEventFinishesFailedDispatch() {
+    UUID build = UUID.randomUUID();
+    UUID test = UUID.randomUUID();
+    UUID lint = UUID.randomUUID();
 
-    QueueInformation queueInfo = mock(QueueInformation.class);
-    when(queueInfo.getMessageCount()).thenReturn(1); // force sleep
-    when(rabbitAdmin.getQueueInfo("job.queue.test")).thenReturn(queueInfo);
+    Queue<Queue<UUID>> stageQueue = new LinkedList<>();
+    stageQueue.add(jobQueue(build));
+    stageQueue.add(jobQueue(test, lint));
+    publisher.dispatchStageQueue(pipelineExecutionId, stageQueue, Map.of());
 
-    StageQueuePublisher publisher = new StageQueuePublisher(rabbitTemplate, rabbitAdmin);
-    setPrivateField(publisher, "jobQueueName", "job.queue.test");
+    doThrow(new AmqpException("broker down")).doNothing()
+        .when(rabbitTemplate).convertAndSend("job.queue.test", lint.toString());
 
-    // Simulate thread interruption
-    Thread.currentThread().interrupt();
+    assertThrows(AmqpException.class, () -> publisher.onJobStatus(build, ExecutionStatus.SUCCESS));
+    publisher.onJobStatus(build, ExecutionStatus.SUCCESS);
 
-    RuntimeException ex = assertThrows(RuntimeException.class, () ->
-        publisher.dispatchStageQueue(stageQueue)
-    );
+    verify(rabbitTemplate, times(1)).convertAndSend("job.queue.test", test.toString());
+    verify(rabbitTemplate, times(2)).convertAndSend("job.queue.test", lint.toString());
+    assertEquals(2, scheduler.getOutstandingJobCount(pipelineExecutionId));
 
-    assertTrue(ex.getMessage().contains("Interrupted"));
+    // handled now, a further duplicate is ignored
+    publisher.onJobStatus(build, ExecutionStatus.SUCCESS);
+    verify(rabbitTemplate, times(2)).convertAndSend("job.queue.test", lint.toString());
   }
 
-  private void setPrivateField(Object target, String fieldName, Object value) throws Exception {
-    Field field = target.getClass().getDeclaredField(fieldName);
-    field.setAccessible(true);
-    field.set(target, value);
+  @Test
+  void testOnJobStatus_restoresRunUnknownToScheduler() {
+    UUID build = UUID.randomUUID();
+    UUID lint = UUID.randomUUID();
+    UUID deploy = UUID.randomUUID();
+
+    Map<UUID, ExecutionStatus> firstStage = new LinkedHashMap<>();
+    firstStage.put(build, ExecutionStatus.RUNNING);
+    firstStage.put(lint, ExecutionStatus.SUCCESS);
+    when(pipelineRunLoader.load(build)).thenReturn(Optional.of(new PipelineRunLoader.StoredRun(pipelineExecutionId,
+        List.of(firstStage, Map.of(deploy, ExecutionStatus.PENDING)), Map.of())));
+
+    publisher.onJobStatus(build, ExecutionStatus.SUCCESS);
+
+    verify(rabbitTemplate).convertAndSend("job.queue.test", deploy.toString());
+    assertEquals(1, scheduler.getOutstandingJobCount(pipelineExecutionId));
   }
 
+  @Test
+  void testOnJobStatus_releasesStageOfRestoredRunStoppedBetweenStages() {
+    UUID build = UUID.randomUUID();
+    UUID deploy = UUID.randomUUID();
+
+    when(pipelineRunLoader.load(build)).thenReturn(Optional.of(new PipelineRunLoader.StoredRun(pipelineExecutionId,
+        List.of(Map.of(build, ExecutionStatus.SUCCESS), Map.of(deploy, ExecutionStatus.PENDING)), Map.of())));
+
+    publisher.onJobStatus(build, ExecutionStatus.SUCCESS);
 
+    verify(rabbitTemplate).convertAndSend("job.queue.test", deploy.toString());
+  }
 
+  private Queue<UUID> jobQueue(UUID... jobIds) {
+    Queue<UUID> jobQueue = new LinkedList<>();
+    for (UUID jobId : jobIds) {
+      jobQueue.add(jobId);
+    }
+    return jobQueue;
+  }
 }
@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -31,7 +32,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -58,6 +61,7 @@ public class PipelineExecutionServiceTest {
 
     private PipelineExecutionRequest request;
     private Queue<Queue<UUID>> stageQueue;
+    private Map<UUID, Set<UUID>> jobDependencies;
     private Map<String, Object> pipelineConfig;
     private UUID pipelineId;
     private PipelineExecutionEntity pipelineExecution;
@@ -88,6 +92,7 @@ public class PipelineExecutionServiceTest {
         );
 
         stageQueue = new LinkedList<>();
+        jobDependencies = new HashMap<>();
 
         pipelineConfig = new HashMap<>();
         pipelineConfig.put("name", "test-pipeline");
@@ -116,7 +121,7 @@ public class PipelineExecutionServiceTest {
         when(yamlConfigurationService.resolveAndValidatePipelinePath(anyString()))
                 .thenReturn(resolvedPath);
 
-        when(yamlConfigurationService.parseAndValidatePipelineYaml(anyString()))
+        when(yamlConfigurationService.parseAndValidatePipelineYaml(eq(request), anyString()))
                 .thenReturn(pipelineConfig);
 
         when(pipelineDefinitionService.createOrGetPipelineEntity(
@@ -134,13 +139,10 @@ public class PipelineExecutionServiceTest {
                 any(UUID.class), anyMap(), anyString());
 
         doNothing().when(pipelineExecutionCreationService).createAndSaveStageExecutions(
-                any(UUID.class), anyMap(), any(Queue.class));
-
-        doNothing().when(pipelineExecutionCreationService).verifyEntitiesSaved(
-                any(UUID.class), any(UUID.class));
+                any(PipelineExecutionEntity.class), anyMap(), any(Queue.class), anyMap());
 
         // Act
-        PipelineExecutionResponse response = pipelineExecutionService.startPipelineExecution(request, stageQueue);
+        PipelineExecutionResponse response = pipelineExecutionService.startPipelineExecution(request, stageQueue, jobDependencies);
 
         // Assert
         assertNotNull(response);
@@ -152,14 +154,51 @@ public class PipelineExecutionServiceTest {
         // Verify all interactions
         verify(gitPipelineService).cloneRepoAndLocatePipelineFile(request);
         verify(yamlConfigurationService).resolveAndValidatePipelinePath(clonedPipelineInfo.getYamlPath());
-        verify(yamlConfigurationService).parseAndValidatePipelineYaml(resolvedPath.toString());
+        verify(yamlConfigurationService).parseAndValidatePipelineYaml(request, resolvedPath.toString());
         verify(pipelineDefinitionService).createOrGetPipelineEntity(request, pipelineConfig);
         verify(pipelineDefinitionService).createPipelineDefinition(pipelineId, pipelineConfig, request.getFilePath());
         verify(pipelineExecutionCreationService).createPipelineExecution(request, pipelineId);
         verify(pipelineExecutionCreationService).savePipelineExecution(pipelineExecution);
         verify(pipelineExecutionCreationService).createAndSaveStageExecutions(
-                pipelineExecution.getId(), pipelineConfig, stageQueue);
-        verify(pipelineExecutionCreationService).verifyEntitiesSaved(pipelineId, pipelineExecution.getId());
+                pipelineExecution, pipelineConfig, stageQueue, jobDependencies);
+    }
+
+    @Test
+    public void testStartPipelineExecution_AttachesAcceptedExecution() throws Exception {
+        // Arrange
+        UUID acceptedId = pipelineExecution.getId();
+        when(gitPipelineService.cloneRepoAndLocatePipelineFile(request)).thenReturn(clonedPipelineInfo);
+        when(yamlConfigurationService.resolveAndValidatePipelinePath(anyString())).thenReturn(resolvedPath);
+        when(yamlConfigurationService.parseAndValidatePipelineYaml(eq(request), anyString())).thenReturn(pipelineConfig);
+        when(pipelineDefinitionService.createOrGetPipelineEntity(request, pipelineConfig)).thenReturn(pipelineId);
+        when(pipelineExecutionCreationService.attachPipelineExecution(acceptedId, request, pipelineId))
+                .thenReturn(pipelineExecution);
+
+        // Act
+        PipelineExecutionResponse response = pipelineExecutionService.startPipelineExecution(
+                request, acceptedId, stageQueue, jobDependencies);
+
+        // Assert
+        assertEquals(pipelineExecutionId, response.getExecutionId());
+        verify(pipelineExecutionCreationService).createAndSaveStageExecutions(
+                pipelineExecution, pipelineConfig, stageQueue, jobDependencies);
+        verify(pipelineExecutionCreationService, never()).createPipelineExecution(any(), any());
+        verify(pipelineExecutionCreationService, never()).savePipelineExecution(any());
+    }
+
+    @Test
+    public void testAcceptPipelineExecution_SavesExecutionWithoutPipeline() {
+        // Arrange
+        when(pipelineExecutionCreationService.createPipelineExecution(request, null)).thenReturn(pipelineExecution);
+        when(pipelineExecutionCreationService.savePipelineExecution(pipelineExecution)).thenReturn(pipelineExecution);
+
+        // Act
+        PipelineExecutionResponse response = pipelineExecutionService.acceptPipelineExecution(request);
+
+        // Assert
+        assertEquals(pipelineExecutionId, response.getExecutionId());
+        assertEquals("PENDING", response.getStatus());
+        verifyNoInteractions(gitPipelineService, yamlConfigurationService, pipelineDefinitionService);
     }
 
     @Test
@@ -170,7 +209,7 @@ public class PipelineExecutionServiceTest {
 
         // Act & Assert
         Exception exception = assertThrows(RuntimeException.class, () -> {
-            pipelineExecutionService.startPipelineExecution(request, stageQueue);
+            pipelineExecutionService.startPipelineExecution(request, stageQueue, jobDependencies);
         });
 
         assertTrue(exception.getMessage().contains("Pipeline execution failed"));
@@ -191,12 +230,12 @@ public class PipelineExecutionServiceTest {
         when(yamlConfigurationService.resolveAndValidatePipelinePath(anyString()))
                 .thenReturn(resolvedPath);
 
-        when(yamlConfigurationService.parseAndValidatePipelineYaml(anyString()))
+        when(yamlConfigurationService.parseAndValidatePipelineYaml(eq(request), anyString()))
                 .thenThrow(new IllegalArgumentException("Invalid YAML: Missing required fields"));
 
         // Act & Assert
         Exception exception = assertThrows(RuntimeException.class, () -> {
-            pipelineExecutionService.startPipelineExecution(request, stageQueue);
+            pipelineExecutionService.startPipelineExecution(request, stageQueue, jobDependencies);
         });
 
         assertTrue(exception.getMessage().contains("Pipeline execution failed"));
@@ -204,7 +243,7 @@ public class PipelineExecutionServiceTest {
         // Verify interactions
         verify(gitPipelineService).cloneRepoAndLocatePipelineFile(request);
         verify(yamlConfigurationService).resolveAndValidatePipelinePath(clonedPipelineInfo.getYamlPath());
-        verify(yamlConfigurationService).parseAndValidatePipelineYaml(resolvedPath.toString());
+        verify(yamlConfigurationService).parseAndValidatePipelineYaml(request, resolvedPath.toString());
         verifyNoInteractions(pipelineDefinitionService);
         verifyNoInteractions(pipelineExecutionCreationService);
     }
@@ -218,7 +257,7 @@ public class PipelineExecutionServiceTest {
         when(yamlConfigurationService.resolveAndValidatePipelinePath(anyString()))
                 .thenReturn(resolvedPath);
 
-        when(yamlConfigurationService.parseAndValidatePipelineYaml(anyString()))
+        when(yamlConfigurationService.parseAndValidatePipelineYaml(eq(request), anyString()))
                 .thenReturn(pipelineConfig);
 
         when(pipelineDefinitionService.createOrGetPipelineEntity(
@@ -230,7 +269,7 @@ public class PipelineExecutionServiceTest {
 
         // Act & Assert
         Exception exception = assertThrows(RuntimeException.class, () -> {
-            pipelineExecutionService.startPipelineExecution(request, stageQueue);
+            pipelineExecutionService.startPipelineExecution(request, stageQueue, jobDependencies);
         });
 
         assertTrue(exception.getMessage().contains("Pipeline execution failed"));
@@ -238,7 +277,7 @@ public class PipelineExecutionServiceTest {
         // Verify interactions
         verify(gitPipelineService).cloneRepoAndLocatePipelineFile(request);
         verify(yamlConfigurationService).resolveAndValidatePipelinePath(clonedPipelineInfo.getYamlPath());
-        verify(yamlConfigurationService).parseAndValidatePipelineYaml(resolvedPath.toString());
+        verify(yamlConfigurationService).parseAndValidatePipelineYaml(request, resolvedPath.toString());
         verify(pipelineDefinitionService).createOrGetPipelineEntity(request, pipelineConfig);
         verify(pipelineDefinitionService).createPipelineDefinition(pipelineId, pipelineConfig, request.getFilePath());
         verifyNoInteractions(pipelineExecutionCreationService);
@@ -0,0 +1,208 @@
+package edu.neu.cs6510.sp25.t1.backend.service.execution;
+
+import edu.neu.cs6510.sp25.t1.backend.messaging.StageQueuePublisher;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusService;
+import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
+import edu.neu.cs6510.sp25.t1.common.api.response.PipelineExecutionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the queued runs by hand instead of on intake threads.
+ */
+class PipelineIntakeServiceTest {
+
+  private PipelineExecutionService pipelineExecutionService;
+  private StatusService statusService;
+  private StageQueuePublisher stageQueuePublisher;
+  private final List<Runnable> queued = new ArrayList<>();
+  private PipelineIntakeService intakeService;
+
+  @BeforeEach
+  void setUp() {
+    pipelineExecutionService = mock(PipelineExecutionService.class);
+    statusService = mock(StatusService.class);
+    stageQueuePublisher = mock(StageQueuePublisher.class);
+    intakeService = new PipelineIntakeService(pipelineExecutionService, statusService, stageQueuePublisher, 2,
+        queued::add);
+  }
+
+  @Test
+  void submit_returnsPendingExecutionBeforeStartingIt() {
+    PipelineExecutionRequest request = request("repo-a", "c1");
+    UUID executionId = accept(request);
+
+    Optional<PipelineExecutionResponse> response = intakeService.submit(request);
+
+    assertEquals(executionId.toString(), response.orElseThrow().getExecutionId());
+    assertEquals("PENDING", response.get().getStatus());
+    verify(pipelineExecutionService, never()).startPipelineExecution(any(), any(UUID.class), any(), any());
+    assertEquals(1, intakeService.getQueuedCount());
+
+    runQueued();
+
+    verify(pipelineExecutionService).startPipelineExecution(eq(request), eq(executionId), any(), any());
+    verify(statusService).trackRun(executionId);
+    verify(stageQueuePublisher).dispatchStageQueue(eq(executionId), any(), any());
+    assertEquals(0, intakeService.getQueuedCount());
+  }
+
+  @Test
+  void submit_coalescesWaitingRunOfSamePipeline() {
+    PipelineExecutionRequest first = request("repo-a", "c1");
+    PipelineExecutionRequest second = request("repo-a", "c2");
+    UUID executionId = accept(first);
+
+    intakeService.submit(first);
+    Optional<PipelineExecutionResponse> coalesced = intakeService.submit(second);
+
+    assertEquals(executionId.toString(), coalesced.orElseThrow().getExecutionId());
+    assertEquals(1, intakeService.getCoalescedCount());
+    assertEquals(1, queued.size());
+    verify(pipelineExecutionService, times(1)).acceptPipelineExecution(any());
+
+    runQueued();
+
+    // the queued run builds the latest commit
+    verify(pipelineExecutionService).startPipelineExecution(eq(second), eq(executionId), any(), any());
+    verify(pipelineExecutionService, never()).startPipelineExecution(eq(first), any(UUID.class), any(), any());
+  }
+
+  @Test
+  void submit_doesNotCoalesceStartedRun() {
+    PipelineExecutionRequest first = request("repo-a", "c1");
+    PipelineExecutionRequest second = request("repo-a", "c2");
+    accept(first);
+    accept(second);
+
+    intakeService.submit(first);
+    runQueued();
+    intakeService.submit(second);
+
+    assertEquals(0, intakeService.getCoalescedCount());
+    assertEquals(1, queued.size());
+  }
+
+  @Test
+  void submit_refusesRunsWhenQueueIsFull() {
+    PipelineExecutionRequest a = request("repo-a", "c1");
+    PipelineExecutionRequest b = request("repo-b", "c1");
+    PipelineExecutionRequest c = request("repo-c", "c1");
+    accept(a);
+    accept(b);
+    accept(c);
+
+    assertTrue(intakeService.submit(a).isPresent());
+    assertTrue(intakeService.submit(b).isPresent());
+    assertTrue(intakeService.submit(c).isEmpty());
+    assertEquals(1, intakeService.getRejectedCount());
+    verify(pipelineExecutionService, never()).acceptPipelineExecution(c);
+
+    // a started run frees its slot
+    runQueued();
+    assertTrue(intakeService.submit(c).isPresent());
+  }
+
+  @Test
+  void submit_releasesSlotWhenRunCannotBeRecorded() {
+    PipelineExecutionRequest request = request("repo-a", "c1");
+    when(pipelineExecutionService.acceptPipelineExecution(request)).thenThrow(new RuntimeException("db down"));
+
+    assertThrows(RuntimeException.class, () -> intakeService.submit(request));
+
+    assertEquals(0, intakeService.getQueuedCount());
+    assertTrue(queued.isEmpty());
+  }
+
+  @Test
+  void start_marksRunFailedWhenItCannotBeCreated() {
+    PipelineExecutionRequest request = request("repo-a", "c1");
+    UUID executionId = accept(request);
+    when(pipelineExecutionService.startPipelineExecution(eq(request), eq(executionId), any(), any()))
+        .thenThrow(new RuntimeException("Pipeline execution failed: clone failed"));
+
+    intakeService.submit(request);
+    runQueued();
+
+    verify(pipelineExecutionService).failPipelineExecution(executionId);
+    verifyNoInteractions(statusService, stageQueuePublisher);
+  }
+
+  @Test
+  void shutdown_marksRunsThatHaveNotStartedFailed() {
+    PipelineExecutionRequest started = request("repo-a", "c1");
+    PipelineExecutionRequest waiting = request("repo-b", "c1");
+    UUID startedId = accept(started);
+    UUID waitingId = accept(waiting);
+
+    intakeService.submit(started);
+    runQueued();
+    intakeService.submit(waiting);
+    intakeService.shutdown();
+
+    verify(pipelineExecutionService).failPipelineExecution(waitingId);
+    verify(pipelineExecutionService, never()).failPipelineExecution(startedId);
+
+    // the abandoned run does not start when its task runs after all
+    runQueued();
+    verify(pipelineExecutionService, never()).startPipelineExecution(eq(waiting), any(UUID.class), any(), any());
+  }
+
+  @Test
+  void submit_marksRunFailedWhenItCannotBeQueued() {
+    PipelineExecutionRequest request = request("repo-a", "c1");
+    UUID executionId = accept(request);
+    PipelineIntakeService stopped = new PipelineIntakeService(pipelineExecutionService, statusService,
+        stageQueuePublisher, 2, runnable -> {
+          throw new RejectedExecutionException("shut down");
+        });
+
+    assertThrows(RejectedExecutionException.class, () -> stopped.submit(request));
+
+    verify(pipelineExecutionService).failPipelineExecution(executionId);
+    assertEquals(0, stopped.getQueuedCount());
+  }
+
+  private UUID accept(PipelineExecutionRequest request) {
+    UUID executionId = UUID.randomUUID();
+    when(pipelineExecutionService.acceptPipelineExecution(request))
+        .thenReturn(new PipelineExecutionResponse(executionId.toString(), "PENDING"));
+    return executionId;
+  }
+
+  private void runQueued() {
+    List<Runnable> runs = new ArrayList<>(queued);
+    queued.clear();
+    runs.forEach(Runnable::run);
+  }
+
+  private PipelineExecutionRequest request(String repo, String commitHash) {
+    return new PipelineExecutionRequest(
+        UUID.randomUUID(),
+        "https://github.com/owner/" + repo,
+        "main",
+        commitHash,
+        false,
+        1,
+        ".pipelines/pipeline.yaml"
+    );
+  }
+}
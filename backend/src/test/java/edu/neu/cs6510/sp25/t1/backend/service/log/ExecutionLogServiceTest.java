@@ -0,0 +1,73 @@
+package edu.neu.cs6510.sp25.t1.backend.service.log;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.common.api.response.JobLogResponse;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ExecutionLogServiceTest {
+
+  private LogSegmentStore logSegmentStore;
+  private JobExecutionRepository jobExecutionRepository;
+  private ExecutionLogService executionLogService;
+  private UUID jobExecutionId;
+
+  @BeforeEach
+  void setUp() {
+    logSegmentStore = mock(LogSegmentStore.class);
+    jobExecutionRepository = mock(JobExecutionRepository.class);
+    executionLogService = new ExecutionLogService(logSegmentStore, jobExecutionRepository);
+
+    jobExecutionId = UUID.randomUUID();
+    JobExecutionEntity jobExecution = new JobExecutionEntity();
+    jobExecution.setId(jobExecutionId);
+    jobExecution.setStatus(ExecutionStatus.RUNNING);
+    when(jobExecutionRepository.findById(jobExecutionId)).thenReturn(Optional.of(jobExecution));
+  }
+
+  @Test
+  void tail_returnsLastLinesWithJobStatus() throws Exception {
+    when(logSegmentStore.tail(jobExecutionId, 2))
+        .thenReturn(new LogSegmentStore.LogLines(8, List.of("i", "j"), 10));
+
+    JobLogResponse response = executionLogService.tail(jobExecutionId, 2);
+
+    assertEquals(List.of("i", "j"), response.getLines());
+    assertEquals(8, response.getFirstLine());
+    assertEquals(10, response.getNextLine());
+    assertEquals(10, response.getTotalLines());
+    assertEquals("RUNNING", response.getStatus());
+  }
+
+  @Test
+  void read_returnsRangeOfLines() throws Exception {
+    when(logSegmentStore.read(jobExecutionId, 3, 100))
+        .thenReturn(new LogSegmentStore.LogLines(3, List.of("d"), 4));
+
+    JobLogResponse response = executionLogService.read(jobExecutionId, 3, 100);
+
+    assertEquals(List.of("d"), response.getLines());
+    assertEquals(4, response.getNextLine());
+  }
+
+  @Test
+  void tail_throwsForUnknownJobExecution() {
+    UUID unknown = UUID.randomUUID();
+    when(jobExecutionRepository.findById(unknown)).thenReturn(Optional.empty());
+
+    assertThrows(IllegalArgumentException.class, () -> executionLogService.tail(unknown, 10));
+    verifyNoInteractions(logSegmentStore);
+  }
+}
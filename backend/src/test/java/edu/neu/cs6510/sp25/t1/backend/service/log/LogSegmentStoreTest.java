@@ -0,0 +1,158 @@
+package edu.neu.cs6510.sp25.t1.backend.service.log;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.LogSegmentEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.LogSegmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Writes real segment files and keeps the index in memory.
+ */
+class LogSegmentStoreTest {
+
+  @TempDir
+  Path tempDir;
+
+  private final List<LogSegmentEntity> index = new ArrayList<>();
+  private LogSegmentStore store;
+  private UUID job;
+
+  @BeforeEach
+  void setUp() {
+    LogSegmentRepository repository = mock(LogSegmentRepository.class);
+    when(repository.save(any(LogSegmentEntity.class))).thenAnswer(invocation -> {
+      index.add(invocation.getArgument(0));
+      return invocation.getArgument(0);
+    });
+    when(repository.findByJobExecutionIdOrderBySegmentIndexAsc(any()))
+        .thenAnswer(invocation -> segmentsOf(invocation.getArgument(0)));
+    when(repository.findFirstByJobExecutionIdOrderBySegmentIndexDesc(any())).thenAnswer(invocation -> {
+      List<LogSegmentEntity> segments = segmentsOf(invocation.getArgument(0));
+      return segments.isEmpty() ? Optional.empty() : Optional.of(segments.get(segments.size() - 1));
+    });
+    // "line NN\n" is 8 bytes, a segment is sealed every 4 lines
+    store = new LogSegmentStore(repository, tempDir, 32);
+    job = UUID.randomUUID();
+  }
+
+  @Test
+  void append_sealsFullHeadIntoIndexedSegment() throws Exception {
+    store.append(job, lines(0, 3));
+    assertTrue(index.isEmpty());
+
+    store.append(job, lines(3, 5));
+
+    assertEquals(1, index.size());
+    LogSegmentEntity segment = index.get(0);
+    assertEquals(0, segment.getSegmentIndex());
+    assertEquals(0, segment.getFirstLine());
+    assertEquals(5, segment.getLineCount());
+    assertEquals(0, segment.getByteOffset());
+    assertEquals(40, segment.getRawLength());
+    assertFalse(Files.exists(store.headFile(job, 0)));
+  }
+
+  @Test
+  void read_returnsRangeAcrossSegmentsAndHead() throws Exception {
+    for (int i = 0; i < 10; i += 2) {
+      store.append(job, lines(i, i + 2));
+    }
+    // two sealed segments of 4 lines, 2 lines in the head
+    assertEquals(2, index.size());
+
+    LogSegmentStore.LogLines range = store.read(job, 3, 6);
+
+    assertEquals(expected(3, 9), range.lines());
+    assertEquals(3, range.firstLine());
+    assertEquals(9, range.nextLine());
+    assertEquals(10, range.totalLines());
+  }
+
+  @Test
+  void tail_returnsLastLines() throws Exception {
+    for (int i = 0; i < 10; i += 2) {
+      store.append(job, lines(i, i + 2));
+    }
+
+    LogSegmentStore.LogLines tail = store.tail(job, 3);
+
+    assertEquals(expected(7, 10), tail.lines());
+    assertEquals(7, tail.firstLine());
+    assertEquals(10, tail.nextLine());
+  }
+
+  @Test
+  void finish_sealsHeadAndKeepsLogReadableAsOneGzipFile() throws Exception {
+    store.append(job, lines(0, 6));
+    store.append(job, lines(6, 7));
+
+    store.finish(job);
+
+    assertEquals(2, index.size());
+    assertEquals(expected(0, 7), store.read(job, 0, 100).lines());
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(store.segmentsFile(job)))) {
+      assertEquals(lines(0, 7), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void append_continuesLogAfterFinish() throws Exception {
+    store.append(job, lines(0, 2));
+    store.finish(job);
+
+    store.append(job, lines(2, 3));
+
+    assertEquals(expected(0, 3), store.read(job, 0, 100).lines());
+    assertTrue(Files.exists(store.headFile(job, 2)));
+  }
+
+  @Test
+  void read_ignoresUnfinishedLineOfHead() throws Exception {
+    store.append(job, lines(0, 1));
+    Files.writeString(store.headFile(job, 0), "line 01 still writ", StandardOpenOption.APPEND);
+
+    assertEquals(expected(0, 1), store.tail(job, 10).lines());
+  }
+
+  @Test
+  void read_returnsNothingForUnknownJob() throws Exception {
+    LogSegmentStore.LogLines tail = store.tail(UUID.randomUUID(), 10);
+
+    assertTrue(tail.lines().isEmpty());
+    assertEquals(0, tail.totalLines());
+  }
+
+  private List<LogSegmentEntity> segmentsOf(UUID jobExecutionId) {
+    return index.stream().filter(segment -> segment.getJobExecutionId().equals(jobExecutionId)).toList();
+  }
+
+  private String lines(int from, int to) {
+    StringBuilder text = new StringBuilder();
+    IntStream.range(from, to).forEach(i -> text.append(String.format("line %02d", i)).append('\n'));
+    return text.toString();
+  }
+
+  private List<String> expected(int from, int to) {
+    return IntStream.range(from, to).mapToObj(i -> String.format("line %02d", i)).toList();
+  }
+}
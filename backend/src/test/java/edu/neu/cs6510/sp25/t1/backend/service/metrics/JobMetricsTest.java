@@ -0,0 +1,156 @@
+package edu.neu.cs6510.sp25.t1.backend.service.metrics;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.StageEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.StageRepository;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobMetricsTest {
+
+  private SimpleMeterRegistry registry;
+  private StageExecutionRepository stageExecutionRepository;
+  private StageRepository stageRepository;
+  private PipelineExecutionRepository pipelineExecutionRepository;
+  private PipelineRepository pipelineRepository;
+  private JobMetrics jobMetrics;
+
+  private UUID stageExecutionId;
+  private UUID pipelineExecutionId;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    stageExecutionRepository = mock(StageExecutionRepository.class);
+    stageRepository = mock(StageRepository.class);
+    pipelineExecutionRepository = mock(PipelineExecutionRepository.class);
+    pipelineRepository = mock(PipelineRepository.class);
+    jobMetrics = new JobMetrics(registry, stageExecutionRepository, stageRepository,
+        pipelineExecutionRepository, pipelineRepository);
+
+    stageExecutionId = UUID.randomUUID();
+    pipelineExecutionId = UUID.randomUUID();
+    UUID stageId = UUID.randomUUID();
+    UUID pipelineId = UUID.randomUUID();
+    when(stageExecutionRepository.findById(stageExecutionId)).thenReturn(Optional.of(StageExecutionEntity.builder()
+        .id(stageExecutionId)
+        .stageId(stageId)
+        .pipelineExecutionId(pipelineExecutionId)
+        .build()));
+    when(stageRepository.findById(stageId))
+        .thenReturn(Optional.of(StageEntity.builder().id(stageId).name("build").build()));
+    when(pipelineExecutionRepository.findById(pipelineExecutionId)).thenReturn(Optional.of(
+        PipelineExecutionEntity.builder().id(pipelineExecutionId).pipelineId(pipelineId).build()));
+    when(pipelineRepository.findById(pipelineId))
+        .thenReturn(Optional.of(PipelineEntity.builder().id(pipelineId).name("deploy").build()));
+  }
+
+  @Test
+  void testStageTags_resolvesNamesOnce() {
+    assertEquals(Tags.of("pipeline", "deploy", "stage", "build"), jobMetrics.stageTags(stageExecutionId));
+    assertEquals(Tags.of("pipeline", "deploy", "stage", "build"), jobMetrics.stageTags(stageExecutionId));
+
+    verify(stageExecutionRepository, times(1)).findById(stageExecutionId);
+    verify(pipelineExecutionRepository, times(1)).findById(pipelineExecutionId);
+  }
+
+  @Test
+  void testStageTags_unknownStageIsNotCached() {
+    UUID missing = UUID.randomUUID();
+    when(stageExecutionRepository.findById(missing)).thenReturn(Optional.empty());
+
+    assertEquals(Tags.of("pipeline", "unknown", "stage", "unknown"), jobMetrics.stageTags(missing));
+    assertEquals(Tags.of("pipeline", "unknown", "stage", "unknown"), jobMetrics.stageTags(missing));
+    assertEquals(Tags.of("pipeline", "unknown", "stage", "unknown"), jobMetrics.stageTags(null));
+
+    verify(stageExecutionRepository, times(2)).findById(missing);
+  }
+
+  @Test
+  void testStageTags_failedLookupFallsBackToUnknown() {
+    UUID failing = UUID.randomUUID();
+    when(stageExecutionRepository.findById(failing)).thenThrow(new IllegalStateException("database down"));
+
+    jobMetrics.recordImagePull(failing, Duration.ofSeconds(1));
+
+    assertEquals(1, registry.get("cicd.job.image.pull").tags("pipeline", "unknown", "stage", "unknown")
+        .timer().count());
+  }
+
+  @Test
+  void testRecordQueueWait_clampsNegativeWaits() {
+    jobMetrics.recordQueueWait(stageExecutionId, Duration.ofMillis(250));
+    jobMetrics.recordQueueWait(stageExecutionId, Duration.ofMillis(-50));
+
+    Timer timer = registry.get("cicd.job.queue.wait").tags("pipeline", "deploy", "stage", "build").timer();
+    assertEquals(2, timer.count());
+    assertEquals(250.0, timer.totalTime(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void testRecordContainerRun_tagsStatus() {
+    jobMetrics.recordContainerRun(stageExecutionId, ExecutionStatus.SUCCESS, Duration.ofSeconds(3));
+    jobMetrics.recordContainerRun(stageExecutionId, ExecutionStatus.FAILED, Duration.ofSeconds(1));
+
+    assertEquals(1, registry.get("cicd.job.container.run").tags("stage", "build", "status", "SUCCESS")
+        .timer().count());
+    assertEquals(1, registry.get("cicd.job.container.run").tags("stage", "build", "status", "FAILED")
+        .timer().count());
+  }
+
+  @Test
+  void testRecordClone_tagsPipelineAndResult() {
+    jobMetrics.recordClone("deploy", Duration.ofSeconds(2), true);
+    jobMetrics.recordClone(null, Duration.ofSeconds(2), false);
+    jobMetrics.cloneReused("deploy");
+
+    assertEquals(1, registry.get("cicd.job.clone").tags("pipeline", "deploy", "status", "SUCCESS")
+        .timer().count());
+    assertEquals(1, registry.get("cicd.job.clone").tags("pipeline", "unknown", "status", "FAILED")
+        .timer().count());
+    assertEquals(1.0, registry.get("cicd.job.clone.reused").tag("pipeline", "deploy").counter().count());
+  }
+
+  @Test
+  void testCounters_countDispatchesAndTransitions() {
+    jobMetrics.jobDispatched();
+    jobMetrics.jobDispatched();
+    jobMetrics.jobTransition(stageExecutionId, ExecutionStatus.RUNNING);
+
+    assertEquals(2.0, registry.get("cicd.jobs.dispatched").counter().count());
+    assertEquals(1.0, registry.get("cicd.job.transitions").tags("stage", "build", "status", "RUNNING")
+        .counter().count());
+  }
+
+  @Test
+  void testRecordPipelineDuration_tagsPipelineName() {
+    jobMetrics.recordPipelineDuration(pipelineExecutionId, ExecutionStatus.SUCCESS, Duration.ofMinutes(2));
+    jobMetrics.recordPipelineDuration(pipelineExecutionId, ExecutionStatus.SUCCESS, Duration.ofMinutes(4));
+
+    Timer timer = registry.get("cicd.pipeline.duration").tags("pipeline", "deploy", "status", "SUCCESS").timer();
+    assertEquals(2, timer.count());
+    assertEquals(4.0, timer.max(TimeUnit.MINUTES));
+    verify(pipelineRepository, times(1)).findById(any());
+  }
+}
@@ -2,299 +2,273 @@ package edu.neu.cs6510.sp25.t1.backend.service.pipeline;
 
 import edu.neu.cs6510.sp25.t1.backend.info.ClonedPipelineInfo;
 import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
-import edu.neu.cs6510.sp25.t1.common.utils.GitCloneUtil;
+import edu.neu.cs6510.sp25.t1.common.utils.GitMirrorCache;
 
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
+import org.junit.jupiter.api.io.TempDir;
 
-import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.UUID;
 
-
-
+/**
+ * Fetches from local repositories over file:// instead of a remote.
+ */
 class GitPipelineServiceTest {
 
+  @TempDir
+  Path tempDir;
+
+  private File mountBaseDir;
+  private File sourceDir;
   private GitPipelineService service;
 
   @BeforeEach
   void setUp() {
-    service = new GitPipelineService();
+    mountBaseDir = tempDir.resolve("mnt").toFile();
+    sourceDir = tempDir.resolve("source").toFile();
+    service = new GitPipelineService(mountBaseDir, null);
   }
 
   @Test
   void testCloneRepoAndLocatePipelineFile_success() throws Exception {
-    // Arrange: Create request with full constructor
-    PipelineExecutionRequest request = new PipelineExecutionRequest(
-        UUID.randomUUID(),
-        "https://example.com/repo.git",
-        "main",         // test with branch
-        "abc123",
-        false,
-        1,
-        null
-    );
-
-    // Create fake directory for .pipelines and a fake YAML file
-    File fakeCloneDir = new File("/tmp/fakeRepo-success");
-    File pipelinesDir = new File(fakeCloneDir, ".pipelines");
-    pipelinesDir.mkdirs();
-
-    File fakeYaml = new File(pipelinesDir, "pipeline.yaml");
-    fakeYaml.createNewFile();
-
-    // Mock GitCloneUtil with ALL parameters using matchers
-    try (MockedStatic<GitCloneUtil> mockStatic = org.mockito.Mockito.mockStatic(GitCloneUtil.class)) {
-      mockStatic.when(() ->
-          GitCloneUtil.cloneRepository(
-              eq(request.getRepo()),
-              any(File.class),
-              eq("main")
-          )).thenReturn(fakeCloneDir);
-
-      // Act
-      ClonedPipelineInfo result = service.cloneRepoAndLocatePipelineFile(request);
-
-      // Assert
-      assertNotNull(result);
-      assertTrue(result.getYamlPath().endsWith("pipeline.yaml"));
-      assertNotNull(result.getUuid());
+    // Arrange: two commits, only the tip of the branch is read
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/pipeline.yaml", "name: first\n");
+      commit(git, ".pipelines/pipeline.yaml", "name: second\n");
     }
 
-    // Cleanup
-    fakeYaml.delete();
-    pipelinesDir.delete();
-    fakeCloneDir.delete();
-  }
+    // Act
+    ClonedPipelineInfo result = service.cloneRepoAndLocatePipelineFile(request("main", null));
 
+    // Assert
+    assertNotNull(result);
+    assertNotNull(result.getUuid());
+    assertTrue(result.getYamlPath().endsWith("pipeline.yaml"));
+    assertEquals("name: second\n", Files.readString(Path.of(result.getYamlPath())));
+
+    // Only the pipeline file is left behind, the fetched objects are deleted
+    File pipelineDir = new File(mountBaseDir, result.getUuid().toString());
+    assertEquals(1, pipelineDir.list().length);
+    assertFalse(new File(pipelineDir, "source.git").exists());
+  }
 
   @Test
-  void testThrowsWhenNoPipelineDir() {
-    // Arrange: use valid constructor
-    PipelineExecutionRequest request = new PipelineExecutionRequest(
-        UUID.randomUUID(),
-        "https://example.com/repo.git",
-        null,          // no branch
-        "abc123",
-        false,
-        1,
-        null
-    );
+  void testCloneRepoWithoutBranch_usesDefaultBranch() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/build.yml", "name: build\n");
+    }
 
-    File fakeCloneDir = new File("/tmp/fakeRepo-no-pipeline");
-    fakeCloneDir.mkdirs();
+    ClonedPipelineInfo info = service.cloneRepoAndLocatePipelineFile(request("", null));
 
-    try (MockedStatic<GitCloneUtil> mockStatic = org.mockito.Mockito.mockStatic(GitCloneUtil.class)) {
-      mockStatic.when(() ->
-              GitCloneUtil.cloneRepository(eq(request.getRepo()), any(File.class)))
-          .thenReturn(fakeCloneDir);
+    assertTrue(info.getYamlPath().endsWith("build.yml"));
+    assertEquals("name: build\n", Files.readString(Path.of(info.getYamlPath())));
+  }
 
-      // Act + Assert
-      Exception ex = assertThrows(Exception.class, () ->
-          service.cloneRepoAndLocatePipelineFile(request));
-      assertTrue(ex.getMessage().contains(".pipelines"));
+  @Test
+  void testSelectsRequestedPipelineFile() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/a-build.yaml", "name: build\n");
+      commit(git, ".pipelines/release.yaml", "name: release\n");
     }
 
-    // Clean up
-    fakeCloneDir.delete();
+    ClonedPipelineInfo requested = service.cloneRepoAndLocatePipelineFile(request("main", ".pipelines/release.yaml"));
+    ClonedPipelineInfo first = service.cloneRepoAndLocatePipelineFile(request("main", null));
+
+    assertEquals("name: release\n", Files.readString(Path.of(requested.getYamlPath())));
+    assertEquals("name: build\n", Files.readString(Path.of(first.getYamlPath())));
   }
 
   @Test
-  void testThrowsWhenNoYamlFile() throws Exception {
-    // Construct request with required 7-arg constructor
-    PipelineExecutionRequest request = new PipelineExecutionRequest(
-        UUID.randomUUID(),
-        "https://example.com/repo.git",
-        null,          // no branch
-        "abc123",
-        false,
-        1,
-        null
-    );
+  void testThrowsWhenNoPipelineDir() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, "README.md", "no pipelines\n");
+    }
 
-    // Create fake .pipelines directory without any YAML files
-    File fakeCloneDir = new File("/tmp/fakeRepo-empty-yaml");
-    File pipelinesDir = new File(fakeCloneDir, ".pipelines");
-    pipelinesDir.mkdirs();
+    Exception ex = assertThrows(IOException.class, () ->
+        service.cloneRepoAndLocatePipelineFile(request("main", null)));
 
-    try (MockedStatic<GitCloneUtil> mockStatic = org.mockito.Mockito.mockStatic(GitCloneUtil.class)) {
-      mockStatic.when(() ->
-              GitCloneUtil.cloneRepository(eq(request.getRepo()), any(File.class)))
-          .thenReturn(fakeCloneDir);
+    assertTrue(ex.getMessage().contains(".pipelines"));
+    assertEquals(0, mountBaseDir.list().length);
+  }
 
-      // Act + Assert
-      Exception ex = assertThrows(Exception.class, () ->
-          service.cloneRepoAndLocatePipelineFile(request));
-      assertTrue(ex.getMessage().contains("No YAML"));
+  @Test
+  void testThrowsWhenPipelineDirIsFile() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines", "not a directory\n");
     }
 
-    // Cleanup
-    pipelinesDir.delete();
-    fakeCloneDir.delete();
+    Exception ex = assertThrows(IOException.class, () ->
+        service.cloneRepoAndLocatePipelineFile(request("main", null)));
+
+    assertTrue(ex.getMessage().contains(".pipelines"));
   }
 
   @Test
-  void testCloneRepoWithoutBranch_usesTwoArgClone() throws Exception {
-    PipelineExecutionRequest request = new PipelineExecutionRequest(
-        UUID.randomUUID(),
-        "https://example.com/repo.git",
-        "",              // empty branch
-        "commit123",
-        false,
-        1,
-        null
-    );
-
-    File fakeCloneDir = new File("/tmp/fakeRepo-nobranch");
-    File pipelinesDir = new File(fakeCloneDir, ".pipelines");
-    pipelinesDir.mkdirs();
-
-    File fakeYaml = new File(pipelinesDir, "build.yaml");
-    fakeYaml.createNewFile();
+  void testThrowsWhenNoYamlFile() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/not-a-pipeline.txt", "text\n");
+    }
 
-    try (MockedStatic<GitCloneUtil> mockStatic = Mockito.mockStatic(GitCloneUtil.class)) {
-      mockStatic.when(() ->
-              GitCloneUtil.cloneRepository(eq(request.getRepo()), any(File.class)))
-          .thenReturn(fakeCloneDir);
+    Exception ex = assertThrows(IOException.class, () ->
+        service.cloneRepoAndLocatePipelineFile(request("main", null)));
 
-      ClonedPipelineInfo info = service.cloneRepoAndLocatePipelineFile(request);
+    assertTrue(ex.getMessage().contains("No YAML file found in"));
+    assertEquals(0, mountBaseDir.list().length);
+  }
 
-      assertTrue(info.getYamlPath().endsWith("build.yaml"));
-      assertNotNull(info.getUuid());
+  @Test
+  void testThrowsWhenBranchNotFound() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/pipeline.yaml", "name: p\n");
     }
 
-    // Cleanup
-    fakeYaml.delete();
-    pipelinesDir.delete();
-    fakeCloneDir.delete();
+    assertThrows(Exception.class, () ->
+        service.cloneRepoAndLocatePipelineFile(request("missing", null)));
   }
 
   @Test
-  void testThrowsWhenPipelineDirIsFile() throws Exception {
-    PipelineExecutionRequest request = new PipelineExecutionRequest(
-        UUID.randomUUID(),
-        "https://example.com/repo.git",
-        null,
-        "abc123",
-        false,
-        1,
-        null
-    );
-
-    File fakeCloneDir = new File("/tmp/fakeRepo-pipelines-not-dir");
-    fakeCloneDir.mkdirs();
+  void testReadsFromMirror() throws Exception {
+    GitMirrorCache mirrorCache = new GitMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE);
+    GitPipelineService mirrored = new GitPipelineService(mountBaseDir, mirrorCache);
+    RevCommit first;
+    try (Git git = initRepo()) {
+      first = commit(git, ".pipelines/pipeline.yaml", "name: first\n");
+      ClonedPipelineInfo initial = mirrored.cloneRepoAndLocatePipelineFile(request("main", null));
+      assertEquals("name: first\n", Files.readString(Path.of(initial.getYamlPath())));
+
+      commit(git, ".pipelines/pipeline.yaml", "name: second\n");
+    }
 
-    // Create a file named `.pipelines` instead of a directory
-    File pipelinesFile = new File(fakeCloneDir, ".pipelines");
-    pipelinesFile.createNewFile();
+    // the mirror is updated with the new commit and kept for later runs
+    ClonedPipelineInfo latest = mirrored.cloneRepoAndLocatePipelineFile(request("main", null));
+    assertEquals("name: second\n", Files.readString(Path.of(latest.getYamlPath())));
+    assertEquals(1, mirrorCache.getMirrorCount());
+    assertEquals(1, new File(mountBaseDir, latest.getUuid().toString()).list().length);
 
-    try (MockedStatic<GitCloneUtil> mockStatic = Mockito.mockStatic(GitCloneUtil.class)) {
-      mockStatic.when(() ->
-              GitCloneUtil.cloneRepository(eq(request.getRepo()), any(File.class)))
-          .thenReturn(fakeCloneDir);
+    // a commit the mirror holds is read as requested
+    ClonedPipelineInfo pinned = mirrored.cloneRepoAndLocatePipelineFile(
+        request("main", null, first.getName()));
+    assertEquals("name: first\n", Files.readString(Path.of(pinned.getYamlPath())));
+  }
 
-      Exception ex = assertThrows(IOException.class, () ->
-          service.cloneRepoAndLocatePipelineFile(request));
-      assertTrue(ex.getMessage().contains(".pipelines"));
+  @Test
+  void testMirrorThrowsWhenCommitNotFound() throws Exception {
+    GitPipelineService mirrored = new GitPipelineService(mountBaseDir,
+        new GitMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE));
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/pipeline.yaml", "name: p\n");
     }
 
-    // Cleanup
-    pipelinesFile.delete();
-    fakeCloneDir.delete();
+    // the tip of the branch is not read in place of the requested commit
+    Exception ex = assertThrows(IOException.class, () ->
+        mirrored.cloneRepoAndLocatePipelineFile(request("main", null, "abc123")));
+
+    assertTrue(ex.getMessage().contains("Commit not found"));
+    assertEquals(0, mountBaseDir.list().length);
   }
 
   @Test
-  void testThrowsWhenYamlFilesIsNull() throws Exception {
-    // Arrange: construct request with all required fields
-    PipelineExecutionRequest request = new PipelineExecutionRequest(
-        UUID.randomUUID(),
-        "https://example.com/repo.git",
-        null,          // no branch
-        "abc123",
-        false,
-        1,
-        null
-    );
+  void testFetchesRequestedCommit() throws Exception {
+    RevCommit tip;
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/pipeline.yaml", "name: first\n");
+      tip = commit(git, ".pipelines/pipeline.yaml", "name: second\n");
+    }
 
-    // Create fake cloned directory and a .pipelines directory (as a file to simulate failure)
-    File cloneDir = new File("/tmp/fakeRepo-yaml-null");
-    cloneDir.mkdirs();
+    ClonedPipelineInfo info = service.cloneRepoAndLocatePipelineFile(request("main", null, tip.getName()));
 
-    // Simulate a non-directory .pipelines entry to trigger the YAML search error
-    File pipelinesDir = new File(cloneDir, ".pipelines");
-    pipelinesDir.createNewFile(); // NOT a directory, will cause yamlFiles == null
+    assertEquals("name: second\n", Files.readString(Path.of(info.getYamlPath())));
+  }
 
-    try (MockedStatic<GitCloneUtil> mockStatic = Mockito.mockStatic(GitCloneUtil.class)) {
-      mockStatic.when(() ->
-              GitCloneUtil.cloneRepository(eq(request.getRepo()), any(File.class)))
-          .thenReturn(cloneDir);
+  @Test
+  void testThrowsWhenRequestedCommitNotFetched() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/pipeline.yaml", "name: p\n");
+    }
 
-      // Act + Assert with message inspection
-      Exception ex = assertThrows(IOException.class, () ->
-          service.cloneRepoAndLocatePipelineFile(request));
+    // an abbreviated commit other than the tip of the branch cannot be fetched
+    Exception ex = assertThrows(IOException.class, () ->
+        service.cloneRepoAndLocatePipelineFile(request("main", null, "abc123")));
 
-      // 👀 Print the actual exception message
-      System.out.println("❗ Exception message: " + ex.getMessage());
+    assertTrue(ex.getMessage().contains("Commit not found"));
+    assertEquals(0, mountBaseDir.list().length);
+  }
 
-      // Adjust this assertion once you see actual output
-      assertTrue(
-          ex.getMessage().toLowerCase().contains("yaml"),
-          "Expected message to mention missing YAML file"
-      );
+  @Test
+  void testFallsBackToFetchWhenMirrorFails() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, ".pipelines/pipeline.yaml", "name: p\n");
     }
+    GitMirrorCache mirrorCache = mock(GitMirrorCache.class);
+    when(mirrorCache.acquire(anyString(), any())).thenThrow(new IOException("disk full"));
+    GitPipelineService mirrored = new GitPipelineService(mountBaseDir, mirrorCache);
+
+    ClonedPipelineInfo info = mirrored.cloneRepoAndLocatePipelineFile(request("main", null));
 
-    // Cleanup
-    pipelinesDir.delete();
-    cloneDir.delete();
+    assertEquals("name: p\n", Files.readString(Path.of(info.getYamlPath())));
   }
 
   @Test
-  void testYamlFilesEmptyButNotNull() throws Exception {
-    PipelineExecutionRequest request = new PipelineExecutionRequest(
-        UUID.randomUUID(),
-        "https://example.com/repo.git",
-        null,
-        "abc123",
-        false,
-        1,
-        null
-    );
-
-    File cloneDir = new File("/tmp/fakeRepo-empty-nonyaml");
-    File pipelinesDir = new File(cloneDir, ".pipelines");
-    pipelinesDir.mkdirs();
-
-    // Create a file that does NOT match *.yaml or *.yml
-    File nonYaml = new File(pipelinesDir, "not-a-pipeline.txt");
-    nonYaml.createNewFile(); // will be filtered out
+  void testMirrorThrowsWhenNoPipelineDir() throws Exception {
+    try (Git git = initRepo()) {
+      commit(git, "README.md", "no pipelines\n");
+    }
+    GitPipelineService mirrored = new GitPipelineService(mountBaseDir,
+        new GitMirrorCache(tempDir.resolve("mirrors").toFile(), Long.MAX_VALUE));
 
-    try (MockedStatic<GitCloneUtil> mockStatic = Mockito.mockStatic(GitCloneUtil.class)) {
-      mockStatic.when(() ->
-              GitCloneUtil.cloneRepository(eq(request.getRepo()), any(File.class)))
-          .thenReturn(cloneDir);
+    Exception ex = assertThrows(IOException.class, () ->
+        mirrored.cloneRepoAndLocatePipelineFile(request("main", null)));
 
-      Exception ex = assertThrows(IOException.class, () ->
-          service.cloneRepoAndLocatePipelineFile(request));
+    assertTrue(ex.getMessage().contains(".pipelines"));
+    assertEquals(0, mountBaseDir.list().length);
+  }
 
-      assertTrue(
-          ex.getMessage().contains("No YAML file found in"),
-          "Expected message to mention missing YAML file"
-      );
-    }
+  private Git initRepo() throws Exception {
+    return Git.init().setDirectory(sourceDir).setInitialBranch("main").call();
+  }
 
-    // Cleanup
-    nonYaml.delete();
-    pipelinesDir.delete();
-    cloneDir.delete();
+  private RevCommit commit(Git git, String path, String content) throws Exception {
+    Path file = sourceDir.toPath().resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+    git.add().addFilepattern(".").call();
+    return git.commit()
+        .setMessage("Update " + path)
+        .setAuthor("test", "test@example.com")
+        .setCommitter("test", "test@example.com")
+        .setSign(false)
+        .call();
   }
 
+  private PipelineExecutionRequest request(String branch, String filePath) {
+    return request(branch, filePath, null);
+  }
 
+  private PipelineExecutionRequest request(String branch, String filePath, String commitHash) {
+    return new PipelineExecutionRequest(
+        UUID.randomUUID(),
+        "file://" + sourceDir.getAbsolutePath(),
+        branch,
+        commitHash,
+        false,
+        1,
+        filePath
+    );
+  }
 }
@@ -19,6 +19,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -259,6 +260,49 @@ public class PipelineDefinitionServiceTest {
         verify(jobScriptRepository, times(2)).saveScript(any(UUID.class), anyString());
     }
 
+    @Test
+    public void testCreatePipelineDefinition_TopLevelJobsLinkDependencies() {
+        // Arrange
+        Map<String, Object> config = new HashMap<>();
+        config.put("stages", List.of("build", "package"));
+
+        Map<String, Object> buildJar = new HashMap<>();
+        buildJar.put("name", "build-jar");
+        buildJar.put("stage", "build");
+
+        Map<String, Object> dockerize = new HashMap<>();
+        dockerize.put("name", "dockerize");
+        dockerize.put("stage", "package");
+        dockerize.put("dependencies", List.of("build-jar"));
+        config.put("jobs", List.of(buildJar, dockerize));
+
+        PipelineEntity pipeline = new PipelineEntity();
+        pipeline.setId(pipelineId);
+        when(pipelineRepository.findById(pipelineId)).thenReturn(Optional.of(pipeline));
+
+        StageEntity stage = new StageEntity();
+        stage.setId(UUID.randomUUID());
+        when(stageRepository.save(any())).thenReturn(stage);
+        when(stageRepository.existsById(any())).thenReturn(true);
+
+        JobEntity buildJarEntity = new JobEntity();
+        buildJarEntity.setId(UUID.randomUUID());
+        JobEntity dockerizeEntity = new JobEntity();
+        dockerizeEntity.setId(UUID.randomUUID());
+        when(jobRepository.save(any(JobEntity.class)))
+                .thenReturn(buildJarEntity)
+                .thenReturn(dockerizeEntity);
+        when(jobRepository.existsById(any(UUID.class))).thenReturn(true);
+
+        // Act
+        pipelineDefinitionService.createPipelineDefinition(pipelineId, config, "/root/path");
+
+        // Assert - the dependency crosses stages and is stored on the managed entity
+        verify(jobRepository, times(2)).save(any(JobEntity.class));
+        assertEquals(List.of(buildJarEntity.getId()), dockerizeEntity.getDependencies());
+        assertNull(buildJarEntity.getDependencies());
+    }
+
     @Test
     public void testCreatePipelineDefinition_TopLevelFormat() {
         // Arrange
@@ -369,6 +413,90 @@ public class PipelineDefinitionServiceTest {
         verifyNoInteractions(jobRepository);
     }
 
+    @Test
+    public void testCreateOrGetPipelineEntity_ReusesUnchangedDefinition() {
+        // Arrange
+        request = spy(request);
+        when(request.getPipelineId()).thenReturn(null);
+
+        PipelineEntity existingPipeline = new PipelineEntity();
+        existingPipeline.setId(UUID.randomUUID());
+        String definitionHash = pipelineDefinitionService.computeDefinitionHash(pipelineConfig, request.getRepo(),
+                request.getBranch(), request.getFilePath());
+        when(pipelineRepository.findFirstByDefinitionHashOrderByCreatedAtDesc(definitionHash))
+                .thenReturn(Optional.of(existingPipeline));
+
+        // Act
+        UUID result = pipelineDefinitionService.createOrGetPipelineEntity(request, pipelineConfig);
+
+        // Assert
+        assertEquals(existingPipeline.getId(), result);
+        verify(pipelineRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testCreatePipelineDefinition_UnchangedDefinitionWritesNothing() {
+        // Arrange
+        PipelineEntity pipeline = new PipelineEntity();
+        pipeline.setId(pipelineId);
+        pipeline.setRepositoryUrl(request.getRepo());
+        pipeline.setBranch(request.getBranch());
+        pipeline.setDefinitionHash(pipelineDefinitionService.computeDefinitionHash(pipelineConfig, request.getRepo(),
+                request.getBranch(), "/root/path"));
+        when(pipelineRepository.findById(pipelineId)).thenReturn(Optional.of(pipeline));
+
+        // Act
+        pipelineDefinitionService.createPipelineDefinition(pipelineId, pipelineConfig, "/root/path");
+
+        // Assert
+        verifyNoInteractions(stageRepository);
+        verifyNoInteractions(jobRepository);
+        verifyNoInteractions(jobScriptRepository);
+    }
+
+    @Test
+    public void testCreatePipelineDefinition_StoresDefinitionHash() {
+        // Arrange
+        Map<String, Object> config = new HashMap<>();
+        config.put("stages", List.of("build"));
+        config.put("jobs", List.of());
+
+        PipelineEntity pipeline = new PipelineEntity();
+        pipeline.setId(pipelineId);
+        pipeline.setDefinitionHash("outdated");
+        when(pipelineRepository.findById(pipelineId)).thenReturn(Optional.of(pipeline));
+
+        StageEntity stage = new StageEntity();
+        stage.setId(UUID.randomUUID());
+        when(stageRepository.save(any())).thenReturn(stage);
+        when(stageRepository.existsById(any())).thenReturn(true);
+
+        // Act
+        pipelineDefinitionService.createPipelineDefinition(pipelineId, config, "/root/path");
+
+        // Assert - the changed definition is written and marked with its new hash
+        verify(stageRepository).save(any(StageEntity.class));
+        assertEquals(pipelineDefinitionService.computeDefinitionHash(config, pipeline.getRepositoryUrl(),
+                pipeline.getBranch(), "/root/path"), pipeline.getDefinitionHash());
+    }
+
+    @Test
+    public void testComputeDefinitionHash_IgnoresKeyOrder() {
+        // Arrange
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("stages", pipelineConfig.get("stages"));
+        reordered.put("name", pipelineConfig.get("name"));
+
+        // Act
+        String hash = pipelineDefinitionService.computeDefinitionHash(pipelineConfig, "repo", "main", "/root/path");
+
+        // Assert
+        assertEquals(64, hash.length());
+        assertEquals(hash, pipelineDefinitionService.computeDefinitionHash(reordered, "repo", "main", "/root/path"));
+        assertNotEquals(hash, pipelineDefinitionService.computeDefinitionHash(pipelineConfig, "repo", "main", "/other"));
+        assertNotEquals(hash, pipelineDefinitionService.computeDefinitionHash(pipelineConfig, "repo", "dev", "/root/path"));
+    }
+
     @Test
     public void testExtractPipelineName_NameProvided() {
         // Arrange
@@ -1,14 +1,11 @@
 package edu.neu.cs6510.sp25.t1.backend.service.pipeline;
 
 import edu.neu.cs6510.sp25.t1.backend.database.entity.JobEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.StageEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.StageRepository;
 import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
@@ -32,10 +29,9 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -51,12 +47,6 @@ public class PipelineExecutionCreationServiceTest {
     @Mock
     private StageExecutionRepository stageExecutionRepository;
 
-    @Mock
-    private JobExecutionRepository jobExecutionRepository;
-
-    @Mock
-    private PipelineRepository pipelineRepository;
-
     @Mock
     private StageRepository stageRepository;
 
@@ -67,26 +57,17 @@ public class PipelineExecutionCreationServiceTest {
     private PipelineExecutionCreationService service;
 
     @Captor
-    private ArgumentCaptor<PipelineExecutionEntity> pipelineExecutionCaptor;
-
-    @Captor
-    private ArgumentCaptor<StageExecutionEntity> stageExecutionCaptor;
-
-    @Captor
-    private ArgumentCaptor<List<JobExecutionEntity>> jobExecutionsCaptor;
+    private ArgumentCaptor<List<StageExecutionEntity>> stageExecutionsCaptor;
 
     private PipelineExecutionRequest request;
     private UUID pipelineId;
-    private UUID stageId;
-    private UUID jobId;
     private Map<String, Object> pipelineConfig;
     private Queue<Queue<UUID>> stageQueue;
+    private Map<UUID, Set<UUID>> jobDependencies;
 
     @BeforeEach
     public void setUp() {
         pipelineId = UUID.randomUUID();
-        stageId = UUID.randomUUID();
-        jobId = UUID.randomUUID();
 
         // Create request
         UUID requestId = UUID.randomUUID();
@@ -113,6 +94,7 @@ public class PipelineExecutionCreationServiceTest {
 
         // Initialize stage queue
         stageQueue = new LinkedList<>();
+        jobDependencies = new HashMap<>();
     }
 
     @Test
@@ -140,18 +122,17 @@ public class PipelineExecutionCreationServiceTest {
         entity.setStatus(ExecutionStatus.PENDING);
         entity.setStartTime(Instant.now());
 
-        // Configure mock with specific behavior for this exact entity and ID
-        when(pipelineExecutionRepository.saveAndFlush(eq(entity))).thenReturn(entity);
-        when(pipelineExecutionRepository.findById(eq(entity.getId()))).thenReturn(Optional.of(entity));
+        when(pipelineExecutionRepository.save(eq(entity))).thenReturn(entity);
 
         // Act
         PipelineExecutionEntity result = service.savePipelineExecution(entity);
 
-        // Assert
+        // Assert - saved without an own flush or a read back
         assertNotNull(result);
         assertEquals(entity, result);
-        verify(pipelineExecutionRepository).saveAndFlush(eq(entity));
-        verify(pipelineExecutionRepository).findById(eq(entity.getId()));
+        verify(pipelineExecutionRepository).save(eq(entity));
+        verify(pipelineExecutionRepository, never()).saveAndFlush(any());
+        verify(pipelineExecutionRepository, never()).findById(any());
     }
 
     @Test
@@ -165,7 +146,7 @@ public class PipelineExecutionCreationServiceTest {
         entity.setStatus(ExecutionStatus.PENDING);
         entity.setStartTime(Instant.now());
 
-        when(pipelineExecutionRepository.saveAndFlush(any(PipelineExecutionEntity.class)))
+        when(pipelineExecutionRepository.save(any(PipelineExecutionEntity.class)))
                 .thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
@@ -174,186 +155,140 @@ public class PipelineExecutionCreationServiceTest {
         });
 
         assertTrue(exception.getMessage().contains("Failed to save pipeline execution"));
-        verify(pipelineExecutionRepository).saveAndFlush(any(PipelineExecutionEntity.class));
+        verify(pipelineExecutionRepository).save(any(PipelineExecutionEntity.class));
     }
 
     @Test
     public void testCreateAndSaveStageExecutions() {
         // Arrange
-        UUID pipelineExecutionId = UUID.randomUUID();
+        PipelineExecutionEntity pipelineExecution = createPipelineExecution();
 
-        // Setup pipeline execution entity
-        PipelineExecutionEntity pipelineExecution = new PipelineExecutionEntity();
-        pipelineExecution.setId(pipelineExecutionId);
-        pipelineExecution.setPipelineId(pipelineId);
-        pipelineExecution.setCommitHash("abc123");
-        pipelineExecution.setLocal(false);
-
-        when(pipelineExecutionRepository.findById(eq(pipelineExecutionId))).thenReturn(Optional.of(pipelineExecution));
-
-        // Setup stage entities
+        // Setup stage entities, returned out of order
         List<StageEntity> stageEntities = createStageEntities(3);
-        when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(stageEntities);
+        when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(List.of(
+                stageEntities.get(2), stageEntities.get(0), stageEntities.get(1)));
 
         // Setup job entities for each stage
+        List<JobEntity> jobEntities = new ArrayList<>();
         for (StageEntity stage : stageEntities) {
-            List<JobEntity> jobEntities = createJobEntities(2, stage.getId());
-            when(jobRepository.findByStageId(eq(stage.getId()))).thenReturn(jobEntities);
-
-            // Make sure existsById returns true for all job IDs
-            for (JobEntity job : jobEntities) {
-                when(jobRepository.existsById(eq(job.getId()))).thenReturn(true);
-            }
+            jobEntities.addAll(createJobEntities(2, stage.getId()));
         }
-
-        // Setup stage execution responses
-        when(stageExecutionRepository.saveAndFlush(any(StageExecutionEntity.class)))
-                .thenAnswer(invocation -> {
-                    StageExecutionEntity stage = invocation.getArgument(0);
-                    if (stage.getId() == null) {
-                        stage.setId(UUID.randomUUID());
-                    }
-                    return stage;
-                });
-
-        // Setup job execution responses
-        when(jobExecutionRepository.saveAll(anyList()))
-                .thenAnswer(invocation -> {
-                    List<JobExecutionEntity> jobs = invocation.getArgument(0);
-                    return jobs.stream()
-                            .peek(job -> {
-                                if (job.getId() == null) {
-                                    job.setId(UUID.randomUUID());
-                                }
-                            })
-                            .collect(Collectors.toList());
-                });
+        when(jobRepository.findByStageIdIn(anyCollection())).thenReturn(jobEntities);
+        stubSaveStageExecutions();
 
         // Act
-        service.createAndSaveStageExecutions(pipelineExecutionId, pipelineConfig, stageQueue);
+        service.createAndSaveStageExecutions(pipelineExecution, pipelineConfig, stageQueue, jobDependencies);
 
-        // Assert
-        verify(pipelineExecutionRepository).findById(eq(pipelineExecutionId));
+        // Assert - two queries, one batched save and one flush
         verify(stageRepository).findByPipelineId(eq(pipelineId));
-        verify(stageExecutionRepository, times(3)).saveAndFlush(any(StageExecutionEntity.class));
-        verify(jobRepository, times(3)).flush();
-        verify(jobExecutionRepository, times(3)).saveAll(anyList());
-        verify(jobExecutionRepository, times(3)).flush();
+        verify(jobRepository).findByStageIdIn(anyCollection());
+        verify(stageExecutionRepository).saveAll(stageExecutionsCaptor.capture());
+        verify(stageExecutionRepository).flush();
+        verify(jobRepository, never()).findByStageId(any());
+        verify(jobRepository, never()).existsById(any());
+        verify(stageExecutionRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(pipelineExecutionRepository);
+
+        // The stage executions follow the stage order and carry their job executions
+        List<StageExecutionEntity> saved = stageExecutionsCaptor.getValue();
+        assertEquals(3, saved.size());
+        for (int order = 0; order < 3; order++) {
+            StageExecutionEntity stageExecution = saved.get(order);
+            assertEquals(stageEntities.get(order).getId(), stageExecution.getStageId());
+            assertEquals(order, stageExecution.getExecutionOrder());
+            assertEquals(2, stageExecution.getJobs().size());
+            assertEquals(2, stageExecution.getJobCounts().getPending());
+            stageExecution.getJobs().forEach(job -> assertSame(stageExecution, job.getStageExecution()));
+        }
+        assertEquals(6, pipelineExecution.getJobCounts().getPending());
 
         // Verify stage queue size
         assertEquals(3, stageQueue.size());
+        assertEquals(saved.get(0).getJobs().get(0).getId(), stageQueue.peek().peek());
     }
 
     @Test
-    public void testCreateAndSaveStageExecutions_NoStages() {
+    public void testCreateAndSaveStageExecutions_DagSchedulingMergesStagesAndMapsDependencies() {
         // Arrange
-        UUID pipelineExecutionId = UUID.randomUUID();
+        PipelineExecutionEntity pipelineExecution = createPipelineExecution();
 
-        // Setup pipeline execution entity
-        PipelineExecutionEntity pipelineExecution = new PipelineExecutionEntity();
-        pipelineExecution.setId(pipelineExecutionId);
-        pipelineExecution.setPipelineId(pipelineId);
+        List<StageEntity> stageEntities = createStageEntities(2);
+        when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(stageEntities);
+
+        // The test job in the second stage depends on the build job in the first stage
+        JobEntity buildJob = createJobEntities(1, stageEntities.get(0).getId()).get(0);
+        JobEntity testJob = createJobEntities(1, stageEntities.get(1).getId()).get(0);
+        testJob.setDependencies(List.of(buildJob.getId()));
+        when(jobRepository.findByStageIdIn(anyCollection())).thenReturn(List.of(buildJob, testJob));
+        stubSaveStageExecutions();
+
+        pipelineConfig.put(PipelineExecutionCreationService.SCHEDULING_KEY, "dag");
+
+        // Act
+        service.createAndSaveStageExecutions(pipelineExecution, pipelineConfig, stageQueue, jobDependencies);
+
+        // Assert - a single group holding the jobs of both stages
+        assertEquals(1, stageQueue.size());
+        List<UUID> jobExecutionIds = List.copyOf(stageQueue.peek());
+        assertEquals(2, jobExecutionIds.size());
+        assertEquals(Map.of(jobExecutionIds.get(1), Set.of(jobExecutionIds.get(0))), jobDependencies);
+    }
+
+    @Test
+    public void testCreateAndSaveStageExecutions_StageWithoutJobs() {
+        // Arrange
+        PipelineExecutionEntity pipelineExecution = createPipelineExecution();
+        when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(createStageEntities(1));
+        when(jobRepository.findByStageIdIn(anyCollection())).thenReturn(List.of());
+        stubSaveStageExecutions();
+
+        // Act
+        service.createAndSaveStageExecutions(pipelineExecution, pipelineConfig, stageQueue, jobDependencies);
+
+        // Assert
+        assertEquals(1, stageQueue.size());
+        assertTrue(stageQueue.peek().isEmpty());
+        assertEquals(0, pipelineExecution.getJobCounts().getPending());
+    }
 
-        when(pipelineExecutionRepository.findById(eq(pipelineExecutionId))).thenReturn(Optional.of(pipelineExecution));
+    @Test
+    public void testCreateAndSaveStageExecutions_NoStages() {
+        // Arrange
+        PipelineExecutionEntity pipelineExecution = createPipelineExecution();
         when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(Collections.emptyList());
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            service.createAndSaveStageExecutions(pipelineExecutionId, pipelineConfig, stageQueue);
+            service.createAndSaveStageExecutions(pipelineExecution, pipelineConfig, stageQueue, jobDependencies);
         });
 
         assertTrue(exception.getMessage().contains("Pipeline stage definitions not found"));
-        verify(pipelineExecutionRepository).findById(eq(pipelineExecutionId));
         verify(stageRepository).findByPipelineId(eq(pipelineId));
+        verify(stageExecutionRepository, never()).saveAll(anyList());
     }
 
     @Test
     public void testCreateAndSaveStageExecutions_StageExecutionFails() {
         // Arrange
-        UUID pipelineExecutionId = UUID.randomUUID();
-
-        // Setup pipeline execution entity
-        PipelineExecutionEntity pipelineExecution = new PipelineExecutionEntity();
-        pipelineExecution.setId(pipelineExecutionId);
-        pipelineExecution.setPipelineId(pipelineId);
-        pipelineExecution.setCommitHash("abc123");
-        pipelineExecution.setLocal(false);
-
-        when(pipelineExecutionRepository.findById(eq(pipelineExecutionId))).thenReturn(Optional.of(pipelineExecution));
+        PipelineExecutionEntity pipelineExecution = createPipelineExecution();
 
         // Setup stage entities
         List<StageEntity> stageEntities = createStageEntities(1);
         when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(stageEntities);
+        when(jobRepository.findByStageIdIn(anyCollection())).thenReturn(List.of());
 
         // Setup stage execution to fail
-        when(stageExecutionRepository.saveAndFlush(any(StageExecutionEntity.class)))
+        when(stageExecutionRepository.saveAll(anyList()))
                 .thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            service.createAndSaveStageExecutions(pipelineExecutionId, pipelineConfig, stageQueue);
+            service.createAndSaveStageExecutions(pipelineExecution, pipelineConfig, stageQueue, jobDependencies);
         });
 
         assertTrue(exception.getMessage().contains("Database error"));
-        verify(pipelineExecutionRepository).findById(eq(pipelineExecutionId));
-        verify(stageRepository).findByPipelineId(eq(pipelineId));
-        verify(stageExecutionRepository).saveAndFlush(any(StageExecutionEntity.class));
-    }
-
-    @Test
-    public void testVerifyEntitiesSaved_AllExist() {
-        // Arrange
-        UUID pipelineExecutionId = UUID.randomUUID();
-
-        when(pipelineRepository.existsById(eq(pipelineId))).thenReturn(true);
-        when(pipelineExecutionRepository.existsById(eq(pipelineExecutionId))).thenReturn(true);
-
-        List<StageEntity> stages = createStageEntities(2);
-        when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(stages);
-
-        List<JobEntity> jobs1 = createJobEntities(2, stages.get(0).getId());
-        List<JobEntity> jobs2 = createJobEntities(1, stages.get(1).getId());
-        when(jobRepository.findByStageId(eq(stages.get(0).getId()))).thenReturn(jobs1);
-        when(jobRepository.findByStageId(eq(stages.get(1).getId()))).thenReturn(jobs2);
-
-        List<StageExecutionEntity> stageExecutions = createStageExecutionEntities(2, pipelineExecutionId);
-        when(stageExecutionRepository.findByPipelineExecutionId(eq(pipelineExecutionId))).thenReturn(stageExecutions);
-
-        List<JobExecutionEntity> jobExecutions1 = createJobExecutionEntities(2, stageExecutions.get(0));
-        List<JobExecutionEntity> jobExecutions2 = createJobExecutionEntities(1, stageExecutions.get(1));
-        when(jobExecutionRepository.findByStageExecution(eq(stageExecutions.get(0)))).thenReturn(jobExecutions1);
-        when(jobExecutionRepository.findByStageExecution(eq(stageExecutions.get(1)))).thenReturn(jobExecutions2);
-
-        // Act - Should not throw any exceptions
-        service.verifyEntitiesSaved(pipelineId, pipelineExecutionId);
-
-        // Assert
-        verify(pipelineRepository).existsById(eq(pipelineId));
-        verify(pipelineExecutionRepository).existsById(eq(pipelineExecutionId));
-        verify(stageRepository).findByPipelineId(eq(pipelineId));
-        verify(jobRepository, times(2)).findByStageId(any(UUID.class));
-        verify(stageExecutionRepository).findByPipelineExecutionId(eq(pipelineExecutionId));
-        verify(jobExecutionRepository, times(2)).findByStageExecution(any(StageExecutionEntity.class));
-    }
-
-    @Test
-    public void testVerifyEntitiesSaved_PipelineDoesNotExist() {
-        // Arrange
-        UUID pipelineExecutionId = UUID.randomUUID();
-
-        when(pipelineRepository.existsById(eq(pipelineId))).thenReturn(false);
-        when(pipelineExecutionRepository.existsById(eq(pipelineExecutionId))).thenReturn(true);
-        when(stageRepository.findByPipelineId(eq(pipelineId))).thenReturn(Collections.emptyList());
-        when(stageExecutionRepository.findByPipelineExecutionId(eq(pipelineExecutionId))).thenReturn(Collections.emptyList());
-
-        // Act - Should log an error but not throw an exception
-        service.verifyEntitiesSaved(pipelineId, pipelineExecutionId);
-
-        // Assert
-        verify(pipelineRepository).existsById(eq(pipelineId));
-        verify(pipelineExecutionRepository).existsById(eq(pipelineExecutionId));
-        verify(stageRepository).findByPipelineId(eq(pipelineId));
-        verify(stageExecutionRepository).findByPipelineExecutionId(eq(pipelineExecutionId));
+        verify(stageExecutionRepository).saveAll(anyList());
+        assertTrue(stageQueue.isEmpty());
     }
 
     // Helper methods to create test entities
@@ -385,32 +320,25 @@ public class PipelineExecutionCreationServiceTest {
         return jobs;
     }
 
-    private List<StageExecutionEntity> createStageExecutionEntities(int count, UUID pipelineExecutionId) {
-        List<StageExecutionEntity> stageExecutions = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            StageExecutionEntity stageExecution = new StageExecutionEntity();
-            stageExecution.setId(UUID.randomUUID());
-            stageExecution.setPipelineExecutionId(pipelineExecutionId);
-            stageExecution.setStageId(UUID.randomUUID());
-            stageExecution.setExecutionOrder(i);
-            stageExecution.setStatus(ExecutionStatus.PENDING);
-            stageExecution.setStartTime(Instant.now());
-            stageExecutions.add(stageExecution);
-        }
-        return stageExecutions;
+    private PipelineExecutionEntity createPipelineExecution() {
+        PipelineExecutionEntity pipelineExecution = new PipelineExecutionEntity();
+        pipelineExecution.setId(UUID.randomUUID());
+        pipelineExecution.setPipelineId(pipelineId);
+        pipelineExecution.setCommitHash("abc123");
+        pipelineExecution.setLocal(false);
+        return pipelineExecution;
     }
 
-    private List<JobExecutionEntity> createJobExecutionEntities(int count, StageExecutionEntity stageExecution) {
-        List<JobExecutionEntity> jobExecutions = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            JobExecutionEntity jobExecution = new JobExecutionEntity();
-            jobExecution.setId(UUID.randomUUID());
-            jobExecution.setStageExecution(stageExecution);
-            jobExecution.setJobId(UUID.randomUUID());
-            jobExecution.setStatus(ExecutionStatus.PENDING);
-            jobExecution.setStartTime(Instant.now());
-            jobExecutions.add(jobExecution);
-        }
-        return jobExecutions;
+    // Assigns IDs like persisting does, cascading from the stage executions to their job executions
+    private void stubSaveStageExecutions() {
+        when(stageExecutionRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> {
+                    List<StageExecutionEntity> stages = invocation.getArgument(0);
+                    for (StageExecutionEntity stage : stages) {
+                        stage.setId(UUID.randomUUID());
+                        stage.getJobs().forEach(job -> job.setId(UUID.randomUUID()));
+                    }
+                    return stages;
+                });
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,12 @@
 package edu.neu.cs6510.sp25.t1.backend.service.pipeline;
 
 import edu.neu.cs6510.sp25.t1.backend.utils.YamlPipelineUtils;
+import edu.neu.cs6510.sp25.t1.common.api.request.PipelineExecutionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -14,18 +15,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
 public class YamlConfigurationServiceTest {
 
-    @InjectMocks
     private YamlConfigurationService yamlConfigurationService;
 
     @TempDir
@@ -37,6 +40,8 @@ public class YamlConfigurationServiceTest {
 
     @BeforeEach
     public void setUp() throws IOException {
+        yamlConfigurationService = new YamlConfigurationService(2);
+
         // Create a valid YAML file
         validYamlFile = tempDir.resolve("valid-pipeline.yaml");
         Files.writeString(validYamlFile, "name: test-pipeline\nstages:\n  - build\n  - test");
@@ -202,4 +207,99 @@ public class YamlConfigurationServiceTest {
             assertEquals(errorMessage, exception.getCause().getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParseAndValidatePipelineYaml_CachedPerCommit() {
+        // Arrange
+        Map<String, Object> expectedConfig = new HashMap<>();
+        expectedConfig.put("name", "test-pipeline");
+        PipelineExecutionRequest request = request("abc123");
+
+        try (MockedStatic<YamlPipelineUtils> mockedStatic = mockStatic(YamlPipelineUtils.class)) {
+            mockedStatic.when(() -> YamlPipelineUtils.readPipelineYaml(anyString()))
+                    .thenReturn(expectedConfig);
+
+            // Act - a re-run clones into another directory but reads the same commit
+            Map<String, Object> first = yamlConfigurationService.parseAndValidatePipelineYaml(request, "/mnt/pipeline/a.yaml");
+            Map<String, Object> second = yamlConfigurationService.parseAndValidatePipelineYaml(request, "/mnt/pipeline/b.yaml");
+
+            // Assert
+            assertEquals(expectedConfig, first);
+            assertSame(first, second);
+            mockedStatic.verify(() -> YamlPipelineUtils.readPipelineYaml(anyString()), times(1));
+            mockedStatic.verify(() -> YamlPipelineUtils.validatePipelineConfig(any(Map.class)), times(1));
+            assertEquals(1, yamlConfigurationService.getCacheHits());
+            assertEquals(1, yamlConfigurationService.getCacheMisses());
+        }
+    }
+
+    @Test
+    public void testParseAndValidatePipelineYaml_NoCommitIsNotCached() {
+        // Arrange
+        PipelineExecutionRequest request = request(null);
+
+        try (MockedStatic<YamlPipelineUtils> mockedStatic = mockStatic(YamlPipelineUtils.class)) {
+            mockedStatic.when(() -> YamlPipelineUtils.readPipelineYaml(anyString()))
+                    .thenReturn(new HashMap<>());
+
+            // Act
+            yamlConfigurationService.parseAndValidatePipelineYaml(request, validYamlFile.toString());
+            yamlConfigurationService.parseAndValidatePipelineYaml(request, validYamlFile.toString());
+
+            // Assert - the branch may have moved between the runs
+            mockedStatic.verify(() -> YamlPipelineUtils.readPipelineYaml(anyString()), times(2));
+            assertEquals(0, yamlConfigurationService.getCacheSize());
+        }
+    }
+
+    @Test
+    public void testParseAndValidatePipelineYaml_InvalidConfigIsNotCached() {
+        // Arrange
+        PipelineExecutionRequest request = request("abc123");
+
+        try (MockedStatic<YamlPipelineUtils> mockedStatic = mockStatic(YamlPipelineUtils.class)) {
+            mockedStatic.when(() -> YamlPipelineUtils.readPipelineYaml(anyString()))
+                    .thenReturn(new HashMap<>());
+            mockedStatic.when(() -> YamlPipelineUtils.validatePipelineConfig(any(Map.class)))
+                    .thenThrow(new IllegalArgumentException("Missing required fields"));
+
+            // Act & Assert
+            assertThrows(RuntimeException.class,
+                    () -> yamlConfigurationService.parseAndValidatePipelineYaml(request, validYamlFile.toString()));
+            assertEquals(0, yamlConfigurationService.getCacheSize());
+        }
+    }
+
+    @Test
+    public void testParseAndValidatePipelineYaml_EvictsLeastRecentlyUsed() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        yamlConfigurationService.bindTo(registry);
+
+        try (MockedStatic<YamlPipelineUtils> mockedStatic = mockStatic(YamlPipelineUtils.class)) {
+            mockedStatic.when(() -> YamlPipelineUtils.readPipelineYaml(anyString()))
+                    .thenAnswer(invocation -> new HashMap<>());
+
+            // Act - the cache holds two entries, "first" is used again before "third" is added
+            yamlConfigurationService.parseAndValidatePipelineYaml(request("first"), validYamlFile.toString());
+            yamlConfigurationService.parseAndValidatePipelineYaml(request("second"), validYamlFile.toString());
+            yamlConfigurationService.parseAndValidatePipelineYaml(request("first"), validYamlFile.toString());
+            yamlConfigurationService.parseAndValidatePipelineYaml(request("third"), validYamlFile.toString());
+            yamlConfigurationService.parseAndValidatePipelineYaml(request("first"), validYamlFile.toString());
+            yamlConfigurationService.parseAndValidatePipelineYaml(request("second"), validYamlFile.toString());
+
+            // Assert
+            mockedStatic.verify(() -> YamlPipelineUtils.readPipelineYaml(anyString()), times(4));
+            assertEquals(2, yamlConfigurationService.getCacheSize());
+            assertEquals(2.0, registry.get("pipeline.yaml.cache.gets").tag("result", "hit").functionCounter().count());
+            assertEquals(4.0, registry.get("pipeline.yaml.cache.gets").tag("result", "miss").functionCounter().count());
+            assertEquals(2.0, registry.get("pipeline.yaml.cache.evictions").functionCounter().count());
+            assertEquals(2.0, registry.get("pipeline.yaml.cache.size").gauge().value());
+        }
+    }
+
+    private PipelineExecutionRequest request(String commitHash) {
+        return new PipelineExecutionRequest(UUID.randomUUID(), "https://github.com/test/repo", "main", commitHash,
+                false, 1, ".pipelines/pipeline.yaml");
+    }
+}
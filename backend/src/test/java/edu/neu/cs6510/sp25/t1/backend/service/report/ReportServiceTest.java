@@ -2,10 +2,12 @@
 package edu.neu.cs6510.sp25.t1.backend.service.report;
 
 
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
 import edu.neu.cs6510.sp25.t1.common.dto.JobReportDTO;
@@ -25,6 +27,7 @@ import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Method;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -38,6 +41,7 @@ class ReportServiceTest {
   private PipelineExecutionRepository pipelineExecutionRepository;
   private StageExecutionRepository stageExecutionRepository;
   private JobExecutionRepository jobExecutionRepository;
+  private JobRepository jobRepository;
   private ReportService reportService;
 
   @BeforeEach
@@ -45,11 +49,13 @@ class ReportServiceTest {
     pipelineExecutionRepository = mock(PipelineExecutionRepository.class);
     stageExecutionRepository = mock(StageExecutionRepository.class);
     jobExecutionRepository = mock(JobExecutionRepository.class);
+    jobRepository = mock(JobRepository.class);
 
     reportService = new ReportService(
         pipelineExecutionRepository,
         stageExecutionRepository,
-        jobExecutionRepository
+        jobExecutionRepository,
+        jobRepository
     );
   }
 
@@ -343,6 +349,84 @@ class ReportServiceTest {
     assertEquals(1, stageReports.size());
     assertEquals("Build", stageReports.get(0).getName());
     assertTrue(stageReports.get(0).getJobs().isEmpty());
+    assertTrue(report.getCriticalPath().isEmpty());
+  }
+
+  @Test
+  void testCalculateCriticalPath_followsStageBarrierAndDependencies() {
+    StageExecutionEntity build = stageExecution(0);
+    StageExecutionEntity deploy = stageExecution(1);
+
+    JobEntity lint = job("lint");
+    JobEntity compile = job("compile");
+    JobEntity dockerize = job("dockerize");
+    JobEntity push = job("push", dockerize);
+    when(jobExecutionRepository.findByStageExecutionIn(List.of(build, deploy))).thenReturn(List.of(
+        jobExecution(lint, build, "10:00", "10:02"),
+        jobExecution(compile, build, "10:00", "10:04"),
+        jobExecution(dockerize, deploy, "10:04", "10:06"),
+        jobExecution(push, deploy, "10:06", "10:09")));
+    when(jobRepository.findByIdIn(any())).thenReturn(List.of(lint, compile, dockerize, push));
+
+    assertEquals(List.of("compile", "dockerize", "push"),
+        invokeCriticalPath(new PipelineExecutionEntity(), List.of(build, deploy)));
+  }
+
+  @Test
+  void testCalculateCriticalPath_dagSchedulingFollowsDependenciesOnly() {
+    StageExecutionEntity build = stageExecution(0);
+    StageExecutionEntity deploy = stageExecution(1);
+
+    JobEntity compile = job("compile");
+    JobEntity docs = job("docs");
+    JobEntity publish = job("publish", compile);
+    when(jobExecutionRepository.findByStageExecutionIn(List.of(build, deploy))).thenReturn(List.of(
+        jobExecution(compile, build, "10:00", "10:02"),
+        jobExecution(docs, build, "10:00", "10:05"),
+        jobExecution(publish, deploy, "10:06", "10:09")));
+    when(jobRepository.findByIdIn(any())).thenReturn(List.of(compile, docs, publish));
+
+    PipelineExecutionEntity dagExecution = new PipelineExecutionEntity();
+    dagExecution.setDagScheduling(true);
+    assertEquals(List.of("compile", "publish"), invokeCriticalPath(dagExecution, List.of(build, deploy)));
+  }
+
+  private StageExecutionEntity stageExecution(int executionOrder) {
+    StageExecutionEntity stage = new StageExecutionEntity();
+    stage.setId(UUID.randomUUID());
+    stage.setExecutionOrder(executionOrder);
+    return stage;
+  }
+
+  private JobEntity job(String name, JobEntity... dependencies) {
+    JobEntity job = new JobEntity();
+    job.setId(UUID.randomUUID());
+    job.setName(name);
+    job.setDependencies(Arrays.stream(dependencies).map(JobEntity::getId).toList());
+    return job;
+  }
+
+  private JobExecutionEntity jobExecution(JobEntity job, StageExecutionEntity stage, String start, String end) {
+    JobExecutionEntity execution = new JobExecutionEntity();
+    execution.setId(UUID.randomUUID());
+    execution.setJobId(job.getId());
+    execution.setStageExecution(stage);
+    execution.setStartTime(Instant.parse("2024-04-01T" + start + ":00Z"));
+    execution.setCompletionTime(Instant.parse("2024-04-01T" + end + ":00Z"));
+    return execution;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> invokeCriticalPath(PipelineExecutionEntity pipelineExecution,
+      List<StageExecutionEntity> stages) {
+    try {
+      Method method = ReportService.class.getDeclaredMethod("calculateCriticalPath",
+          PipelineExecutionEntity.class, List.class);
+      method.setAccessible(true);
+      return (List<String>) method.invoke(reportService, pipelineExecution, stages);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
   }
 
 
@@ -564,6 +648,22 @@ class ReportServiceTest {
     assertEquals(ExecutionStatus.PENDING, result);
   }
 
+  @Test
+  void testPipelineStatus_prefersRolledUpStatusOfExecution() throws Exception {
+    PipelineExecutionEntity execution = new PipelineExecutionEntity();
+    execution.setStatus(ExecutionStatus.RUNNING);
+    StageExecutionEntity stage = new StageExecutionEntity();
+    stage.setStatus(ExecutionStatus.SUCCESS);
+
+    Method method = ReportService.class.getDeclaredMethod("resolvePipelineStatus",
+        PipelineExecutionEntity.class, List.class);
+    method.setAccessible(true);
+
+    assertEquals(ExecutionStatus.RUNNING, method.invoke(reportService, execution, List.of(stage)));
+    execution.setStatus(null);
+    assertEquals(ExecutionStatus.SUCCESS, method.invoke(reportService, execution, List.of(stage)));
+  }
+
   private ExecutionStatus invokeStatusCalculation(List<StageExecutionEntity> stages) {
     try {
       Method method = ReportService.class.getDeclaredMethod("calculatePipelineStatus", List.class);
@@ -0,0 +1,173 @@
+package edu.neu.cs6510.sp25.t1.backend.service.status;
+
+import edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RunStateCacheTest {
+
+  private static final Instant START = Instant.parse("2025-03-01T10:00:00Z");
+
+  private Clock clock;
+  private RunStateCache cache;
+
+  private final UUID pipelineExecutionId = UUID.randomUUID();
+  private final UUID buildStageId = UUID.randomUUID();
+  private final UUID testStageId = UUID.randomUUID();
+  private final UUID compileJobId = UUID.randomUUID();
+  private final UUID lintJobId = UUID.randomUUID();
+  private final UUID unitJobId = UUID.randomUUID();
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(START);
+    cache = new RunStateCache(Duration.ofMinutes(5), Duration.ofHours(2), clock);
+  }
+
+  @Test
+  void onJobStatus_rollsUpStageAndPipeline() {
+    cache.register(pendingRun(pipelineExecutionId));
+
+    cache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS);
+    List<JobStatusRow> rows = cache.getRun(pipelineExecutionId).orElseThrow();
+
+    assertEquals(ExecutionStatus.RUNNING, rows.get(0).pipelineExecutionStatus());
+    assertEquals(ExecutionStatus.RUNNING, rows.get(0).stageExecutionStatus());
+    assertEquals(ExecutionStatus.SUCCESS, rows.get(0).jobExecutionStatus());
+    assertEquals(ExecutionStatus.PENDING, rows.get(2).stageExecutionStatus());
+
+    cache.onJobStatus(lintJobId, ExecutionStatus.FAILED);
+    rows = cache.getRun(pipelineExecutionId).orElseThrow();
+
+    assertEquals(ExecutionStatus.FAILED, rows.get(0).stageExecutionStatus());
+    assertEquals(ExecutionStatus.FAILED, rows.get(2).pipelineExecutionStatus());
+  }
+
+  @Test
+  void onJobStatus_neverMovesFinishedJobBack() {
+    cache.register(pendingRun(pipelineExecutionId));
+    cache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS);
+
+    assertTrue(cache.onJobStatus(compileJobId, ExecutionStatus.RUNNING).isEmpty());
+    assertEquals(ExecutionStatus.SUCCESS,
+        cache.getRun(pipelineExecutionId).orElseThrow().get(0).jobExecutionStatus());
+  }
+
+  @Test
+  void onJobStatus_ignoresUnknownJobs() {
+    cache.register(pendingRun(pipelineExecutionId));
+
+    assertTrue(cache.onJobStatus(UUID.randomUUID(), ExecutionStatus.SUCCESS).isEmpty());
+  }
+
+  @Test
+  void finishedRunIsEvictedAfterRetention() {
+    cache.register(pendingRun(pipelineExecutionId));
+    cache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS);
+    cache.onJobStatus(lintJobId, ExecutionStatus.SUCCESS);
+    cache.onJobStatus(unitJobId, ExecutionStatus.SUCCESS);
+
+    when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(4)));
+    assertEquals(ExecutionStatus.SUCCESS,
+        cache.getLatestRun("demo").orElseThrow().get(0).pipelineExecutionStatus());
+
+    when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(5)));
+    assertTrue(cache.getLatestRun("demo").isEmpty());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void activeRunIsEvictedOnlyAfterIdleTimeout() {
+    cache.register(pendingRun(pipelineExecutionId));
+
+    when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(90)));
+    cache.evictExpired();
+    assertTrue(cache.getRun(pipelineExecutionId).isPresent());
+    cache.onJobStatus(compileJobId, ExecutionStatus.RUNNING);
+
+    // the idle time counts from the last change
+    when(clock.instant()).thenReturn(START.plus(Duration.ofHours(3)));
+    cache.evictExpired();
+    assertTrue(cache.getRun(pipelineExecutionId).isPresent());
+
+    when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(210)));
+    cache.evictExpired();
+    assertTrue(cache.getRun(pipelineExecutionId).isEmpty());
+    assertTrue(cache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS).isEmpty());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void registerReplacesLatestRunOfPipeline() {
+    UUID nextExecutionId = UUID.randomUUID();
+    cache.register(pendingRun(pipelineExecutionId));
+
+    cache.register(List.of(new JobStatusRow("demo", nextExecutionId, ExecutionStatus.PENDING, "build",
+        UUID.randomUUID(), ExecutionStatus.PENDING, "compile", UUID.randomUUID(), ExecutionStatus.PENDING)));
+
+    assertEquals(nextExecutionId, cache.getLatestRun("demo").orElseThrow().get(0).pipelineExecutionId());
+    // the earlier run is still active and keeps receiving its events
+    assertTrue(cache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS).isPresent());
+  }
+
+  @Test
+  void loadKeepsLatestRunOfPipeline() {
+    UUID olderExecutionId = UUID.randomUUID();
+    cache.register(pendingRun(pipelineExecutionId));
+
+    cache.load(List.of(new JobStatusRow("demo", olderExecutionId, ExecutionStatus.SUCCESS, "build",
+        UUID.randomUUID(), ExecutionStatus.SUCCESS, "compile", UUID.randomUUID(), ExecutionStatus.SUCCESS)));
+
+    assertEquals(pipelineExecutionId, cache.getLatestRun("demo").orElseThrow().get(0).pipelineExecutionId());
+    assertTrue(cache.isFinished(olderExecutionId));
+    assertFalse(cache.isFinished(pipelineExecutionId));
+  }
+
+  @Test
+  void listenersReceiveUpdatedRows() {
+    List<JobStatusRow> changes = new ArrayList<>();
+    List<Boolean> finished = new ArrayList<>();
+    cache.addListener((row, runFinished) -> {
+      changes.add(row);
+      finished.add(runFinished);
+    });
+    cache.register(pendingRun(pipelineExecutionId));
+
+    cache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS);
+    cache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS);
+    cache.onJobStatus(lintJobId, ExecutionStatus.SUCCESS);
+    cache.onJobStatus(unitJobId, ExecutionStatus.SUCCESS);
+
+    assertEquals(3, changes.size());
+    assertEquals(compileJobId, changes.get(0).jobExecutionId());
+    assertEquals(ExecutionStatus.RUNNING, changes.get(0).stageExecutionStatus());
+    assertEquals(ExecutionStatus.SUCCESS, changes.get(1).stageExecutionStatus());
+    assertEquals(ExecutionStatus.SUCCESS, changes.get(2).pipelineExecutionStatus());
+    assertEquals(List.of(false, false, true), finished);
+  }
+
+  private List<JobStatusRow> pendingRun(UUID executionId) {
+    return List.of(
+        new JobStatusRow("demo", executionId, ExecutionStatus.PENDING, "build", buildStageId,
+            ExecutionStatus.PENDING, "compile", compileJobId, ExecutionStatus.PENDING),
+        new JobStatusRow("demo", executionId, ExecutionStatus.PENDING, "build", buildStageId,
+            ExecutionStatus.PENDING, "lint", lintJobId, ExecutionStatus.PENDING),
+        new JobStatusRow("demo", executionId, ExecutionStatus.PENDING, "test", testStageId,
+            ExecutionStatus.PENDING, "unit", unitJobId, ExecutionStatus.PENDING));
+  }
+}
@@ -0,0 +1,139 @@
+package edu.neu.cs6510.sp25.t1.backend.service.status;
+
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.JobStatusCounts;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatusRollupServiceTest {
+
+  private JobExecutionRepository jobExecutionRepository;
+  private StageExecutionRepository stageExecutionRepository;
+  private PipelineExecutionRepository pipelineExecutionRepository;
+  private JobMetrics jobMetrics;
+  private StatusRollupService statusRollupService;
+
+  private UUID stageExecutionId;
+  private UUID pipelineExecutionId;
+  private JobExecutionEntity jobExecution;
+
+  @BeforeEach
+  void setUp() {
+    jobExecutionRepository = mock(JobExecutionRepository.class);
+    stageExecutionRepository = mock(StageExecutionRepository.class);
+    pipelineExecutionRepository = mock(PipelineExecutionRepository.class);
+    jobMetrics = mock(JobMetrics.class);
+    statusRollupService = new StatusRollupService(jobExecutionRepository, stageExecutionRepository,
+        pipelineExecutionRepository, jobMetrics);
+
+    stageExecutionId = UUID.randomUUID();
+    pipelineExecutionId = UUID.randomUUID();
+    StageExecutionEntity stageExecution = StageExecutionEntity.builder()
+        .id(stageExecutionId)
+        .pipelineExecutionId(pipelineExecutionId)
+        .build();
+    jobExecution = JobExecutionEntity.builder()
+        .id(UUID.randomUUID())
+        .stageExecution(stageExecution)
+        .status(ExecutionStatus.PENDING)
+        .build();
+  }
+
+  @Test
+  void testTransition_movesJobBetweenCounts() {
+    when(stageExecutionRepository.findJobCountsById(stageExecutionId))
+        .thenReturn(Optional.of(new JobStatusCounts(1, 1, 0, 0, 0)));
+    when(pipelineExecutionRepository.findJobCountsById(pipelineExecutionId))
+        .thenReturn(Optional.of(new JobStatusCounts(3, 1, 0, 0, 0)));
+
+    statusRollupService.transition(jobExecution, ExecutionStatus.RUNNING);
+
+    verify(jobExecutionRepository).save(jobExecution);
+    ArgumentCaptor<JobStatusCounts> delta = ArgumentCaptor.forClass(JobStatusCounts.class);
+    verify(stageExecutionRepository).addJobCounts(eq(stageExecutionId), delta.capture());
+    assertEquals(-1, delta.getValue().getPending());
+    assertEquals(1, delta.getValue().getRunning());
+    verify(pipelineExecutionRepository).addJobCounts(pipelineExecutionId, delta.getValue());
+
+    verify(stageExecutionRepository).updateRolledUpStatus(eq(stageExecutionId), eq(ExecutionStatus.RUNNING), isNull());
+    verify(pipelineExecutionRepository)
+        .updateRolledUpStatus(eq(pipelineExecutionId), eq(ExecutionStatus.RUNNING), isNull());
+    verify(jobMetrics).jobTransition(stageExecutionId, ExecutionStatus.RUNNING);
+  }
+
+  @Test
+  void testTransition_lastJobRecordsCompletionTime() {
+    jobExecution.setStatus(ExecutionStatus.RUNNING);
+    when(stageExecutionRepository.findJobCountsById(stageExecutionId))
+        .thenReturn(Optional.of(new JobStatusCounts(0, 0, 1, 1, 0)));
+    when(pipelineExecutionRepository.findJobCountsById(pipelineExecutionId))
+        .thenReturn(Optional.of(new JobStatusCounts(2, 0, 1, 1, 0)));
+
+    statusRollupService.transition(jobExecution, ExecutionStatus.FAILED);
+
+    assertNotNull(jobExecution.getCompletionTime());
+    ArgumentCaptor<Instant> completionTime = ArgumentCaptor.forClass(Instant.class);
+    verify(stageExecutionRepository)
+        .updateRolledUpStatus(eq(stageExecutionId), eq(ExecutionStatus.FAILED), completionTime.capture());
+    assertNotNull(completionTime.getValue());
+    // later stages are still pending, so the pipeline has failed but is not finished yet
+    verify(pipelineExecutionRepository)
+        .updateRolledUpStatus(eq(pipelineExecutionId), eq(ExecutionStatus.FAILED), isNull());
+    verify(jobMetrics, never()).recordPipelineDuration(any(), any(), any());
+  }
+
+  @Test
+  void testTransition_lastJobOfRunRecordsPipelineDuration() {
+    jobExecution.setStatus(ExecutionStatus.RUNNING);
+    Instant startTime = Instant.now().minusSeconds(90);
+    when(stageExecutionRepository.findJobCountsById(stageExecutionId))
+        .thenReturn(Optional.of(new JobStatusCounts(0, 0, 2, 0, 0)));
+    when(pipelineExecutionRepository.findJobCountsById(pipelineExecutionId))
+        .thenReturn(Optional.of(new JobStatusCounts(0, 0, 3, 0, 0)));
+    when(pipelineExecutionRepository.findById(pipelineExecutionId))
+        .thenReturn(Optional.of(PipelineExecutionEntity.builder().id(pipelineExecutionId).startTime(startTime).build()));
+
+    statusRollupService.transition(jobExecution, ExecutionStatus.SUCCESS);
+
+    ArgumentCaptor<Duration> duration = ArgumentCaptor.forClass(Duration.class);
+    verify(jobMetrics).recordPipelineDuration(eq(pipelineExecutionId), eq(ExecutionStatus.SUCCESS),
+        duration.capture());
+    assertTrue(duration.getValue().getSeconds() >= 90);
+  }
+
+  @Test
+  void testTransition_repeatedStatusIsNotCountedTwice() {
+    jobExecution.setStatus(ExecutionStatus.SUCCESS);
+
+    statusRollupService.transition(jobExecution, ExecutionStatus.SUCCESS);
+
+    verify(jobExecutionRepository).save(jobExecution);
+    verify(stageExecutionRepository, never()).addJobCounts(any(), any());
+    verify(pipelineExecutionRepository, never()).addJobCounts(any(), any());
+    verify(jobMetrics, never()).jobTransition(any(), any());
+  }
+}
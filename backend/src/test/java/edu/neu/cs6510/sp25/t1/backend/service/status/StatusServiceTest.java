@@ -1,23 +1,17 @@
 package edu.neu.cs6510.sp25.t1.backend.service.status;
 
-import edu.neu.cs6510.sp25.t1.backend.database.entity.JobEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.entity.PipelineExecutionEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.StageEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.entity.StageExecutionEntity;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
+import edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.PipelineRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.StageExecutionRepository;
-import edu.neu.cs6510.sp25.t1.backend.database.repository.StageRepository;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,81 +21,44 @@ import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class StatusServiceTest {
 
   private PipelineRepository pipelineRepository;
   private PipelineExecutionRepository pipelineExecutionRepository;
-  private StageRepository stageRepository;
-  private StageExecutionRepository stageExecutionRepository;
-  private JobRepository jobRepository;
-  private JobExecutionRepository jobExecutionRepository;
+  private RunStateCache runStateCache;
   private StatusService statusService;
 
+  private final UUID pipelineExecutionId = UUID.randomUUID();
+
   @BeforeEach
   void setUp() {
     pipelineRepository = mock(PipelineRepository.class);
     pipelineExecutionRepository = mock(PipelineExecutionRepository.class);
-    stageRepository = mock(StageRepository.class);
-    stageExecutionRepository = mock(StageExecutionRepository.class);
-    jobRepository = mock(JobRepository.class);
-    jobExecutionRepository = mock(JobExecutionRepository.class);
+
+    runStateCache = new RunStateCache(Duration.ofMinutes(5), Duration.ofHours(1));
 
     statusService = new StatusService(
         pipelineRepository,
         pipelineExecutionRepository,
-        stageRepository,
-        stageExecutionRepository,
-        jobRepository,
-        jobExecutionRepository
+        runStateCache
     );
   }
 
   @Test
   void testGetStatusForPipeline_success() {
     // Arrange
-    UUID pipelineId = UUID.randomUUID();
-    UUID pipelineExecutionId = UUID.randomUUID();
-    UUID stageId = UUID.randomUUID();
-    UUID jobId = UUID.randomUUID();
-
-    PipelineEntity pipeline = new PipelineEntity();
-    pipeline.setId(pipelineId);
-    pipeline.setName("demo");
-
-    PipelineExecutionEntity pipelineExecution = new PipelineExecutionEntity();
-    pipelineExecution.setId(pipelineExecutionId);
-    pipelineExecution.setPipelineId(pipelineId);
-
-    StageEntity stage = new StageEntity();
-    stage.setId(stageId);
-    stage.setName("Build");
-    stage.setPipelineId(pipelineId);
-
-    StageExecutionEntity stageExecution = new StageExecutionEntity();
-    stageExecution.setId(UUID.randomUUID());
-    stageExecution.setStageId(stageId);
-    stageExecution.setPipelineExecutionId(pipelineExecutionId);
-    stageExecution.setStatus(ExecutionStatus.SUCCESS);
-
-    JobEntity job = new JobEntity();
-    job.setId(jobId);
-    job.setName("Compile");
-    job.setStageId(stageId);
-
-    JobExecutionEntity jobExecution = new JobExecutionEntity();
-    jobExecution.setId(UUID.randomUUID());
-    jobExecution.setJobId(jobId);
-    jobExecution.setStatus(ExecutionStatus.SUCCESS);
-
-    when(pipelineRepository.findByName("demo")).thenReturn(Optional.of(pipeline));
-    when(pipelineExecutionRepository.findByPipelineId(pipelineId)).thenReturn(Optional.of(pipelineExecution));
-    when(stageRepository.findByPipelineId(pipelineId)).thenReturn(List.of(stage));
-    when(stageExecutionRepository.findByStageIdAndPipelineExecutionId(stageId, pipelineExecutionId)).thenReturn(Optional.of(stageExecution));
-    when(jobRepository.findByStageId(stageId)).thenReturn(List.of(job));
-    when(jobExecutionRepository.findByJobId(jobId)).thenReturn(Optional.of(jobExecution));
+    UUID stageExecutionId = UUID.randomUUID();
+    UUID jobExecutionId = UUID.randomUUID();
+    when(pipelineExecutionRepository.findLatestRunStatusByPipelineName("demo")).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.SUCCESS, "Build", stageExecutionId,
+            ExecutionStatus.SUCCESS, "Compile", jobExecutionId, ExecutionStatus.SUCCESS)));
 
     // Act
     Map<String, Object> result = statusService.getStatusForPipeline("demo");
@@ -113,16 +70,51 @@ class StatusServiceTest {
     List<Map<String, Object>> stages = (List<Map<String, Object>>) result.get("stageResult");
     assertEquals(1, stages.size());
     assertEquals("Build", stages.get(0).get("stage"));
+    assertEquals(stageExecutionId, stages.get(0).get("stageExecution"));
     assertEquals(ExecutionStatus.SUCCESS, stages.get(0).get("stageExecutionStatus"));
 
     List<Map<String, Object>> jobs = (List<Map<String, Object>>) stages.get(0).get("jobs");
     assertEquals(1, jobs.size());
     assertEquals("Compile", jobs.get(0).get("job"));
+    assertEquals(jobExecutionId, jobs.get(0).get("jobExecution"));
     assertEquals(ExecutionStatus.SUCCESS, jobs.get(0).get("jobExecutionStatus"));
+
+    // The whole tree comes from the projection query; nothing is written
+    verify(pipelineRepository, never()).findByName(any());
+    verify(pipelineExecutionRepository, never()).saveAndFlush(any());
+    verify(pipelineExecutionRepository, never()).save(any());
+  }
+
+  @Test
+  void testGetStatusForPipeline_readsRolledUpStatuses() {
+    UUID buildExecutionId = UUID.randomUUID();
+    UUID testExecutionId = UUID.randomUUID();
+    UUID docsExecutionId = UUID.randomUUID();
+    when(pipelineExecutionRepository.findLatestRunStatusByPipelineName("demo")).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.FAILED, "build", buildExecutionId,
+            ExecutionStatus.SUCCESS, "compile", UUID.randomUUID(), ExecutionStatus.SUCCESS),
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.FAILED, "test", testExecutionId,
+            ExecutionStatus.FAILED, "unit", UUID.randomUUID(), ExecutionStatus.FAILED),
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.FAILED, "test", testExecutionId,
+            ExecutionStatus.FAILED, "lint", UUID.randomUUID(), ExecutionStatus.RUNNING),
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.FAILED, "docs", docsExecutionId,
+            ExecutionStatus.PENDING, null, null, null)));
+
+    Map<String, Object> result = statusService.getStatusForPipeline("demo");
+
+    List<Map<String, Object>> stages = (List<Map<String, Object>>) result.get("stageResult");
+    assertEquals(List.of("build", "test", "docs"), stages.stream().map(stage -> stage.get("stage")).toList());
+    assertEquals(ExecutionStatus.SUCCESS, stages.get(0).get("stageExecutionStatus"));
+    assertEquals(ExecutionStatus.FAILED, stages.get(1).get("stageExecutionStatus"));
+    assertEquals(2, ((List<?>) stages.get(1).get("jobs")).size());
+    assertEquals(ExecutionStatus.PENDING, stages.get(2).get("stageExecutionStatus"));
+    assertTrue(((List<?>) stages.get(2).get("jobs")).isEmpty());
+    assertEquals(ExecutionStatus.FAILED, result.get("pipelineStatus"));
   }
 
   @Test
   void testPipelineNotFound() {
+    when(pipelineExecutionRepository.findLatestRunStatusByPipelineName("nonexistent")).thenReturn(List.of());
     when(pipelineRepository.findByName("nonexistent")).thenReturn(Optional.empty());
 
     IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
@@ -133,13 +125,13 @@ class StatusServiceTest {
 
   @Test
   void testPipelineExecutionNotFound() {
-    UUID pipelineId = UUID.randomUUID();
     PipelineEntity pipeline = new PipelineEntity();
-    pipeline.setId(pipelineId);
+    pipeline.setId(UUID.randomUUID());
     pipeline.setName("demo");
 
+    when(pipelineExecutionRepository.findLatestRunStatusByPipelineName("demo")).thenReturn(List.of());
     when(pipelineRepository.findByName("demo")).thenReturn(Optional.of(pipeline));
-    when(pipelineExecutionRepository.findByPipelineId(pipelineId)).thenReturn(Optional.empty());
+    when(pipelineExecutionRepository.findByPipelineNameOrderByStartTimeDesc("demo")).thenReturn(List.of());
 
     IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
         statusService.getStatusForPipeline("demo"));
@@ -148,28 +140,26 @@ class StatusServiceTest {
   }
 
   @Test
-  void testStageExecutionNotFound() {
-    UUID pipelineId = UUID.randomUUID();
-    UUID pipelineExecutionId = UUID.randomUUID();
-    UUID stageId = UUID.randomUUID();
-
+  void testRunWithoutStages() {
     PipelineEntity pipeline = new PipelineEntity();
-    pipeline.setId(pipelineId);
+    pipeline.setId(UUID.randomUUID());
     pipeline.setName("demo");
 
-    PipelineExecutionEntity pipelineExecution = new PipelineExecutionEntity();
-    pipelineExecution.setId(pipelineExecutionId);
-    pipelineExecution.setPipelineId(pipelineId);
+    when(pipelineExecutionRepository.findLatestRunStatusByPipelineName("demo")).thenReturn(List.of());
+    when(pipelineRepository.findByName("demo")).thenReturn(Optional.of(pipeline));
+    when(pipelineExecutionRepository.findByPipelineNameOrderByStartTimeDesc("demo"))
+        .thenReturn(List.of(new PipelineExecutionEntity()));
+
+    Map<String, Object> result = statusService.getStatusForPipeline("demo");
 
-    StageEntity stage = new StageEntity();
-    stage.setId(stageId);
-    stage.setName("Build");
-    stage.setPipelineId(pipelineId);
+    assertEquals(ExecutionStatus.SUCCESS, result.get("pipelineStatus"));
+    assertTrue(((List<?>) result.get("stageResult")).isEmpty());
+  }
 
-    when(pipelineRepository.findByName("demo")).thenReturn(Optional.of(pipeline));
-    when(pipelineExecutionRepository.findByPipelineId(pipelineId)).thenReturn(Optional.of(pipelineExecution));
-    when(stageRepository.findByPipelineId(pipelineId)).thenReturn(List.of(stage));
-    when(stageExecutionRepository.findByStageIdAndPipelineExecutionId(stageId, pipelineExecutionId)).thenReturn(Optional.empty());
+  @Test
+  void testStageExecutionNotFound() {
+    when(pipelineExecutionRepository.findLatestRunStatusByPipelineName("demo")).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.RUNNING, "Build", null, null, "Compile", null, null)));
 
     IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
         statusService.getStatusForPipeline("demo"));
@@ -179,45 +169,103 @@ class StatusServiceTest {
 
   @Test
   void testJobExecutionNotFound() {
-    UUID pipelineId = UUID.randomUUID();
-    UUID pipelineExecutionId = UUID.randomUUID();
-    UUID stageId = UUID.randomUUID();
-    UUID jobId = UUID.randomUUID();
+    when(pipelineExecutionRepository.findLatestRunStatusByPipelineName("demo")).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.RUNNING, "Build", UUID.randomUUID(),
+            ExecutionStatus.SUCCESS, "Compile", null, null)));
 
-    PipelineEntity pipeline = new PipelineEntity();
-    pipeline.setId(pipelineId);
-    pipeline.setName("demo");
+    IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+        statusService.getStatusForPipeline("demo"));
 
-    PipelineExecutionEntity pipelineExecution = new PipelineExecutionEntity();
-    pipelineExecution.setId(pipelineExecutionId);
-    pipelineExecution.setPipelineId(pipelineId);
+    assertTrue(ex.getMessage().contains("JobExecution not found"));
+  }
 
-    StageEntity stage = new StageEntity();
-    stage.setId(stageId);
-    stage.setName("Build");
-    stage.setPipelineId(pipelineId);
+  @Test
+  void testTrackedRunIsServedFromCache() {
+    UUID stageExecutionId = UUID.randomUUID();
+    UUID jobExecutionId = UUID.randomUUID();
+    when(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId)).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.PENDING, "Build", stageExecutionId,
+            ExecutionStatus.PENDING, "Compile", jobExecutionId, ExecutionStatus.PENDING)));
+    statusService.trackRun(pipelineExecutionId);
+    runStateCache.onJobStatus(jobExecutionId, ExecutionStatus.RUNNING);
+
+    Map<String, Object> byName = statusService.getStatusForPipeline("demo");
+    Map<String, Object> byExecution = statusService.getStatusForExecution(pipelineExecutionId);
+
+    assertEquals(ExecutionStatus.RUNNING, byName.get("pipelineStatus"));
+    assertEquals(byName, byExecution);
+    List<Map<String, Object>> stages = (List<Map<String, Object>>) byName.get("stageResult");
+    assertEquals(ExecutionStatus.RUNNING, stages.get(0).get("stageExecutionStatus"));
+
+    // only the registration touched the database
+    verify(pipelineExecutionRepository).findRunStatusByPipelineExecutionId(pipelineExecutionId);
+    verify(pipelineExecutionRepository, never()).findLatestRunStatusByPipelineName(any());
+    verifyNoInteractions(pipelineRepository);
+  }
 
-    StageExecutionEntity stageExecution = new StageExecutionEntity();
-    stageExecution.setId(UUID.randomUUID());
-    stageExecution.setStageId(stageId);
-    stageExecution.setPipelineExecutionId(pipelineExecutionId);
-    stageExecution.setStatus(ExecutionStatus.SUCCESS);
+  @Test
+  void testGetStatusForExecution_fallsBackToDatabase() {
+    when(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId)).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.SUCCESS, "Build", UUID.randomUUID(),
+            ExecutionStatus.SUCCESS, "Compile", UUID.randomUUID(), ExecutionStatus.SUCCESS)));
 
-    JobEntity job = new JobEntity();
-    job.setId(jobId);
-    job.setName("Compile");
-    job.setStageId(stageId);
+    Map<String, Object> result = statusService.getStatusForExecution(pipelineExecutionId);
 
-    when(pipelineRepository.findByName("demo")).thenReturn(Optional.of(pipeline));
-    when(pipelineExecutionRepository.findByPipelineId(pipelineId)).thenReturn(Optional.of(pipelineExecution));
-    when(stageRepository.findByPipelineId(pipelineId)).thenReturn(List.of(stage));
-    when(stageExecutionRepository.findByStageIdAndPipelineExecutionId(stageId, pipelineExecutionId)).thenReturn(Optional.of(stageExecution));
-    when(jobRepository.findByStageId(stageId)).thenReturn(List.of(job));
-    when(jobExecutionRepository.findByJobId(jobId)).thenReturn(Optional.empty());
+    assertEquals("demo", result.get("pipeline"));
+    assertEquals(ExecutionStatus.SUCCESS, result.get("pipelineStatus"));
+  }
 
-    IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
-        statusService.getStatusForPipeline("demo"));
+  @Test
+  void testGetStatusForExecution_notFound() {
+    when(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId)).thenReturn(List.of());
 
-    assertTrue(ex.getMessage().contains("JobExecution not found"));
+    Exception ex = assertThrows(IllegalArgumentException.class,
+        () -> statusService.getStatusForExecution(pipelineExecutionId));
+    assertTrue(ex.getMessage().contains("PipelineExecution not found"));
+  }
+
+  @Test
+  void testGetStatusForExecution_queuedRunWithoutPipeline() {
+    PipelineExecutionEntity queued = new PipelineExecutionEntity();
+    queued.setId(pipelineExecutionId);
+    queued.setStatus(ExecutionStatus.PENDING);
+    when(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId)).thenReturn(List.of());
+    when(pipelineExecutionRepository.findById(pipelineExecutionId)).thenReturn(Optional.of(queued));
+
+    Map<String, Object> result = statusService.getStatusForExecution(pipelineExecutionId);
+
+    assertEquals(ExecutionStatus.PENDING, result.get("pipelineStatus"));
+    assertEquals(List.of(), result.get("stageResult"));
+  }
+
+  @Test
+  void testGetLatestExecutionId_prefersCachedRun() {
+    when(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId)).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.PENDING, "Build", UUID.randomUUID(),
+            ExecutionStatus.PENDING, "Compile", UUID.randomUUID(), ExecutionStatus.PENDING)));
+    statusService.trackRun(pipelineExecutionId);
+
+    assertEquals(pipelineExecutionId, statusService.getLatestExecutionId("demo"));
+    verify(pipelineExecutionRepository, never()).findByPipelineNameOrderByStartTimeDesc(any());
+  }
+
+  @Test
+  void testGetLatestExecutionId_notFound() {
+    when(pipelineExecutionRepository.findByPipelineNameOrderByStartTimeDesc("demo")).thenReturn(List.of());
+
+    assertThrows(IllegalArgumentException.class, () -> statusService.getLatestExecutionId("demo"));
+  }
+
+  @Test
+  void testLoadRun_queriesOnlyUncachedRuns() {
+    when(pipelineExecutionRepository.findRunStatusByPipelineExecutionId(pipelineExecutionId)).thenReturn(List.of(
+        new JobStatusRow("demo", pipelineExecutionId, ExecutionStatus.RUNNING, "Build", UUID.randomUUID(),
+            ExecutionStatus.RUNNING, "Compile", UUID.randomUUID(), ExecutionStatus.RUNNING)));
+
+    statusService.loadRun(pipelineExecutionId);
+    statusService.loadRun(pipelineExecutionId);
+
+    assertTrue(runStateCache.getRun(pipelineExecutionId).isPresent());
+    verify(pipelineExecutionRepository).findRunStatusByPipelineExecutionId(pipelineExecutionId);
   }
 }
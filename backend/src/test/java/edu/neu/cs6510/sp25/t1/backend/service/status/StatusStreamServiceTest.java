@@ -0,0 +1,162 @@
+package edu.neu.cs6510.sp25.t1.backend.service.status;
+
+import edu.neu.cs6510.sp25.t1.backend.database.projection.JobStatusRow;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatusStreamServiceTest {
+
+  private final UUID pipelineExecutionId = UUID.randomUUID();
+  private final UUID stageExecutionId = UUID.randomUUID();
+  private final UUID compileJobId = UUID.randomUUID();
+  private final UUID lintJobId = UUID.randomUUID();
+
+  private StatusService statusService;
+  private RunStateCache runStateCache;
+  private RecordingStreamService streamService;
+  private List<Runnable> heldSends;
+
+  @BeforeEach
+  void setUp() {
+    statusService = mock(StatusService.class);
+    runStateCache = new RunStateCache(Duration.ofMinutes(5), Duration.ofHours(1));
+    // streams are written on the calling thread unless a test holds the sender back
+    streamService = new RecordingStreamService(statusService, runStateCache, 16, Runnable::run);
+    heldSends = new ArrayList<>();
+  }
+
+  @Test
+  void subscribe_sendsSnapshotThenJobChangesUntilRunFinishes() {
+    runStateCache.register(List.of(
+        row(compileJobId, ExecutionStatus.PENDING),
+        row(lintJobId, ExecutionStatus.PENDING)));
+    when(statusService.getStatusForExecution(pipelineExecutionId))
+        .thenReturn(Map.of("pipelineStatus", ExecutionStatus.PENDING));
+
+    streamService.subscribe(pipelineExecutionId);
+    assertEquals(1, streamService.getSubscriberCount(pipelineExecutionId));
+
+    runStateCache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS);
+    runStateCache.onJobStatus(lintJobId, ExecutionStatus.SUCCESS);
+
+    assertEquals(List.of("snapshot", "job", "job", "complete"), streamService.events);
+    JobStatusRow last = (JobStatusRow) streamService.payloads.get(2);
+    assertEquals(lintJobId, last.jobExecutionId());
+    assertEquals(ExecutionStatus.SUCCESS, last.stageExecutionStatus());
+    assertEquals(Map.of("pipelineStatus", ExecutionStatus.SUCCESS), streamService.payloads.get(3));
+    assertEquals(0, streamService.getSubscriberCount(pipelineExecutionId));
+  }
+
+  @Test
+  void subscribe_completesStreamOfFinishedRun() {
+    runStateCache.register(List.of(row(compileJobId, ExecutionStatus.FAILED)));
+    when(statusService.getStatusForExecution(pipelineExecutionId))
+        .thenReturn(Map.of("pipelineStatus", ExecutionStatus.FAILED));
+
+    streamService.subscribe(pipelineExecutionId);
+
+    assertEquals(List.of("snapshot", "complete"), streamService.events);
+    assertEquals(0, streamService.getSubscriberCount(pipelineExecutionId));
+  }
+
+  @Test
+  void subscribe_unknownRunFails() {
+    when(statusService.getStatusForExecution(pipelineExecutionId))
+        .thenThrow(new IllegalArgumentException("PipelineExecution not found: " + pipelineExecutionId));
+
+    assertThrows(IllegalArgumentException.class, () -> streamService.subscribe(pipelineExecutionId));
+    assertTrue(streamService.events.isEmpty());
+    assertEquals(0, streamService.getSubscriberCount(pipelineExecutionId));
+  }
+
+  @Test
+  void onJobStatus_doesNotWaitForTheClient() {
+    streamService = new RecordingStreamService(statusService, runStateCache, 16, heldSends::add);
+    runStateCache.register(List.of(
+        row(compileJobId, ExecutionStatus.PENDING),
+        row(lintJobId, ExecutionStatus.PENDING)));
+    when(statusService.getStatusForExecution(pipelineExecutionId))
+        .thenReturn(Map.of("pipelineStatus", ExecutionStatus.PENDING));
+
+    streamService.subscribe(pipelineExecutionId);
+    runStateCache.onJobStatus(compileJobId, ExecutionStatus.RUNNING);
+    runStateCache.onJobStatus(compileJobId, ExecutionStatus.SUCCESS);
+
+    // nothing is written until the sender runs, which drains the stream in one task
+    assertTrue(streamService.events.isEmpty());
+    assertEquals(1, heldSends.size());
+    heldSends.remove(0).run();
+    assertEquals(List.of("snapshot", "job", "job"), streamService.events);
+  }
+
+  @Test
+  void onJobStatus_closesStreamThatFallsBehind() {
+    streamService = new RecordingStreamService(statusService, runStateCache, 2, heldSends::add);
+    runStateCache.register(List.of(
+        row(compileJobId, ExecutionStatus.PENDING),
+        row(lintJobId, ExecutionStatus.PENDING)));
+    when(statusService.getStatusForExecution(pipelineExecutionId))
+        .thenReturn(Map.of("pipelineStatus", ExecutionStatus.PENDING));
+
+    streamService.subscribe(pipelineExecutionId);
+    runStateCache.onJobStatus(compileJobId, ExecutionStatus.RUNNING);
+    runStateCache.onJobStatus(lintJobId, ExecutionStatus.RUNNING);
+    heldSends.remove(0).run();
+
+    assertTrue(streamService.events.isEmpty());
+    assertEquals(0, streamService.getSubscriberCount(pipelineExecutionId));
+  }
+
+  private JobStatusRow row(UUID jobExecutionId, ExecutionStatus status) {
+    return new JobStatusRow("demo", pipelineExecutionId, status, "build", stageExecutionId, status,
+        "job-" + jobExecutionId, jobExecutionId, status);
+  }
+
+  /**
+   * Records the events sent to its streams instead of writing them to a response.
+   */
+  private static class RecordingStreamService extends StatusStreamService {
+    private final List<String> events = new ArrayList<>();
+    private final List<Object> payloads = new ArrayList<>();
+
+    RecordingStreamService(StatusService statusService, RunStateCache runStateCache, int queueSize,
+        Executor sender) {
+      super(statusService, runStateCache, Duration.ofMinutes(1), queueSize, sender);
+    }
+
+    @Override
+    SseEmitter createEmitter(long timeout) {
+      return new SseEmitter(timeout) {
+        @Override
+        public void send(SseEventBuilder builder) {
+          Set<DataWithMediaType> parts = builder.build();
+          for (DataWithMediaType part : parts) {
+            Object data = part.getData();
+            if (data instanceof String text && text.startsWith("event:")) {
+              events.add(text.substring("event:".length(), text.indexOf('\n')));
+            } else if (!(data instanceof String) && !MediaType.TEXT_PLAIN.equals(part.getMediaType())) {
+              payloads.add(data);
+            }
+          }
+        }
+      };
+    }
+  }
+}
@@ -1055,6 +1055,21 @@ class YamlPipelineUtilsTest {
         assertDoesNotThrow(() -> YamlPipelineUtils.validatePipelineConfig(config));
     }
 
+    @Test
+    void testValidatePipelineConfig_SchedulingMode() throws IOException, ValidationException {
+        // Test that the optional scheduling mode only accepts known values
+        Map<String, Object> config = YamlPipelineUtils.readPipelineYaml(validPipelineYaml.toString());
+
+        config.put("scheduling", "dag");
+        assertDoesNotThrow(() -> YamlPipelineUtils.validatePipelineConfig(config));
+
+        config.put("scheduling", "parallel");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            YamlPipelineUtils.validatePipelineConfig(config);
+        });
+        assertTrue(exception.getMessage().contains("'scheduling' must be one of"));
+    }
+
 
 
 
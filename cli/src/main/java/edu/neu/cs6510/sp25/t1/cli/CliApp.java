@@ -7,6 +7,7 @@ import edu.neu.cs6510.sp25.t1.cli.commands.DryRunCommand;
 import edu.neu.cs6510.sp25.t1.cli.commands.ReportCommand;
 import edu.neu.cs6510.sp25.t1.cli.commands.RunCommand;
 import edu.neu.cs6510.sp25.t1.cli.commands.StatusCommand;
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
 import picocli.CommandLine;
 
 /**
@@ -100,6 +101,9 @@ public class CliApp implements Callable<Integer> {
    * @param args command-line arguments
    */
   public static void main(String[] args) {
+    // Keep log lines in order with the command output
+    System.setProperty(PipelineLogger.ASYNC_PROPERTY, "false");
+
     // Create an instance of the CLI application
     CliApp app = new CliApp();
     CommandLine cmd = new CommandLine(app);
@@ -1,14 +1,19 @@
 package edu.neu.cs6510.sp25.t1.cli.commands;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.concurrent.Callable;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import edu.neu.cs6510.sp25.t1.cli.CliApp;
 import edu.neu.cs6510.sp25.t1.cli.service.K8sService;
 import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okio.BufferedSource;
 import picocli.CommandLine;
 
 
@@ -17,6 +22,8 @@ import picocli.CommandLine;
  * CLI command that fetches the current status of a CI/CD pipeline by querying the backend service.
  * This command automatically starts a Kubernetes backend pod for the specified pipeline,
  * performs an HTTP GET request to the backend, and prints the pipeline status in the terminal.
+ * With --watch, the command subscribes to the backend's status event stream instead and prints
+ * every job status change as it happens, until the pipeline run finishes.
  *
  * Used with the `status` subcommand in the CLI.
  */
@@ -44,6 +51,11 @@ private final OkHttpClient httpClient;
   @CommandLine.Option(names = {"--pipeline", "-p"}, required = true, description = "Specify the pipeline name.")
   private String pipelineName;
 
+  @CommandLine.Option(names = {"--watch", "-w"}, description = "Follow the status of the latest run until it finishes.")
+  private boolean watch;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
   @Override
   public Integer call() {
     if (pipelineName == null || pipelineName.trim().isEmpty()) {
@@ -52,6 +64,14 @@ private final OkHttpClient httpClient;
     }
 
     String podName = K8sService.startBackendEnvironment(pipelineName);
+    if (watch) {
+      try {
+        return watchStatus();
+      } finally {
+        K8sService.stopPortForward();
+        K8sService.stopPod(podName);
+      }
+    }
 
     String url = BASE_URL + pipelineName;
     PipelineLogger.info("Fetching pipeline status for: " + pipelineName);
@@ -89,4 +109,102 @@ private final OkHttpClient httpClient;
     }
 
   }
+
+  /**
+   * Follows the status event stream of the latest run of the pipeline.
+   * The backend first sends a snapshot of the run, then one event per job status change,
+   * and a completion event once every job has finished.
+   *
+   * @return 0 once the run finished, 1 if the stream could not be read to its end
+   */
+  private int watchStatus() {
+    String url = BASE_URL + pipelineName + "/stream";
+    PipelineLogger.info("Watching pipeline status for: " + pipelineName);
+    PipelineLogger.debug("GET " + url);
+
+    Request request = new Request.Builder()
+        .url(url)
+        .get()
+        .addHeader("Accept", "text/event-stream")
+        .build();
+
+    // the stream stays silent while jobs are running, so it must not time out between events
+    OkHttpClient streamingClient = httpClient.newBuilder().readTimeout(Duration.ZERO).build();
+    try (Response response = streamingClient.newCall(request).execute()) {
+      if (!response.isSuccessful() || response.body() == null) {
+        String errorBody = response.body() != null ? response.body().string() : "Empty response";
+        PipelineLogger.error("Failed to watch pipeline status.");
+        PipelineLogger.error("HTTP Status: " + response.code());
+        PipelineLogger.error("Response: " + errorBody);
+        return 1;
+      }
+
+      BufferedSource source = response.body().source();
+      String event = "message";
+      StringBuilder data = new StringBuilder();
+      String line;
+      while ((line = source.readUtf8Line()) != null) {
+        if (line.isEmpty()) {
+          // a blank line ends the event
+          if (data.length() > 0 && renderEvent(event, data.toString())) {
+            return 0;
+          }
+          event = "message";
+          data.setLength(0);
+        } else if (line.startsWith("event:")) {
+          event = fieldValue(line, "event:");
+        } else if (line.startsWith("data:")) {
+          if (data.length() > 0) {
+            data.append('\n');
+          }
+          data.append(fieldValue(line, "data:"));
+        }
+      }
+      PipelineLogger.error("Status stream closed before the pipeline finished.");
+      return 1;
+    } catch (IOException e) {
+      PipelineLogger.error("Error while contacting backend: " + e.getMessage());
+      return 1;
+    }
+  }
+
+  /**
+   * Prints one status event.
+   *
+   * @param event the event name
+   * @param data  the JSON payload of the event
+   * @return true if the event ends the stream
+   * @throws IOException if the payload is not valid JSON
+   */
+  private boolean renderEvent(String event, String data) throws IOException {
+    switch (event) {
+      case "snapshot" -> {
+        PipelineLogger.info("Pipeline Status:");
+        PipelineLogger.info(data);
+        return false;
+      }
+      case "job" -> {
+        JsonNode change = objectMapper.readTree(data);
+        PipelineLogger.info(String.format("[%s] %s: %s (stage %s, pipeline %s)",
+            change.path("stageName").asText(),
+            change.path("jobName").asText(),
+            change.path("jobExecutionStatus").asText(),
+            change.path("stageExecutionStatus").asText(),
+            change.path("pipelineExecutionStatus").asText()));
+        return false;
+      }
+      case "complete" -> {
+        PipelineLogger.info("Pipeline finished: " + objectMapper.readTree(data).path("pipelineStatus").asText());
+        return true;
+      }
+      default -> {
+        return false;
+      }
+    }
+  }
+
+  private static String fieldValue(String line, String field) {
+    String value = line.substring(field.length());
+    return value.startsWith(" ") ? value.substring(1) : value;
+  }
 }
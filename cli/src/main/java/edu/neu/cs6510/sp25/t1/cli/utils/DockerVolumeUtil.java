@@ -22,6 +22,35 @@ public class DockerVolumeUtil {
   private static final String VOLUME_NAME = "cicd";
   private static final String CONTAINER_BASE_PATH = "/mnt/pipeline";
 
+  // Built on first use and shared by all calls of this process
+  private static DockerClient dockerClient;
+
+  /**
+   * Returns the Docker client of this process, creating it on first use.
+   *
+   * @return the shared Docker client
+   */
+  static synchronized DockerClient getDockerClient() {
+    if (dockerClient == null) {
+      DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+      DockerHttpClient httpClient = new OkDockerHttpClient.Builder()
+          .dockerHost(config.getDockerHost())
+          .sslConfig(config.getSSLConfig())
+          .connectTimeout(30)
+          .readTimeout(30)
+          .build();
+      dockerClient = DockerClientImpl.getInstance(config, httpClient);
+    }
+    return dockerClient;
+  }
+
+  /**
+   * Forgets the shared Docker client so that the next call creates a new one.
+   */
+  static synchronized void resetDockerClient() {
+    dockerClient = null;
+  }
+
   /**
    * Creates a Docker volume if not exists and copies the project directory
    * containing the given file into a unique subdirectory of the volume.
@@ -38,15 +67,7 @@ public class DockerVolumeUtil {
         throw new IllegalArgumentException("Invalid host directory: " + hostProjectDir.getAbsolutePath());
       }
 
-      // Initialize Docker client
-      DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
-      DockerHttpClient httpClient = new OkDockerHttpClient.Builder()
-          .dockerHost(config.getDockerHost())
-          .sslConfig(config.getSSLConfig())
-          .connectTimeout(30)
-          .readTimeout(30)
-          .build();
-      DockerClient dockerClient = DockerClientImpl.getInstance(config, httpClient);
+      DockerClient dockerClient = getDockerClient();
 
       // Create volume if it doesn't exist
       try {
@@ -270,6 +270,68 @@ public class StatusCommandTest {
 
 
 
+    @Test
+    public void testWatchRendersStreamedChanges() throws Exception {
+        String stream = "event:snapshot\ndata:{\"pipelineStatus\":\"PENDING\"}\n\n"
+                + "event:job\ndata:{\"stageName\":\"build\",\"jobName\":\"compile\",\"jobExecutionStatus\":\"SUCCESS\","
+                + "\"stageExecutionStatus\":\"SUCCESS\",\"pipelineExecutionStatus\":\"SUCCESS\"}\n\n"
+                + "event:complete\ndata:{\"pipelineStatus\":\"SUCCESS\"}\n\n";
+        // the interceptor answers in place of the backend, and survives the watch mode's client rebuild
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> new Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("OK")
+                        .body(ResponseBody.create(stream, MediaType.parse("text/event-stream")))
+                        .build())
+                .build();
+
+        StatusCommand cmd = new StatusCommand(client);
+        new CommandLine(cmd).parseArgs("--pipeline", "test-pipeline", "--watch");
+
+        try (
+                MockedStatic<PipelineLogger> logger = mockStatic(PipelineLogger.class);
+                MockedStatic<K8sService> k8s = mockStatic(K8sService.class)
+        ) {
+            k8s.when(() -> K8sService.startBackendEnvironment(any())).thenReturn("fake-pod");
+
+            assertEquals(0, cmd.call());
+
+            logger.verify(() -> PipelineLogger.debug("GET http://localhost:8080/api/pipeline/test-pipeline/stream"));
+            logger.verify(() -> PipelineLogger.info("{\"pipelineStatus\":\"PENDING\"}"));
+            logger.verify(() -> PipelineLogger.info("[build] compile: SUCCESS (stage SUCCESS, pipeline SUCCESS)"));
+            logger.verify(() -> PipelineLogger.info("Pipeline finished: SUCCESS"));
+            k8s.verify(() -> K8sService.stopPod("fake-pod"));
+        }
+    }
+
+    @Test
+    public void testWatchFailsWhenStreamEndsEarly() throws Exception {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> new Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("OK")
+                        .body(ResponseBody.create("event:snapshot\ndata:{}\n\n", MediaType.parse("text/event-stream")))
+                        .build())
+                .build();
+
+        StatusCommand cmd = new StatusCommand(client);
+        new CommandLine(cmd).parseArgs("--pipeline", "test-pipeline", "--watch");
+
+        try (
+                MockedStatic<PipelineLogger> logger = mockStatic(PipelineLogger.class);
+                MockedStatic<K8sService> k8s = mockStatic(K8sService.class)
+        ) {
+            k8s.when(() -> K8sService.startBackendEnvironment(any())).thenReturn("fake-pod");
+
+            assertEquals(1, cmd.call());
+            logger.verify(() -> PipelineLogger.error("Status stream closed before the pipeline finished."));
+        }
+    }
+
     // Helpers
     private Response createMockResponse(int code, String body, boolean hasBody) {
         ResponseBody responseBody = hasBody
@@ -31,6 +31,20 @@ public class DockerVolumeUtilTest {
         nestedPath.toFile().getParentFile().mkdirs();
         assertTrue(nestedPath.toFile().createNewFile());
         testFile = nestedPath.toFile();
+        DockerVolumeUtil.resetDockerClient();
+    }
+
+    @Test
+    void testDockerClientIsSharedAcrossCalls() {
+        try (MockedStatic<DockerClientImpl> implMock = mockStatic(DockerClientImpl.class)) {
+            DockerClient mockDockerClient = mock(DockerClient.class);
+            implMock.when(() -> DockerClientImpl.getInstance(any(), any())).thenReturn(mockDockerClient);
+
+            assertSame(mockDockerClient, DockerVolumeUtil.getDockerClient());
+            assertSame(mockDockerClient, DockerVolumeUtil.getDockerClient());
+
+            implMock.verify(() -> DockerClientImpl.getInstance(any(), any()), times(1));
+        }
     }
 
 
@@ -0,0 +1,47 @@
+package edu.neu.cs6510.sp25.t1.common.api.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Represents a range of lines of the log of a job execution.
+ */
+@Getter
+public class JobLogResponse {
+  private final String jobExecutionId;
+  private final String status;
+  private final long firstLine;
+  private final long nextLine;
+  private final long totalLines;
+  private final List<String> lines;
+
+  /**
+   * Constructs a new JobLogResponse.
+   *
+   * @param jobExecutionId The job execution the lines belong to
+   * @param status         The status of the job execution when the lines were read
+   * @param firstLine      The number of the first line returned, starting at 0
+   * @param nextLine       The number of the line following the ones returned, to read on from
+   * @param totalLines     The number of lines stored for the job when they were read
+   * @param lines          The log lines, oldest first
+   */
+  @JsonCreator
+  public JobLogResponse(
+          @JsonProperty("jobExecutionId") String jobExecutionId,
+          @JsonProperty("status") String status,
+          @JsonProperty("firstLine") long firstLine,
+          @JsonProperty("nextLine") long nextLine,
+          @JsonProperty("totalLines") long totalLines,
+          @JsonProperty("lines") List<String> lines) {
+    this.jobExecutionId = jobExecutionId;
+    this.status = status;
+    this.firstLine = firstLine;
+    this.nextLine = nextLine;
+    this.totalLines = totalLines;
+    this.lines = lines;
+  }
+}
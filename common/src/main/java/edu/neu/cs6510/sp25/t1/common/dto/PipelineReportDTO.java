@@ -15,6 +15,7 @@ public class PipelineReportDTO {
   private Instant startTime;
   private Instant completionTime;
   private List<StageReportDTO> stages;
+  private List<String> criticalPath;
 
   private String pipelineName;
 
@@ -108,4 +109,12 @@ public class PipelineReportDTO {
   public void setStages(List<StageReportDTO> stages) {
     this.stages = stages;
   }
-}
\ No newline at end of file
+
+  public List<String> getCriticalPath() {
+    return criticalPath;
+  }
+
+  public void setCriticalPath(List<String> criticalPath) {
+    this.criticalPath = criticalPath;
+  }
+}
@@ -24,4 +24,51 @@ public enum ExecutionStatus {
     this.description = description;
   }
 
+  /**
+   * Indicates whether this status is final, i.e. the execution will not transition any further.
+   *
+   * @return true for SUCCESS, FAILED and CANCELED; false otherwise
+   */
+  public boolean isTerminal() {
+    return this == SUCCESS || this == FAILED || this == CANCELED;
+  }
+
+  /**
+   * Combines the statuses of the children of an execution, e.g. the jobs of a stage,
+   * into the status of the execution itself. A failure outweighs a cancellation, and both
+   * outweigh work in progress; the execution only succeeds once all children succeeded.
+   *
+   * @param statuses statuses of the child executions
+   * @return the rolled up status, SUCCESS if there are no children
+   */
+  public static ExecutionStatus rollUp(Iterable<ExecutionStatus> statuses) {
+    boolean failed = false;
+    boolean canceled = false;
+    boolean running = false;
+    boolean pending = false;
+    boolean succeeded = false;
+    for (ExecutionStatus status : statuses) {
+      if (status == null || status == PENDING) {
+        pending = true;
+      } else {
+        switch (status) {
+          case FAILED -> failed = true;
+          case CANCELED -> canceled = true;
+          case RUNNING -> running = true;
+          default -> succeeded = true;
+        }
+      }
+    }
+    if (failed) {
+      return FAILED;
+    }
+    if (canceled) {
+      return CANCELED;
+    }
+    if (running || (pending && succeeded)) {
+      return RUNNING;
+    }
+    return pending ? PENDING : SUCCESS;
+  }
+
 }
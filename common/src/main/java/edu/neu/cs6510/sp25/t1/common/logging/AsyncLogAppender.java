@@ -0,0 +1,53 @@
+package edu.neu.cs6510.sp25.t1.common.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Logback's {@link AsyncAppender} counting the events it does not write.
+ * <p>
+ * When fewer than {@code discardingThreshold} slots are free, events below WARN are
+ * discarded. WARN and ERROR events wait for a free slot unless {@code neverBlock} is set,
+ * in which case they are dropped as well. The queue is checked before handing the event
+ * to Logback, so an event losing the race for the last slots to another thread is
+ * discarded or dropped without being counted.
+ */
+public class AsyncLogAppender extends AsyncAppender {
+
+  private final AtomicLong discarded = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  @Override
+  protected void append(ILoggingEvent event) {
+    int remainingCapacity = getRemainingCapacity();
+    if (remainingCapacity < getDiscardingThreshold() && isDiscardable(event)) {
+      discarded.incrementAndGet();
+      return;
+    }
+    if (isNeverBlock() && remainingCapacity == 0) {
+      dropped.incrementAndGet();
+      return;
+    }
+    super.append(event);
+  }
+
+  /**
+   * Returns the number of events below WARN discarded because the queue was nearly full.
+   *
+   * @return the discarded event count
+   */
+  public long getDiscardedCount() {
+    return discarded.get();
+  }
+
+  /**
+   * Returns the number of events dropped because the queue was full.
+   *
+   * @return the dropped event count
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+}
@@ -0,0 +1,78 @@
+package edu.neu.cs6510.sp25.t1.common.logging;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.event.KeyValuePair;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.LayoutBase;
+
+/**
+ * Lays out each log event as one JSON object on its own line.
+ * <p>
+ * Besides the time, level, thread and message, the key/value fields of the event (see
+ * {@link PipelineLogger#atInfo()}) become top-level fields, so the log can be indexed by
+ * pipeline, stage or job execution ID.
+ */
+public class JsonLineLayout extends LayoutBase<ILoggingEvent> {
+
+  @Override
+  public String doLayout(ILoggingEvent event) {
+    StringBuilder json = new StringBuilder(256);
+    json.append("{\"time\":\"").append(Instant.ofEpochMilli(event.getTimeStamp())).append('"');
+    field(json, "level", event.getLevel().toString());
+    field(json, "thread", event.getThreadName());
+    field(json, "message", event.getFormattedMessage());
+
+    List<KeyValuePair> pairs = event.getKeyValuePairs();
+    if (pairs != null) {
+      for (KeyValuePair pair : pairs) {
+        field(json, pair.key, pair.value);
+      }
+    }
+
+    IThrowableProxy throwable = event.getThrowableProxy();
+    if (throwable != null) {
+      field(json, "exception", ThrowableProxyUtil.asString(throwable));
+    }
+    return json.append("}\n").toString();
+  }
+
+  private static void field(StringBuilder json, String key, Object value) {
+    json.append(',');
+    string(json, key);
+    json.append(':');
+    if (value == null) {
+      json.append("null");
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Boolean) {
+      json.append(value);
+    } else {
+      string(json, value.toString());
+    }
+  }
+
+  private static void string(StringBuilder json, String value) {
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> json.append("\\\"");
+        case '\\' -> json.append("\\\\");
+        case '\n' -> json.append("\\n");
+        case '\r' -> json.append("\\r");
+        case '\t' -> json.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+        }
+      }
+    }
+    json.append('"');
+  }
+}
@@ -1,24 +1,68 @@
 package edu.neu.cs6510.sp25.t1.common.logging;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.ConsoleAppender;
 import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
 
 
 /**
  * Centralized logger for pipeline-related logging.
  * Uses SLF4J with Logback and ensures logs print to the console and a log file.
+ * <p>
+ * Messages can be built lazily: the parameterized methods take an SLF4J format whose
+ * {@code {}} placeholders are only filled in when the level is enabled, and the
+ * {@link Supplier} methods only call the supplier then. Events logged through
+ * {@link #atInfo()} and its siblings can carry key/value fields such as
+ * {@link #PIPELINE_EXECUTION_ID}; the log file holds one JSON object per event (see
+ * {@link JsonLineLayout}) with the fields at the top level, the console appends them to
+ * the message.
+ * <p>
+ * By default the console and the file are each written by a background thread through a
+ * bounded queue (see {@link AsyncLogAppender}), so logging does not wait for I/O. Under
+ * pressure events below WARN are discarded; the queues are tuned with the system properties
+ * or environment variables below.
+ * <ul>
+ *   <li>{@code cicd.log.async} / {@code CICD_LOG_ASYNC}: write synchronously when false</li>
+ *   <li>{@code cicd.log.queue-size} / {@code CICD_LOG_QUEUE_SIZE}: capacity of each queue, 8192</li>
+ *   <li>{@code cicd.log.discarding-threshold} / {@code CICD_LOG_DISCARDING_THRESHOLD}: free
+ *   slots below which events under WARN are discarded, 0 to keep them, a fifth of the queue
+ *   by default</li>
+ *   <li>{@code cicd.log.never-block} / {@code CICD_LOG_NEVER_BLOCK}: drop WARN and ERROR
+ *   events too instead of waiting when the queue is full</li>
+ *   <li>{@code cicd.log.file-format} / {@code CICD_LOG_FILE_FORMAT}: {@code json} (default)
+ *   or {@code text} to write the file like the console</li>
+ * </ul>
  */
 public class PipelineLogger {
+  /** System property turning the background writer off. */
+  public static final String ASYNC_PROPERTY = "cicd.log.async";
+
+  /** Field holding the ID of the pipeline execution an event is about. */
+  public static final String PIPELINE_EXECUTION_ID = "pipelineExecutionId";
+  /** Field holding the ID of the stage execution an event is about. */
+  public static final String STAGE_EXECUTION_ID = "stageExecutionId";
+  /** Field holding the ID of the job execution an event is about. */
+  public static final String JOB_EXECUTION_ID = "jobExecutionId";
+
   private static final Logger logger = LoggerFactory.getLogger("cicd-logger"); //  Set logger name explicitly
   private static final String LOG_FILE_PATH = "logs/pipeline_system.log"; // Log file path
 
+  // Background writers of the console and the file, empty when logging synchronously
+  private static List<AsyncLogAppender> asyncAppenders = List.of();
+
   // Verbose mode flag
   private static boolean verbose = false;
 
@@ -33,12 +77,25 @@ public class PipelineLogger {
     LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
     context.reset();
 
-    // Define log pattern (includes time, level, thread, and message)
+    // Define log pattern (includes time, level, thread, message and key/value fields)
     PatternLayoutEncoder encoder = new PatternLayoutEncoder();
     encoder.setContext(context);
-    encoder.setPattern("[%d{HH:mm:ss}] [%thread] %-5level cicd-logger - %msg%n"); //  Replaces %logger with "cicd-logger"
+    encoder.setPattern("[%d{HH:mm:ss}] [%thread] %-5level cicd-logger - %msg%replace( %kvp){'^ $', ''}%n"); //  Replaces %logger with "cicd-logger"
     encoder.start();
 
+    // The file holds one JSON object per line unless plain text is asked for
+    Encoder<ILoggingEvent> fileEncoder = encoder;
+    if (!"text".equalsIgnoreCase(setting("cicd.log.file-format", "CICD_LOG_FILE_FORMAT", "json"))) {
+      JsonLineLayout layout = new JsonLineLayout();
+      layout.setContext(context);
+      layout.start();
+      LayoutWrappingEncoder<ILoggingEvent> jsonEncoder = new LayoutWrappingEncoder<>();
+      jsonEncoder.setContext(context);
+      jsonEncoder.setLayout(layout);
+      jsonEncoder.start();
+      fileEncoder = jsonEncoder;
+    }
+
     // Console Appender
     ConsoleAppender<ILoggingEvent> consoleAppender = new ConsoleAppender<>();
     consoleAppender.setContext(context);
@@ -49,14 +106,80 @@ public class PipelineLogger {
     FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
     fileAppender.setContext(context);
     fileAppender.setFile(LOG_FILE_PATH);
-    fileAppender.setEncoder(encoder);
+    fileAppender.setEncoder(fileEncoder);
     fileAppender.start();
 
     // Get the root logger and attach appenders
     ch.qos.logback.classic.Logger rootLogger = context.getLogger("cicd-logger"); //  Ensures the logger is named correctly
     rootLogger.setLevel(Level.DEBUG); // Capture DEBUG and above
-    rootLogger.addAppender(consoleAppender);
-    rootLogger.addAppender(fileAppender);
+    if (!Boolean.parseBoolean(setting(ASYNC_PROPERTY, "CICD_LOG_ASYNC", "true"))) {
+      rootLogger.addAppender(consoleAppender);
+      rootLogger.addAppender(fileAppender);
+      return;
+    }
+
+    // Logback's async appender writes to exactly one appender, so each target gets its own
+    AsyncLogAppender asyncConsole = asyncAppender(context, "cicd-async-console", consoleAppender);
+    AsyncLogAppender asyncFile = asyncAppender(context, "cicd-async-file", fileAppender);
+    rootLogger.addAppender(asyncConsole);
+    rootLogger.addAppender(asyncFile);
+    asyncAppenders = List.of(asyncConsole, asyncFile);
+
+    // Write what is still queued when the JVM exits
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      asyncConsole.stop();
+      asyncFile.stop();
+    }, "cicd-log-flush"));
+  }
+
+  private static AsyncLogAppender asyncAppender(LoggerContext context, String name, Appender<ILoggingEvent> target) {
+    AsyncLogAppender async = new AsyncLogAppender();
+    async.setContext(context);
+    async.setName(name);
+    async.setQueueSize(Integer.parseInt(setting("cicd.log.queue-size", "CICD_LOG_QUEUE_SIZE", "8192")));
+    async.setDiscardingThreshold(
+        Integer.parseInt(setting("cicd.log.discarding-threshold", "CICD_LOG_DISCARDING_THRESHOLD", "-1")));
+    async.setNeverBlock(Boolean.parseBoolean(setting("cicd.log.never-block", "CICD_LOG_NEVER_BLOCK", "false")));
+    async.addAppender(target);
+    async.start();
+    return async;
+  }
+
+  private static String setting(String property, String environmentVariable, String defaultValue) {
+    String value = System.getProperty(property);
+    if (value == null) {
+      value = System.getenv(environmentVariable);
+    }
+    return value == null || value.isBlank() ? defaultValue : value.trim();
+  }
+
+  /**
+   * Returns the number of events below WARN discarded because a log queue was nearly full.
+   * An event discarded for both the console and the file counts twice.
+   *
+   * @return the discarded event count, 0 when logging synchronously
+   */
+  public static long getDiscardedEventCount() {
+    return asyncAppenders.stream().mapToLong(AsyncLogAppender::getDiscardedCount).sum();
+  }
+
+  /**
+   * Returns the number of events dropped because a log queue was full.
+   * An event dropped for both the console and the file counts twice.
+   *
+   * @return the dropped event count, 0 when logging synchronously
+   */
+  public static long getDroppedEventCount() {
+    return asyncAppenders.stream().mapToLong(AsyncLogAppender::getDroppedCount).sum();
+  }
+
+  /**
+   * Returns the number of events waiting to be written, summed over the console and the file.
+   *
+   * @return the queued event count, 0 when logging synchronously
+   */
+  public static int getQueuedEventCount() {
+    return asyncAppenders.stream().mapToInt(AsyncLogAppender::getNumberOfElementsInQueue).sum();
   }
 
   /**
@@ -80,6 +203,60 @@ public class PipelineLogger {
     logger.info("{}", message);
   }
 
+  /**
+   * Logs an informational message built from a format with one argument.
+   *
+   * @param format The message with a {@code {}} placeholder.
+   * @param arg    The argument filling in the placeholder.
+   */
+  public static void info(String format, Object arg) {
+    logger.info(format, arg);
+  }
+
+  /**
+   * Logs an informational message built from a format with two arguments.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param arg1   The argument filling in the first placeholder.
+   * @param arg2   The argument filling in the second placeholder.
+   */
+  public static void info(String format, Object arg1, Object arg2) {
+    logger.info(format, arg1, arg2);
+  }
+
+  /**
+   * Logs an informational message built from a format. A trailing {@link Throwable}
+   * argument is logged with its stack trace.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param args   The arguments filling in the placeholders.
+   */
+  public static void info(String format, Object... args) {
+    logger.info(format, args);
+  }
+
+  /**
+   * Logs an informational message built only if the level is enabled.
+   *
+   * @param message Supplies the message to log.
+   */
+  public static void info(Supplier<String> message) {
+    if (logger.isInfoEnabled()) {
+      logger.info("{}", message.get());
+    }
+  }
+
+  /**
+   * Starts an informational event that can carry key/value fields, for example
+   * {@code PipelineLogger.atInfo().addKeyValue(PipelineLogger.JOB_EXECUTION_ID, id).log("...")}.
+   * When the level is disabled the returned builder does nothing.
+   *
+   * @return The builder of the event.
+   */
+  public static LoggingEventBuilder atInfo() {
+    return logger.atInfo();
+  }
+
   /**
    * Logs a warning message.
    *
@@ -89,6 +266,60 @@ public class PipelineLogger {
     logger.warn("{}", message);
   }
 
+  /**
+   * Logs a warning message built from a format with one argument.
+   *
+   * @param format The message with a {@code {}} placeholder.
+   * @param arg    The argument filling in the placeholder.
+   */
+  public static void warn(String format, Object arg) {
+    logger.warn(format, arg);
+  }
+
+  /**
+   * Logs a warning message built from a format with two arguments.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param arg1   The argument filling in the first placeholder.
+   * @param arg2   The argument filling in the second placeholder.
+   */
+  public static void warn(String format, Object arg1, Object arg2) {
+    logger.warn(format, arg1, arg2);
+  }
+
+  /**
+   * Logs a warning message built from a format. A trailing {@link Throwable}
+   * argument is logged with its stack trace.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param args   The arguments filling in the placeholders.
+   */
+  public static void warn(String format, Object... args) {
+    logger.warn(format, args);
+  }
+
+  /**
+   * Logs a warning message built only if the level is enabled.
+   *
+   * @param message Supplies the message to log.
+   */
+  public static void warn(Supplier<String> message) {
+    if (logger.isWarnEnabled()) {
+      logger.warn("{}", message.get());
+    }
+  }
+
+  /**
+   * Starts a warning event that can carry key/value fields, for example
+   * {@code PipelineLogger.atWarn().addKeyValue(PipelineLogger.JOB_EXECUTION_ID, id).log("...")}.
+   * When the level is disabled the returned builder does nothing.
+   *
+   * @return The builder of the event.
+   */
+  public static LoggingEventBuilder atWarn() {
+    return logger.atWarn();
+  }
+
   /**
    * Logs an error message.
    *
@@ -98,6 +329,60 @@ public class PipelineLogger {
     logger.error("{}", message);
   }
 
+  /**
+   * Logs an error message built from a format with one argument.
+   *
+   * @param format The message with a {@code {}} placeholder.
+   * @param arg    The argument filling in the placeholder.
+   */
+  public static void error(String format, Object arg) {
+    logger.error(format, arg);
+  }
+
+  /**
+   * Logs an error message built from a format with two arguments.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param arg1   The argument filling in the first placeholder.
+   * @param arg2   The argument filling in the second placeholder.
+   */
+  public static void error(String format, Object arg1, Object arg2) {
+    logger.error(format, arg1, arg2);
+  }
+
+  /**
+   * Logs an error message built from a format. A trailing {@link Throwable}
+   * argument is logged with its stack trace.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param args   The arguments filling in the placeholders.
+   */
+  public static void error(String format, Object... args) {
+    logger.error(format, args);
+  }
+
+  /**
+   * Logs an error message built only if the level is enabled.
+   *
+   * @param message Supplies the message to log.
+   */
+  public static void error(Supplier<String> message) {
+    if (logger.isErrorEnabled()) {
+      logger.error("{}", message.get());
+    }
+  }
+
+  /**
+   * Starts an error event that can carry key/value fields, for example
+   * {@code PipelineLogger.atError().addKeyValue(PipelineLogger.JOB_EXECUTION_ID, id).log("...")}.
+   * When the level is disabled the returned builder does nothing.
+   *
+   * @return The builder of the event.
+   */
+  public static LoggingEventBuilder atError() {
+    return logger.atError();
+  }
+
   /**
    * Logs a debug message.
    *
@@ -106,4 +391,58 @@ public class PipelineLogger {
   public static void debug(String message) {
     logger.debug("{}", message);
   }
+
+  /**
+   * Logs a debug message built from a format with one argument.
+   *
+   * @param format The message with a {@code {}} placeholder.
+   * @param arg    The argument filling in the placeholder.
+   */
+  public static void debug(String format, Object arg) {
+    logger.debug(format, arg);
+  }
+
+  /**
+   * Logs a debug message built from a format with two arguments.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param arg1   The argument filling in the first placeholder.
+   * @param arg2   The argument filling in the second placeholder.
+   */
+  public static void debug(String format, Object arg1, Object arg2) {
+    logger.debug(format, arg1, arg2);
+  }
+
+  /**
+   * Logs a debug message built from a format. A trailing {@link Throwable}
+   * argument is logged with its stack trace.
+   *
+   * @param format The message with {@code {}} placeholders.
+   * @param args   The arguments filling in the placeholders.
+   */
+  public static void debug(String format, Object... args) {
+    logger.debug(format, args);
+  }
+
+  /**
+   * Logs a debug message built only if the level is enabled.
+   *
+   * @param message Supplies the message to log.
+   */
+  public static void debug(Supplier<String> message) {
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}", message.get());
+    }
+  }
+
+  /**
+   * Starts a debug event that can carry key/value fields, for example
+   * {@code PipelineLogger.atDebug().addKeyValue(PipelineLogger.JOB_EXECUTION_ID, id).log("...")}.
+   * When the level is disabled the returned builder does nothing.
+   *
+   * @return The builder of the event.
+   */
+  public static LoggingEventBuilder atDebug() {
+    return logger.atDebug();
+  }
 }
@@ -34,7 +34,7 @@ public class StageDeserializer extends JsonDeserializer<Stage> {
             ObjectMapper mapper = (ObjectMapper) p.getCodec();
             JsonNode node = mapper.readTree(p);
             
-            PipelineLogger.info("Deserializing Stage node: " + node.toString());
+            PipelineLogger.debug("Deserializing Stage node: {}", node);
             
             // Case 1: If the node is a text node, treat it as a stage name
             if (node instanceof TextNode || (node.isValueNode() && !node.isObject())) {
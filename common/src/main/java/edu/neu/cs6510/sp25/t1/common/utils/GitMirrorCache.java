@@ -0,0 +1,321 @@
+package edu.neu.cs6510.sp25.t1.common.utils;
+
+import edu.neu.cs6510.sp25.t1.common.logging.PipelineLogger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Local cache of bare mirror repositories, keyed by repository URL.
+ *
+ * <p>The first use of a repository clones a bare mirror of it; later uses only fetch what
+ * changed, and a use that asks for a commit the mirror already holds does not touch the
+ * network at all. Callers read the mirror through a {@link Mirror} lease, either directly
+ * with JGit or by cloning from its {@link Mirror#getUrl() file:// URL}; a leased mirror is
+ * never evicted.
+ *
+ * <p>The cache is bounded by the total size of its mirrors. When a use pushes it over the
+ * bound, the least recently used mirrors that are not leased are deleted. The last use of a
+ * mirror is stored as the modification time of its directory, so the order survives restarts.
+ * Leases and locks are only known to the process holding the cache, so two processes must
+ * not share a directory; the backend and each worker keep their own.
+ */
+public class GitMirrorCache {
+  private static final String MIRROR_SUFFIX = ".git";
+
+  private final File cacheDir;
+  private final long maxSizeBytes;
+
+  // Mirrors keyed by directory name
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the cache and picks up the mirrors left in the directory by an earlier run.
+   *
+   * @param cacheDir     directory holding the mirrors
+   * @param maxSizeBytes total size the mirrors may take up, in bytes
+   */
+  public GitMirrorCache(File cacheDir, long maxSizeBytes) {
+    this.cacheDir = cacheDir;
+    this.maxSizeBytes = maxSizeBytes;
+    File[] existing = cacheDir.listFiles(file -> file.isDirectory() && file.getName().endsWith(MIRROR_SUFFIX));
+    if (existing != null) {
+      for (File dir : existing) {
+        Entry entry = new Entry(dir);
+        entry.sizeBytes = sizeOf(dir);
+        entry.lastUsed = dir.lastModified();
+        entries.put(dir.getName(), entry);
+      }
+    }
+  }
+
+  /**
+   * Returns a lease on the up to date mirror of a repository, cloning it on first use.
+   * If a commit is given and the mirror already holds it, the remote is not contacted.
+   *
+   * @param repoUrl    repository URL
+   * @param commitHash commit the caller needs, or null to always fetch the latest refs
+   * @return the lease, to be closed once the mirror is no longer read
+   * @throws IOException     if the mirror cannot be written
+   * @throws GitAPIException if cloning or fetching fails
+   */
+  public Mirror acquire(String repoUrl, String commitHash) throws IOException, GitAPIException {
+    String key = keyFor(repoUrl);
+    while (true) {
+      Entry entry = entries.computeIfAbsent(key, name -> new Entry(new File(cacheDir, name)));
+      entry.leases.incrementAndGet();
+      entry.lock.lock();
+      try {
+        if (entries.get(key) != entry) {
+          // evicted between the lookup and the lease
+          entry.leases.decrementAndGet();
+          continue;
+        }
+        update(entry, repoUrl, commitHash);
+      } catch (IOException | GitAPIException | RuntimeException e) {
+        entry.leases.decrementAndGet();
+        throw e;
+      } finally {
+        entry.lock.unlock();
+      }
+      evictIfNeeded();
+      return new Mirror(entry);
+    }
+  }
+
+  /**
+   * Returns the total size of the cached mirrors.
+   *
+   * @return the size in bytes
+   */
+  public long getSizeBytes() {
+    return entries.values().stream().mapToLong(entry -> entry.sizeBytes).sum();
+  }
+
+  /**
+   * Returns the number of cached mirrors.
+   *
+   * @return the mirror count
+   */
+  public int getMirrorCount() {
+    return entries.size();
+  }
+
+  /**
+   * Tells whether a mirror of the repository is cached.
+   *
+   * @param repoUrl repository URL
+   * @return true if the repository is cached
+   */
+  public boolean contains(String repoUrl) {
+    return entries.containsKey(keyFor(repoUrl));
+  }
+
+  private void update(Entry entry, String repoUrl, String commitHash) throws IOException, GitAPIException {
+    long start = System.currentTimeMillis();
+    if (!new File(entry.dir, "HEAD").exists()) {
+      cloneMirror(entry.dir, repoUrl);
+      PipelineLogger.info("Cloned mirror of {} in {} ms", repoUrl, System.currentTimeMillis() - start);
+    } else if (commitHash == null || commitHash.isBlank() || !hasCommit(entry.dir, commitHash)) {
+      try (Git git = Git.open(entry.dir)) {
+        git.fetch().setRemoveDeletedRefs(true).call();
+      }
+      PipelineLogger.info("Fetched mirror of {} in {} ms", repoUrl, System.currentTimeMillis() - start);
+    } else {
+      PipelineLogger.debug("Mirror of {} already holds commit {}", repoUrl, commitHash);
+    }
+    entry.sizeBytes = sizeOf(entry.dir);
+    entry.lastUsed = System.currentTimeMillis();
+    if (!entry.dir.setLastModified(entry.lastUsed)) {
+      PipelineLogger.debug("Could not record the last use of mirror {}", entry.dir);
+    }
+  }
+
+  /**
+   * Clones a mirror next to its final location and moves it in place once complete,
+   * so an interrupted clone never leaves a half written mirror behind.
+   */
+  private void cloneMirror(File dir, String repoUrl) throws IOException, GitAPIException {
+    Files.createDirectories(cacheDir.toPath());
+    Path staging = Files.createTempDirectory(cacheDir.toPath(), dir.getName() + ".");
+    try {
+      try (Git git = Git.cloneRepository()
+          .setURI(repoUrl)
+          .setDirectory(staging.toFile())
+          .setBare(true)
+          .setMirror(true)
+          .call()) {
+        StoredConfig config = git.getRepository().getConfig();
+        // lets shallow clones from the mirror ask for any commit, not only ref tips
+        config.setBoolean("uploadpack", null, "allowAnySHA1InWant", true);
+        config.save();
+      }
+      deleteRecursively(dir.toPath());
+      Files.move(staging, dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      deleteRecursively(staging);
+    }
+  }
+
+  private boolean hasCommit(File dir, String commitHash) throws IOException {
+    try (Repository repository = new FileRepositoryBuilder().setGitDir(dir).setMustExist(true).build()) {
+      return repository.resolve(commitHash.trim() + "^{commit}") != null;
+    } catch (MissingObjectException | RevisionSyntaxException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Deletes the least recently used mirrors that are not leased until the cache fits its bound.
+   */
+  private void evictIfNeeded() {
+    if (getSizeBytes() <= maxSizeBytes) {
+      return;
+    }
+    List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+    candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastUsed));
+    for (Map.Entry<String, Entry> candidate : candidates) {
+      if (getSizeBytes() <= maxSizeBytes) {
+        return;
+      }
+      Entry entry = candidate.getValue();
+      if (entry.leases.get() > 0 || !entry.lock.tryLock()) {
+        continue;
+      }
+      try {
+        if (entry.leases.get() > 0) {
+          continue;
+        }
+        entries.remove(candidate.getKey(), entry);
+        deleteRecursively(entry.dir.toPath());
+        PipelineLogger.info("Evicted mirror {} of {} bytes", entry.dir.getName(), entry.sizeBytes);
+      } catch (IOException e) {
+        PipelineLogger.warn("Failed to evict mirror {}: {}", entry.dir, e.getMessage());
+      } finally {
+        entry.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Derives the directory name of a repository's mirror: the last path segment of the URL
+   * for readability plus a hash of the whole URL for uniqueness.
+   */
+  static String keyFor(String repoUrl) {
+    String trimmed = repoUrl.trim().replaceAll("/+$", "");
+    String name = trimmed.substring(trimmed.lastIndexOf('/') + 1).replaceAll("\\.git$", "")
+        .replaceAll("[^A-Za-z0-9._-]", "_").toLowerCase(Locale.ROOT);
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(trimmed.getBytes(StandardCharsets.UTF_8));
+      return name + "-" + HexFormat.of().formatHex(digest, 0, 8) + MIRROR_SUFFIX;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static long sizeOf(File dir) {
+    try (Stream<Path> files = Files.walk(dir.toPath())) {
+      return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+    } catch (IOException | UncheckedIOException e) {
+      return 0;
+    }
+  }
+
+  private static void deleteRecursively(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * Cached mirror of one repository.
+   */
+  private static final class Entry {
+    private final File dir;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicInteger leases = new AtomicInteger();
+    private volatile long sizeBytes;
+    private volatile long lastUsed;
+
+    Entry(File dir) {
+      this.dir = dir;
+    }
+  }
+
+  /**
+   * Lease on a mirror; the mirror is not evicted until the lease is closed.
+   */
+  public static final class Mirror implements AutoCloseable {
+    private final Entry entry;
+    private boolean closed;
+
+    private Mirror(Entry entry) {
+      this.entry = entry;
+    }
+
+    /**
+     * Returns the directory of the bare mirror repository.
+     *
+     * @return the mirror directory
+     */
+    public File getDirectory() {
+      return entry.dir;
+    }
+
+    /**
+     * Returns the URL to clone or fetch from the mirror.
+     *
+     * @return the file:// URL of the mirror
+     */
+    public String getUrl() {
+      return entry.dir.toURI().toString();
+    }
+
+    /**
+     * Opens the mirror repository for reading.
+     *
+     * @return the repository, to be closed by the caller
+     * @throws IOException if the repository cannot be opened
+     */
+    public Repository openRepository() throws IOException {
+      return new FileRepositoryBuilder().setGitDir(entry.dir).setMustExist(true).build();
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!closed) {
+        closed = true;
+        entry.leases.decrementAndGet();
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package edu.neu.cs6510.sp25.t1.common.api.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link JobLogResponse}.
+ */
+class JobLogResponseTest {
+
+  @Test
+  void constructor_ShouldCreateInstanceWithCorrectValues() {
+    JobLogResponse response = new JobLogResponse("job-1", "RUNNING", 8, 10, 12, List.of("a", "b"));
+
+    assertEquals("job-1", response.getJobExecutionId());
+    assertEquals("RUNNING", response.getStatus());
+    assertEquals(8, response.getFirstLine());
+    assertEquals(10, response.getNextLine());
+    assertEquals(12, response.getTotalLines());
+    assertEquals(List.of("a", "b"), response.getLines());
+  }
+
+  @Test
+  void jsonRoundTrip_ShouldKeepAllFields() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+    JobLogResponse original = new JobLogResponse("job-1", "SUCCESS", 0, 1, 1, List.of("done"));
+
+    JobLogResponse copy = objectMapper.readValue(objectMapper.writeValueAsString(original), JobLogResponse.class);
+
+    assertEquals(original.getJobExecutionId(), copy.getJobExecutionId());
+    assertEquals(original.getStatus(), copy.getStatus());
+    assertEquals(original.getFirstLine(), copy.getFirstLine());
+    assertEquals(original.getNextLine(), copy.getNextLine());
+    assertEquals(original.getTotalLines(), copy.getTotalLines());
+    assertEquals(original.getLines(), copy.getLines());
+  }
+}
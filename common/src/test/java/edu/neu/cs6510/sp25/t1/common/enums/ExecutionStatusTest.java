@@ -0,0 +1,35 @@
+package edu.neu.cs6510.sp25.t1.common.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExecutionStatusTest {
+
+  @Test
+  void testRollUp_successOnlyWhenAllSucceeded() {
+    assertEquals(ExecutionStatus.SUCCESS, ExecutionStatus.rollUp(List.of()));
+    assertEquals(ExecutionStatus.SUCCESS,
+        ExecutionStatus.rollUp(List.of(ExecutionStatus.SUCCESS, ExecutionStatus.SUCCESS)));
+  }
+
+  @Test
+  void testRollUp_inProgress() {
+    assertEquals(ExecutionStatus.PENDING,
+        ExecutionStatus.rollUp(List.of(ExecutionStatus.PENDING, ExecutionStatus.PENDING)));
+    assertEquals(ExecutionStatus.RUNNING,
+        ExecutionStatus.rollUp(List.of(ExecutionStatus.SUCCESS, ExecutionStatus.PENDING)));
+    assertEquals(ExecutionStatus.RUNNING,
+        ExecutionStatus.rollUp(List.of(ExecutionStatus.RUNNING, ExecutionStatus.PENDING)));
+  }
+
+  @Test
+  void testRollUp_failureOutweighsCancellation() {
+    assertEquals(ExecutionStatus.CANCELED,
+        ExecutionStatus.rollUp(List.of(ExecutionStatus.SUCCESS, ExecutionStatus.CANCELED)));
+    assertEquals(ExecutionStatus.FAILED,
+        ExecutionStatus.rollUp(List.of(ExecutionStatus.CANCELED, ExecutionStatus.FAILED, ExecutionStatus.RUNNING)));
+  }
+}
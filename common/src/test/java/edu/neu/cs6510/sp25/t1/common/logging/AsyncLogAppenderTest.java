@@ -0,0 +1,147 @@
+package edu.neu.cs6510.sp25.t1.common.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncLogAppenderTest {
+
+    private LoggerContext context;
+    private Logger logger;
+    private GatedAppender target;
+    private AsyncLogAppender appender;
+
+    @BeforeEach
+    public void setup() {
+        context = new LoggerContext();
+        logger = context.getLogger("test");
+        logger.setAdditive(false);
+
+        target = new GatedAppender();
+        target.setContext(context);
+        target.start();
+
+        appender = new AsyncLogAppender();
+        appender.setContext(context);
+        appender.addAppender(target);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        target.release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    public void testEventsAreWrittenInOrder() {
+        target.release.countDown();
+        start(16, -1, false);
+
+        logger.info("first {}", 1);
+        logger.warn("second");
+        appender.stop();
+
+        assertEquals(List.of("first 1", "second"), messages());
+        assertEquals(0, appender.getDiscardedCount());
+        assertEquals(0, appender.getDroppedCount());
+    }
+
+    @Test
+    public void testDiscardsEventsBelowWarnWhenQueueIsNearlyFull() throws InterruptedException {
+        start(10, 5, false);
+        blockWriter();
+
+        for (int i = 0; i < 10; i++) {
+            logger.info("info " + i);
+        }
+        // nearly full queue still takes warnings
+        logger.warn("warning");
+
+        assertEquals(4, appender.getDiscardedCount());
+        assertEquals(7, appender.getNumberOfElementsInQueue());
+
+        target.release.countDown();
+        appender.stop();
+        assertEquals(8, messages().size());
+        assertEquals("warning", messages().get(7));
+    }
+
+    @Test
+    public void testNeverBlockDropsWarningsWhenQueueIsFull() throws InterruptedException {
+        start(2, 0, true);
+        blockWriter();
+
+        logger.warn("a");
+        logger.warn("b");
+        logger.error("c");
+
+        assertEquals(1, appender.getDroppedCount());
+        assertEquals(0, appender.getDiscardedCount());
+
+        target.release.countDown();
+        appender.stop();
+        assertEquals(List.of("blocking", "a", "b"), messages());
+    }
+
+    @Test
+    public void testStopStopsTargetAppenders() {
+        start(4, -1, false);
+
+        appender.stop();
+
+        assertFalse(target.isStarted());
+    }
+
+    private void start(int queueSize, int discardingThreshold, boolean neverBlock) {
+        appender.setQueueSize(queueSize);
+        appender.setDiscardingThreshold(discardingThreshold);
+        appender.setNeverBlock(neverBlock);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    /**
+     * Logs an event the writer thread holds on to until the target is released.
+     */
+    private void blockWriter() throws InterruptedException {
+        logger.info("blocking");
+        assertTrue(target.entered.await(5, TimeUnit.SECONDS));
+    }
+
+    private List<String> messages() {
+        return target.events.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+
+    /**
+     * Records events once released.
+     */
+    private static class GatedAppender extends AppenderBase<ILoggingEvent> {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+    }
+}
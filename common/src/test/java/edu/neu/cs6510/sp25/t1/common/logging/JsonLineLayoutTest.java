@@ -0,0 +1,76 @@
+package edu.neu.cs6510.sp25.t1.common.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonLineLayoutTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Logger logger;
+    private ListAppender<ILoggingEvent> listAppender;
+    private JsonLineLayout layout;
+
+    @BeforeEach
+    public void setup() {
+        LoggerContext context = new LoggerContext();
+        logger = context.getLogger("test");
+        listAppender = new ListAppender<>();
+        listAppender.start();
+        logger.addAppender(listAppender);
+
+        layout = new JsonLineLayout();
+        layout.setContext(context);
+        layout.start();
+    }
+
+    @Test
+    public void testWritesOneObjectPerLine() throws Exception {
+        logger.info("Saved {} stage executions", 3);
+
+        String line = layout.doLayout(listAppender.list.get(0));
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(1, line.split("\n").length);
+
+        JsonNode json = mapper.readTree(line);
+        assertEquals("INFO", json.get("level").asText());
+        assertEquals("Saved 3 stage executions", json.get("message").asText());
+        assertEquals(Thread.currentThread().getName(), json.get("thread").asText());
+        assertTrue(json.has("time"));
+    }
+
+    @Test
+    public void testKeyValueFieldsBecomeTopLevelFields() throws Exception {
+        logger.atWarn()
+            .addKeyValue(PipelineLogger.JOB_EXECUTION_ID, "j1")
+            .addKeyValue("attempt", 2)
+            .log("Retrying job");
+
+        JsonNode json = mapper.readTree(layout.doLayout(listAppender.list.get(0)));
+        assertEquals("j1", json.get("jobExecutionId").asText());
+        assertTrue(json.get("attempt").isInt());
+        assertEquals(2, json.get("attempt").asInt());
+    }
+
+    @Test
+    public void testEscapesMessageAndIncludesException() throws Exception {
+        logger.error("Quote \" backslash \\ newline\n tab\t", new IllegalStateException("boom"));
+
+        String line = layout.doLayout(listAppender.list.get(0));
+        assertEquals(1, line.split("\n").length);
+
+        JsonNode json = mapper.readTree(line);
+        assertEquals("Quote \" backslash \\ newline\n tab\t", json.get("message").asText());
+        assertTrue(json.get("exception").asText().contains("IllegalStateException: boom"));
+        assertFalse(json.has("attempt"));
+    }
+}
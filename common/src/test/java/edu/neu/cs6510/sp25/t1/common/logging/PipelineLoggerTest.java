@@ -9,8 +9,10 @@ import ch.qos.logback.classic.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class PipelineLoggerTest {
 
@@ -19,6 +21,8 @@ public class PipelineLoggerTest {
 
     @BeforeEach
     public void setup() {
+        // configure PipelineLogger first, it resets the appenders when loaded
+        PipelineLogger.setVerbose(true);
         logger = (Logger) org.slf4j.LoggerFactory.getLogger("cicd-logger");
 
         listAppender = new ListAppender<>();
@@ -59,4 +63,51 @@ public class PipelineLoggerTest {
         assertEquals(Level.DEBUG, logger.getLevel());
     }
 
+    @Test
+    public void testParameterizedLogging() {
+        PipelineLogger.warn("Job {} of stage {}", "build", 2);
+        PipelineLogger.info("{} {} {}", "a", "b", "c");
+
+        assertEquals("Job build of stage 2", listAppender.list.get(0).getFormattedMessage());
+        assertEquals(Level.WARN, listAppender.list.get(0).getLevel());
+        assertEquals("a b c", listAppender.list.get(1).getFormattedMessage());
+    }
+
+    @Test
+    public void testPlainMessageIsNotFormatted() {
+        PipelineLogger.info("Literal {} braces");
+
+        assertEquals("Literal {} braces", listAppender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    public void testSupplierOnlyCalledWhenLevelIsEnabled() {
+        AtomicBoolean called = new AtomicBoolean();
+        PipelineLogger.setVerbose(false);
+
+        PipelineLogger.debug(() -> {
+            called.set(true);
+            return "expensive";
+        });
+        assertFalse(called.get());
+        assertTrue(listAppender.list.isEmpty());
+
+        PipelineLogger.setVerbose(true);
+        PipelineLogger.debug(() -> "expensive");
+        assertEquals("expensive", listAppender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    public void testStructuredFields() {
+        PipelineLogger.atInfo()
+            .addKeyValue(PipelineLogger.PIPELINE_EXECUTION_ID, "p1")
+            .addKeyValue(PipelineLogger.JOB_EXECUTION_ID, "j1")
+            .log("Job {} dispatched", "j1");
+
+        ILoggingEvent event = listAppender.list.get(0);
+        assertEquals("Job j1 dispatched", event.getFormattedMessage());
+        assertEquals(2, event.getKeyValuePairs().size());
+        assertEquals("pipelineExecutionId", event.getKeyValuePairs().get(0).key);
+        assertEquals("j1", event.getKeyValuePairs().get(1).value);
+    }
 }
@@ -0,0 +1,175 @@
+package edu.neu.cs6510.sp25.t1.common.utils;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mirrors local repositories over file:// instead of a remote.
+ */
+class GitMirrorCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File cacheDir;
+
+    @BeforeEach
+    void setUp() {
+        cacheDir = tempDir.resolve("mirrors").toFile();
+    }
+
+    @Test
+    void acquire_clonesMirrorOnFirstUse() throws Exception {
+        File source = tempDir.resolve("repo").toFile();
+        RevCommit commit;
+        try (Git git = initRepo(source)) {
+            commit = commit(git, source, "README.md", "one\n");
+        }
+        GitMirrorCache cache = new GitMirrorCache(cacheDir, Long.MAX_VALUE);
+
+        try (GitMirrorCache.Mirror mirror = cache.acquire(url(source), null);
+             Repository repository = mirror.openRepository()) {
+            assertTrue(repository.isBare());
+            assertEquals(commit.getId(), repository.resolve(Constants.R_HEADS + "main"));
+            assertTrue(mirror.getUrl().startsWith("file:"));
+        }
+        assertEquals(1, cache.getMirrorCount());
+        assertTrue(cache.getSizeBytes() > 0);
+        assertTrue(cache.contains(url(source)));
+    }
+
+    @Test
+    void acquire_fetchesNewCommits() throws Exception {
+        File source = tempDir.resolve("repo").toFile();
+        GitMirrorCache cache = new GitMirrorCache(cacheDir, Long.MAX_VALUE);
+        try (Git git = initRepo(source)) {
+            commit(git, source, "README.md", "one\n");
+            cache.acquire(url(source), null).close();
+
+            RevCommit second = commit(git, source, "README.md", "two\n");
+            try (GitMirrorCache.Mirror mirror = cache.acquire(url(source), second.getName());
+                 Repository repository = mirror.openRepository()) {
+                assertEquals(second.getId(), repository.resolve(Constants.R_HEADS + "main"));
+            }
+        }
+    }
+
+    @Test
+    void acquire_skipsFetchWhenCommitIsMirrored() throws Exception {
+        File source = tempDir.resolve("repo").toFile();
+        RevCommit commit;
+        try (Git git = initRepo(source)) {
+            commit = commit(git, source, "README.md", "one\n");
+        }
+        GitMirrorCache cache = new GitMirrorCache(cacheDir, Long.MAX_VALUE);
+        cache.acquire(url(source), null).close();
+
+        // the remote is gone, only the mirror can serve the commit
+        deleteRecursively(source.toPath());
+
+        try (GitMirrorCache.Mirror mirror = cache.acquire(url(source), commit.getName());
+             Repository repository = mirror.openRepository()) {
+            ObjectId resolved = repository.resolve(commit.getName() + "^{commit}");
+            assertEquals(commit.getId(), resolved);
+        }
+        assertThrows(Exception.class, () -> cache.acquire(url(source), null));
+    }
+
+    @Test
+    void acquire_evictsLeastRecentlyUsedMirror() throws Exception {
+        File first = tempDir.resolve("first").toFile();
+        File second = tempDir.resolve("second").toFile();
+        try (Git git = initRepo(first)) {
+            commit(git, first, "README.md", "first\n");
+        }
+        try (Git git = initRepo(second)) {
+            commit(git, second, "README.md", "second\n");
+        }
+        GitMirrorCache cache = new GitMirrorCache(cacheDir, 1);
+
+        GitMirrorCache.Mirror firstMirror = cache.acquire(url(first), null);
+        File firstDir = firstMirror.getDirectory();
+        // a leased mirror is kept even above the bound
+        cache.acquire(url(second), null).close();
+        assertTrue(firstDir.exists());
+        assertTrue(cache.contains(url(first)));
+
+        firstMirror.close();
+        cache.acquire(url(second), null).close();
+        assertFalse(firstDir.exists());
+        assertFalse(cache.contains(url(first)));
+        assertTrue(cache.contains(url(second)));
+    }
+
+    @Test
+    void constructor_picksUpExistingMirrors() throws Exception {
+        File source = tempDir.resolve("repo").toFile();
+        try (Git git = initRepo(source)) {
+            commit(git, source, "README.md", "one\n");
+        }
+        new GitMirrorCache(cacheDir, Long.MAX_VALUE).acquire(url(source), null).close();
+
+        GitMirrorCache restarted = new GitMirrorCache(cacheDir, Long.MAX_VALUE);
+
+        assertEquals(1, restarted.getMirrorCount());
+        assertTrue(restarted.contains(url(source)));
+        assertTrue(restarted.getSizeBytes() > 0);
+    }
+
+    @Test
+    void keyFor_isReadableAndUnique() {
+        String key = GitMirrorCache.keyFor("https://github.com/owner/Repo.git");
+
+        assertTrue(key.startsWith("repo-"));
+        assertTrue(key.endsWith(".git"));
+        assertEquals(key, GitMirrorCache.keyFor("https://github.com/owner/Repo.git/"));
+        assertNotEquals(key, GitMirrorCache.keyFor("https://github.com/other/Repo.git"));
+    }
+
+    private Git initRepo(File dir) throws Exception {
+        return Git.init().setDirectory(dir).setInitialBranch("main").call();
+    }
+
+    private RevCommit commit(Git git, File dir, String path, String content) throws Exception {
+        Path file = dir.toPath().resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        git.add().addFilepattern(".").call();
+        return git.commit()
+                .setMessage("Update " + path)
+                .setAuthor("test", "test@example.com")
+                .setCommitter("test", "test@example.com")
+                .setSign(false)
+                .call();
+    }
+
+    private String url(File dir) {
+        return "file://" + dir.getAbsolutePath();
+    }
+
+    private void deleteRecursively(Path path) throws Exception {
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -18,6 +18,10 @@ dependencies {
     // WebClient (for sending job status updates)
     implementation("org.springframework.boot:spring-boot-starter-webflux")
 
+    // Job lifecycle metrics, scraped from /actuator/prometheus
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+
     // JPA and Database
     implementation("org.springframework.boot:spring-boot-starter-data-jpa:3.4.3")
     runtimeOnly("org.postgresql:postgresql:42.7.5")
@@ -61,7 +65,7 @@ dependencies {
 
     //adding docker library
     implementation ("com.github.docker-java:docker-java:3.2.13")
-    implementation ("com.github.docker-java:docker-java-transport-okhttp:3.2.13")
+    implementation ("com.github.docker-java:docker-java-transport-httpclient5:3.2.13")
 
     // file DB MinIO
     implementation("io.minio:minio:8.5.7")
@@ -5,10 +5,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
+import edu.neu.cs6510.sp25.t1.backend.service.log.LogSegmentStore;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusRollupService;
 import edu.neu.cs6510.sp25.t1.worker.config.ArtifactProperties;
 
 import edu.neu.cs6510.sp25.t1.worker.config.WorkerApiProperties;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 /**
@@ -22,6 +26,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
         "edu.neu.cs6510.sp25.t1.backend.database.repository",
         "edu.neu.cs6510.sp25.t1.backend.mapper"
 })
+@Import({StatusRollupService.class, LogSegmentStore.class, JobMetrics.class})
 @EntityScan(basePackages = "edu.neu.cs6510.sp25.t1.backend.database.entity")
 
 @EnableJpaRepositories(basePackages = "edu.neu.cs6510.sp25.t1.backend.database.repository")
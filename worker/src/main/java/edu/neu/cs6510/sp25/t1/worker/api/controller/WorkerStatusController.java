@@ -2,6 +2,8 @@ package edu.neu.cs6510.sp25.t1.worker.api.controller;
 
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.config.InstrumentedDockerHttpClient;
+import edu.neu.cs6510.sp25.t1.worker.execution.ContainerSlots;
 import edu.neu.cs6510.sp25.t1.worker.service.JobDataService;
 import edu.neu.cs6510.sp25.t1.worker.service.WorkerJobQueue;
 import lombok.RequiredArgsConstructor;
@@ -32,18 +34,40 @@ import java.util.stream.Collectors;
 public class WorkerStatusController {
     private final WorkerJobQueue jobQueue;
     private final JobDataService jobDataService;
+    private final ContainerSlots containerSlots;
+    private final InstrumentedDockerHttpClient dockerHttpClient;
 
     /**
      * Gets the current status of the worker including information about
-     * active jobs and system health.
+     * active jobs, execution slot utilization and Docker API calls.
      *
      * @return Response with worker status information
      */
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getWorkerStatus() {
+        int activeJobs = jobQueue.getActiveJobCount();
+        int maxConcurrentJobs = jobQueue.getMaxConcurrentJobs();
+        int runningContainers = containerSlots.getRunningContainers();
+
+        // Virtual mode accepts any number of jobs, only running containers take a slot
+        int usedSlots = activeJobs;
+        int totalSlots = maxConcurrentJobs;
+        if (jobQueue.getExecutionMode() == WorkerJobQueue.ExecutionMode.VIRTUAL) {
+            usedSlots = runningContainers;
+            totalSlots = containerSlots.getMaxRunningContainers();
+        }
+
         Map<String, Object> status = new HashMap<>();
         status.put("status", "running");
-        status.put("active_jobs", jobQueue.getActiveJobCount());
+        status.put("active_jobs", activeJobs);
+        status.put("max_concurrent_jobs", maxConcurrentJobs);
+        status.put("available_slots", Math.max(0, totalSlots - usedSlots));
+        status.put("slot_utilization", totalSlots == 0 ? 0.0 : (double) usedSlots / totalSlots);
+        status.put("running_containers", runningContainers);
+        status.put("docker_in_flight_calls", dockerHttpClient.getInFlightCalls());
+        status.put("docker_peak_in_flight_calls", dockerHttpClient.getPeakInFlightCalls());
+        status.put("docker_total_calls", dockerHttpClient.getTotalCalls());
+        status.put("docker_failed_calls", dockerHttpClient.getFailedCalls());
         return ResponseEntity.ok(status);
     }
 
@@ -104,8 +128,9 @@ public class WorkerStatusController {
     @GetMapping("/info")
     public ResponseEntity<Map<String, Object>> getWorkerInfo() {
         Map<String, Object> info = new HashMap<>();
-        info.put("max_concurrent_jobs", 5);
+        info.put("max_concurrent_jobs", jobQueue.getMaxConcurrentJobs());
         info.put("executor_type", "docker");
+        info.put("execution_mode", jobQueue.getExecutionMode());
         info.put("worker_id", UUID.randomUUID());
 
         return ResponseEntity.ok(info);
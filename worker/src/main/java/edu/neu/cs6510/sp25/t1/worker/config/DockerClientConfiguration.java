@@ -0,0 +1,59 @@
+package edu.neu.cs6510.sp25.t1.worker.config;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import com.github.dockerjava.transport.DockerHttpClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the single {@link DockerClient} used by the worker.
+ * All Docker calls go through one connection pool instead of each component opening
+ * its own sockets to the daemon.
+ */
+@Configuration
+@Slf4j
+public class DockerClientConfiguration {
+
+  /**
+   * Creates the pooled HTTP transport to the Docker daemon, instrumented with in-flight call counters.
+   *
+   * @param properties transport settings
+   * @return the instrumented transport
+   */
+  @Bean(destroyMethod = "close")
+  public InstrumentedDockerHttpClient dockerHttpClient(DockerClientProperties properties) {
+    DefaultDockerClientConfig config = dockerClientConfig(properties);
+    DockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
+        .dockerHost(config.getDockerHost())
+        .sslConfig(config.getSSLConfig())
+        .maxConnections(properties.getMaxConnections())
+        .connectionTimeout(properties.getConnectionTimeout())
+        .responseTimeout(properties.getResponseTimeout())
+        .build();
+    log.info("Docker client for {} uses up to {} pooled connections",
+        config.getDockerHost(), properties.getMaxConnections());
+    return new InstrumentedDockerHttpClient(httpClient);
+  }
+
+  /**
+   * Creates the shared Docker client.
+   *
+   * @param properties transport settings
+   * @param httpClient the pooled transport
+   * @return the Docker client
+   */
+  @Bean
+  public DockerClient dockerClient(DockerClientProperties properties, InstrumentedDockerHttpClient httpClient) {
+    return DockerClientImpl.getInstance(dockerClientConfig(properties), httpClient);
+  }
+
+  private DefaultDockerClientConfig dockerClientConfig(DockerClientProperties properties) {
+    return DefaultDockerClientConfig.createDefaultConfigBuilder()
+        .withDockerHost(properties.getHost())
+        .build();
+  }
+}
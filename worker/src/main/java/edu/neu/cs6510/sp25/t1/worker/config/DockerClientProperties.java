@@ -0,0 +1,33 @@
+package edu.neu.cs6510.sp25.t1.worker.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Transport settings of the Docker client shared by all worker components.
+ */
+@Setter
+@Getter
+@Component
+@ConfigurationProperties(prefix = "docker.client")
+public class DockerClientProperties {
+  /** Docker daemon endpoint. */
+  private String host = "unix:///var/run/docker.sock";
+
+  /** Maximum number of pooled connections to the daemon. */
+  private int maxConnections = 50;
+
+  /** Time allowed to establish a connection to the daemon. */
+  private Duration connectionTimeout = Duration.ofSeconds(30);
+
+  /**
+   * Time allowed to wait for a response. Zero disables the timeout, which is needed for
+   * streaming calls such as following container logs or waiting for a container.
+   */
+  private Duration responseTimeout = Duration.ZERO;
+}
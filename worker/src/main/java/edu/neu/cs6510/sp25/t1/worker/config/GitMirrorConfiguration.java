@@ -0,0 +1,36 @@
+package edu.neu.cs6510.sp25.t1.worker.config;
+
+import edu.neu.cs6510.sp25.t1.common.utils.GitMirrorCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+
+/**
+ * Creates the local repository mirrors the checkout containers clone from.
+ * The mirrors are bind mounted into the containers, so their directory must be the same
+ * path on the Docker host as in the worker.
+ */
+@Configuration
+@ConditionalOnProperty(name = "worker.git-mirror.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class GitMirrorConfiguration {
+
+  /**
+   * Creates the mirror cache.
+   *
+   * @param path    directory holding the mirrors
+   * @param maxSize total size the mirrors may take up
+   * @return the mirror cache
+   */
+  @Bean
+  public GitMirrorCache gitMirrorCache(@Value("${worker.git-mirror.path:/var/cicd/git-mirrors}") String path,
+      @Value("${worker.git-mirror.max-size:10GB}") DataSize maxSize) {
+    log.info("Repository mirrors in {} are bounded to {}", path, maxSize);
+    return new GitMirrorCache(new File(path), maxSize.toBytes());
+  }
+}
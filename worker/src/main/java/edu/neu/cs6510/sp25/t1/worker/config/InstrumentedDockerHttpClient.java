@@ -0,0 +1,128 @@
+package edu.neu.cs6510.sp25.t1.worker.config;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Docker transport that counts the API calls passing through it.
+ * A call is in flight from the moment it is sent until its response is closed, so
+ * streaming calls such as log follows stay counted while they are being read.
+ */
+public class InstrumentedDockerHttpClient implements DockerHttpClient {
+  private final DockerHttpClient delegate;
+  private final AtomicInteger inFlightCalls = new AtomicInteger();
+  private final AtomicInteger peakInFlightCalls = new AtomicInteger();
+  private final AtomicLong totalCalls = new AtomicLong();
+  private final AtomicLong failedCalls = new AtomicLong();
+
+  /**
+   * Wraps a transport.
+   *
+   * @param delegate the transport that performs the calls
+   */
+  public InstrumentedDockerHttpClient(DockerHttpClient delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Response execute(Request request) {
+    int inFlight = inFlightCalls.incrementAndGet();
+    peakInFlightCalls.accumulateAndGet(inFlight, Math::max);
+    totalCalls.incrementAndGet();
+    try {
+      return new CountedResponse(delegate.execute(request));
+    } catch (RuntimeException e) {
+      inFlightCalls.decrementAndGet();
+      failedCalls.incrementAndGet();
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  /**
+   * Returns the number of Docker API calls currently in flight.
+   *
+   * @return the in-flight call count
+   */
+  public int getInFlightCalls() {
+    return inFlightCalls.get();
+  }
+
+  /**
+   * Returns the highest number of calls that were in flight at the same time.
+   *
+   * @return the peak in-flight call count
+   */
+  public int getPeakInFlightCalls() {
+    return peakInFlightCalls.get();
+  }
+
+  /**
+   * Returns the number of Docker API calls made since startup.
+   *
+   * @return the total call count
+   */
+  public long getTotalCalls() {
+    return totalCalls.get();
+  }
+
+  /**
+   * Returns the number of Docker API calls that failed at the transport level.
+   *
+   * @return the failed call count
+   */
+  public long getFailedCalls() {
+    return failedCalls.get();
+  }
+
+  /**
+   * Response that leaves the in-flight count when it is closed, at most once.
+   */
+  private final class CountedResponse implements Response {
+    private final Response delegate;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private CountedResponse(Response delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int getStatusCode() {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+      return delegate.getHeaders();
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return delegate.getHeader(name);
+    }
+
+    @Override
+    public InputStream getBody() {
+      return delegate.getBody();
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        inFlightCalls.decrementAndGet();
+      }
+      delegate.close();
+    }
+  }
+}
@@ -12,8 +12,16 @@ public class RabbitMQConfig {
     @Value("${cicd.rabbitmq.job-queue}")
     private String jobQueueName;
 
+    @Value("${cicd.rabbitmq.job-status-queue}")
+    private String jobStatusQueueName;
+
     @Bean
     public Queue jobQueue() {
         return new Queue(jobQueueName, true); // durable=true
     }
+
+    @Bean
+    public Queue jobStatusQueue() {
+        return new Queue(jobStatusQueueName, true); // durable=true
+    }
 }
\ No newline at end of file
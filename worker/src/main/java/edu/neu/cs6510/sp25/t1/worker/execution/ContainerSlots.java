@@ -0,0 +1,69 @@
+package edu.neu.cs6510.sp25.t1.worker.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of job containers that run at the same time on this worker.
+ * Jobs may clone repositories and pull images concurrently, but must hold a slot
+ * from creating their container until it has been removed.
+ */
+@Component
+@Slf4j
+public class ContainerSlots {
+  private final int maxRunningContainers;
+  private final Semaphore slots;
+
+  /**
+   * Creates the limiter.
+   *
+   * @param maxRunningContainers number of containers allowed to run at once
+   */
+  public ContainerSlots(@Value("${worker.max-concurrent-jobs:5}") int maxRunningContainers) {
+    if (maxRunningContainers < 1) {
+      throw new IllegalArgumentException("worker.max-concurrent-jobs must be at least 1");
+    }
+    this.maxRunningContainers = maxRunningContainers;
+    this.slots = new Semaphore(maxRunningContainers, true);
+  }
+
+  /**
+   * Blocks until a container slot is free and takes it.
+   *
+   * @throws InterruptedException if the waiting thread is interrupted, e.g. because the job was cancelled
+   */
+  public void acquire() throws InterruptedException {
+    if (!slots.tryAcquire()) {
+      log.info("All {} container slots are busy, waiting for a free slot", maxRunningContainers);
+      slots.acquire();
+    }
+  }
+
+  /**
+   * Returns a slot taken with {@link #acquire()}.
+   */
+  public void release() {
+    slots.release();
+  }
+
+  /**
+   * Returns the number of containers currently holding a slot.
+   *
+   * @return the running container count
+   */
+  public int getRunningContainers() {
+    return maxRunningContainers - slots.availablePermits();
+  }
+
+  /**
+   * Returns the number of containers allowed to run at once.
+   *
+   * @return the slot count
+   */
+  public int getMaxRunningContainers() {
+    return maxRunningContainers;
+  }
+}
@@ -5,15 +5,16 @@ import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Mount;
 import com.github.dockerjava.api.model.MountType;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientBuilder;
-import com.github.dockerjava.okhttp.OkHttpDockerCmdExecFactory;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
 import edu.neu.cs6510.sp25.t1.worker.error.DockerExecutionException;
 import edu.neu.cs6510.sp25.t1.worker.error.JobExecutionConfigException;
-import edu.neu.cs6510.sp25.t1.worker.service.GitCloneService;
+import edu.neu.cs6510.sp25.t1.worker.service.JobLogBuffer;
+import edu.neu.cs6510.sp25.t1.worker.service.JobLogService;
+import edu.neu.cs6510.sp25.t1.worker.service.WorkspaceManager;
 import edu.neu.cs6510.sp25.t1.worker.utils.FindPipelineBranch;
 import edu.neu.cs6510.sp25.t1.worker.utils.FindPipelineName;
 import org.springframework.stereotype.Component;
+import java.time.Duration;
 import java.util.List;
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.dto.JobDTO;
@@ -23,27 +24,27 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Executes jobs inside Docker containers.
+ * Cloning and image pulls run freely, while the job container itself only runs
+ * once a slot from {@link ContainerSlots} is available. Images are made available
+ * by {@link ImagePuller} according to the configured pull policy.
+ * The output of the job container is followed while it runs and stored by
+ * {@link JobLogService}. The image pull and the run of the container are timed in
+ * {@link JobMetrics}.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class DockerExecutor {
 
-  // adding docker client
-  private final DockerClient dockerClient = createDockerClient();
+  // shared docker client, see DockerClientConfiguration
+  private final DockerClient dockerClient;
   private final FindPipelineName findPipelineName;
-  private final GitCloneService gitCloneService;
+  private final WorkspaceManager workspaceManager;
   private final FindPipelineBranch findPipelineBranch;
-
-  private DockerClient createDockerClient() {
-    DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
-        .withDockerHost("unix:///var/run/docker.sock") // explicitly use host socket
-        .build();
-
-    return DockerClientBuilder.getInstance(config)
-        .withDockerCmdExecFactory(new OkHttpDockerCmdExecFactory())
-        .build();
-  }
+  private final ContainerSlots containerSlots;
+  private final ImagePuller imagePuller;
+  private final JobLogService jobLogService;
+  private final JobMetrics jobMetrics;
 
   /**
    * Executes a job inside a Docker container.
@@ -79,15 +80,6 @@ public class DockerExecutor {
 //    String workingDirectoryName = pathParts[pathParts.length - 1];
     log.info("Extracted url name: {}", url);
 
-    // clone into workingDir
-    String volumeName;
-    try {
-      volumeName = gitCloneService.cloneRepoToVolume(url, branch, pipelineName);
-    } catch (Exception e) {
-      log.error("Git clone to volume failed: {}", e.getMessage(), e);
-      throw new DockerExecutionException("Git clone failed", e);
-    }
-
     if (script == null || script.isEmpty()) {
       throw new JobExecutionConfigException("Script commands are missing");
     }
@@ -96,11 +88,23 @@ public class DockerExecutor {
       throw new JobExecutionConfigException("Docker image is not specified");
     }
 
+    // check out the job's commit and get a working tree of its own
+    WorkspaceManager.Workspace workspace;
+    try {
+      workspace = workspaceManager.acquire(url, branch, pipelineName, jobExecution.getCommitHash(),
+          jobExecution.getId());
+    } catch (Exception e) {
+      log.error("Git clone to volume failed: {}", e.getMessage(), e);
+      throw new DockerExecutionException("Git clone failed", e);
+    }
+    String volumeName = workspace == null ? null : workspace.volumeName();
+
     // confirm we have workDir
 //    if (workingDirectory == null || workingDirectory.trim().isEmpty()) {
 //      throw new JobExecutionConfigException("Working directory is not specified");
 //    }
     if (volumeName == null || volumeName.trim().isEmpty()) {
+      workspaceManager.release(workspace);
       throw new JobExecutionConfigException("Working directory is not specified");
     }
 
@@ -114,10 +118,13 @@ public class DockerExecutor {
     String command = String.join(" && ", script);
     String containerID = null;
     boolean debugging = false;
+    boolean holdsSlot = false;
 
     try {
-      dockerClient.pullImageCmd(dockerImage).start().awaitCompletion();
-      log.info("Pulled Docker image: {}", dockerImage);
+      long pullStart = System.nanoTime();
+      imagePuller.ensureImage(dockerImage);
+      jobMetrics.recordImagePull(jobExecution.getStageExecutionId(),
+          Duration.ofNanos(System.nanoTime() - pullStart));
       /*
       Volume containerVolume = new Volume(workingDirectory);
       Bind hostBind = new Bind(workingDirectory, containerVolume, AccessMode.rw);
@@ -137,11 +144,15 @@ public class DockerExecutor {
 //          .withHostConfig(new com.github.dockerjava.api.model.HostConfig().withBinds(hostBind))
 //          .withVolumes(containerVolume)
 //          .exec();
-      String targetMountPath = "/app"; // inside container
+      String targetMountPath = WorkspaceManager.MOUNT_PATH; // inside container
+
+      // Wait for a free container slot, the image pull above does not need one
+      containerSlots.acquire();
+      holdsSlot = true;
 
       var jobContainer = dockerClient.createContainerCmd(dockerImage)
           .withCmd("sh", "-c", command)
-          .withWorkingDir(targetMountPath + "/repo")
+          .withWorkingDir(workspace.workingDir())
           .withHostConfig(new HostConfig().withMounts(
               List.of(new Mount()
                   .withType(MountType.VOLUME)
@@ -154,23 +165,38 @@ public class DockerExecutor {
 
       containerID = jobContainer.getId();
       dockerClient.startContainerCmd(containerID).exec();
-
-      dockerClient.logContainerCmd(containerID)
-          .withStdOut(true)
-          .withStdErr(true)
-          .withFollowStream(true)
-          .exec(new com.github.dockerjava.core.command.LogContainerResultCallback() {
-            @Override
-            public void onNext(com.github.dockerjava.api.model.Frame frame) {
-              String logLine = new String(frame.getPayload()).trim();
-              log.info("[{}] {}", frame.getStreamType(), logLine);
-            }
-          }).awaitCompletion();
+      long runStart = System.nanoTime();
+
+      JobLogBuffer jobLog = jobLogService.open(jobExecution.getId());
+      try {
+        dockerClient.logContainerCmd(containerID)
+            .withStdOut(true)
+            .withStdErr(true)
+            .withFollowStream(true)
+            .exec(new com.github.dockerjava.core.command.LogContainerResultCallback() {
+              @Override
+              public void onNext(com.github.dockerjava.api.model.Frame frame) {
+                jobLog.append(frame.getStreamType(), frame.getPayload());
+                if (log.isDebugEnabled()) {
+                  log.debug("[{}] {}", frame.getStreamType(), new String(frame.getPayload()).trim());
+                }
+              }
+            }).awaitCompletion();
+      } finally {
+        jobLog.endOfOutput();
+      }
 
       Integer exitCode = dockerClient.waitContainerCmd(containerID).start().awaitStatusCode();
       log.info("Container exited with code: {}", exitCode);
 
-      return exitCode == 0 ? ExecutionStatus.SUCCESS : ExecutionStatus.FAILED;
+      ExecutionStatus status = exitCode == 0 ? ExecutionStatus.SUCCESS : ExecutionStatus.FAILED;
+      jobMetrics.recordContainerRun(jobExecution.getStageExecutionId(), status,
+          Duration.ofNanos(System.nanoTime() - runStart));
+      return status;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.error("Docker execution interrupted: {}", e.getMessage());
+      throw new DockerExecutionException("Docker execution interrupted", e);
     } catch (Exception e) {
       log.error("Docker execution failed: {}", e.getMessage(), e);
       throw new DockerExecutionException("Docker execution failed: " + e.getMessage(), e);
@@ -187,6 +213,10 @@ public class DockerExecutor {
           log.error("Failed to cleanup container {}", containerID, cleanupEx);
         }
       }
+      if (holdsSlot) {
+        containerSlots.release();
+      }
+      workspaceManager.release(workspace);
     }
   }
 }
@@ -0,0 +1,201 @@
+package edu.neu.cs6510.sp25.t1.worker.execution;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+import edu.neu.cs6510.sp25.t1.worker.error.DockerExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Makes job images available locally according to {@code docker.image-pull-policy}.
+ * Resolved image IDs are remembered for {@code docker.image-cache-ttl}, so jobs that reuse
+ * an image skip the registry round trip, and concurrent jobs that need the same image wait
+ * for a single pull instead of each starting their own.
+ */
+@Component
+@Slf4j
+public class ImagePuller {
+
+  /**
+   * When an image is pulled from its registry.
+   */
+  public enum PullPolicy {
+    /** Pull unless the image was resolved within the cache TTL. */
+    ALWAYS,
+    /** Pull only if the image is not present locally. */
+    IF_NOT_PRESENT,
+    /** Never pull, fail if the image is not present locally. */
+    NEVER;
+
+    /**
+     * Parses a policy name such as {@code Always}, {@code IfNotPresent} or {@code if-not-present}.
+     *
+     * @param value the configured policy
+     * @return the matching policy
+     * @throws IllegalArgumentException if the value names no policy
+     */
+    public static PullPolicy parse(String value) {
+      String normalized = value.trim().replace("-", "").replace("_", "").toLowerCase(Locale.ROOT);
+      for (PullPolicy policy : values()) {
+        if (policy.name().replace("_", "").toLowerCase(Locale.ROOT).equals(normalized)) {
+          return policy;
+        }
+      }
+      throw new IllegalArgumentException("Unknown docker.image-pull-policy: " + value);
+    }
+  }
+
+  private final DockerClient dockerClient;
+  private final PullPolicy pullPolicy;
+  private final Duration cacheTtl;
+  private final Clock clock;
+
+  // Resolved image IDs keyed by image reference
+  private final Map<String, ResolvedImage> resolvedImages = new ConcurrentHashMap<>();
+
+  // Pulls in progress keyed by image reference, joined by concurrent jobs
+  private final Map<String, CompletableFuture<String>> pullsInProgress = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the image puller.
+   *
+   * @param dockerClient the shared Docker client
+   * @param pullPolicy   configured pull policy
+   * @param cacheTtl     how long a resolved image is trusted without asking Docker again
+   */
+  @Autowired
+  public ImagePuller(DockerClient dockerClient,
+                     @Value("${docker.image-pull-policy:Always}") String pullPolicy,
+                     @Value("${docker.image-cache-ttl:10m}") Duration cacheTtl) {
+    this(dockerClient, PullPolicy.parse(pullPolicy), cacheTtl, Clock.systemUTC());
+  }
+
+  ImagePuller(DockerClient dockerClient, PullPolicy pullPolicy, Duration cacheTtl, Clock clock) {
+    this.dockerClient = dockerClient;
+    this.pullPolicy = pullPolicy;
+    this.cacheTtl = cacheTtl;
+    this.clock = clock;
+  }
+
+  /**
+   * Makes sure the given image is available locally.
+   *
+   * @param image the image reference, e.g. {@code gradle:jdk21}
+   * @return the local image ID
+   * @throws InterruptedException     if the thread is interrupted while waiting for a pull
+   * @throws DockerExecutionException if the image cannot be made available
+   */
+  public String ensureImage(String image) throws InterruptedException {
+    ResolvedImage cached = resolvedImages.get(image);
+    if (cached != null && cached.expiresAt().isAfter(clock.instant())) {
+      log.debug("Using cached image {} ({})", image, cached.imageId());
+      return cached.imageId();
+    }
+
+    if (pullPolicy != PullPolicy.ALWAYS) {
+      String imageId = inspectLocalImage(image);
+      if (imageId != null) {
+        return remember(image, imageId);
+      }
+      if (pullPolicy == PullPolicy.NEVER) {
+        throw new DockerExecutionException(
+            "Image " + image + " is not present and the pull policy is Never", -1);
+      }
+    }
+    return pull(image);
+  }
+
+  /**
+   * Returns the configured pull policy.
+   *
+   * @return the pull policy
+   */
+  public PullPolicy getPullPolicy() {
+    return pullPolicy;
+  }
+
+  /**
+   * Pulls an image, or waits for a pull of the same image that is already in progress.
+   *
+   * @param image the image reference
+   * @return the local image ID
+   * @throws InterruptedException if the thread is interrupted while pulling
+   */
+  private String pull(String image) throws InterruptedException {
+    CompletableFuture<String> pull = new CompletableFuture<>();
+    CompletableFuture<String> running = pullsInProgress.putIfAbsent(image, pull);
+    if (running != null) {
+      log.info("Waiting for pull of image {} started by another job", image);
+      return await(running);
+    }
+
+    try {
+      log.info("Pulling Docker image: {}", image);
+      dockerClient.pullImageCmd(image).start().awaitCompletion();
+      String imageId = inspectLocalImage(image);
+      if (imageId == null) {
+        throw new DockerExecutionException("Image " + image + " is missing after pull", -1);
+      }
+      remember(image, imageId);
+      pull.complete(imageId);
+      log.info("Pulled Docker image: {}", image);
+      return imageId;
+    } catch (InterruptedException | RuntimeException e) {
+      pull.completeExceptionally(e);
+      throw e;
+    } finally {
+      pullsInProgress.remove(image, pull);
+    }
+  }
+
+  private String await(CompletableFuture<String> pull) throws InterruptedException {
+    try {
+      return pull.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof DockerExecutionException dockerException) {
+        throw dockerException;
+      }
+      throw new DockerExecutionException("Image pull failed: " + cause.getMessage(), cause);
+    }
+  }
+
+  /**
+   * Looks up an image in the local Docker image store.
+   *
+   * @param image the image reference
+   * @return the image ID, or null if the image is not present
+   */
+  private String inspectLocalImage(String image) {
+    try {
+      return dockerClient.inspectImageCmd(image).exec().getId();
+    } catch (NotFoundException e) {
+      return null;
+    }
+  }
+
+  private String remember(String image, String imageId) {
+    resolvedImages.put(image, new ResolvedImage(imageId, clock.instant().plus(cacheTtl)));
+    return imageId;
+  }
+
+  /**
+   * An image ID together with the time it stops being trusted.
+   *
+   * @param imageId   the local image ID
+   * @param expiresAt end of the cache TTL
+   */
+  private record ResolvedImage(String imageId, Instant expiresAt) {
+  }
+}
@@ -0,0 +1,51 @@
+package edu.neu.cs6510.sp25.t1.worker.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.neu.cs6510.sp25.t1.common.api.request.JobStatusUpdate;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.error.BackendCommunicationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Publishes job status transitions to the backend through RabbitMQ.
+ * The backend consumes these events to release the next stage of a pipeline
+ * as soon as every job of the current stage has finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobStatusPublisher {
+  private final RabbitTemplate rabbitTemplate;
+  private final ObjectMapper objectMapper;
+
+  @Value("${cicd.rabbitmq.job-status-queue}")
+  private String jobStatusQueueName;
+
+  /**
+   * Sends a job status event as a JSON encoded {@link JobStatusUpdate}.
+   * Sending is retried by the template (see {@code spring.rabbitmq.template.retry}); the
+   * backend only advances a pipeline on these events, so a failure is not swallowed.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param status         the new execution status
+   * @throws BackendCommunicationException if the event could not be sent
+   */
+  public void publish(UUID jobExecutionId, ExecutionStatus status) {
+    try {
+      String payload = objectMapper.writeValueAsString(new JobStatusUpdate(jobExecutionId, status, null));
+      rabbitTemplate.convertAndSend(jobStatusQueueName, payload);
+      log.debug("Published status {} for job execution {}", status, jobExecutionId);
+    } catch (JsonProcessingException | AmqpException e) {
+      throw new BackendCommunicationException(
+          "Failed to publish status " + status + " for job execution " + jobExecutionId, e);
+    }
+  }
+}
@@ -1,35 +1,111 @@
 package edu.neu.cs6510.sp25.t1.worker.service;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.AccessMode;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Volume;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.core.command.LogContainerResultCallback;
-import com.github.dockerjava.okhttp.OkHttpDockerCmdExecFactory;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.common.utils.GitMirrorCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
 @Service
 @Slf4j
 public class GitCloneService {
 
-  private final DockerClient dockerClient = createDockerClient();
+  // Where the worktree metadata of the base repository is kept while it is cloned again
+  private static final String WORKTREES_ASIDE = WorkspaceManager.MOUNT_PATH + "/.worktrees-aside";
+
+  // Brings /app/repo to the requested revision and prints the checked out commit.
+  // $1 is the branch, $2 the repository URL and $3 the commit, which may be empty for the branch tip.
+  // An existing repository is updated by fetching only that revision; if it is missing, damaged
+  // or cannot be updated, it is replaced by a fresh shallow clone.
+  // The worktrees of running jobs (see WorkspaceManager) keep their metadata in .git/worktrees,
+  // which is moved aside in the volume for the clone and put back afterwards together with the
+  // commits they are at; it stays aside if the clone fails, for the next attempt.
+  // The URL is the local mirror when there is one, which is owned by another user than the container's.
+  private static final String CHECKOUT_SCRIPT = String.join("\n",
+      "git config --global --add safe.directory '*'",
+      "update() (",
+      "  cd /app/repo && git rev-parse --verify -q HEAD > /dev/null &&",
+      "  git remote set-url origin \"$2\" &&",
+      "  git fetch --depth 1 origin \"${3:-$1}\" &&",
+      "  git checkout --force --detach FETCH_HEAD && git clean -ffdx",
+      ")",
+      "clone() (",
+      "  if [ -d /app/repo/.git/worktrees ]; then",
+      "    rm -rf " + WORKTREES_ASIDE + " && mv /app/repo/.git/worktrees " + WORKTREES_ASIDE + " || exit 1",
+      "  fi",
+      "  rm -rf /app/repo && git clone --depth 1 --branch \"$1\" \"$2\" /app/repo && cd /app/repo &&",
+      "  if [ -n \"$3\" ] && ! git rev-parse HEAD | grep -q \"^$3\"; then",
+      "    git fetch --depth 1 origin \"$3\" && git checkout --force --detach FETCH_HEAD",
+      "  fi &&",
+      "  if [ -d " + WORKTREES_ASIDE + " ]; then",
+      "    mv " + WORKTREES_ASIDE + " .git/worktrees &&",
+      "    for head in .git/worktrees/*/HEAD; do git fetch -q --depth 1 origin \"$(cat \"$head\")\" || true; done",
+      "  fi",
+      ")",
+      "if [ -d /app/repo/.git ]; then",
+      "  update \"$@\" || { echo 'Incremental update failed, cloning from scratch' >&2; clone \"$@\"; }",
+      "else",
+      "  clone \"$@\"",
+      "fi || exit 1",
+      "git -C /app/repo rev-parse HEAD");
+
+  private static final Pattern COMMIT_PATTERN = Pattern.compile("[0-9a-f]{40}");
+
+  // Where the mirror of the repository is mounted in the helper container
+  static final String MIRROR_PATH = "/mirror";
+  static final String MIRROR_URL = "file://" + MIRROR_PATH;
 
-  private DockerClient createDockerClient() {
-    DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
-        .withDockerHost("unix:///var/run/docker.sock")
-        .build();
+  // shared docker client, see DockerClientConfiguration
+  private final DockerClient dockerClient;
+  private final VolumeRegistry volumeRegistry;
+  private final GitMirrorCache mirrorCache;
+  private final JobMetrics jobMetrics;
 
-    return DockerClientBuilder.getInstance(config)
-        .withDockerCmdExecFactory(new OkHttpDockerCmdExecFactory())
-        .build();
+  /**
+   * Creates the service.
+   *
+   * @param dockerClient   shared Docker client
+   * @param volumeRegistry known state of the repository volumes
+   * @param mirrorCache    local mirrors the repositories are cloned from, if enabled
+   * @param jobMetrics     metrics checkouts are timed in
+   */
+  @Autowired
+  public GitCloneService(DockerClient dockerClient, VolumeRegistry volumeRegistry,
+      Optional<GitMirrorCache> mirrorCache, JobMetrics jobMetrics) {
+    this.dockerClient = dockerClient;
+    this.volumeRegistry = volumeRegistry;
+    this.mirrorCache = mirrorCache.orElse(null);
+    this.jobMetrics = jobMetrics;
   }
 
   /**
-   * Clones the Git repo into a Docker volume using a helper container.
+   * Creates the service cloning straight from the remote.
+   *
+   * @param dockerClient   shared Docker client
+   * @param volumeRegistry known state of the repository volumes
+   * @param jobMetrics     metrics checkouts are timed in
+   */
+  GitCloneService(DockerClient dockerClient, VolumeRegistry volumeRegistry, JobMetrics jobMetrics) {
+    this(dockerClient, volumeRegistry, Optional.empty(), jobMetrics);
+  }
+
+  /**
+   * Checks out the tip of a branch into a Docker volume.
    *
    * @param repoUrl      Git repository URL
    * @param branch       Branch to clone
@@ -38,75 +114,191 @@ public class GitCloneService {
    * @throws Exception if cloning or volume creation fails
    */
   public String cloneRepoToVolume(String repoUrl, String branch, String pipelineName) throws Exception {
-    String volumeName = "cicd-" + pipelineName;
-    String containerMountPath = "/data"; // in-container path
-    String cloneTarget = containerMountPath + "/repo";
-    String gitDirPath = cloneTarget + "/.git";
-
-//    // Step 1: Create volume
-//    CreateVolumeResponse volume = dockerClient.createVolumeCmd()
-//        .withName(volumeName)
-//        .withDriver("local")
-//        .exec();
+    return cloneRepoToVolume(repoUrl, branch, pipelineName, null);
+  }
 
-    log.info("Created Docker volume: {}", volumeName);
+  /**
+   * Checks out a commit into a Docker volume using a helper container.
+   * A volume that already holds the repository is updated by fetching only the requested
+   * revision, and one that the {@link VolumeRegistry} knows to be at the requested commit
+   * is reused without starting any container. With a {@link GitMirrorCache} the revision is
+   * taken from the local mirror of the repository, which only fetches what it is missing;
+   * if the checkout from the mirror fails it is retried from the remote.
+   * Checkouts are timed and reused volumes counted in {@link JobMetrics}.
+   *
+   * @param repoUrl      Git repository URL
+   * @param branch       Branch the commit belongs to
+   * @param pipelineName Used to name the Docker volume
+   * @param commitHash   Commit to check out, or null for the tip of the branch
+   * @return The Docker volume name
+   * @throws Exception if cloning or volume creation fails
+   */
+  public String cloneRepoToVolume(String repoUrl, String branch, String pipelineName, String commitHash)
+      throws Exception {
+    if (repoUrl == null || branch == null) {
+      throw new IllegalArgumentException("Repository URL and branch are required");
+    }
+    String volumeName = "cicd-" + pipelineName;
 
-    // Step 2: Check if .git directory already exists
-    Volume containerVolume = new Volume(containerMountPath);
-    String testGitDirCmd = "[ -d \"" + gitDirPath + "\" ]";
+    ReentrantLock lock = volumeRegistry.lockFor(volumeName);
+    lock.lockInterruptibly();
+    try {
+      String commit = commitHash == null || commitHash.isBlank() ? null : commitHash.trim().toLowerCase(Locale.ROOT);
+      Optional<VolumeRegistry.VolumeState> state = volumeRegistry.lookup(volumeName);
+      if (state.isPresent() && state.get().isAt(repoUrl, commit)) {
+        log.info("Volume {} is already at commit {}. Skipping checkout.", volumeName, commit);
+        jobMetrics.cloneReused(pipelineName);
+        return volumeName;
+      }
 
-    var checkGitContainer = dockerClient.createContainerCmd("alpine")
-        .withCmd("sh", "-c", testGitDirCmd)
-        .withHostConfig(new HostConfig().withBinds(new Bind(volumeName, containerVolume)))
-        .withVolumes(containerVolume)
-        .exec();
+      String volumeId = volumeRegistry.ensureVolume(volumeName, repoUrl, branch);
+      String checkedOut;
+      long start = System.nanoTime();
+      boolean succeeded = false;
+      try {
+        checkedOut = checkout(repoUrl, branch, commit, volumeName);
+        succeeded = true;
+      } finally {
+        jobMetrics.recordClone(pipelineName, Duration.ofNanos(System.nanoTime() - start), succeeded);
+      }
+      if (volumeId != null) {
+        volumeRegistry.record(volumeName, new VolumeRegistry.VolumeState(volumeId, repoUrl, branch, checkedOut));
+      }
+      return volumeName;
+    } catch (Exception e) {
+      volumeRegistry.forget(volumeName);
+      throw e;
+    } finally {
+      lock.unlock();
+    }
+  }
 
-    String checkId = checkGitContainer.getId();
-    dockerClient.startContainerCmd(checkId).exec();
-    int gitDirExists = dockerClient.waitContainerCmd(checkId).start().awaitStatusCode();
-    dockerClient.removeContainerCmd(checkId).withForce(true).exec();
+  /**
+   * Checks out the revision from the mirror of the repository, falling back to the remote
+   * when there is no mirror or the checkout from it fails.
+   *
+   * @param repoUrl    Git repository URL
+   * @param branch     Branch to check out
+   * @param commit     Commit to check out, or null for the tip of the branch
+   * @param volumeName Volume holding the repository
+   * @return the checked out commit, or null if the container did not report it
+   * @throws InterruptedException if the thread is interrupted while waiting for the container
+   */
+  private String checkout(String repoUrl, String branch, String commit, String volumeName)
+      throws InterruptedException {
+    GitMirrorCache.Mirror mirror = acquireMirror(repoUrl, commit);
+    if (mirror != null) {
+      try {
+        return runCheckoutContainer(repoUrl, branch, commit, volumeName, mirror);
+      } catch (RuntimeException e) {
+        // e.g. the mirror directory is not mounted at the same path on the Docker host
+        log.warn("Checkout of {} from the mirror failed, retrying from the remote: {}", repoUrl, e.getMessage());
+      } finally {
+        mirror.close();
+      }
+    }
+    return runCheckoutContainer(repoUrl, branch, commit, volumeName, null);
+  }
 
-    if (gitDirExists == 0) {
-      log.info("Repo already exists in volume. Skipping clone.");
-      return volumeName;
+  /**
+   * Brings the mirror of a repository up to date.
+   *
+   * @param repoUrl Git repository URL
+   * @param commit  Commit the checkout needs, or null for the tip of the branch
+   * @return the leased mirror, or null to clone from the remote
+   */
+  private GitMirrorCache.Mirror acquireMirror(String repoUrl, String commit) {
+    if (mirrorCache == null) {
+      return null;
+    }
+    try {
+      return mirrorCache.acquire(repoUrl, commit);
+    } catch (Exception e) {
+      log.warn("Mirror of {} unavailable, cloning from the remote: {}", repoUrl, e.getMessage());
+      return null;
     }
+  }
 
-    // Step 2: Git clone command
-    String gitCloneCmd = String.format("git clone --depth 1 --branch %s %s %s", branch, repoUrl, cloneTarget);
-    log.info("Running git clone command in container: {}", gitCloneCmd);
+  /**
+   * Brings the repository in the volume to the requested revision with a helper container.
+   *
+   * @param repoUrl    Git repository URL
+   * @param branch     Branch to check out
+   * @param commit     Commit to check out, or null for the tip of the branch
+   * @param volumeName Volume holding the repository
+   * @param mirror     Local mirror to check out from, or null to use the remote
+   * @return the checked out commit, or null if the container did not report it
+   * @throws InterruptedException if the thread is interrupted while waiting for the container
+   */
+  private String runCheckoutContainer(String repoUrl, String branch, String commit, String volumeName,
+      GitMirrorCache.Mirror mirror) throws InterruptedException {
+    Volume containerVolume = new Volume(WorkspaceManager.MOUNT_PATH);
+    List<Bind> binds = new ArrayList<>();
+    binds.add(new Bind(volumeName, containerVolume));
+    String sourceUrl = repoUrl;
+    if (mirror != null) {
+      // the mirror path is a host path, the daemon resolves it on the host
+      binds.add(new Bind(mirror.getDirectory().getAbsolutePath(), new Volume(MIRROR_PATH), AccessMode.ro));
+      sourceUrl = MIRROR_URL;
+    }
+    log.info("Checking out {} (branch {}, commit {}) in volume {} from {}", repoUrl, branch, commit, volumeName,
+        mirror == null ? "the remote" : "the mirror");
 
-    // Step 3: Create and start helper container
     var helperContainer = dockerClient.createContainerCmd("alpine/git:2.36.2")
-        .withCmd("clone", "--depth", "1", "--branch", branch, repoUrl, "/data/repo")
-        .withHostConfig(new HostConfig().withBinds(new Bind(volumeName, containerVolume)))
+        .withEntrypoint("sh", "-c", CHECKOUT_SCRIPT, "git-checkout", branch, sourceUrl, commit == null ? "" : commit)
+        .withHostConfig(new HostConfig().withBinds(binds))
         .withVolumes(containerVolume)
         .exec();
 
     String containerId = helperContainer.getId();
-    dockerClient.startContainerCmd(containerId).exec();
-
-    dockerClient.logContainerCmd(containerId)
-        .withStdOut(true)
-        .withStdErr(true)
-        .withFollowStream(false)
-        .exec(new LogContainerResultCallback() {
-          @Override
-          public void onNext(Frame frame) {
-            log.error("[git-clone-container] {}", new String(frame.getPayload()).trim());
-          }
-        }).awaitCompletion();
-
-    // Step 4: Wait for it to finish
-    Integer exitCode = dockerClient.waitContainerCmd(containerId).start().awaitStatusCode();
-    log.info("Clone container exited with code: {}", exitCode);
-
-    // Step 5: Cleanup
-    //dockerClient.removeContainerCmd(containerId).withForce(true).exec();
-
-    if (exitCode != 0) {
-      throw new RuntimeException("Git clone failed inside container");
+    try {
+      dockerClient.startContainerCmd(containerId).exec();
+
+      Integer exitCode = dockerClient.waitContainerCmd(containerId).start().awaitStatusCode();
+      log.info("Clone container exited with code: {}", exitCode);
+
+      List<String> output = new ArrayList<>();
+      dockerClient.logContainerCmd(containerId)
+          .withStdOut(true)
+          .withStdErr(true)
+          .withFollowStream(false)
+          .exec(new LogContainerResultCallback() {
+            @Override
+            public void onNext(Frame frame) {
+              String line = new String(frame.getPayload()).trim();
+              output.add(line);
+              log.info("[git-clone-container] {}", line);
+            }
+          }).awaitCompletion();
+
+      if (exitCode != 0) {
+        throw new RuntimeException("Git clone failed inside container");
+      }
+      return checkedOutCommit(output);
+    } finally {
+      try {
+        dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+      } catch (RuntimeException e) {
+        log.warn("Failed to remove clone container {}: {}", containerId, e.getMessage());
+      }
     }
+  }
 
-    return volumeName;
+  /**
+   * Picks the commit printed by the checkout script from the container output.
+   *
+   * @param output output lines of the helper container
+   * @return the last commit hash printed, or null if there is none
+   */
+  private String checkedOutCommit(List<String> output) {
+    String commit = null;
+    for (String chunk : output) {
+      for (String line : chunk.split("\\R")) {
+        if (COMMIT_PATTERN.matcher(line.trim()).matches()) {
+          commit = line.trim();
+        }
+      }
+    }
+    return commit;
   }
 }
@@ -5,14 +5,19 @@ import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
 import edu.neu.cs6510.sp25.t1.backend.mapper.JobExecutionMapper;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusRollupService;
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.messaging.JobStatusPublisher;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.Instant;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,36 +32,76 @@ public class JobDataService {
     private final JobExecutionRepository jobExecutionRepository;
     private final JobRepository jobRepository;
     private final JobExecutionMapper mapper;
+    private final JobStatusPublisher jobStatusPublisher;
+    private final StatusRollupService statusRollupService;
+    private final JobLogService jobLogService;
+    private final JobMetrics jobMetrics;
 
 
     /**
-     * Updates the job execution status and logs in the database.
+     * Updates the job execution status and logs in the database, together with the
+     * job counts and status of the owning stage and pipeline execution,
+     * then publishes the transition so the backend can advance the pipeline.
+     * The transition is only published once the transaction has committed, so a rolled
+     * back update is never announced. The message is appended to the job's log, which is
+     * completed and stored before a final status is published. The time the update takes
+     * is recorded in {@link JobMetrics}.
      *
      * @param jobExecutionId The job execution ID
      * @param status The new execution status
-     * @param logs The execution logs
+     * @param logs The status message appended to the job's log, may be null
+     * @throws edu.neu.cs6510.sp25.t1.worker.error.BackendCommunicationException if the
+     *         stored transition could not be published
      */
     @Transactional
     public void updateJobStatus(UUID jobExecutionId, ExecutionStatus status, String logs) {
         Optional<JobExecutionEntity> jobExecutionOpt = jobExecutionRepository.findById(jobExecutionId);
 
         if (jobExecutionOpt.isPresent()) {
-            JobExecutionEntity entity = jobExecutionOpt.get();
-            entity.setStatus(status);
-
-
-            // Update completion time for terminal statuses
-            if (status == ExecutionStatus.SUCCESS || status == ExecutionStatus.FAILED || status == ExecutionStatus.CANCELED) {
-                entity.setCompletionTime(Instant.now());
+            long start = System.nanoTime();
+            JobExecutionEntity jobExecution = jobExecutionOpt.get();
+            if (logs != null) {
+                jobLogService.append(jobExecutionId, logs);
+            }
+            if (status.isTerminal()) {
+                jobLogService.finish(jobExecutionId);
             }
 
-            jobExecutionRepository.save(entity);
+            // Saves the job and rolls the transition up into its stage and pipeline execution
+            statusRollupService.transition(jobExecution, status);
             log.info("Updated job execution {} status to {}", jobExecutionId, status);
+
+            UUID stageExecutionId = jobExecution.getStageExecution() == null
+                    ? null : jobExecution.getStageExecution().getId();
+            afterCommit(() -> {
+                jobStatusPublisher.publish(jobExecutionId, status);
+                jobMetrics.recordStatusUpdate(stageExecutionId, status, Duration.ofNanos(System.nanoTime() - start));
+            });
         } else {
             log.error("Could not find job execution with ID {}", jobExecutionId);
         }
     }
 
+    /**
+     * Runs an action once the current transaction has committed, or right away outside
+     * of a transaction. An exception thrown by the action reaches the caller, although
+     * the transaction stays committed.
+     *
+     * @param action the action to run
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     /**
      * Retrieves job execution details by ID.
      *
@@ -0,0 +1,203 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import com.github.dockerjava.api.model.StreamType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory ring of the log lines of one job execution that have not been
+ * stored yet.
+ * <p>
+ * Container output arrives as frames which are split into lines per stream, so a line
+ * written in several frames is kept whole. Appending never blocks the container: when
+ * storage falls behind and the ring is full, the oldest lines that were not stored are
+ * overwritten and replaced by a marker in the next chunk. Lines are handed to storage in
+ * chunks by {@link #drain(int)}.
+ */
+public class JobLogBuffer {
+
+  /** Longer lines are split, so one runaway line cannot hold an unbounded amount of memory. */
+  static final int MAX_LINE_CHARS = 16 * 1024;
+
+  private final UUID jobExecutionId;
+  private final String[] ring;
+
+  /** Serializes the storing of chunks, so they are stored in order. */
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  /** Unfinished line of each stream. */
+  private final Map<StreamType, StringBuilder> partialLines = new EnumMap<>(StreamType.class);
+
+  /** Number of lines ever appended. */
+  private long appended;
+  /** Number of lines handed to storage or overwritten. */
+  private long drained;
+  private long droppedLines;
+  private boolean finished;
+
+  /**
+   * Creates the buffer of a job execution.
+   *
+   * @param jobExecutionId the job execution the lines belong to
+   * @param capacity       how many lines are kept until they are stored
+   */
+  public JobLogBuffer(UUID jobExecutionId, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Log buffer capacity must be positive");
+    }
+    this.jobExecutionId = jobExecutionId;
+    this.ring = new String[capacity];
+  }
+
+  /**
+   * Appends a frame of container output.
+   *
+   * @param stream  the stream the frame was written to
+   * @param payload the raw frame payload
+   */
+  public synchronized void append(StreamType stream, byte[] payload) {
+    if (payload == null || payload.length == 0) {
+      return;
+    }
+    StringBuilder partial = partialLines.computeIfAbsent(stream, s -> new StringBuilder());
+    String text = new String(payload, StandardCharsets.UTF_8);
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        partial.append(text, start, i);
+        addLine(partial);
+        partial.setLength(0);
+        start = i + 1;
+      }
+    }
+    partial.append(text, start, text.length());
+    while (partial.length() >= MAX_LINE_CHARS) {
+      addLine(partial.substring(0, MAX_LINE_CHARS));
+      partial.delete(0, MAX_LINE_CHARS);
+    }
+  }
+
+  /**
+   * Appends a complete line, such as a status message of the worker.
+   *
+   * @param line the line to append
+   */
+  public synchronized void appendLine(String line) {
+    if (line != null) {
+      addLine(line);
+    }
+  }
+
+  /**
+   * Ends the output of the container: unfinished lines are kept as they are.
+   */
+  public synchronized void endOfOutput() {
+    for (StringBuilder partial : partialLines.values()) {
+      if (partial.length() > 0) {
+        addLine(partial);
+        partial.setLength(0);
+      }
+    }
+  }
+
+  /**
+   * Marks the job as done. No lines are expected after this.
+   */
+  public synchronized void finish() {
+    endOfOutput();
+    finished = true;
+  }
+
+  /**
+   * Takes the oldest lines that were not handed to storage yet.
+   *
+   * @param maxLines the maximum number of lines in the chunk
+   * @return the next chunk, or null if there are no lines to store
+   */
+  public synchronized Chunk drain(int maxLines) {
+    long oldest = Math.max(0, appended - ring.length);
+    long overwritten = Math.max(0, oldest - drained);
+    if (overwritten > 0) {
+      droppedLines += overwritten;
+      drained = oldest;
+    }
+    int lines = (int) Math.min(maxLines, appended - drained);
+    if (lines == 0 && overwritten == 0) {
+      return null;
+    }
+
+    StringBuilder text = new StringBuilder();
+    if (overwritten > 0) {
+      text.append("[... ").append(overwritten).append(" lines dropped, log storage fell behind ...]\n");
+    }
+    for (long line = drained; line < drained + lines; line++) {
+      int slot = (int) (line % ring.length);
+      text.append(ring[slot]).append('\n');
+      ring[slot] = null;
+    }
+    drained += lines;
+    return new Chunk(text.toString(), lines + (overwritten > 0 ? 1 : 0));
+  }
+
+  /**
+   * Returns the number of lines waiting to be stored.
+   *
+   * @return the pending line count
+   */
+  public synchronized int getPendingLines() {
+    return (int) Math.min(ring.length, appended - drained);
+  }
+
+  /**
+   * Returns the number of lines overwritten before they could be stored.
+   *
+   * @return the dropped line count
+   */
+  public synchronized long getDroppedLines() {
+    return droppedLines;
+  }
+
+  /**
+   * Tells whether the job is done and all its lines were handed to storage.
+   *
+   * @return true if nothing is left to store
+   */
+  public synchronized boolean isComplete() {
+    return finished && appended == drained;
+  }
+
+  public UUID getJobExecutionId() {
+    return jobExecutionId;
+  }
+
+  ReentrantLock getFlushLock() {
+    return flushLock;
+  }
+
+  private void addLine(CharSequence line) {
+    int end = line.length();
+    if (end > 0 && line.charAt(end - 1) == '\r') {
+      end--;
+    }
+    int start = 0;
+    do {
+      int stop = Math.min(end, start + MAX_LINE_CHARS);
+      ring[(int) (appended % ring.length)] = line.subSequence(start, stop).toString();
+      appended++;
+      start = stop;
+    } while (start < end);
+  }
+
+  /**
+   * Consecutive lines of a job, handed to storage together.
+   *
+   * @param text      the lines, each terminated by a newline
+   * @param lineCount the number of lines
+   */
+  public record Chunk(String text, int lineCount) {
+  }
+}
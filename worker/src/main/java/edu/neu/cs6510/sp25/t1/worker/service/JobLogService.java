@@ -0,0 +1,175 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import edu.neu.cs6510.sp25.t1.backend.service.log.LogSegmentStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the output of running jobs in the {@link LogSegmentStore}.
+ * <p>
+ * Each job gets a {@link JobLogBuffer} the container output is appended to. A single
+ * flusher thread periodically hands the buffered lines of every job to the store in one
+ * write, so a chatty job costs one append per flush interval instead of one write per
+ * line; the store compresses and indexes them once a segment is full. The remaining
+ * lines of a job are stored when it finishes, before its final status is reported.
+ */
+@Service
+@Slf4j
+public class JobLogService {
+  private final LogSegmentStore logSegmentStore;
+  private final int bufferLines;
+  private final ScheduledExecutorService flusher;
+
+  private final Map<UUID, JobLogBuffer> buffers = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the service and starts flushing periodically.
+   *
+   * @param logSegmentStore store the lines are written to
+   * @param bufferLines     lines kept per job until they are stored
+   * @param flushInterval   time between two flushes
+   */
+  @Autowired
+  public JobLogService(LogSegmentStore logSegmentStore,
+      @Value("${worker.logs.buffer-lines:10000}") int bufferLines,
+      @Value("${worker.logs.flush-interval:1s}") Duration flushInterval) {
+    this(logSegmentStore, bufferLines);
+    flusher.scheduleWithFixedDelay(this::flushSafely, flushInterval.toMillis(), flushInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates the service without periodic flushes, see {@link #flush()}.
+   *
+   * @param logSegmentStore store the lines are written to
+   * @param bufferLines     lines kept per job until they are stored
+   */
+  JobLogService(LogSegmentStore logSegmentStore, int bufferLines) {
+    this.logSegmentStore = logSegmentStore;
+    this.bufferLines = bufferLines;
+    this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "job-log-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Returns the log buffer of a job, creating it on first use.
+   *
+   * @param jobExecutionId the job execution ID
+   * @return the buffer the output of the job is appended to
+   */
+  public JobLogBuffer open(UUID jobExecutionId) {
+    return buffers.computeIfAbsent(jobExecutionId, id -> new JobLogBuffer(id, bufferLines));
+  }
+
+  /**
+   * Appends a line to the log of a job.
+   *
+   * @param jobExecutionId the job execution ID
+   * @param line           the line to append
+   */
+  public void append(UUID jobExecutionId, String line) {
+    open(jobExecutionId).appendLine(line);
+  }
+
+  /**
+   * Finishes the log of a job and stores its remaining lines in the calling thread,
+   * so they are in place once the final status of the job is visible. The buffer is
+   * released by the next flush.
+   *
+   * @param jobExecutionId the job execution ID
+   */
+  public void finish(UUID jobExecutionId) {
+    JobLogBuffer buffer = buffers.get(jobExecutionId);
+    if (buffer == null) {
+      return;
+    }
+    buffer.finish();
+    buffer.getFlushLock().lock();
+    try {
+      store(buffer);
+      logSegmentStore.finish(jobExecutionId);
+    } catch (IOException e) {
+      log.error("Failed to store the log of job execution {}: {}", jobExecutionId, e.getMessage(), e);
+    } finally {
+      buffer.getFlushLock().unlock();
+    }
+    if (buffer.getDroppedLines() > 0) {
+      log.warn("Dropped {} log lines of job execution {}", buffer.getDroppedLines(), jobExecutionId);
+    }
+  }
+
+  /**
+   * Stores the buffered lines of all jobs. A job whose lines are being stored by
+   * {@link #finish(UUID)} is skipped.
+   */
+  public void flush() {
+    for (JobLogBuffer buffer : buffers.values()) {
+      if (buffer.isComplete()) {
+        // kept until now for status messages reported after the job finished
+        buffers.remove(buffer.getJobExecutionId(), buffer);
+        continue;
+      }
+      if (buffer.getPendingLines() == 0 || !buffer.getFlushLock().tryLock()) {
+        continue;
+      }
+      try {
+        store(buffer);
+      } catch (IOException e) {
+        // the lines are gone from the buffer, keep storing the ones that follow
+        log.error("Failed to store the log of job execution {}: {}", buffer.getJobExecutionId(),
+            e.getMessage(), e);
+      } finally {
+        buffer.getFlushLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of jobs whose log is buffered.
+   *
+   * @return the open log count
+   */
+  public int getOpenLogCount() {
+    return buffers.size();
+  }
+
+  /**
+   * Stops flushing periodically and stores what is left.
+   */
+  @PreDestroy
+  public void shutdown() {
+    flusher.shutdownNow();
+    flushSafely();
+  }
+
+  private void store(JobLogBuffer buffer) throws IOException {
+    // lines appended while storing wait for the next flush
+    JobLogBuffer.Chunk chunk = buffer.drain(Integer.MAX_VALUE);
+    if (chunk != null) {
+      logSegmentStore.append(buffer.getJobExecutionId(), chunk.text());
+    }
+  }
+
+  private void flushSafely() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.error("Failed to store job logs: {}", e.getMessage(), e);
+    }
+  }
+}
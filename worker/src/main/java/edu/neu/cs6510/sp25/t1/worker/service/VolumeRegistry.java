@@ -0,0 +1,162 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectVolumeResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers which pipeline volumes hold a checked out repository, so that the worker
+ * does not have to start a container to look inside a volume before every job.
+ *
+ * <p>Volumes are created with labels naming the repository and branch plus a random volume ID.
+ * A registry entry is only trusted while the volume's labels still match it, which catches
+ * volumes that were removed or recreated behind the worker's back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VolumeRegistry {
+  static final String REPO_LABEL = "cicd.repo";
+  static final String BRANCH_LABEL = "cicd.branch";
+  static final String VOLUME_ID_LABEL = "cicd.volume-id";
+
+  private final DockerClient dockerClient;
+
+  // Checked out volumes keyed by volume name
+  private final Map<String, VolumeState> volumes = new ConcurrentHashMap<>();
+
+  // One lock per volume, so that jobs of the same pipeline do not clone into it concurrently
+  private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the lock guarding changes to a volume.
+   *
+   * @param volumeName the volume name
+   * @return the lock of the volume
+   */
+  public ReentrantLock lockFor(String volumeName) {
+    return locks.computeIfAbsent(volumeName, name -> new ReentrantLock());
+  }
+
+  /**
+   * Returns the recorded state of a volume if Docker still reports the volume this state was recorded for.
+   *
+   * @param volumeName the volume name
+   * @return the verified state, or an empty optional if the volume is unknown or has changed
+   */
+  public Optional<VolumeState> lookup(String volumeName) {
+    VolumeState state = volumes.get(volumeName);
+    if (state == null) {
+      return Optional.empty();
+    }
+    Map<String, String> labels = inspectLabels(volumeName);
+    if (labels == null || !state.volumeId().equals(labels.get(VOLUME_ID_LABEL))) {
+      log.info("Volume {} no longer matches the registry, forgetting it", volumeName);
+      volumes.remove(volumeName, state);
+      return Optional.empty();
+    }
+    return Optional.of(state);
+  }
+
+  /**
+   * Makes sure a labelled volume exists for the given repository.
+   * An existing volume created for another repository, or without labels, is replaced if it is not in use.
+   *
+   * @param volumeName the volume name
+   * @param repoUrl    repository the volume is used for
+   * @param branch     branch the volume is created for
+   * @return the volume ID label of the volume, or null if an unlabelled volume could not be replaced
+   */
+  public String ensureVolume(String volumeName, String repoUrl, String branch) {
+    Map<String, String> labels = inspectLabels(volumeName);
+    if (labels != null && !repoUrl.equals(labels.get(REPO_LABEL))) {
+      // Unlabelled volumes predate the registry and are replaced as well
+      log.warn("Volume {} holds {}, replacing it for {}", volumeName, labels.get(REPO_LABEL), repoUrl);
+      try {
+        dockerClient.removeVolumeCmd(volumeName).exec();
+        labels = null;
+      } catch (RuntimeException e) {
+        log.warn("Could not remove volume {}: {}", volumeName, e.getMessage());
+      }
+    }
+    if (labels == null) {
+      String volumeId = UUID.randomUUID().toString();
+      dockerClient.createVolumeCmd()
+          .withName(volumeName)
+          .withDriver("local")
+          .withLabels(Map.of(REPO_LABEL, repoUrl, BRANCH_LABEL, branch, VOLUME_ID_LABEL, volumeId))
+          .exec();
+      log.info("Created Docker volume: {}", volumeName);
+      return volumeId;
+    }
+    return labels.get(VOLUME_ID_LABEL);
+  }
+
+  /**
+   * Records that a volume holds a checkout.
+   *
+   * @param volumeName the volume name
+   * @param state      what the volume holds
+   */
+  public void record(String volumeName, VolumeState state) {
+    volumes.put(volumeName, state);
+  }
+
+  /**
+   * Forgets a volume, e.g. after its checkout failed.
+   *
+   * @param volumeName the volume name
+   */
+  public void forget(String volumeName) {
+    volumes.remove(volumeName);
+  }
+
+  /**
+   * Reads the labels of a volume.
+   *
+   * @param volumeName the volume name
+   * @return the labels (empty for unlabelled volumes), or null if the volume does not exist
+   */
+  private Map<String, String> inspectLabels(String volumeName) {
+    try {
+      InspectVolumeResponse volume = dockerClient.inspectVolumeCmd(volumeName).exec();
+      return volume.getLabels() == null ? Map.of() : volume.getLabels();
+    } catch (NotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * What a volume holds.
+   *
+   * @param volumeId ID label of the volume the checkout was made in
+   * @param repoUrl  repository checked out in the volume
+   * @param branch   branch checked out in the volume
+   * @param commit   commit checked out in the volume, or null if unknown
+   */
+  public record VolumeState(String volumeId, String repoUrl, String branch, String commit) {
+
+    /**
+     * Returns whether this checkout is the given commit of the given repository.
+     * A checkout is never known to be at an unspecified commit, since the branch may have moved.
+     *
+     * @param otherRepoUrl repository URL
+     * @param otherCommit  full or abbreviated commit hash, or null
+     * @return true if the checkout is at that commit
+     */
+    public boolean isAt(String otherRepoUrl, String otherCommit) {
+      return Objects.equals(repoUrl, otherRepoUrl) && commit != null && otherCommit != null
+          && commit.startsWith(otherCommit);
+    }
+  }
+}
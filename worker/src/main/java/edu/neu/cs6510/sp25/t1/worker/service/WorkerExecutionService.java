@@ -2,6 +2,7 @@ package edu.neu.cs6510.sp25.t1.worker.service;
 
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.error.BackendCommunicationException;
 import edu.neu.cs6510.sp25.t1.worker.execution.DockerExecutor;
 
 import lombok.RequiredArgsConstructor;
@@ -21,6 +22,9 @@ public class WorkerExecutionService {
 
   /**
    * Executes a job and updates its status in the database.
+   * <p>
+   * A job interrupted by a cancellation or a worker shutdown is not reported; its exception is
+   * rethrown for the caller to decide what the job ends as.
    *
    * @param job The job to execute
    */
@@ -40,7 +44,13 @@ public class WorkerExecutionService {
 
       // Process the execution result
       handleExecutionResult(job, result);
-    } catch (Exception e) {
+    } catch (BackendCommunicationException e) {
+      // the result is stored, reporting it as a failure would overwrite it
+      throw e;
+    } catch (RuntimeException e) {
+      if (isInterruption(e)) {
+        throw e;
+      }
       log.error("Exception during job execution {}: {}", job.getId(), e.getMessage(), e);
       // Update status to FAILED on exception
       jobDataService.updateJobStatus(job.getId(), ExecutionStatus.FAILED,
@@ -48,6 +58,15 @@ public class WorkerExecutionService {
     }
   }
 
+  private static boolean isInterruption(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof InterruptedException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Handles the result of job execution and updates the database accordingly.
    *
@@ -1,58 +1,136 @@
 package edu.neu.cs6510.sp25.t1.worker.service;
 
+import com.rabbitmq.client.Channel;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
-import lombok.RequiredArgsConstructor;
+import edu.neu.cs6510.sp25.t1.worker.error.BackendCommunicationException;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service that manages job execution by consuming messages from a queue.
  * Instead of polling the database, it listens for messages from RabbitMQ.
+ *
+ * <p>Messages are acknowledged manually once their job has finished, and the listener
+ * prefetch (see {@code spring.rabbitmq.listener.simple.prefetch}) bounds how many jobs this
+ * worker holds at once. Unacknowledged jobs are redelivered to another worker if this one
+ * goes away, and jobs interrupted by a shutdown of this worker are handed back to the queue.
+ *
+ * <p>In {@code platform} execution mode jobs run on a fixed pool of
+ * {@code worker.max-concurrent-jobs} threads. In {@code virtual} mode every job lifecycle
+ * runs on its own virtual thread, so jobs blocked on cloning, image pulls or container logs
+ * cost no platform thread, and only the number of running containers is capped by
+ * {@link edu.neu.cs6510.sp25.t1.worker.execution.ContainerSlots}.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class WorkerJobQueue {
+    private static final Duration SHUTDOWN_GRACE = Duration.ofSeconds(10);
+
     private final WorkerExecutionService executionService;
     private final JobDataService jobDataService;
+    private final JobMetrics jobMetrics;
+    private final int maxConcurrentJobs;
+    private final ExecutionMode executionMode;
 
-    // Thread pool for executing jobs concurrently
-    // private final ExecutorService executorService =
-    // Executors.newFixedThreadPool(5);
-
-    // signle job service
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    // Bounded platform pool or one virtual thread per job, depending on the execution mode
+    private final ExecutorService executorService;
 
     // Set to track job IDs being processed - using Collections.synchronizedSet for
     // thread safety
     private final Set<UUID> processingJobIds = Collections.synchronizedSet(new HashSet<>());
     private final ConcurrentHashMap<UUID, Future<?>> jobFutures = new ConcurrentHashMap<>();
 
+    // Deliveries that are acknowledged once their job finishes or is cancelled
+    private final ConcurrentHashMap<UUID, PendingAck> pendingAcks = new ConcurrentHashMap<>();
+
+    // Set once the worker shuts down, jobs failing from then on are handed back instead of failed
+    private volatile boolean shuttingDown;
+
+    /**
+     * How job lifecycles are mapped to threads.
+     */
+    public enum ExecutionMode {
+        /** Fixed pool of platform threads, one per execution slot. */
+        PLATFORM,
+        /** One virtual thread per job. */
+        VIRTUAL
+    }
+
+    /**
+     * Creates the job queue with an executor for the configured execution mode.
+     *
+     * @param executionService  service that runs a job
+     * @param jobDataService    service used to load jobs and report their status
+     * @param jobMetrics        metrics the queue wait of jobs is recorded in
+     * @param maxConcurrentJobs number of jobs this worker runs in parallel
+     * @param executionMode     {@code platform} or {@code virtual}
+     */
+    public WorkerJobQueue(WorkerExecutionService executionService, JobDataService jobDataService,
+                          JobMetrics jobMetrics,
+                          @Value("${worker.max-concurrent-jobs:5}") int maxConcurrentJobs,
+                          @Value("${worker.execution-mode:platform}") String executionMode) {
+        if (maxConcurrentJobs < 1) {
+            throw new IllegalArgumentException("worker.max-concurrent-jobs must be at least 1");
+        }
+        this.executionService = executionService;
+        this.jobDataService = jobDataService;
+        this.jobMetrics = jobMetrics;
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.executionMode = ExecutionMode.valueOf(executionMode.trim().toUpperCase(Locale.ROOT));
+        if (this.executionMode == ExecutionMode.VIRTUAL) {
+            this.executorService = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("job-", 0).factory());
+            log.info("Worker runs jobs on virtual threads with {} container slots", maxConcurrentJobs);
+        } else {
+            this.executorService = Executors.newFixedThreadPool(maxConcurrentJobs);
+            log.info("Worker job pool started with {} execution slots", maxConcurrentJobs);
+        }
+    }
+
     /**
      * RabbitMQ listener that consumes job UUID messages from the queue.
      * This method receives a string representation of a job execution UUID,
      * converts it to UUID, fetches the complete job data from the database,
-     * and submits the job for execution.
+     * and submits the job for execution. The message stays unacknowledged
+     * until the job has finished.
      *
      * @param jobExecutionIdStr String representation of the job execution UUID
+     * @param channel           channel the message was delivered on
+     * @param deliveryTag       delivery tag used to acknowledge the message
+     * @param publishedAt       time the backend published the message, if it was stamped
      */
-    // concurrency set to 1 for only 1 job listen at a time
-    @RabbitListener(queues = "cicd-job-queue", concurrency = "1")
-    public void consumeJob(String jobExecutionIdStr) {
+    @RabbitListener(queues = "${cicd.rabbitmq.job-queue}")
+    public void consumeJob(String jobExecutionIdStr, Channel channel,
+                           @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                           @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date publishedAt) {
+        PendingAck delivery = new PendingAck(channel, deliveryTag);
+
         if (jobExecutionIdStr == null || jobExecutionIdStr.isEmpty()) {
             log.error("Received invalid job ID from queue");
+            delivery.ack();
             return;
         }
 
@@ -64,17 +142,25 @@ public class WorkerJobQueue {
             // Check if job is already being processed
             if (processingJobIds.contains(jobExecutionId)) {
                 log.warn("Job {} is already being processed, skipping", jobExecutionId);
+                delivery.ack();
                 return;
             }
 
             // Fetch complete job data from database
             jobDataService.getJobExecutionById(jobExecutionId).ifPresentOrElse(
                     job -> {
+                        if (publishedAt != null) {
+                            jobMetrics.recordQueueWait(job.getStageExecutionId(),
+                                    Duration.between(publishedAt.toInstant(), Instant.now()));
+                        }
+
                         // Add to processing set
                         processingJobIds.add(jobExecutionId);
+                        pendingAcks.put(jobExecutionId, delivery);
 
                         // Submit for async execution
                         Future<?> jobFuture = executorService.submit(() -> {
+                            boolean handBack = false;
                             try {
                                 log.info("Starting execution of job {}", jobExecutionId);
 
@@ -86,23 +172,44 @@ public class WorkerJobQueue {
                                 executionService.executeJob(job);
 
                                 log.info("Completed execution of job {}", jobExecutionId);
+                            } catch (BackendCommunicationException e) {
+                                // The status is stored, only the event was lost; marking the job
+                                // FAILED would overwrite a result the job may have reached
+                                log.error("Could not report the status of job {}: {}", jobExecutionId,
+                                        e.getMessage(), e);
                             } catch (Exception e) {
-                                log.error("Error executing job {}: {}", jobExecutionId, e.getMessage(), e);
-                                // Update status to FAILED on error
-                                jobDataService.updateJobStatus(jobExecutionId, ExecutionStatus.FAILED,
-                                        "Job execution failed with error: " + e.getMessage());
+                                if (shuttingDown) {
+                                    // Interrupted by the shutdown, another worker runs the job again
+                                    log.warn("Job {} interrupted by worker shutdown, returning it to the queue",
+                                            jobExecutionId);
+                                    handBack = true;
+                                } else {
+                                    log.error("Error executing job {}: {}", jobExecutionId, e.getMessage(), e);
+                                    // Update status to FAILED on error
+                                    jobDataService.updateJobStatus(jobExecutionId, ExecutionStatus.FAILED,
+                                            "Job execution failed with error: " + e.getMessage());
+                                }
                             } finally {
                                 // Remove from processing collections when done
                                 processingJobIds.remove(jobExecutionId);
                                 jobFutures.remove(jobExecutionId);
+                                if (handBack) {
+                                    requeue(jobExecutionId);
+                                } else {
+                                    acknowledge(jobExecutionId);
+                                }
                             }
                         });
 
                         jobFutures.put(jobExecutionId, jobFuture);
                     },
-                    () -> log.error("Job with ID {} not found in database", jobExecutionId));
+                    () -> {
+                        log.error("Job with ID {} not found in database", jobExecutionId);
+                        delivery.ack();
+                    });
         } catch (IllegalArgumentException e) {
             log.error("Invalid UUID format received: {}", jobExecutionIdStr);
+            delivery.ack();
         }
     }
 
@@ -115,6 +222,24 @@ public class WorkerJobQueue {
         return processingJobIds.size();
     }
 
+    /**
+     * Returns the number of jobs this worker can run in parallel.
+     *
+     * @return The size of the execution pool
+     */
+    public int getMaxConcurrentJobs() {
+        return maxConcurrentJobs;
+    }
+
+    /**
+     * Returns the execution mode of this worker.
+     *
+     * @return The execution mode
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
     /**
      * Returns the list of currently processing job IDs.
      *
@@ -144,6 +269,8 @@ public class WorkerJobQueue {
                 // Clean up our tracking collections
                 processingJobIds.remove(jobExecutionId);
                 jobFutures.remove(jobExecutionId);
+                // A job cancelled before it started never reaches its finally block
+                acknowledge(jobExecutionId);
                 log.info("Job {} cancelled successfully", jobExecutionId);
             }
 
@@ -153,4 +280,82 @@ public class WorkerJobQueue {
         log.warn("Job {} not found or already completed", jobExecutionId);
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Stops accepting work and interrupts running jobs when the worker shuts down.
+     * Interrupted jobs are not reported as failed; their messages are returned to the queue,
+     * so they are redelivered to another worker.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        executorService.shutdownNow();
+        try {
+            // Let interrupted jobs return their messages while the channel is still open
+            if (!executorService.awaitTermination(SHUTDOWN_GRACE.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Jobs still running after shutdown, their messages are redelivered once the channel closes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Acknowledges the delivery of a job, at most once.
+     *
+     * @param jobExecutionId The ID of the job whose message should be acknowledged
+     */
+    private void acknowledge(UUID jobExecutionId) {
+        PendingAck delivery = pendingAcks.remove(jobExecutionId);
+        if (delivery != null) {
+            delivery.ack();
+        }
+    }
+
+    /**
+     * Returns the delivery of a job to the queue, at most once.
+     *
+     * @param jobExecutionId The ID of the job whose message should be redelivered
+     */
+    private void requeue(UUID jobExecutionId) {
+        PendingAck delivery = pendingAcks.remove(jobExecutionId);
+        if (delivery != null) {
+            delivery.requeue();
+        }
+    }
+
+    /**
+     * A delivered message that has not been acknowledged yet.
+     *
+     * @param channel     channel the message was delivered on
+     * @param deliveryTag delivery tag of the message
+     */
+    private record PendingAck(Channel channel, long deliveryTag) {
+
+        private void ack() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                synchronized (channel) {
+                    channel.basicAck(deliveryTag, false);
+                }
+            } catch (IOException e) {
+                log.error("Failed to acknowledge delivery {}: {}", deliveryTag, e.getMessage());
+            }
+        }
+
+        private void requeue() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                synchronized (channel) {
+                    channel.basicNack(deliveryTag, false, true);
+                }
+            } catch (IOException e) {
+                log.error("Failed to requeue delivery {}: {}", deliveryTag, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Volume;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands every job its own working tree on top of the shared repository cache of its pipeline.
+ *
+ * <p>The pipeline volume keeps the base clone in {@code /app/repo}, maintained by
+ * {@link GitCloneService}. Each job gets a {@code git worktree} in {@code /app/workspaces/<job>}
+ * that is checked out from the base commit and shares its object database, so parallel jobs
+ * of one pipeline never write into the same files and no job needs a clone of its own.
+ * Worktrees of finished jobs are removed by the helper container that creates the next
+ * worktree in the same volume, or by a periodic sweep if no job needs that volume for a while.
+ */
+@Service
+@Slf4j
+public class WorkspaceManager {
+  /** Path the pipeline volume is mounted at, in helper and job containers alike. */
+  public static final String MOUNT_PATH = "/app";
+
+  private static final String BASE_DIR = MOUNT_PATH + "/repo";
+  private static final String WORKSPACES_DIR = MOUNT_PATH + "/workspaces";
+
+  // Removes the worktrees named by $2..$n, then adds worktree $1 at the base commit
+  private static final String ADD_WORKTREE_SCRIPT = String.join("\n",
+      "new=\"$1\"; shift",
+      "for old in \"$@\"; do rm -rf \"" + WORKSPACES_DIR + "/$old\"; done",
+      "cd " + BASE_DIR + " && git worktree prune && mkdir -p " + WORKSPACES_DIR + " &&",
+      "git worktree add --force --detach \"" + WORKSPACES_DIR + "/$new\" HEAD");
+
+  // Removes the worktrees named by $1..$n
+  private static final String REMOVE_WORKTREES_SCRIPT = String.join("\n",
+      "for old in \"$@\"; do rm -rf \"" + WORKSPACES_DIR + "/$old\"; done",
+      "cd " + BASE_DIR + " && git worktree prune");
+
+  private final DockerClient dockerClient;
+  private final GitCloneService gitCloneService;
+  private final VolumeRegistry volumeRegistry;
+  private final boolean perJobWorkspaces;
+  private final ScheduledExecutorService sweeper;
+
+  // Workspaces of finished jobs waiting to be removed, keyed by volume name
+  private final Map<String, Set<String>> finishedWorkspaces = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the workspace manager and starts sweeping finished workspaces periodically.
+   *
+   * @param dockerClient     the shared Docker client
+   * @param gitCloneService  service maintaining the base clone of a pipeline volume
+   * @param volumeRegistry   registry holding the per-volume locks
+   * @param perJobWorkspaces whether jobs get their own worktree instead of sharing the base clone
+   * @param cleanupInterval  time between two sweeps
+   */
+  @Autowired
+  public WorkspaceManager(DockerClient dockerClient, GitCloneService gitCloneService, VolumeRegistry volumeRegistry,
+                          @Value("${worker.workspace.per-job:true}") boolean perJobWorkspaces,
+                          @Value("${worker.workspace.cleanup-interval:1m}") Duration cleanupInterval) {
+    this(dockerClient, gitCloneService, volumeRegistry, perJobWorkspaces);
+    sweeper.scheduleWithFixedDelay(this::sweepSafely, cleanupInterval.toMillis(), cleanupInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates the workspace manager without periodic sweeps, see {@link #sweep()}.
+   *
+   * @param dockerClient     the shared Docker client
+   * @param gitCloneService  service maintaining the base clone of a pipeline volume
+   * @param volumeRegistry   registry holding the per-volume locks
+   * @param perJobWorkspaces whether jobs get their own worktree instead of sharing the base clone
+   */
+  WorkspaceManager(DockerClient dockerClient, GitCloneService gitCloneService, VolumeRegistry volumeRegistry,
+                   boolean perJobWorkspaces) {
+    this.dockerClient = dockerClient;
+    this.gitCloneService = gitCloneService;
+    this.volumeRegistry = volumeRegistry;
+    this.perJobWorkspaces = perJobWorkspaces;
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "workspace-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Checks out the job's commit and prepares a working tree for the job.
+   *
+   * @param repoUrl        Git repository URL
+   * @param branch         Branch the commit belongs to
+   * @param pipelineName   Used to name the Docker volume
+   * @param commitHash     Commit to check out, or null for the tip of the branch
+   * @param jobExecutionId ID of the job execution the workspace is for
+   * @return the workspace of the job
+   * @throws Exception if the checkout or the worktree cannot be created
+   */
+  public Workspace acquire(String repoUrl, String branch, String pipelineName, String commitHash,
+                           UUID jobExecutionId) throws Exception {
+    String volumeName = "cicd-" + pipelineName;
+    if (!perJobWorkspaces) {
+      gitCloneService.cloneRepoToVolume(repoUrl, branch, pipelineName, commitHash);
+      return new Workspace(volumeName, BASE_DIR, null);
+    }
+
+    String workspaceId = jobExecutionId.toString();
+    // Hold the volume lock until the worktree exists, so the base cannot move to another commit first
+    ReentrantLock lock = volumeRegistry.lockFor(volumeName);
+    lock.lockInterruptibly();
+    try {
+      gitCloneService.cloneRepoToVolume(repoUrl, branch, pipelineName, commitHash);
+
+      List<String> removable = drainFinished(volumeName);
+      List<String> args = new ArrayList<>(List.of("sh", "-c", ADD_WORKTREE_SCRIPT, "add-worktree", workspaceId));
+      args.addAll(removable);
+
+      int exitCode = runHelper(volumeName, args);
+      if (exitCode != 0) {
+        finishedWorkspaces.computeIfAbsent(volumeName, name -> ConcurrentHashMap.newKeySet()).addAll(removable);
+        throw new RuntimeException("Creating workspace " + workspaceId + " failed inside container");
+      }
+      log.info("Created workspace {} in volume {}, removed {} finished workspaces",
+          workspaceId, volumeName, removable.size());
+      return new Workspace(volumeName, WORKSPACES_DIR + "/" + workspaceId, workspaceId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a job's workspace as no longer used. It is removed together with the creation of the
+   * next workspace in the same volume, or by the next {@link #sweep()}.
+   *
+   * @param workspace the workspace returned by {@link #acquire}
+   */
+  public void release(Workspace workspace) {
+    if (workspace == null || workspace.id() == null) {
+      return;
+    }
+    finishedWorkspaces.computeIfAbsent(workspace.volumeName(), name -> ConcurrentHashMap.newKeySet())
+        .add(workspace.id());
+  }
+
+  /**
+   * Removes the finished workspaces of every volume that is not in use right now. Busy volumes
+   * are left to the job holding them or to the next sweep.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting for a helper container
+   */
+  public void sweep() throws InterruptedException {
+    for (String volumeName : List.copyOf(finishedWorkspaces.keySet())) {
+      ReentrantLock lock = volumeRegistry.lockFor(volumeName);
+      if (!lock.tryLock()) {
+        continue;
+      }
+      try {
+        List<String> removable = drainFinished(volumeName);
+        if (removable.isEmpty()) {
+          continue;
+        }
+        List<String> args = new ArrayList<>(List.of("sh", "-c", REMOVE_WORKTREES_SCRIPT, "remove-worktrees"));
+        args.addAll(removable);
+
+        boolean removed = false;
+        try {
+          removed = runHelper(volumeName, args) == 0;
+        } finally {
+          if (!removed) {
+            finishedWorkspaces.computeIfAbsent(volumeName, name -> ConcurrentHashMap.newKeySet()).addAll(removable);
+          }
+        }
+        if (removed) {
+          log.info("Removed {} finished workspaces from volume {}", removable.size(), volumeName);
+        } else {
+          log.warn("Removing finished workspaces from volume {} failed inside container", volumeName);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Stops sweeping finished workspaces.
+   */
+  @PreDestroy
+  public void shutdown() {
+    sweeper.shutdownNow();
+  }
+
+  /**
+   * Returns the number of finished workspaces that have not been removed yet.
+   *
+   * @return the pending workspace count across all volumes
+   */
+  public int getPendingCleanupCount() {
+    return finishedWorkspaces.values().stream().mapToInt(Set::size).sum();
+  }
+
+  private void sweepSafely() {
+    try {
+      sweep();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      // a failing sweep must not cancel the schedule
+      log.error("Failed to sweep finished workspaces: {}", e.getMessage(), e);
+    }
+  }
+
+  private List<String> drainFinished(String volumeName) {
+    Set<String> finished = finishedWorkspaces.get(volumeName);
+    List<String> drained = new ArrayList<>();
+    if (finished != null) {
+      for (String id : List.copyOf(finished)) {
+        if (finished.remove(id)) {
+          drained.add(id);
+        }
+      }
+    }
+    return drained;
+  }
+
+  /**
+   * Runs a git helper container on the volume and removes it afterwards.
+   *
+   * @param volumeName volume to mount
+   * @param entrypoint entrypoint and arguments of the container
+   * @return the exit code of the container
+   * @throws InterruptedException if the thread is interrupted while waiting for the container
+   */
+  private int runHelper(String volumeName, List<String> entrypoint) throws InterruptedException {
+    Volume containerVolume = new Volume(MOUNT_PATH);
+    var helperContainer = dockerClient.createContainerCmd("alpine/git:2.36.2")
+        .withEntrypoint(entrypoint.toArray(new String[0]))
+        .withHostConfig(new HostConfig().withBinds(new Bind(volumeName, containerVolume)))
+        .withVolumes(containerVolume)
+        .exec();
+
+    String containerId = helperContainer.getId();
+    try {
+      dockerClient.startContainerCmd(containerId).exec();
+      return dockerClient.waitContainerCmd(containerId).start().awaitStatusCode();
+    } finally {
+      try {
+        dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+      } catch (RuntimeException e) {
+        log.warn("Failed to remove workspace container {}: {}", containerId, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * A job's working tree.
+   *
+   * @param volumeName volume holding the workspace
+   * @param workingDir path of the working tree inside a container that mounts the volume at {@link #MOUNT_PATH}
+   * @param id         workspace ID, or null if the job works in the shared base clone
+   */
+  public record Workspace(String volumeName, String workingDir, String id) {
+  }
+}
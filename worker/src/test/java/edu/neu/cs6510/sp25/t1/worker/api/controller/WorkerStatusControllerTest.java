@@ -3,6 +3,8 @@ package edu.neu.cs6510.sp25.t1.worker.api.controller;
 import edu.neu.cs6510.sp25.t1.common.dto.JobDTO;
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.config.InstrumentedDockerHttpClient;
+import edu.neu.cs6510.sp25.t1.worker.execution.ContainerSlots;
 import edu.neu.cs6510.sp25.t1.worker.service.JobDataService;
 import edu.neu.cs6510.sp25.t1.worker.service.WorkerJobQueue;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,6 +30,12 @@ public class WorkerStatusControllerTest {
     @Mock
     private JobDataService jobDataService;
 
+    @Mock
+    private ContainerSlots containerSlots;
+
+    @Mock
+    private InstrumentedDockerHttpClient dockerHttpClient;
+
     @InjectMocks
     private WorkerStatusController controller;
 
@@ -65,6 +73,9 @@ public class WorkerStatusControllerTest {
     void getWorkerStatus_ShouldReturnCorrectStatus() {
         // Arrange
         when(jobQueue.getActiveJobCount()).thenReturn(2);
+        when(jobQueue.getMaxConcurrentJobs()).thenReturn(8);
+        when(containerSlots.getRunningContainers()).thenReturn(1);
+        when(dockerHttpClient.getInFlightCalls()).thenReturn(3);
 
         // Act
         ResponseEntity<Map<String, Object>> response = controller.getWorkerStatus();
@@ -76,10 +87,32 @@ public class WorkerStatusControllerTest {
         Map<String, Object> body = response.getBody();
         assertEquals("running", body.get("status"));
         assertEquals(2, body.get("active_jobs"));
+        assertEquals(8, body.get("max_concurrent_jobs"));
+        assertEquals(6, body.get("available_slots"));
+        assertEquals(0.25, body.get("slot_utilization"));
+        assertEquals(1, body.get("running_containers"));
+        assertEquals(3, body.get("docker_in_flight_calls"));
 
         verify(jobQueue, times(1)).getActiveJobCount();
     }
 
+    @Test
+    void getWorkerStatus_virtualModeCountsContainerSlots() {
+        when(jobQueue.getActiveJobCount()).thenReturn(12);
+        when(jobQueue.getMaxConcurrentJobs()).thenReturn(4);
+        when(jobQueue.getExecutionMode()).thenReturn(WorkerJobQueue.ExecutionMode.VIRTUAL);
+        when(containerSlots.getRunningContainers()).thenReturn(3);
+        when(containerSlots.getMaxRunningContainers()).thenReturn(4);
+
+        Map<String, Object> body = controller.getWorkerStatus().getBody();
+
+        assertNotNull(body);
+        assertEquals(12, body.get("active_jobs"));
+        assertEquals(1, body.get("available_slots"));
+        assertEquals(0.75, body.get("slot_utilization"));
+        assertEquals(3, body.get("running_containers"));
+    }
+
     @Test
     void getActiveJobs_ShouldReturnJobList() {
         // Arrange
@@ -182,6 +215,10 @@ public class WorkerStatusControllerTest {
 
     @Test
     void getWorkerInfo_ShouldReturnCorrectInfo() {
+        // Arrange
+        when(jobQueue.getMaxConcurrentJobs()).thenReturn(5);
+        when(jobQueue.getExecutionMode()).thenReturn(WorkerJobQueue.ExecutionMode.VIRTUAL);
+
         // Act
         ResponseEntity<Map<String, Object>> response = controller.getWorkerInfo();
 
@@ -192,6 +229,7 @@ public class WorkerStatusControllerTest {
         Map<String, Object> body = response.getBody();
         assertEquals(5, body.get("max_concurrent_jobs"));
         assertEquals("docker", body.get("executor_type"));
+        assertEquals(WorkerJobQueue.ExecutionMode.VIRTUAL, body.get("execution_mode"));
         assertNotNull(body.get("worker_id"));
         assertTrue(body.get("worker_id") instanceof UUID);
     }
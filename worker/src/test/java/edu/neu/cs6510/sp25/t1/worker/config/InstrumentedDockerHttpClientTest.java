@@ -0,0 +1,54 @@
+package edu.neu.cs6510.sp25.t1.worker.config;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class InstrumentedDockerHttpClientTest {
+
+    @Mock
+    private DockerHttpClient delegate;
+
+    @Test
+    void execute_countsCallInFlightUntilResponseIsClosed() {
+        DockerHttpClient.Response response = mock(DockerHttpClient.Response.class);
+        when(delegate.execute(any())).thenReturn(response);
+        InstrumentedDockerHttpClient client = new InstrumentedDockerHttpClient(delegate);
+
+        DockerHttpClient.Response first = client.execute(mock(DockerHttpClient.Request.class));
+        DockerHttpClient.Response second = client.execute(mock(DockerHttpClient.Request.class));
+        assertEquals(2, client.getInFlightCalls());
+
+        first.close();
+        first.close();
+        assertEquals(1, client.getInFlightCalls());
+
+        second.close();
+        assertEquals(0, client.getInFlightCalls());
+        assertEquals(2, client.getPeakInFlightCalls());
+        assertEquals(2, client.getTotalCalls());
+        verify(response, times(3)).close();
+    }
+
+    @Test
+    void execute_failedCallLeavesInFlightCount() {
+        when(delegate.execute(any())).thenThrow(new RuntimeException("daemon unavailable"));
+        InstrumentedDockerHttpClient client = new InstrumentedDockerHttpClient(delegate);
+
+        assertThrows(RuntimeException.class, () -> client.execute(mock(DockerHttpClient.Request.class)));
+
+        assertEquals(0, client.getInFlightCalls());
+        assertEquals(1, client.getFailedCalls());
+    }
+}
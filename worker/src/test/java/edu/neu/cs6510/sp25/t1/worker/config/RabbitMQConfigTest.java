@@ -11,18 +11,29 @@ class RabbitMQConfigTest {
 
     private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
             .withUserConfiguration(TestRabbitMQConfig.class)
-            .withPropertyValues("cicd.rabbitmq.job-queue=test-queue");
+            .withPropertyValues(
+                    "cicd.rabbitmq.job-queue=test-queue",
+                    "cicd.rabbitmq.job-status-queue=test-status-queue");
 
     @Test
     void testQueueBeanIsCreatedWithCorrectNameAndDurability() {
         contextRunner.run(context -> {
-            assertThat(context).hasSingleBean(Queue.class);
-            Queue queue = context.getBean(Queue.class);
+            assertThat(context.getBeansOfType(Queue.class)).hasSize(2);
+            Queue queue = context.getBean("jobQueue", Queue.class);
             assertThat(queue.getName()).isEqualTo("test-queue");
             assertThat(queue.isDurable()).isTrue();
         });
     }
 
+    @Test
+    void testStatusQueueBeanIsCreatedWithCorrectNameAndDurability() {
+        contextRunner.run(context -> {
+            Queue queue = context.getBean("jobStatusQueue", Queue.class);
+            assertThat(queue.getName()).isEqualTo("test-status-queue");
+            assertThat(queue.isDurable()).isTrue();
+        });
+    }
+
     @Configuration
     static class TestRabbitMQConfig extends RabbitMQConfig {
         // Inherits @Bean method and @Value field from RabbitMQConfig
@@ -0,0 +1,57 @@
+package edu.neu.cs6510.sp25.t1.worker.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for ContainerSlots
+ */
+public class ContainerSlotsTest {
+
+    @Test
+    void acquireAndRelease_trackRunningContainers() throws Exception {
+        ContainerSlots slots = new ContainerSlots(2);
+
+        slots.acquire();
+        slots.acquire();
+        assertEquals(2, slots.getRunningContainers());
+        assertEquals(2, slots.getMaxRunningContainers());
+
+        slots.release();
+        assertEquals(1, slots.getRunningContainers());
+    }
+
+    @Test
+    void acquire_blocksUntilSlotIsReleased() throws Exception {
+        ContainerSlots slots = new ContainerSlots(1);
+        slots.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                slots.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        slots.release();
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(1, slots.getRunningContainers());
+    }
+
+    @Test
+    void constructor_rejectsZeroSlots() {
+        assertThrows(IllegalArgumentException.class, () -> new ContainerSlots(0));
+    }
+}
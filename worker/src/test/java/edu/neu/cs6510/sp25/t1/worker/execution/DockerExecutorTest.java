@@ -1,11 +1,25 @@
 package edu.neu.cs6510.sp25.t1.worker.execution;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.command.RemoveContainerCmd;
+import com.github.dockerjava.api.command.StartContainerCmd;
+import com.github.dockerjava.api.command.WaitContainerCmd;
+import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import com.github.dockerjava.core.command.LogContainerResultCallback;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
 import edu.neu.cs6510.sp25.t1.common.dto.JobDTO;
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
 import edu.neu.cs6510.sp25.t1.worker.error.DockerExecutionException;
 import edu.neu.cs6510.sp25.t1.worker.error.JobExecutionConfigException;
-import edu.neu.cs6510.sp25.t1.worker.service.GitCloneService;
+import edu.neu.cs6510.sp25.t1.worker.service.JobLogBuffer;
+import edu.neu.cs6510.sp25.t1.worker.service.JobLogService;
+import edu.neu.cs6510.sp25.t1.worker.service.WorkspaceManager;
 import edu.neu.cs6510.sp25.t1.worker.utils.FindPipelineBranch;
 import edu.neu.cs6510.sp25.t1.worker.utils.FindPipelineName;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,46 +27,71 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
- * Test class for DockerExecutor focusing on input validation and error handling
+ * Test class for DockerExecutor covering input validation, error handling and the container lifecycle
  */
 @ExtendWith(MockitoExtension.class)
 public class DockerExecutorTest {
+    private static final WorkspaceManager.Workspace WORKSPACE =
+            new WorkspaceManager.Workspace("cicd-demo", "/app/workspaces/job", "job");
+
     @Mock
     private FindPipelineName findPipelineName;
 
     @Mock
-    private GitCloneService gitCloneService;
+    private WorkspaceManager workspaceManager;
 
     @Mock
     private FindPipelineBranch findPipelineBranch;
 
     private DockerExecutor dockerExecutor;
 
+    private ContainerSlots containerSlots;
+
     @Mock
     private DockerClient dockerClient;
 
+    @Mock
+    private ImagePuller imagePuller;
+
+    @Mock
+    private JobLogService jobLogService;
+
+    @Mock
+    private JobMetrics jobMetrics;
+
     private JobExecutionDTO jobExecution;
     private JobDTO job;
+    private CreateContainerCmd createCommand;
 
     @BeforeEach
     void setUp() throws Exception {
         // Create a real DockerExecutor
-        dockerExecutor = new DockerExecutor(findPipelineName, gitCloneService, findPipelineBranch);
-
-        // Use reflection to inject our mock dockerClient
-        ReflectionTestUtils.setField(dockerExecutor, "dockerClient", dockerClient);
+        containerSlots = new ContainerSlots(1);
+        dockerExecutor = new DockerExecutor(dockerClient, findPipelineName, workspaceManager, findPipelineBranch,
+                containerSlots, imagePuller, jobLogService, jobMetrics);
 
         // Set up basic test data
         job = new JobDTO();
@@ -168,7 +207,7 @@ public class DockerExecutorTest {
     @Test
     public void testGitCloneFailure() throws Exception {
         // Mock git clone failure
-        when(gitCloneService.cloneRepoToVolume(anyString(), anyString(), anyString()))
+        when(workspaceManager.acquire(anyString(), anyString(), anyString(), any(), any()))
                 .thenThrow(new RuntimeException("Git clone failed"));
 
         // Execute test
@@ -180,4 +219,162 @@ public class DockerExecutorTest {
         // Verify exception message contains correct information
         assertTrue(exception.getMessage().contains("Git clone failed"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that the container output reaches the job log and the run is timed
+     */
+    @Test
+    public void testSuccessfulRunStoresOutputAndRecordsTimers() throws Exception {
+        JobLogBuffer jobLog = new JobLogBuffer(jobExecution.getId(), 100);
+        ContainerCommands commands = stubContainer(jobLog, 0);
+
+        ExecutionStatus status = dockerExecutor.execute(jobExecution);
+
+        assertEquals(ExecutionStatus.SUCCESS, status);
+        assertEquals("hello\nworld\n", jobLog.drain(10).text());
+        verify(jobMetrics).recordImagePull(eq(jobExecution.getStageExecutionId()), any(Duration.class));
+        verify(jobMetrics).recordContainerRun(eq(jobExecution.getStageExecutionId()), eq(ExecutionStatus.SUCCESS),
+                any(Duration.class));
+        verify(commands.remove()).exec();
+        verify(workspaceManager).release(WORKSPACE);
+        assertEquals(0, containerSlots.getRunningContainers());
+    }
+
+    /**
+     * Test that a job only takes a container slot once its image is available
+     */
+    @Test
+    public void testSlotIsTakenAfterImagePull() throws Exception {
+        JobLogBuffer jobLog = new JobLogBuffer(jobExecution.getId(), 100);
+        stubContainer(jobLog, 0);
+        List<Integer> runningContainers = new ArrayList<>();
+        when(imagePuller.ensureImage("alpine:latest")).thenAnswer(invocation -> {
+            runningContainers.add(containerSlots.getRunningContainers());
+            return "alpine:latest";
+        });
+        when(dockerClient.createContainerCmd("alpine:latest")).thenAnswer(invocation -> {
+            runningContainers.add(containerSlots.getRunningContainers());
+            return createCommand;
+        });
+
+        dockerExecutor.execute(jobExecution);
+
+        assertEquals(List.of(0, 1), runningContainers);
+        assertEquals(0, containerSlots.getRunningContainers());
+    }
+
+    /**
+     * Test that the slot is released when the container cannot be started
+     */
+    @Test
+    public void testSlotIsReleasedWhenStartFails() throws Exception {
+        JobLogBuffer jobLog = new JobLogBuffer(jobExecution.getId(), 100);
+        ContainerCommands commands = stubContainer(jobLog, 0);
+        when(commands.start().exec()).thenThrow(new RuntimeException("no such image"));
+
+        DockerExecutionException exception = assertThrows(DockerExecutionException.class,
+                () -> dockerExecutor.execute(jobExecution));
+
+        assertTrue(exception.getMessage().contains("no such image"));
+        assertEquals(0, containerSlots.getRunningContainers());
+        verify(commands.remove()).exec();
+        verify(workspaceManager).release(WORKSPACE);
+    }
+
+    /**
+     * Test that the slot is released when the container cannot be created
+     */
+    @Test
+    public void testSlotIsReleasedWhenCreateFails() throws Exception {
+        JobLogBuffer jobLog = new JobLogBuffer(jobExecution.getId(), 100);
+        stubContainer(jobLog, 0);
+        when(createCommand.exec()).thenThrow(new RuntimeException("conflict"));
+
+        assertThrows(DockerExecutionException.class, () -> dockerExecutor.execute(jobExecution));
+
+        assertEquals(0, containerSlots.getRunningContainers());
+        verify(workspaceManager).release(WORKSPACE);
+    }
+
+    /**
+     * Test that the output is ended and the slot released when waiting for the exit code fails
+     */
+    @Test
+    public void testOutputIsEndedWhenWaitFails() throws Exception {
+        JobLogBuffer jobLog = new JobLogBuffer(jobExecution.getId(), 100);
+        ContainerCommands commands = stubContainer(jobLog, 0);
+        when(commands.waitCallback().awaitStatusCode()).thenThrow(new RuntimeException("daemon gone"));
+
+        assertThrows(DockerExecutionException.class, () -> dockerExecutor.execute(jobExecution));
+
+        assertEquals("hello\nworld\n", jobLog.drain(10).text());
+        assertEquals(0, containerSlots.getRunningContainers());
+        verify(jobMetrics, never()).recordContainerRun(any(), any(), any());
+    }
+
+    /**
+     * Test that the unfinished last line is kept when following the output fails
+     */
+    @Test
+    public void testOutputIsEndedWhenLogStreamFails() throws Exception {
+        JobLogBuffer jobLog = new JobLogBuffer(jobExecution.getId(), 100);
+        ContainerCommands commands = stubContainer(jobLog, 0);
+        doAnswer(invocation -> {
+            LogContainerResultCallback callback = invocation.getArgument(0);
+            callback.onNext(new Frame(StreamType.STDOUT, "partial".getBytes(StandardCharsets.UTF_8)));
+            throw new RuntimeException("stream closed");
+        }).when(commands.logs()).exec(any());
+
+        assertThrows(DockerExecutionException.class, () -> dockerExecutor.execute(jobExecution));
+
+        assertEquals("partial\n", jobLog.drain(10).text());
+        assertEquals(0, containerSlots.getRunningContainers());
+        verify(commands.remove()).exec();
+    }
+
+    /**
+     * Stubs a container that writes two lines and exits with the given code.
+     */
+    private ContainerCommands stubContainer(JobLogBuffer jobLog, int exitCode) throws Exception {
+        when(findPipelineName.getPipelineName(any())).thenReturn("demo");
+        when(findPipelineBranch.getBranch(any())).thenReturn("main");
+        when(workspaceManager.acquire(any(), any(), any(), any(), any())).thenReturn(WORKSPACE);
+        lenient().when(jobLogService.open(jobExecution.getId())).thenReturn(jobLog);
+
+        createCommand = mock(CreateContainerCmd.class, RETURNS_SELF);
+        CreateContainerResponse created = new CreateContainerResponse();
+        created.setId("container-1");
+        lenient().when(createCommand.exec()).thenReturn(created);
+        lenient().when(dockerClient.createContainerCmd("alpine:latest")).thenReturn(createCommand);
+
+        StartContainerCmd start = mock(StartContainerCmd.class);
+        lenient().when(dockerClient.startContainerCmd("container-1")).thenReturn(start);
+
+        LogContainerCmd logs = mock(LogContainerCmd.class, RETURNS_SELF);
+        lenient().doAnswer(invocation -> {
+            LogContainerResultCallback callback = invocation.getArgument(0);
+            callback.onNext(new Frame(StreamType.STDOUT, "hello\nwor".getBytes(StandardCharsets.UTF_8)));
+            callback.onNext(new Frame(StreamType.STDOUT, "ld\n".getBytes(StandardCharsets.UTF_8)));
+            callback.onComplete();
+            return callback;
+        }).when(logs).exec(any());
+        lenient().when(dockerClient.logContainerCmd("container-1")).thenReturn(logs);
+
+        WaitContainerCmd waitCommand = mock(WaitContainerCmd.class);
+        WaitContainerResultCallback waitCallback = mock(WaitContainerResultCallback.class);
+        lenient().when(waitCommand.start()).thenReturn(waitCallback);
+        lenient().when(waitCallback.awaitStatusCode()).thenReturn(exitCode);
+        lenient().when(dockerClient.waitContainerCmd("container-1")).thenReturn(waitCommand);
+
+        RemoveContainerCmd remove = mock(RemoveContainerCmd.class, RETURNS_SELF);
+        lenient().when(dockerClient.removeContainerCmd("container-1")).thenReturn(remove);
+        return new ContainerCommands(start, logs, waitCallback, remove);
+    }
+
+    /**
+     * The stubbed commands of one container.
+     */
+    private record ContainerCommands(StartContainerCmd start, LogContainerCmd logs,
+                                     WaitContainerResultCallback waitCallback, RemoveContainerCmd remove) {
+    }
+}
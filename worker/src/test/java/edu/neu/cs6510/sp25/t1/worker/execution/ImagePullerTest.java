@@ -0,0 +1,171 @@
+package edu.neu.cs6510.sp25.t1.worker.execution;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectImageCmd;
+import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.command.PullImageCmd;
+import com.github.dockerjava.api.command.PullImageResultCallback;
+import com.github.dockerjava.api.exception.NotFoundException;
+import edu.neu.cs6510.sp25.t1.worker.error.DockerExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for ImagePuller
+ */
+@ExtendWith(MockitoExtension.class)
+public class ImagePullerTest {
+    private static final String IMAGE = "gradle:jdk21";
+
+    @Mock
+    private DockerClient dockerClient;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-04-01T10:00:00Z"));
+
+    @Test
+    void ifNotPresent_usesLocalImageWithoutPulling() throws Exception {
+        stubInspect("sha256:abc");
+        ImagePuller puller = new ImagePuller(dockerClient, ImagePuller.PullPolicy.IF_NOT_PRESENT,
+                Duration.ofMinutes(10), clock);
+
+        assertEquals("sha256:abc", puller.ensureImage(IMAGE));
+        assertEquals("sha256:abc", puller.ensureImage(IMAGE));
+
+        verify(dockerClient, never()).pullImageCmd(IMAGE);
+        verify(dockerClient, times(1)).inspectImageCmd(IMAGE);
+    }
+
+    @Test
+    void never_failsWhenImageIsMissing() {
+        InspectImageCmd inspectCmd = mock(InspectImageCmd.class);
+        when(dockerClient.inspectImageCmd(IMAGE)).thenReturn(inspectCmd);
+        when(inspectCmd.exec()).thenThrow(new NotFoundException("no such image"));
+        ImagePuller puller = new ImagePuller(dockerClient, ImagePuller.PullPolicy.NEVER,
+                Duration.ofMinutes(10), clock);
+
+        assertThrows(DockerExecutionException.class, () -> puller.ensureImage(IMAGE));
+        verify(dockerClient, never()).pullImageCmd(IMAGE);
+    }
+
+    @Test
+    void always_pullsAgainOnlyAfterTtl() throws Exception {
+        stubPull(null);
+        stubInspect("sha256:abc");
+        ImagePuller puller = new ImagePuller(dockerClient, ImagePuller.PullPolicy.ALWAYS,
+                Duration.ofMinutes(10), clock);
+
+        puller.ensureImage(IMAGE);
+        clock.advance(Duration.ofMinutes(5));
+        puller.ensureImage(IMAGE);
+        verify(dockerClient, times(1)).pullImageCmd(IMAGE);
+
+        clock.advance(Duration.ofMinutes(6));
+        puller.ensureImage(IMAGE);
+        verify(dockerClient, times(2)).pullImageCmd(IMAGE);
+    }
+
+    @Test
+    void concurrentPullsOfSameImageAreCoalesced() throws Exception {
+        CountDownLatch releasePull = new CountDownLatch(1);
+        stubPull(releasePull);
+        stubInspect("sha256:abc");
+        ImagePuller puller = new ImagePuller(dockerClient, ImagePuller.PullPolicy.ALWAYS,
+                Duration.ofMinutes(10), clock);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> puller.ensureImage(IMAGE));
+            verify(dockerClient, timeout(2000)).pullImageCmd(IMAGE);
+            Future<String> second = executor.submit(() -> puller.ensureImage(IMAGE));
+            Thread.sleep(100);
+            releasePull.countDown();
+
+            assertEquals("sha256:abc", first.get(2, TimeUnit.SECONDS));
+            assertEquals("sha256:abc", second.get(2, TimeUnit.SECONDS));
+            verify(dockerClient, times(1)).pullImageCmd(IMAGE);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void parse_acceptsKubernetesStyleNames() {
+        assertEquals(ImagePuller.PullPolicy.ALWAYS, ImagePuller.PullPolicy.parse("Always"));
+        assertEquals(ImagePuller.PullPolicy.IF_NOT_PRESENT, ImagePuller.PullPolicy.parse("IfNotPresent"));
+        assertEquals(ImagePuller.PullPolicy.NEVER, ImagePuller.PullPolicy.parse("never"));
+        assertThrows(IllegalArgumentException.class, () -> ImagePuller.PullPolicy.parse("Sometimes"));
+    }
+
+    private void stubInspect(String imageId) {
+        InspectImageCmd inspectCmd = mock(InspectImageCmd.class);
+        InspectImageResponse response = mock(InspectImageResponse.class);
+        when(dockerClient.inspectImageCmd(IMAGE)).thenReturn(inspectCmd);
+        when(inspectCmd.exec()).thenReturn(response);
+        when(response.getId()).thenReturn(imageId);
+    }
+
+    private void stubPull(CountDownLatch releasePull) throws InterruptedException {
+        PullImageCmd pullCmd = mock(PullImageCmd.class);
+        PullImageResultCallback callback = mock(PullImageResultCallback.class);
+        when(dockerClient.pullImageCmd(IMAGE)).thenReturn(pullCmd);
+        when(pullCmd.start()).thenReturn(callback);
+        when(callback.awaitCompletion()).thenAnswer(invocation -> {
+            if (releasePull != null) {
+                releasePull.await();
+            }
+            return callback;
+        });
+    }
+
+    /**
+     * Clock that only moves when told to.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
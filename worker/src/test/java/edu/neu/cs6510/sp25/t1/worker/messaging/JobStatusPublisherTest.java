@@ -0,0 +1,59 @@
+package edu.neu.cs6510.sp25.t1.worker.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.error.BackendCommunicationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class JobStatusPublisherTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private JobStatusPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new JobStatusPublisher(rabbitTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(publisher, "jobStatusQueueName", "test-status-queue");
+    }
+
+    @Test
+    void testPublishSendsJsonEvent() {
+        UUID jobExecutionId = UUID.randomUUID();
+
+        publisher.publish(jobExecutionId, ExecutionStatus.SUCCESS);
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(rabbitTemplate).convertAndSend(eq("test-status-queue"), payload.capture());
+        String json = (String) payload.getValue();
+        assertTrue(json.contains(jobExecutionId.toString()));
+        assertTrue(json.contains("\"SUCCESS\""));
+    }
+
+    @Test
+    void testPublishFailsOnBrokerErrors() {
+        doThrow(new AmqpException("broker down")).when(rabbitTemplate).convertAndSend(eq("test-status-queue"), any(Object.class));
+
+        assertThrows(BackendCommunicationException.class,
+                () -> publisher.publish(UUID.randomUUID(), ExecutionStatus.FAILED));
+    }
+}
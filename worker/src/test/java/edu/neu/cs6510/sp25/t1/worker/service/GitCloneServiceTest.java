@@ -1,18 +1,51 @@
 package edu.neu.cs6510.sp25.t1.worker.service;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.LogContainerCmd;
+import com.github.dockerjava.api.command.RemoveContainerCmd;
+import com.github.dockerjava.api.command.StartContainerCmd;
+import com.github.dockerjava.api.command.WaitContainerCmd;
+import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.model.AccessMode;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.StreamType;
+import com.github.dockerjava.api.model.Volume;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.common.utils.GitMirrorCache;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 
-
-
 /**
  * Test for GitCloneService
  *
@@ -23,15 +56,24 @@ import org.mockito.junit.jupiter.MockitoExtension;
 @ExtendWith(MockitoExtension.class)
 public class GitCloneServiceTest {
 
+    private static final String REPO_URL = "https://github.com/owner/repo.git";
+    private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
     @Mock
     private DockerClient dockerClient;
 
+    @Mock
+    private VolumeRegistry volumeRegistry;
+
+    @Mock
+    private JobMetrics jobMetrics;
+
     /**
      * This test verifies that the right exception is thrown for invalid inputs
      */
     @Test
     public void testExceptionForInvalidInputs() {
-        GitCloneService service = new GitCloneService();
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, jobMetrics);
 
         // Test with null repo URL
         Exception exception = assertThrows(Exception.class, () -> {
@@ -50,43 +92,177 @@ public class GitCloneServiceTest {
         assertNotNull(exception);
     }
 
+    @Test
+    public void testSkipCheckoutIfVolumeIsAtCommit() throws Exception {
+        when(volumeRegistry.lockFor("cicd-test-skip")).thenReturn(new ReentrantLock());
+        when(volumeRegistry.lookup("cicd-test-skip")).thenReturn(Optional.of(
+                new VolumeRegistry.VolumeState("volume-id", REPO_URL, "main", COMMIT)));
+
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, jobMetrics);
+        String result = service.cloneRepoToVolume(REPO_URL, "main", "test-skip", COMMIT.substring(0, 12));
+
+        assertEquals("cicd-test-skip", result);
+        verifyNoInteractions(dockerClient);
+        verify(jobMetrics).cloneReused("test-skip");
+    }
+
+    @Test
+    public void testUpdateIfVolumeIsAtOtherCommit() throws Exception {
+        when(volumeRegistry.lockFor("cicd-test-update")).thenReturn(new ReentrantLock());
+        when(volumeRegistry.lookup("cicd-test-update")).thenReturn(Optional.of(
+                new VolumeRegistry.VolumeState("volume-id", REPO_URL, "main", "f".repeat(40))));
+        when(volumeRegistry.ensureVolume("cicd-test-update", REPO_URL, "main")).thenReturn("volume-id");
+        CreateContainerCmd createContainerCmd = stubCloneContainer(0);
+
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, jobMetrics);
+        service.cloneRepoToVolume(REPO_URL, "main", "test-update", COMMIT);
+
+        ArgumentCaptor<String[]> entrypoint = ArgumentCaptor.forClass(String[].class);
+        verify(createContainerCmd).withEntrypoint(entrypoint.capture());
+        assertEquals(List.of("main", REPO_URL, COMMIT),
+                Arrays.asList(entrypoint.getValue()).subList(4, 7));
+        verify(volumeRegistry).record("cicd-test-update",
+                new VolumeRegistry.VolumeState("volume-id", REPO_URL, "main", COMMIT));
+    }
+
+    @Test
+    public void testCloneIntoNewVolumeRecordsCheckedOutCommit() throws Exception {
+        when(volumeRegistry.lockFor("cicd-test-clone")).thenReturn(new ReentrantLock());
+        when(volumeRegistry.lookup("cicd-test-clone")).thenReturn(Optional.empty());
+        when(volumeRegistry.ensureVolume("cicd-test-clone", REPO_URL, "main")).thenReturn("volume-id");
+        stubCloneContainer(0);
+
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, jobMetrics);
+        String result = service.cloneRepoToVolume(REPO_URL, "main", "test-clone");
+
+        assertEquals("cicd-test-clone", result);
+        verify(dockerClient, never()).createContainerCmd("alpine");
+        verify(volumeRegistry).record("cicd-test-clone",
+                new VolumeRegistry.VolumeState("volume-id", REPO_URL, "main", COMMIT));
+        verify(jobMetrics).recordClone(eq("test-clone"), any(Duration.class), eq(true));
+    }
+
+    @Test
+    public void testFailedCloneIsNotRecorded() throws Exception {
+        when(volumeRegistry.lockFor("cicd-test-fail")).thenReturn(new ReentrantLock());
+        when(volumeRegistry.lookup("cicd-test-fail")).thenReturn(Optional.empty());
+        when(volumeRegistry.ensureVolume("cicd-test-fail", REPO_URL, "main")).thenReturn("volume-id");
+        stubCloneContainer(128);
+
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, jobMetrics);
+
+        assertThrows(RuntimeException.class, () -> service.cloneRepoToVolume(REPO_URL, "main", "test-fail"));
+        verify(volumeRegistry, never()).record(any(), any());
+        verify(volumeRegistry).forget("cicd-test-fail");
+        verify(jobMetrics).recordClone(eq("test-fail"), any(Duration.class), eq(false));
+    }
+
+    @Test
+    public void testCheckoutFromMirror() throws Exception {
+        when(volumeRegistry.lockFor("cicd-test-mirror")).thenReturn(new ReentrantLock());
+        when(volumeRegistry.lookup("cicd-test-mirror")).thenReturn(Optional.empty());
+        when(volumeRegistry.ensureVolume("cicd-test-mirror", REPO_URL, "main")).thenReturn("volume-id");
+        CreateContainerCmd createContainerCmd = stubCloneContainer(0);
+        GitMirrorCache mirrorCache = mock(GitMirrorCache.class);
+        GitMirrorCache.Mirror mirror = mock(GitMirrorCache.Mirror.class);
+        when(mirrorCache.acquire(REPO_URL, COMMIT)).thenReturn(mirror);
+        when(mirror.getDirectory()).thenReturn(new File("/var/cicd/git-mirrors/repo.git"));
+
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, Optional.of(mirrorCache), jobMetrics);
+        service.cloneRepoToVolume(REPO_URL, "main", "test-mirror", COMMIT);
+
+        ArgumentCaptor<String[]> entrypoint = ArgumentCaptor.forClass(String[].class);
+        verify(createContainerCmd).withEntrypoint(entrypoint.capture());
+        assertEquals(List.of("main", GitCloneService.MIRROR_URL, COMMIT),
+                Arrays.asList(entrypoint.getValue()).subList(4, 7));
+        ArgumentCaptor<HostConfig> hostConfig = ArgumentCaptor.forClass(HostConfig.class);
+        verify(createContainerCmd).withHostConfig(hostConfig.capture());
+        Bind mirrorBind = hostConfig.getValue().getBinds()[1];
+        assertEquals("/var/cicd/git-mirrors/repo.git", mirrorBind.getPath());
+        assertEquals(GitCloneService.MIRROR_PATH, mirrorBind.getVolume().getPath());
+        assertEquals(AccessMode.ro, mirrorBind.getAccessMode());
+        verify(mirror).close();
+        // the volume is recorded at the remote URL, not the mirror
+        verify(volumeRegistry).record("cicd-test-mirror",
+                new VolumeRegistry.VolumeState("volume-id", REPO_URL, "main", COMMIT));
+    }
+
+    @Test
+    public void testFallsBackToRemoteWhenMirrorFails() throws Exception {
+        when(volumeRegistry.lockFor("cicd-test-fallback")).thenReturn(new ReentrantLock());
+        when(volumeRegistry.lookup("cicd-test-fallback")).thenReturn(Optional.empty());
+        when(volumeRegistry.ensureVolume("cicd-test-fallback", REPO_URL, "main")).thenReturn("volume-id");
+        CreateContainerCmd createContainerCmd = stubCloneContainer(0);
+        GitMirrorCache mirrorCache = mock(GitMirrorCache.class);
+        when(mirrorCache.acquire(REPO_URL, null)).thenThrow(new IOException("disk full"));
+
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, Optional.of(mirrorCache), jobMetrics);
+        service.cloneRepoToVolume(REPO_URL, "main", "test-fallback");
+
+        ArgumentCaptor<String[]> entrypoint = ArgumentCaptor.forClass(String[].class);
+        verify(createContainerCmd).withEntrypoint(entrypoint.capture());
+        assertEquals(REPO_URL, entrypoint.getValue()[5]);
+    }
+
+    @Test
+    public void testRetriesFromRemoteWhenMirrorCheckoutFails() throws Exception {
+        when(volumeRegistry.lockFor("cicd-test-retry")).thenReturn(new ReentrantLock());
+        when(volumeRegistry.lookup("cicd-test-retry")).thenReturn(Optional.empty());
+        when(volumeRegistry.ensureVolume("cicd-test-retry", REPO_URL, "main")).thenReturn("volume-id");
+        CreateContainerCmd createContainerCmd = stubCloneContainer(0);
+        // the clone from the mirror fails, the one from the remote succeeds
+        when(dockerClient.waitContainerCmd("clone-container").start().awaitStatusCode()).thenReturn(128, 0);
+        GitMirrorCache mirrorCache = mock(GitMirrorCache.class);
+        GitMirrorCache.Mirror mirror = mock(GitMirrorCache.Mirror.class);
+        when(mirrorCache.acquire(REPO_URL, COMMIT)).thenReturn(mirror);
+        when(mirror.getDirectory()).thenReturn(new File("/var/cicd/git-mirrors/repo.git"));
+
+        GitCloneService service = new GitCloneService(dockerClient, volumeRegistry, Optional.of(mirrorCache), jobMetrics);
+        service.cloneRepoToVolume(REPO_URL, "main", "test-retry", COMMIT);
+
+        ArgumentCaptor<String[]> entrypoint = ArgumentCaptor.forClass(String[].class);
+        verify(createContainerCmd, times(2)).withEntrypoint(entrypoint.capture());
+        assertEquals(GitCloneService.MIRROR_URL, entrypoint.getAllValues().get(0)[5]);
+        assertEquals(REPO_URL, entrypoint.getAllValues().get(1)[5]);
+        verify(mirror).close();
+        verify(volumeRegistry).record("cicd-test-retry",
+                new VolumeRegistry.VolumeState("volume-id", REPO_URL, "main", COMMIT));
+        verify(jobMetrics).recordClone(eq("test-retry"), any(Duration.class), eq(true));
+    }
+
+    private CreateContainerCmd stubCloneContainer(int exitCode) throws Exception {
+        CreateContainerCmd createContainerCmd = mock(CreateContainerCmd.class);
+        CreateContainerResponse containerResponse = mock(CreateContainerResponse.class);
+        when(dockerClient.createContainerCmd("alpine/git:2.36.2")).thenReturn(createContainerCmd);
+        when(createContainerCmd.withEntrypoint(any(String[].class))).thenReturn(createContainerCmd);
+        when(createContainerCmd.withHostConfig(any())).thenReturn(createContainerCmd);
+        when(createContainerCmd.withVolumes(any(Volume[].class))).thenReturn(createContainerCmd);
+        when(createContainerCmd.exec()).thenReturn(containerResponse);
+        when(containerResponse.getId()).thenReturn("clone-container");
+
+        when(dockerClient.startContainerCmd("clone-container")).thenReturn(mock(StartContainerCmd.class));
+
+        LogContainerCmd logContainerCmd = mock(LogContainerCmd.class);
+        when(dockerClient.logContainerCmd("clone-container")).thenReturn(logContainerCmd);
+        when(logContainerCmd.withStdOut(anyBoolean())).thenReturn(logContainerCmd);
+        when(logContainerCmd.withStdErr(anyBoolean())).thenReturn(logContainerCmd);
+        when(logContainerCmd.withFollowStream(anyBoolean())).thenReturn(logContainerCmd);
+        when(logContainerCmd.exec(any())).thenAnswer(invocation -> {
+            ResultCallback<Frame> callback = invocation.getArgument(0);
+            callback.onNext(new Frame(StreamType.STDOUT, (COMMIT + "\n").getBytes()));
+            callback.onComplete();
+            return callback;
+        });
+
+        WaitContainerCmd waitContainerCmd = mock(WaitContainerCmd.class);
+        WaitContainerResultCallback waitResult = mock(WaitContainerResultCallback.class);
+        when(dockerClient.waitContainerCmd("clone-container")).thenReturn(waitContainerCmd);
+        when(waitContainerCmd.start()).thenReturn(waitResult);
+        when(waitResult.awaitStatusCode()).thenReturn(exitCode);
 
-//    @Test
-//    public void testSkipCloneIfGitExists() throws Exception {
-//        CreateContainerCmd createContainerCmd = mock(CreateContainerCmd.class);
-//        StartContainerCmd startContainerCmd = mock(StartContainerCmd.class);
-//        WaitContainerCmd waitContainerCmd = mock(WaitContainerCmd.class);
-//        WaitContainerResultCallback waitResult = mock(WaitContainerResultCallback.class);
-//        RemoveContainerCmd removeContainerCmd = mock(RemoveContainerCmd.class);
-//        CreateContainerResponse containerResponse = mock(CreateContainerResponse.class);
-//
-//        when(dockerClient.createContainerCmd(eq("alpine"))).thenReturn(createContainerCmd);
-//        when(createContainerCmd.withCmd(any(String[].class))).thenReturn(createContainerCmd);
-//        when(createContainerCmd.withHostConfig(any())).thenReturn(createContainerCmd);
-//        when(createContainerCmd.withVolumes(any(Volume[].class))).thenReturn(createContainerCmd);
-//        when(createContainerCmd.exec()).thenReturn(containerResponse);
-//        when(containerResponse.getId()).thenReturn("dummy-container-id");
-//
-//        when(dockerClient.startContainerCmd(any())).thenReturn(startContainerCmd);
-//        when(dockerClient.waitContainerCmd(any())).thenReturn(waitContainerCmd);
-//        when(waitContainerCmd.start()).thenReturn(waitResult);
-//        when(waitResult.awaitStatusCode()).thenReturn(0); // Simulate .git exists
-//
-//        when(dockerClient.removeContainerCmd(any())).thenReturn(removeContainerCmd);
-//        when(removeContainerCmd.withForce(true)).thenReturn(removeContainerCmd);
-//        doNothing().when(removeContainerCmd).exec();
-//
-//
-//        GitCloneService service = new GitCloneService() {{
-//            java.lang.reflect.Field dockerField = GitCloneService.class.getDeclaredField("dockerClient");
-//            dockerField.setAccessible(true);
-//            dockerField.set(this, dockerClient);
-//        }};
-//
-//        String result = service.cloneRepoToVolume("https://github.com/owner/repo.git", "main", "test-skip");
-//
-//        assertEquals("cicd-test-skip", result);
-//        verify(dockerClient, never()).createContainerCmd(eq("alpine/git:2.36.2"));
-//    }
-
-}
\ No newline at end of file
+        RemoveContainerCmd removeContainerCmd = mock(RemoveContainerCmd.class);
+        when(dockerClient.removeContainerCmd("clone-container")).thenReturn(removeContainerCmd);
+        when(removeContainerCmd.withForce(true)).thenReturn(removeContainerCmd);
+        return createContainerCmd;
+    }
+}
@@ -5,17 +5,21 @@ import edu.neu.cs6510.sp25.t1.backend.database.entity.JobExecutionEntity;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobExecutionRepository;
 import edu.neu.cs6510.sp25.t1.backend.database.repository.JobRepository;
 import edu.neu.cs6510.sp25.t1.backend.mapper.JobExecutionMapper;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
+import edu.neu.cs6510.sp25.t1.backend.service.status.StatusRollupService;
 import edu.neu.cs6510.sp25.t1.common.dto.JobDTO;
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.messaging.JobStatusPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -39,12 +43,21 @@ public class JobDataServiceTest {
     @Mock
     private JobExecutionMapper mapper;
 
+    @Mock
+    private JobStatusPublisher jobStatusPublisher;
+
+    @Mock
+    private StatusRollupService statusRollupService;
+
+    @Mock
+    private JobLogService jobLogService;
+
+    @Mock
+    private JobMetrics jobMetrics;
+
     @InjectMocks
     private JobDataService jobDataService;
 
-    @Captor
-    private ArgumentCaptor<JobExecutionEntity> jobExecutionCaptor;
-
     private UUID jobExecutionId;
     private JobExecutionEntity jobExecutionEntity;
     private JobEntity jobEntity;
@@ -92,11 +105,53 @@ public class JobDataServiceTest {
 
         // Verify
         verify(jobExecutionRepository).findById(jobExecutionId);
-        verify(jobExecutionRepository).save(jobExecutionCaptor.capture());
+        verify(statusRollupService).transition(jobExecutionEntity, ExecutionStatus.SUCCESS);
+        verify(jobStatusPublisher).publish(jobExecutionId, ExecutionStatus.SUCCESS);
+        verify(jobMetrics).recordStatusUpdate(isNull(), eq(ExecutionStatus.SUCCESS), any());
+    }
+
+    @Test
+    void testUpdateJobStatusStoresLogBeforePublishingFinalStatus() {
+        when(jobExecutionRepository.findById(jobExecutionId)).thenReturn(Optional.of(jobExecutionEntity));
 
-        JobExecutionEntity savedEntity = jobExecutionCaptor.getValue();
-        assertEquals(ExecutionStatus.SUCCESS, savedEntity.getStatus());
-        assertNotNull(savedEntity.getCompletionTime());
+        jobDataService.updateJobStatus(jobExecutionId, ExecutionStatus.FAILED, "Job execution failed");
+
+        InOrder inOrder = inOrder(jobLogService, jobStatusPublisher);
+        inOrder.verify(jobLogService).append(jobExecutionId, "Job execution failed");
+        inOrder.verify(jobLogService).finish(jobExecutionId);
+        inOrder.verify(jobStatusPublisher).publish(jobExecutionId, ExecutionStatus.FAILED);
+    }
+
+    @Test
+    void testUpdateJobStatusPublishesAfterCommit() {
+        when(jobExecutionRepository.findById(jobExecutionId)).thenReturn(Optional.of(jobExecutionEntity));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            jobDataService.updateJobStatus(jobExecutionId, ExecutionStatus.SUCCESS, null);
+            verify(statusRollupService).transition(jobExecutionEntity, ExecutionStatus.SUCCESS);
+            verifyNoInteractions(jobStatusPublisher);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(jobStatusPublisher).publish(jobExecutionId, ExecutionStatus.SUCCESS);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testUpdateJobStatusDoesNotPublishRolledBackUpdate() {
+        when(jobExecutionRepository.findById(jobExecutionId)).thenReturn(Optional.of(jobExecutionEntity));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            jobDataService.updateJobStatus(jobExecutionId, ExecutionStatus.FAILED, null);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verifyNoInteractions(jobStatusPublisher);
     }
 
     @Test
@@ -109,7 +164,9 @@ public class JobDataServiceTest {
 
         // Verify
         verify(jobExecutionRepository).findById(jobExecutionId);
-        verify(jobExecutionRepository, never()).save(any());
+        verifyNoInteractions(statusRollupService);
+        verifyNoInteractions(jobStatusPublisher);
+        verifyNoInteractions(jobMetrics);
     }
 
     @Test
@@ -121,11 +178,10 @@ public class JobDataServiceTest {
         jobDataService.updateJobStatus(jobExecutionId, ExecutionStatus.RUNNING, "Job is running");
 
         // Verify
-        verify(jobExecutionRepository).save(jobExecutionCaptor.capture());
-
-        JobExecutionEntity savedEntity = jobExecutionCaptor.getValue();
-        assertEquals(ExecutionStatus.RUNNING, savedEntity.getStatus());
-        assertNull(savedEntity.getCompletionTime());
+        verify(statusRollupService).transition(jobExecutionEntity, ExecutionStatus.RUNNING);
+        verify(jobStatusPublisher).publish(jobExecutionId, ExecutionStatus.RUNNING);
+        verify(jobLogService).append(jobExecutionId, "Job is running");
+        verify(jobLogService, never()).finish(any());
     }
 
     @Test
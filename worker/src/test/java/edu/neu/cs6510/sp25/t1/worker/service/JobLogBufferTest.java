@@ -0,0 +1,96 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import com.github.dockerjava.api.model.StreamType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobLogBufferTest {
+
+    @Test
+    void append_joinsLinesSplitAcrossFrames() {
+        JobLogBuffer buffer = new JobLogBuffer(UUID.randomUUID(), 10);
+
+        buffer.append(StreamType.STDOUT, bytes("compil"));
+        buffer.append(StreamType.STDERR, bytes("warning: deprecated\r\n"));
+        buffer.append(StreamType.STDOUT, bytes("ing\ntests"));
+        buffer.endOfOutput();
+
+        JobLogBuffer.Chunk chunk = buffer.drain(100);
+        assertEquals("warning: deprecated\ncompiling\ntests\n", chunk.text());
+        assertEquals(3, chunk.lineCount());
+        assertNull(buffer.drain(100));
+    }
+
+    @Test
+    void drain_returnsAtMostMaxLines() {
+        JobLogBuffer buffer = new JobLogBuffer(UUID.randomUUID(), 10);
+        for (int i = 0; i < 5; i++) {
+            buffer.appendLine("line " + i);
+        }
+
+        JobLogBuffer.Chunk first = buffer.drain(2);
+        JobLogBuffer.Chunk second = buffer.drain(2);
+        JobLogBuffer.Chunk third = buffer.drain(2);
+
+        assertEquals("line 0\nline 1\n", first.text());
+        assertEquals("line 2\nline 3\n", second.text());
+        assertEquals("line 4\n", third.text());
+        assertEquals(1, third.lineCount());
+        assertEquals(0, buffer.getPendingLines());
+    }
+
+    @Test
+    void drain_reportsLinesOverwrittenBeforeTheyWereStored() {
+        JobLogBuffer buffer = new JobLogBuffer(UUID.randomUUID(), 3);
+        for (int i = 0; i < 5; i++) {
+            buffer.appendLine("line " + i);
+        }
+
+        JobLogBuffer.Chunk chunk = buffer.drain(10);
+
+        assertTrue(chunk.text().startsWith("[... 2 lines dropped"));
+        assertTrue(chunk.text().endsWith("line 2\nline 3\nline 4\n"));
+        assertEquals(4, chunk.lineCount());
+        assertEquals(2, buffer.getDroppedLines());
+    }
+
+    @Test
+    void append_splitsOverlongLines() {
+        JobLogBuffer buffer = new JobLogBuffer(UUID.randomUUID(), 10);
+
+        buffer.append(StreamType.STDOUT, bytes("x".repeat(JobLogBuffer.MAX_LINE_CHARS + 5)));
+
+        assertEquals(1, buffer.getPendingLines());
+        buffer.endOfOutput();
+        assertEquals(2, buffer.drain(10).lineCount());
+    }
+
+    @Test
+    void isComplete_onceFinishedAndDrained() {
+        JobLogBuffer buffer = new JobLogBuffer(UUID.randomUUID(), 10);
+        buffer.append(StreamType.STDOUT, bytes("done"));
+
+        buffer.finish();
+        assertFalse(buffer.isComplete());
+
+        buffer.drain(10);
+        assertTrue(buffer.isComplete());
+    }
+
+    @Test
+    void constructor_rejectsEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new JobLogBuffer(UUID.randomUUID(), 0));
+    }
+
+    private byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,101 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import com.github.dockerjava.api.model.StreamType;
+import edu.neu.cs6510.sp25.t1.backend.service.log.LogSegmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Flushes by hand instead of on the flusher thread.
+ */
+class JobLogServiceTest {
+
+    private LogSegmentStore store;
+    private JobLogService jobLogService;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(LogSegmentStore.class);
+        jobLogService = new JobLogService(store, 100);
+    }
+
+    @Test
+    void flush_storesBufferedLinesOfEachJobInOneWrite() throws Exception {
+        UUID firstJob = UUID.randomUUID();
+        UUID secondJob = UUID.randomUUID();
+        JobLogBuffer first = jobLogService.open(firstJob);
+        first.append(StreamType.STDOUT, "a\nb\nc\n".getBytes(StandardCharsets.UTF_8));
+        jobLogService.append(secondJob, "started");
+
+        jobLogService.flush();
+
+        verify(store).append(firstJob, "a\nb\nc\n");
+        verify(store).append(secondJob, "started\n");
+    }
+
+    @Test
+    void flush_skipsWhenNothingIsBuffered() throws Exception {
+        jobLogService.open(UUID.randomUUID());
+
+        jobLogService.flush();
+
+        verify(store, never()).append(any(), anyString());
+    }
+
+    @Test
+    void flush_keepsGoingWhenStoreFails() throws Exception {
+        UUID job = UUID.randomUUID();
+        doThrow(new IOException("disk full")).when(store).append(job, "lost\n");
+        jobLogService.append(job, "lost");
+        jobLogService.flush();
+
+        jobLogService.append(job, "kept");
+        jobLogService.flush();
+
+        verify(store).append(job, "kept\n");
+    }
+
+    @Test
+    void finish_storesRemainingLinesAndReleasesBufferAfterLateStatus() throws Exception {
+        UUID job = UUID.randomUUID();
+        JobLogBuffer buffer = jobLogService.open(job);
+        buffer.append(StreamType.STDOUT, "partial line".getBytes(StandardCharsets.UTF_8));
+
+        jobLogService.finish(job);
+
+        InOrder inOrder = inOrder(store);
+        inOrder.verify(store).append(job, "partial line\n");
+        inOrder.verify(store).finish(job);
+
+        // a status reported right after the job finished still joins its log
+        jobLogService.append(job, "Job canceled");
+        assertSame(buffer, jobLogService.open(job));
+        jobLogService.flush();
+        verify(store).append(job, "Job canceled\n");
+
+        jobLogService.flush();
+        assertEquals(0, jobLogService.getOpenLogCount());
+    }
+
+    @Test
+    void finish_ignoresUnknownJob() throws Exception {
+        jobLogService.finish(UUID.randomUUID());
+
+        verify(store, never()).finish(any());
+    }
+}
@@ -0,0 +1,138 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.CreateVolumeCmd;
+import com.github.dockerjava.api.command.InspectVolumeCmd;
+import com.github.dockerjava.api.command.InspectVolumeResponse;
+import com.github.dockerjava.api.command.RemoveVolumeCmd;
+import com.github.dockerjava.api.exception.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class VolumeRegistryTest {
+
+    private static final String VOLUME = "cicd-demo";
+    private static final String REPO_URL = "https://github.com/owner/repo.git";
+
+    @Mock
+    private DockerClient dockerClient;
+
+    @Mock
+    private InspectVolumeCmd inspectVolumeCmd;
+
+    private VolumeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new VolumeRegistry(dockerClient);
+    }
+
+    @Test
+    void lookup_returnsStateWhileVolumeLabelsMatch() {
+        stubLabels(Map.of(VolumeRegistry.VOLUME_ID_LABEL, "id-1"));
+        VolumeRegistry.VolumeState state = new VolumeRegistry.VolumeState("id-1", REPO_URL, "main", null);
+        registry.record(VOLUME, state);
+
+        assertEquals(state, registry.lookup(VOLUME).orElseThrow());
+    }
+
+    @Test
+    void lookup_forgetsVolumeThatWasRecreated() {
+        stubLabels(Map.of(VolumeRegistry.VOLUME_ID_LABEL, "id-2"));
+        registry.record(VOLUME, new VolumeRegistry.VolumeState("id-1", REPO_URL, "main", null));
+
+        assertTrue(registry.lookup(VOLUME).isEmpty());
+    }
+
+    @Test
+    void lookup_forgetsVolumeThatWasRemoved() {
+        when(dockerClient.inspectVolumeCmd(VOLUME)).thenReturn(inspectVolumeCmd);
+        when(inspectVolumeCmd.exec()).thenThrow(new NotFoundException("no such volume"));
+        registry.record(VOLUME, new VolumeRegistry.VolumeState("id-1", REPO_URL, "main", null));
+
+        assertTrue(registry.lookup(VOLUME).isEmpty());
+    }
+
+    @Test
+    void ensureVolume_createsLabelledVolumeWhenMissing() {
+        when(dockerClient.inspectVolumeCmd(VOLUME)).thenReturn(inspectVolumeCmd);
+        when(inspectVolumeCmd.exec()).thenThrow(new NotFoundException("no such volume"));
+        CreateVolumeCmd createVolumeCmd = stubCreateVolume();
+
+        String volumeId = registry.ensureVolume(VOLUME, REPO_URL, "main");
+
+        assertNotNull(volumeId);
+        verify(createVolumeCmd).withLabels(Map.of(
+                VolumeRegistry.REPO_LABEL, REPO_URL,
+                VolumeRegistry.BRANCH_LABEL, "main",
+                VolumeRegistry.VOLUME_ID_LABEL, volumeId));
+    }
+
+    @Test
+    void ensureVolume_keepsVolumeOfSameRepository() {
+        stubLabels(Map.of(VolumeRegistry.REPO_LABEL, REPO_URL, VolumeRegistry.VOLUME_ID_LABEL, "id-1"));
+
+        assertEquals("id-1", registry.ensureVolume(VOLUME, REPO_URL, "main"));
+        verify(dockerClient, never()).createVolumeCmd();
+    }
+
+    @Test
+    void ensureVolume_replacesVolumeOfOtherRepository() {
+        stubLabels(Map.of(VolumeRegistry.REPO_LABEL, "https://github.com/other/repo.git",
+                VolumeRegistry.VOLUME_ID_LABEL, "id-1"));
+        when(dockerClient.removeVolumeCmd(VOLUME)).thenReturn(mock(RemoveVolumeCmd.class));
+        stubCreateVolume();
+
+        String volumeId = registry.ensureVolume(VOLUME, REPO_URL, "main");
+
+        verify(dockerClient).removeVolumeCmd(VOLUME);
+        assertNotNull(volumeId);
+        assertNotEquals("id-1", volumeId);
+    }
+
+    @Test
+    void volumeState_isOnlyAtAKnownCommit() {
+        String commit = "0123456789abcdef0123456789abcdef01234567";
+        VolumeRegistry.VolumeState state = new VolumeRegistry.VolumeState("id-1", REPO_URL, "main", commit);
+
+        assertTrue(state.isAt(REPO_URL, commit));
+        assertTrue(state.isAt(REPO_URL, "0123456"));
+        assertFalse(state.isAt(REPO_URL, null));
+        assertFalse(state.isAt("https://github.com/other/repo.git", commit));
+        assertFalse(new VolumeRegistry.VolumeState("id-1", REPO_URL, "main", null).isAt(REPO_URL, commit));
+    }
+
+    private void stubLabels(Map<String, String> labels) {
+        InspectVolumeResponse response = mock(InspectVolumeResponse.class);
+        when(dockerClient.inspectVolumeCmd(VOLUME)).thenReturn(inspectVolumeCmd);
+        when(inspectVolumeCmd.exec()).thenReturn(response);
+        when(response.getLabels()).thenReturn(labels);
+    }
+
+    private CreateVolumeCmd stubCreateVolume() {
+        CreateVolumeCmd createVolumeCmd = mock(CreateVolumeCmd.class);
+        when(dockerClient.createVolumeCmd()).thenReturn(createVolumeCmd);
+        when(createVolumeCmd.withName(anyString())).thenReturn(createVolumeCmd);
+        when(createVolumeCmd.withDriver(anyString())).thenReturn(createVolumeCmd);
+        when(createVolumeCmd.withLabels(anyMap())).thenReturn(createVolumeCmd);
+        return createVolumeCmd;
+    }
+}
@@ -3,6 +3,7 @@ package edu.neu.cs6510.sp25.t1.worker.service;
 import edu.neu.cs6510.sp25.t1.common.dto.JobDTO;
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.error.DockerExecutionException;
 import edu.neu.cs6510.sp25.t1.worker.execution.DockerExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -126,6 +129,22 @@ public class WorkerExecutionServiceTest {
         verify(artifactService, never()).processArtifacts(any(), any(), any());
     }
 
+    @Test
+    void testExecuteJobInterrupted_rethrowsWithoutReporting() {
+        // Setup
+        DockerExecutionException interrupted =
+                new DockerExecutionException("Docker execution interrupted", new InterruptedException());
+        when(dockerExecutor.execute(jobExecution)).thenThrow(interrupted);
+
+        // Execute
+        DockerExecutionException thrown = assertThrows(DockerExecutionException.class,
+                () -> workerExecutionService.executeJob(jobExecution));
+
+        // Verify
+        assertSame(interrupted, thrown);
+        verify(jobDataService, never()).updateJobStatus(any(), any(), any());
+    }
+
     @Test
     void testExecuteJobWithNullJob() {
         // Execute
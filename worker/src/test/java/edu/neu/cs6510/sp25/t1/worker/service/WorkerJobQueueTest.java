@@ -5,19 +5,26 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import com.rabbitmq.client.Channel;
+import edu.neu.cs6510.sp25.t1.backend.service.metrics.JobMetrics;
 import edu.neu.cs6510.sp25.t1.common.dto.JobDTO;
 import edu.neu.cs6510.sp25.t1.common.dto.JobExecutionDTO;
 import edu.neu.cs6510.sp25.t1.common.enums.ExecutionStatus;
+import edu.neu.cs6510.sp25.t1.worker.error.BackendCommunicationException;
+import edu.neu.cs6510.sp25.t1.worker.error.DockerExecutionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.Date;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @ExtendWith(MockitoExtension.class)
 public class WorkerJobQueueTest {
@@ -28,11 +35,17 @@ public class WorkerJobQueueTest {
     @Mock
     private JobDataService jobDataService;
 
+    @Mock
+    private JobMetrics jobMetrics;
+
+    @Mock
+    private Channel channel;
+
     private WorkerJobQueue workerJobQueue;
 
     @BeforeEach
     public void setUp() {
-        workerJobQueue = new WorkerJobQueue(executionService, jobDataService);
+        workerJobQueue = new WorkerJobQueue(executionService, jobDataService, jobMetrics, 2, "platform");
     }
 
     @Test
@@ -56,7 +69,7 @@ public class WorkerJobQueueTest {
         }).when(executionService).executeJob(any(JobExecutionDTO.class));
 
         // When
-        workerJobQueue.consumeJob(jobIdStr);
+        workerJobQueue.consumeJob(jobIdStr, channel, 1L, null);
 
         // Then
         // Wait for async task to complete
@@ -65,17 +78,62 @@ public class WorkerJobQueueTest {
         verify(jobDataService).getJobExecutionById(jobId);
         verify(jobDataService).updateJobStatus(eq(jobId), eq(ExecutionStatus.RUNNING), anyString());
         verify(executionService).executeJob(jobExecution);
+        verifyNoInteractions(jobMetrics);
+    }
+
+    @Test
+    public void testConsumeJob_lostStatusEvent_doesNotOverwriteStatus() throws Exception {
+        // Given
+        UUID jobId = UUID.randomUUID();
+        JobExecutionDTO jobExecution = new JobExecutionDTO();
+        jobExecution.setId(jobId);
+        when(jobDataService.getJobExecutionById(jobId)).thenReturn(Optional.of(jobExecution));
+        doThrow(new BackendCommunicationException("broker down"))
+                .when(executionService).executeJob(any(JobExecutionDTO.class));
+
+        // When
+        workerJobQueue.consumeJob(jobId.toString(), channel, 4L, null);
+
+        // Then - acknowledged without reporting the job as failed
+        verify(channel, timeout(2000)).basicAck(4L, false);
+        verify(jobDataService, never()).updateJobStatus(eq(jobId), eq(ExecutionStatus.FAILED), anyString());
     }
 
     @Test
-    public void testConsumeJob_invalidJobId_logsError() {
+    public void testConsumeJob_stampedMessage_recordsQueueWait() throws InterruptedException {
+        // Given
+        UUID jobId = UUID.randomUUID();
+        UUID stageExecutionId = UUID.randomUUID();
+        JobExecutionDTO jobExecution = new JobExecutionDTO();
+        jobExecution.setId(jobId);
+        jobExecution.setStageExecutionId(stageExecutionId);
+        when(jobDataService.getJobExecutionById(jobId)).thenReturn(Optional.of(jobExecution));
+
+        CountDownLatch latch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            latch.countDown();
+            return null;
+        }).when(executionService).executeJob(any(JobExecutionDTO.class));
+
+        // When - published five seconds ago
+        workerJobQueue.consumeJob(jobId.toString(), channel, 1L, new Date(System.currentTimeMillis() - 5000));
+
+        // Then
+        assertTrue(latch.await(2, TimeUnit.SECONDS), "Execution did not complete in time");
+        verify(jobMetrics).recordQueueWait(eq(stageExecutionId),
+                argThat(wait -> wait.compareTo(Duration.ofSeconds(5)) >= 0));
+    }
+
+    @Test
+    public void testConsumeJob_invalidJobId_logsError() throws Exception {
         // Given
         String invalidJobId = "not-a-uuid";
 
         // When
-        workerJobQueue.consumeJob(invalidJobId);
+        workerJobQueue.consumeJob(invalidJobId, channel, 1L, null);
 
         // Then
+        verify(channel).basicAck(1L, false);
         verifyNoInteractions(executionService);
         verify(jobDataService, never()).updateJobStatus(any(), any(), anyString());
     }
@@ -86,7 +144,7 @@ public class WorkerJobQueueTest {
         String nullJobId = null;
 
         // When
-        workerJobQueue.consumeJob(nullJobId);
+        workerJobQueue.consumeJob(nullJobId, channel, 1L, null);
 
         // Then
         verifyNoInteractions(executionService);
@@ -99,7 +157,7 @@ public class WorkerJobQueueTest {
         String emptyJobId = "";
 
         // When
-        workerJobQueue.consumeJob(emptyJobId);
+        workerJobQueue.consumeJob(emptyJobId, channel, 1L, null);
 
         // Then
         verifyNoInteractions(executionService);
@@ -116,7 +174,7 @@ public class WorkerJobQueueTest {
         when(jobDataService.getJobExecutionById(jobId)).thenReturn(Optional.empty());
 
         // When
-        workerJobQueue.consumeJob(jobIdStr);
+        workerJobQueue.consumeJob(jobIdStr, channel, 1L, null);
 
         // Then
         verifyNoInteractions(executionService);
@@ -136,12 +194,145 @@ public class WorkerJobQueueTest {
         when(jobDataService.getJobExecutionById(jobId1)).thenReturn(Optional.of(job1));
         when(jobDataService.getJobExecutionById(jobId2)).thenReturn(Optional.of(job2));
 
+        CountDownLatch blockLatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blockLatch.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(executionService).executeJob(any());
+
         // When
-        workerJobQueue.consumeJob(jobId1.toString());
-        workerJobQueue.consumeJob(jobId2.toString());
+        workerJobQueue.consumeJob(jobId1.toString(), channel, 1L, null);
+        workerJobQueue.consumeJob(jobId2.toString(), channel, 2L, null);
 
         // Then
         assertEquals(2, workerJobQueue.getActiveJobCount());
+        blockLatch.countDown();
+    }
+
+    @Test
+    public void testConsumeJob_runsJobsInParallelUpToPoolSize() throws Exception {
+        // Given
+        UUID jobId1 = UUID.randomUUID();
+        UUID jobId2 = UUID.randomUUID();
+        JobExecutionDTO job1 = new JobExecutionDTO();
+        JobExecutionDTO job2 = new JobExecutionDTO();
+        job1.setId(jobId1);
+        job2.setId(jobId2);
+
+        when(jobDataService.getJobExecutionById(jobId1)).thenReturn(Optional.of(job1));
+        when(jobDataService.getJobExecutionById(jobId2)).thenReturn(Optional.of(job2));
+
+        // Each job waits until both are running, which only succeeds with two slots
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothRunning.countDown();
+            assertTrue(bothRunning.await(2, TimeUnit.SECONDS));
+            return null;
+        }).when(executionService).executeJob(any());
+
+        // When
+        workerJobQueue.consumeJob(jobId1.toString(), channel, 1L, null);
+        workerJobQueue.consumeJob(jobId2.toString(), channel, 2L, null);
+
+        // Then - both messages are acknowledged only after their jobs finished
+        verify(channel, timeout(2000)).basicAck(1L, false);
+        verify(channel, timeout(2000)).basicAck(2L, false);
+        verify(jobDataService, never()).updateJobStatus(any(), eq(ExecutionStatus.FAILED), anyString());
+        assertEquals(2, workerJobQueue.getMaxConcurrentJobs());
+    }
+
+    @Test
+    public void testConsumeJob_messageIsNotAcknowledgedWhileJobRuns() throws Exception {
+        // Given
+        UUID jobId = UUID.randomUUID();
+        JobExecutionDTO jobExecution = new JobExecutionDTO();
+        jobExecution.setId(jobId);
+
+        when(jobDataService.getJobExecutionById(jobId)).thenReturn(Optional.of(jobExecution));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blockLatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            blockLatch.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(executionService).executeJob(any());
+
+        // When
+        workerJobQueue.consumeJob(jobId.toString(), channel, 7L, null);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        // Then
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        blockLatch.countDown();
+        verify(channel, timeout(2000)).basicAck(7L, false);
+    }
+
+    @Test
+    public void testConsumeJob_virtualModeRunsJobOnVirtualThread() throws Exception {
+        // Given
+        WorkerJobQueue virtualQueue = new WorkerJobQueue(executionService, jobDataService, jobMetrics, 2, "virtual");
+        UUID jobId = UUID.randomUUID();
+        JobExecutionDTO jobExecution = new JobExecutionDTO();
+        jobExecution.setId(jobId);
+
+        when(jobDataService.getJobExecutionById(jobId)).thenReturn(Optional.of(jobExecution));
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicBoolean ranOnVirtualThread = new AtomicBoolean();
+        doAnswer(invocation -> {
+            ranOnVirtualThread.set(Thread.currentThread().isVirtual());
+            latch.countDown();
+            return null;
+        }).when(executionService).executeJob(any());
+
+        // When
+        virtualQueue.consumeJob(jobId.toString(), channel, 3L, null);
+
+        // Then
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(ranOnVirtualThread.get());
+        assertEquals(WorkerJobQueue.ExecutionMode.VIRTUAL, virtualQueue.getExecutionMode());
+        verify(channel, timeout(2000)).basicAck(3L, false);
+        virtualQueue.shutdown();
+    }
+
+    @Test
+    public void testShutdown_interruptedJobIsRequeuedInsteadOfFailed() throws Exception {
+        // Given
+        UUID jobId = UUID.randomUUID();
+        JobExecutionDTO jobExecution = new JobExecutionDTO();
+        jobExecution.setId(jobId);
+        when(jobDataService.getJobExecutionById(jobId)).thenReturn(Optional.of(jobExecution));
+
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DockerExecutionException("Docker execution interrupted", e);
+            }
+            return null;
+        }).when(executionService).executeJob(any());
+
+        workerJobQueue.consumeJob(jobId.toString(), channel, 5L, null);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        // When
+        workerJobQueue.shutdown();
+
+        // Then - handed back to the queue before shutdown returns, without a FAILED status
+        verify(channel).basicNack(5L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        verify(jobDataService, never()).updateJobStatus(any(), eq(ExecutionStatus.FAILED), anyString());
+    }
+
+    @Test
+    public void testConstructor_rejectsEmptyPool() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new WorkerJobQueue(executionService, jobDataService, jobMetrics, 0, "platform"));
     }
 
     @Test
@@ -162,7 +353,7 @@ public class WorkerJobQueueTest {
         }).when(executionService).executeJob(any());
 
         // Start the job
-        workerJobQueue.consumeJob(jobId.toString());
+        workerJobQueue.consumeJob(jobId.toString(), channel, 1L, null);
 
         // Give the job a moment to start
         Thread.sleep(100);
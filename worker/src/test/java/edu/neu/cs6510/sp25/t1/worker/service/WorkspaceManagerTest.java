@@ -0,0 +1,159 @@
+package edu.neu.cs6510.sp25.t1.worker.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.RemoveContainerCmd;
+import com.github.dockerjava.api.command.StartContainerCmd;
+import com.github.dockerjava.api.command.WaitContainerCmd;
+import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.model.Volume;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WorkspaceManagerTest {
+
+    private static final String REPO_URL = "https://github.com/owner/repo.git";
+
+    @Mock
+    private DockerClient dockerClient;
+
+    @Mock
+    private GitCloneService gitCloneService;
+
+    @Mock
+    private VolumeRegistry volumeRegistry;
+
+    @Test
+    void acquire_sharedModeUsesBaseClone() throws Exception {
+        WorkspaceManager manager = new WorkspaceManager(dockerClient, gitCloneService, volumeRegistry, false);
+
+        WorkspaceManager.Workspace workspace = manager.acquire(REPO_URL, "main", "demo", "abc123", UUID.randomUUID());
+
+        assertEquals("cicd-demo", workspace.volumeName());
+        assertEquals("/app/repo", workspace.workingDir());
+        assertNull(workspace.id());
+        verify(gitCloneService).cloneRepoToVolume(REPO_URL, "main", "demo", "abc123");
+        verifyNoInteractions(dockerClient);
+    }
+
+    @Test
+    void acquire_createsWorktreeAndRemovesFinishedOnes() throws Exception {
+        when(volumeRegistry.lockFor("cicd-demo")).thenReturn(new ReentrantLock());
+        CreateContainerCmd createContainerCmd = stubHelperContainer(0);
+        WorkspaceManager manager = new WorkspaceManager(dockerClient, gitCloneService, volumeRegistry, true);
+        UUID firstJob = UUID.randomUUID();
+        UUID secondJob = UUID.randomUUID();
+
+        WorkspaceManager.Workspace first = manager.acquire(REPO_URL, "main", "demo", null, firstJob);
+        assertEquals("/app/workspaces/" + firstJob, first.workingDir());
+
+        manager.release(first);
+        assertEquals(1, manager.getPendingCleanupCount());
+
+        manager.acquire(REPO_URL, "main", "demo", null, secondJob);
+        assertEquals(0, manager.getPendingCleanupCount());
+
+        ArgumentCaptor<String[]> entrypoint = ArgumentCaptor.forClass(String[].class);
+        verify(createContainerCmd, times(2)).withEntrypoint(entrypoint.capture());
+        List<String> secondArgs = Arrays.asList(entrypoint.getAllValues().get(1));
+        assertEquals(List.of(secondJob.toString(), firstJob.toString()), secondArgs.subList(4, 6));
+    }
+
+    @Test
+    void acquire_failedWorktreeKeepsFinishedWorkspacesForLater() throws Exception {
+        when(volumeRegistry.lockFor("cicd-demo")).thenReturn(new ReentrantLock());
+        stubHelperContainer(128);
+        WorkspaceManager manager = new WorkspaceManager(dockerClient, gitCloneService, volumeRegistry, true);
+        manager.release(new WorkspaceManager.Workspace("cicd-demo", "/app/workspaces/old", "old"));
+
+        assertThrows(RuntimeException.class,
+                () -> manager.acquire(REPO_URL, "main", "demo", null, UUID.randomUUID()));
+        assertEquals(1, manager.getPendingCleanupCount());
+    }
+
+    @Test
+    void sweep_removesFinishedWorkspacesOfIdleVolumes() throws Exception {
+        when(volumeRegistry.lockFor("cicd-demo")).thenReturn(new ReentrantLock());
+        CreateContainerCmd createContainerCmd = stubHelperContainer(0);
+        WorkspaceManager manager = new WorkspaceManager(dockerClient, gitCloneService, volumeRegistry, true);
+        manager.release(new WorkspaceManager.Workspace("cicd-demo", "/app/workspaces/old", "old"));
+
+        manager.sweep();
+
+        assertEquals(0, manager.getPendingCleanupCount());
+        ArgumentCaptor<String[]> entrypoint = ArgumentCaptor.forClass(String[].class);
+        verify(createContainerCmd).withEntrypoint(entrypoint.capture());
+        assertEquals(List.of("remove-worktrees", "old"), Arrays.asList(entrypoint.getValue()).subList(3, 5));
+    }
+
+    @Test
+    void sweep_skipsVolumesInUse() throws Exception {
+        ReentrantLock busy = new ReentrantLock();
+        when(volumeRegistry.lockFor("cicd-demo")).thenReturn(busy);
+        WorkspaceManager manager = new WorkspaceManager(dockerClient, gitCloneService, volumeRegistry, true);
+        manager.release(new WorkspaceManager.Workspace("cicd-demo", "/app/workspaces/old", "old"));
+
+        Thread holder = Thread.ofPlatform().start(busy::lock);
+        holder.join();
+        manager.sweep();
+
+        assertEquals(1, manager.getPendingCleanupCount());
+        verifyNoInteractions(dockerClient);
+    }
+
+    @Test
+    void sweep_failedRemovalKeepsWorkspacesForLater() throws Exception {
+        when(volumeRegistry.lockFor("cicd-demo")).thenReturn(new ReentrantLock());
+        stubHelperContainer(1);
+        WorkspaceManager manager = new WorkspaceManager(dockerClient, gitCloneService, volumeRegistry, true);
+        manager.release(new WorkspaceManager.Workspace("cicd-demo", "/app/workspaces/old", "old"));
+
+        manager.sweep();
+
+        assertEquals(1, manager.getPendingCleanupCount());
+    }
+
+    private CreateContainerCmd stubHelperContainer(int exitCode) {
+        CreateContainerCmd createContainerCmd = mock(CreateContainerCmd.class);
+        CreateContainerResponse containerResponse = mock(CreateContainerResponse.class);
+        when(dockerClient.createContainerCmd("alpine/git:2.36.2")).thenReturn(createContainerCmd);
+        when(createContainerCmd.withEntrypoint(any(String[].class))).thenReturn(createContainerCmd);
+        when(createContainerCmd.withHostConfig(any())).thenReturn(createContainerCmd);
+        when(createContainerCmd.withVolumes(any(Volume[].class))).thenReturn(createContainerCmd);
+        when(createContainerCmd.exec()).thenReturn(containerResponse);
+        when(containerResponse.getId()).thenReturn("helper");
+
+        when(dockerClient.startContainerCmd("helper")).thenReturn(mock(StartContainerCmd.class));
+
+        WaitContainerCmd waitContainerCmd = mock(WaitContainerCmd.class);
+        WaitContainerResultCallback waitResult = mock(WaitContainerResultCallback.class);
+        when(dockerClient.waitContainerCmd("helper")).thenReturn(waitContainerCmd);
+        when(waitContainerCmd.start()).thenReturn(waitResult);
+        when(waitResult.awaitStatusCode()).thenReturn(exitCode);
+
+        RemoveContainerCmd removeContainerCmd = mock(RemoveContainerCmd.class);
+        when(dockerClient.removeContainerCmd("helper")).thenReturn(removeContainerCmd);
+        when(removeContainerCmd.withForce(true)).thenReturn(removeContainerCmd);
+        return createContainerCmd;
+    }
+}